@@ -0,0 +1,122 @@
+package it.trenical.server.benchmark;
+
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.tratte.TrattaUtil;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.generazione.EsitoGenerazione;
+import it.trenical.server.viaggi.generazione.GeneratoreViaggi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Database di prova per i benchmark.
+ * Crea un file SQLite temporaneo con lo schema di trenical.sql e lo riempie con
+ * il GeneratoreViaggi fino al numero di viaggi richiesto. Va preparato prima di
+ * qualsiasi uso di DatabaseManager, che legge il percorso una sola volta.
+ */
+public final class DatasetViaggi {
+
+    public static final String PROPRIETA_SCHEMA = "trenical.benchmark.schema";
+
+    private static final int VIAGGI_PER_TRATTA_AL_GIORNO = 20;
+    private static final int TRENI_PER_TIPO = 4;
+
+    private static DatasetViaggi corrente;
+
+    private final Path file;
+    private final LocalDate primoGiorno;
+    private final int giorni;
+    private final long viaggiCreati;
+
+    private DatasetViaggi(Path file, LocalDate primoGiorno, int giorni, long viaggiCreati) {
+        this.file = file;
+        this.primoGiorno = primoGiorno;
+        this.giorni = giorni;
+        this.viaggiCreati = viaggiCreati;
+    }
+
+    /**
+     * Prepara il dataset una volta per JVM: ogni fork di JMH ne ha uno suo
+     */
+    public static synchronized DatasetViaggi prepara(int viaggi) throws IOException, SQLException {
+        if (corrente != null) {
+            return corrente;
+        }
+        Logger.getLogger("").setLevel(Level.WARNING);
+
+        Path file = Files.createTempFile("trenical-benchmark-", ".db");
+        creaSchema(file);
+        System.setProperty("trenical.db.percorso", file.toString());
+
+        List<Tratta> tratte = TrattaUtil.creaTutteLeTratte();
+        int perTratta = Math.max(1, Math.min(VIAGGI_PER_TRATTA_AL_GIORNO, viaggi / tratte.size()));
+        int giorni = Math.max(1, (int) Math.ceil((double) viaggi / ((long) tratte.size() * perTratta)));
+        LocalDate primoGiorno = LocalDate.now().plusDays(1);
+
+        EsitoGenerazione esito = new GeneratoreViaggi(new ViaggioDAO(), creaTreni())
+                .genera(primoGiorno, primoGiorno.plusDays(giorni - 1), tratte, perTratta, null);
+
+        corrente = new DatasetViaggi(file, primoGiorno, giorni, esito.getViaggiCreati());
+        return corrente;
+    }
+
+    public static synchronized void elimina() throws IOException {
+        if (corrente == null) {
+            return;
+        }
+        DatabaseManager.getInstance().chiudi();
+        Files.deleteIfExists(corrente.file);
+        Files.deleteIfExists(Path.of(corrente.file + "-wal"));
+        Files.deleteIfExists(Path.of(corrente.file + "-shm"));
+        corrente = null;
+    }
+
+    private static void creaSchema(Path file) throws IOException, SQLException {
+        Path schema = Path.of(System.getProperty(PROPRIETA_SCHEMA, "trenical.sql"));
+        StringBuilder script = new StringBuilder();
+        for (String riga : Files.readAllLines(schema, StandardCharsets.UTF_8)) {
+            if (!riga.trim().startsWith("--")) {
+                script.append(riga).append('\n');
+            }
+        }
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+             Statement stmt = conn.createStatement()) {
+            for (String istruzione : script.toString().split(";")) {
+                if (!istruzione.isBlank()) {
+                    stmt.execute(istruzione);
+                }
+            }
+        }
+    }
+
+    private static List<Treno> creaTreni() {
+        TrenoDirector director = new TrenoDirector();
+        List<Treno> treni = new ArrayList<>();
+        for (int i = 0; i < TRENI_PER_TIPO; i++) {
+            treni.add(director.costruisciTrenoEconomy("BENCH-E" + i));
+            treni.add(director.costruisciTrenoStandard("BENCH-S" + i));
+            treni.add(director.costruisciTrenoBusiness("BENCH-B" + i));
+        }
+        return treni;
+    }
+
+    public LocalDate getPrimoGiorno() { return primoGiorno; }
+    public int getGiorni() { return giorni; }
+    public long getViaggiCreati() { return viaggiCreati; }
+}
@@ -0,0 +1,104 @@
+package it.trenical.server.benchmark;
+
+import it.trenical.server.cliente.Biglietto;
+import it.trenical.server.promozioni.Promozione;
+import it.trenical.server.promozioni.PromozioneStandard;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.tratte.TrattaUtil;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.strategy.CalcoloViaggioStrategy;
+import it.trenical.server.viaggi.strategy.StrategyFactory;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Operazioni del dominio senza database: biglietti, sconti, ricerca stazioni e strategie di calcolo.
+ * Da eseguire con -prof gc per confrontare anche le allocazioni per operazione.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DominioBenchmark {
+
+    @Param({"ECONOMY", "STANDARD", "BUSINESS"})
+    private TipoTreno tipoTreno;
+
+    private Viaggio viaggio;
+    private Biglietto biglietto;
+    private Promozione promozione;
+    private CalcoloViaggioStrategy strategia;
+    private String[] nomiStazioni;
+    private int[] distanze;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void prepara() {
+        Logger.getLogger("").setLevel(java.util.logging.Level.WARNING);
+
+        TrenoDirector director = new TrenoDirector();
+        viaggio = new Viaggio(director.costruisciTrenoPerTipo(tipoTreno, "BENCH-1"),
+                new Tratta(Stazione.ROMA, Stazione.MILANO), LocalDate.now().plusDays(30));
+        biglietto = new Biglietto(viaggio, "BGT_BENCH", "Mario Rossi", viaggio.getPrezzo(), LocalDateTime.now());
+        promozione = new PromozioneStandard("Benchmark", 0.2);
+        strategia = StrategyFactory.getStrategy(tipoTreno);
+
+        Stazione[] stazioni = Stazione.values();
+        nomiStazioni = new String[stazioni.length * 2];
+        for (int i = 0; i < stazioni.length; i++) {
+            nomiStazioni[2 * i] = stazioni[i].getNome();
+            nomiStazioni[2 * i + 1] = stazioni[i].getNome().toUpperCase();
+        }
+
+        List<Tratta> tratte = TrattaUtil.creaTutteLeTratte();
+        distanze = tratte.stream().mapToInt(Tratta::getDistanzaKm).toArray();
+    }
+
+    @Benchmark
+    public Biglietto creaBiglietto() {
+        Biglietto nuovo = new Biglietto(viaggio);
+        viaggio.liberaPosto();
+        return nuovo;
+    }
+
+    @Benchmark
+    public Biglietto clonaBiglietto() {
+        Biglietto clonato = biglietto.clone();
+        viaggio.liberaPosto();
+        return clonato;
+    }
+
+    @Benchmark
+    public double applicaSconto() {
+        return promozione.applicaSconto(distanze[prossimo(distanze.length)]);
+    }
+
+    @Benchmark
+    public Stazione stazioneDaNome() {
+        return Stazione.fromNome(nomiStazioni[prossimo(nomiStazioni.length)]);
+    }
+
+    @Benchmark
+    public void calcolaViaggio(Blackhole bh) {
+        int distanza = distanze[prossimo(distanze.length)];
+        bh.consume(strategia.calcolaDurata(distanza, tipoTreno));
+        bh.consume(strategia.calcolaPrezzo(distanza, tipoTreno));
+    }
+
+    private int prossimo(int lunghezza) {
+        indice = indice + 1 == lunghezza ? 0 : indice + 1;
+        return indice % lunghezza;
+    }
+}
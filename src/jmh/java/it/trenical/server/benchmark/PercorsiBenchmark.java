@@ -0,0 +1,118 @@
+package it.trenical.server.benchmark;
+
+import it.trenical.server.stazioni.Binario;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.RegistroTreni;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.percorsi.Percorso;
+import it.trenical.server.viaggi.percorsi.RicercaPercorsi;
+import it.trenical.server.viaggi.percorsi.TabellaConnessioni;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Ricerca di percorsi con cambi su reti generate in memoria, senza database.
+ * Ogni stazione è collegata solo a poche altre scelte a caso, così la maggior parte
+ * delle coppie richiede almeno un cambio; l'orario copre un mese intero.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PercorsiBenchmark {
+
+    private static final int GIORNI = 30;
+    private static final int CAMBIO_MINIMO = 10;
+    private static final long ORIZZONTE = 24 * 60;
+    private static final int RICHIESTE = 1024;
+
+    @Param({"3", "6"})
+    private int collegamentiPerStazione;
+
+    @Param({"4", "16"})
+    private int corsePerGiorno;
+
+    private List<Viaggio> viaggi;
+    private RicercaPercorsi ricerca;
+    private Stazione[] partenze;
+    private Stazione[] arrivi;
+    private LocalDateTime[] orari;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void prepara() {
+        Logger.getLogger("").setLevel(java.util.logging.Level.WARNING);
+
+        Random random = new Random(42);
+        Stazione[] stazioni = Stazione.values();
+        LocalDate primoGiorno = LocalDate.now().plusDays(1);
+        TipoTreno[] tipi = TipoTreno.values();
+
+        viaggi = new ArrayList<>();
+        for (Stazione partenza : stazioni) {
+            for (int c = 0; c < collegamentiPerStazione; c++) {
+                Stazione arrivo = stazioni[random.nextInt(stazioni.length)];
+                if (arrivo == partenza) {
+                    continue;
+                }
+                Tratta tratta = Tratta.di(partenza, arrivo);
+                for (int g = 0; g < GIORNI; g++) {
+                    for (int k = 0; k < corsePerGiorno; k++) {
+                        TipoTreno tipo = tipi[random.nextInt(tipi.length)];
+                        LocalTime orario = LocalTime.of(5 + random.nextInt(17), random.nextInt(60));
+                        viaggi.add(new Viaggio(RegistroTreni.getInstance().getTreno(tipo, "BENCH-" + tipo.ordinal()),
+                                tratta, primoGiorno.plusDays(g), orario, Binario.BINARIO_1));
+                    }
+                }
+            }
+        }
+        ricerca = new RicercaPercorsi(TabellaConnessioni.costruisci(viaggi), CAMBIO_MINIMO);
+
+        partenze = new Stazione[RICHIESTE];
+        arrivi = new Stazione[RICHIESTE];
+        orari = new LocalDateTime[RICHIESTE];
+        for (int i = 0; i < RICHIESTE; i++) {
+            partenze[i] = stazioni[random.nextInt(stazioni.length)];
+            do {
+                arrivi[i] = stazioni[random.nextInt(stazioni.length)];
+            } while (arrivi[i] == partenze[i]);
+            orari[i] = LocalDateTime.of(primoGiorno.plusDays(random.nextInt(GIORNI)),
+                    LocalTime.of(random.nextInt(24), 0));
+        }
+    }
+
+    @Benchmark
+    public List<Percorso> pianifica() {
+        int i = prossimo();
+        return ricerca.cerca(partenze[i], arrivi[i], orari[i], 2, ORIZZONTE);
+    }
+
+    @Benchmark
+    public List<Percorso> pianificaSoloDiretti() {
+        int i = prossimo();
+        return ricerca.cerca(partenze[i], arrivi[i], orari[i], 0, ORIZZONTE);
+    }
+
+    @Benchmark
+    public TabellaConnessioni costruisciTabella() {
+        return TabellaConnessioni.costruisci(viaggi);
+    }
+
+    private int prossimo() {
+        indice = indice + 1 == RICHIESTE ? 0 : indice + 1;
+        return indice;
+    }
+}
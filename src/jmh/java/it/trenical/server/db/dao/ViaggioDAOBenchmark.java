@@ -0,0 +1,94 @@
+package it.trenical.server.db.dao;
+
+import it.trenical.server.benchmark.DatasetViaggi;
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.ViaggioMapper;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.viaggi.Viaggio;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ricerca dei viaggi per tratta e data e ricostruzione delle righe in oggetti Viaggio.
+ * scorriGiorno legge solo l'id di ogni riga: la differenza con mappaGiorno è il costo
+ * di ViaggioMapper.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ViaggioDAOBenchmark {
+
+    private static final String SQL_GIORNO = "SELECT * FROM viaggi WHERE data_viaggio = ?";
+
+    @Param({"10000", "100000"})
+    private int viaggi;
+
+    private ViaggioDAO viaggioDAO;
+    private DatasetViaggi dataset;
+    private Stazione[] stazioni;
+
+    @Setup(Level.Trial)
+    public void prepara() throws IOException, SQLException {
+        dataset = DatasetViaggi.prepara(viaggi);
+        viaggioDAO = new ViaggioDAO();
+        stazioni = Stazione.values();
+    }
+
+    @TearDown(Level.Trial)
+    public void chiudi() throws IOException {
+        DatasetViaggi.elimina();
+    }
+
+    @Benchmark
+    public List<Viaggio> findByTrattaEData() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int partenza = random.nextInt(stazioni.length);
+        int arrivo = (partenza + 1 + random.nextInt(stazioni.length - 1)) % stazioni.length;
+        return viaggioDAO.findByTrattaEData(stazioni[partenza], stazioni[arrivo], giornoCasuale());
+    }
+
+    @Benchmark
+    public void mappaGiorno(Blackhole bh) throws SQLException {
+        try (ConnessioneDB conn = DatabaseManager.getInstance().lettura();
+             PreparedStatement stmt = conn.prepara(SQL_GIORNO)) {
+            stmt.setLong(1, giornoCasuale().toEpochDay());
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    bh.consume(mapper.mappa(rs));
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void scorriGiorno(Blackhole bh) throws SQLException {
+        try (ConnessioneDB conn = DatabaseManager.getInstance().lettura();
+             PreparedStatement stmt = conn.prepara(SQL_GIORNO)) {
+            stmt.setLong(1, giornoCasuale().toEpochDay());
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    bh.consume(rs.getString(1));
+                }
+            }
+        }
+    }
+
+    private LocalDate giornoCasuale() {
+        return dataset.getPrimoGiorno().plusDays(ThreadLocalRandom.current().nextInt(dataset.getGiorni()));
+    }
+}
@@ -0,0 +1,53 @@
+package it.trenical.server.grpc;
+
+import it.trenical.grpc.ViaggioDTO;
+import it.trenical.server.benchmark.DatasetViaggi;
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.viaggi.Viaggio;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversione dei viaggi nei messaggi protobuf restituiti da CercaViaggi
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversioneDTOBenchmark {
+
+    @Param({"10000"})
+    private int viaggi;
+
+    private TrenicalServiceImpl servizio;
+    private List<Viaggio> campione;
+    private int indice;
+
+    @Setup(Level.Trial)
+    public void prepara() throws IOException, SQLException {
+        DatasetViaggi dataset = DatasetViaggi.prepara(viaggi);
+        servizio = new TrenicalServiceImpl();
+        campione = new ViaggioDAO().findByData(dataset.getPrimoGiorno());
+        if (campione.isEmpty()) {
+            throw new IllegalStateException("Dataset vuoto per " + dataset.getPrimoGiorno());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void chiudi() throws IOException {
+        DatasetViaggi.elimina();
+    }
+
+    @Benchmark
+    public ViaggioDTO convertiViaggioInDTO() {
+        indice = indice + 1 == campione.size() ? 0 : indice + 1;
+        return servizio.convertiViaggioInDTO(campione.get(indice));
+    }
+}
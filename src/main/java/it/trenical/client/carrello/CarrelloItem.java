@@ -2,18 +2,28 @@ package it.trenical.client.carrello;
 
 import it.trenical.grpc.ViaggioDTO;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public class CarrelloItem {
 
     private String viaggioId;
     private double prezzo;
     private int quantita;
     private ViaggioDTO viaggio;
+    private final List<String> idPrenotazioni = new ArrayList<>();
 
-    public CarrelloItem(String viaggioId,  double prezzo, int quantita, ViaggioDTO viaggio) {
+    /**
+     * @param idPrenotazione prenotazione del server che trattiene i posti
+     */
+    public CarrelloItem(String viaggioId,  double prezzo, int quantita, ViaggioDTO viaggio, String idPrenotazione) {
         this.viaggioId = viaggioId;
         this.prezzo = prezzo;
         this.quantita = quantita;
         this.viaggio = viaggio;
+        if (idPrenotazione != null && !idPrenotazione.isEmpty()) {
+            idPrenotazioni.add(idPrenotazione);
+        }
     }
 
     public String getViaggioId() {return viaggioId;}
@@ -24,6 +34,8 @@ public class CarrelloItem {
 
     public ViaggioDTO getViaggio() {return viaggio;}
 
+    public List<String> getIdPrenotazioni() {return new ArrayList<>(idPrenotazioni);}
+
     public void setQuantita(int quantita) {
         this.quantita = quantita;
     }
@@ -36,6 +48,14 @@ public class CarrelloItem {
         this.quantita += incremento;
     }
 
+    /**
+     * Aggiunge i biglietti di un'altra aggiunta sullo stesso viaggio, con le sue prenotazioni
+     */
+    public void unisci(CarrelloItem altro) {
+        incrementaQuantita(altro.getQuantita());
+        idPrenotazioni.addAll(altro.idPrenotazioni);
+    }
+
     @Override
     public String toString() {
         return String.format("Item: viaggioId='%s', quantita=%d, prezzo=%.2f",
@@ -39,7 +39,7 @@ public class GestoreCarrello {
         }
 
         if (esistente != null) {
-            esistente.incrementaQuantita(nuovoItem.getQuantita());
+            esistente.unisci(nuovoItem);
         } else {
             carrielloItems.add(nuovoItem);
         }
@@ -99,6 +99,17 @@ public class GestoreCarrello {
         return timer.getTimerLabel();
     }
 
+    /**
+     * Prenotazioni del server per tutti i viaggi nel carrello
+     */
+    public List<String> getIdPrenotazioni() {
+        List<String> idPrenotazioni = new ArrayList<>();
+        for (CarrelloItem item : carrielloItems) {
+            idPrenotazioni.addAll(item.getIdPrenotazioni());
+        }
+        return idPrenotazioni;
+    }
+
     public List<CarrelloItem> getCarrelloItems() {
         return new ArrayList<>(carrielloItems);
     }
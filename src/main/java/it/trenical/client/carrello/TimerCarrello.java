@@ -55,7 +55,7 @@ public class TimerCarrello {
                     System.out.println("Timer carrello terminato");
                     terminato = true;
                     stop();
-                    GestoreCarrello.getInstance().svuotaCarrello();
+                    clientApp.annullaCarrello(emailUtente);
                 }
             }
             private String format(Duration remaining) {
@@ -2,6 +2,7 @@ package it.trenical.client.command;
 
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.control.ButtonBar;
 import javafx.scene.control.ButtonType;
@@ -54,17 +55,16 @@ public class AbbonamentoCommand implements Command {
                     return;
                 }
             }
-            ControllerTrenical.RisultatoAbbonamento risultato =
-                    controllerTrenical.gestisciAbbonamento(emailUtente, vuoleNotifiche);
-
-            if (risultato.isSuccesso()) {
-                clientApp.aggiornaStatoAbbonamento(risultato.isAbbonato(), risultato.hasNotificheAttive());
-
-            } else {
-                logger.warning("Errore gestione abbonamento: " + risultato.getMessaggio());
-                clientApp.mostraErrore("Errore Abbonamento", risultato.getMessaggio());
-            }
-
+            controllerTrenical.gestisciAbbonamentoAsync(emailUtente, vuoleNotifiche)
+                    .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                        if (errore != null) {
+                            logger.severe("Errore nel command gestione abbonamento: " + errore.getMessage());
+                            clientApp.mostraErrore("Errore Sistema",
+                                    "Errore durante la gestione dell'abbonamento: " + errore.getMessage());
+                            return;
+                        }
+                        mostraRisultato(risultato);
+                    }));
         } catch (Exception e) {
             logger.severe("Errore nel command gestione abbonamento: " + e.getMessage());
             e.printStackTrace();
@@ -72,4 +72,13 @@ public class AbbonamentoCommand implements Command {
                     "Errore durante la gestione dell'abbonamento: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    private void mostraRisultato(ControllerTrenical.RisultatoAbbonamento risultato) {
+        if (risultato.isSuccesso()) {
+            clientApp.aggiornaStatoAbbonamento(risultato.isAbbonato(), risultato.hasNotificheAttive());
+        } else {
+            logger.warning("Errore gestione abbonamento: " + risultato.getMessaggio());
+            clientApp.mostraErrore("Errore Abbonamento", risultato.getMessaggio());
+        }
+    }
+}
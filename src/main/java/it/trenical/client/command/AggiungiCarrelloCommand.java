@@ -5,6 +5,7 @@ import it.trenical.client.gui.ClientApp;
 import it.trenical.client.carrello.GestoreCarrello;
 import it.trenical.client.carrello.CarrelloItem;
 import it.trenical.grpc.ViaggioDTO;
+import javafx.application.Platform;
 
 public class AggiungiCarrelloCommand implements Command {
     private final ControllerTrenical controllerTrenical;
@@ -24,10 +25,20 @@ public class AggiungiCarrelloCommand implements Command {
 
     @Override
     public void execute() {
+        System.out.println("Aggiungiamo al carrello " + quantita + " biglietti del viaggio " + viaggioDTO.getId());
+        controllerTrenical.aggiungiAlCarrelloAsync(viaggioDTO.getId(), quantita, emailUtente)
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        clientApp.mostraErrore("Errore di Sistema",
+                                "Errore durante l'aggiunta al carrello:\n" + errore.getMessage());
+                        return;
+                    }
+                    mostraRisultato(risultato);
+                }));
+    }
+
+    private void mostraRisultato(ControllerTrenical.RisultatoCarrello risultato) {
         try {
-            System.out.println("Aggiungiamo al carrello " + quantita + " biglietti del viaggio " + viaggioDTO.getId());
-            ControllerTrenical.RisultatoCarrello risultato =
-                    controllerTrenical.aggiungiAlCarrello(viaggioDTO.getId(), quantita, emailUtente);
             if (risultato.isSuccesso()) {
                 System.out.println("Server: " + risultato.getMessaggio());
 
@@ -2,8 +2,14 @@ package it.trenical.client.command;
 
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
+import it.trenical.grpc.PercorsoDTO;
+import it.trenical.grpc.ViaggioDTO;
+import javafx.application.Platform;
 
 import java.time.LocalDate;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class CercaViaggiCommand implements Command {
     private final ControllerTrenical controllerTrenical;
@@ -21,26 +27,61 @@ public class CercaViaggiCommand implements Command {
         this.dataViaggio = dataViaggio;
     }
 
+    /**
+     * Svuota la lista e la riempie pagina per pagina man mano che arrivano dal server.
+     * Le pagine di una ricerca superata da una più recente vengono ignorate
+     */
     @Override
     public void execute() {
-        try {
-            ControllerTrenical.RisultatoRicerca risultato =
-                    controllerTrenical.cercaViaggi(stazionePartenza, stazioneArrivo, dataViaggio);
-
-            if (risultato.isSuccesso()) {
-                if (risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
-                    clientApp.getViaggiListView().getItems().clear();
-                    clientApp.getViaggiListView().getItems().addAll(risultato.getViaggi());
-                } else {
-                    clientApp.getViaggiListView().getItems().clear();
-                }
-            } else {
+        clientApp.getViaggiListView().getItems().clear();
+
+        AtomicReference<CompletableFuture<ControllerTrenical.RisultatoRicerca>> ricerca = new AtomicReference<>();
+        ricerca.set(controllerTrenical.cercaViaggiFlusso(stazionePartenza, stazioneArrivo, dataViaggio,
+                pagina -> Platform.runLater(() -> {
+                    if (!ricerca.get().isCancelled()) {
+                        clientApp.getViaggiListView().getItems().addAll(pagina);
+                    }
+                })));
+
+        ricerca.get().whenComplete((risultato, errore) -> Platform.runLater(() -> {
+            if (errore instanceof CancellationException) {
+                return; // superata da una ricerca più recente
+            }
+            if (errore != null) {
+                clientApp.mostraErrore("Errore di Sistema",
+                        "Errore durante la ricerca: " + errore.getMessage());
+                return;
+            }
+            if (!risultato.isSuccesso()) {
                 clientApp.getViaggiListView().getItems().clear();
+            } else if (clientApp.getViaggiListView().getItems().isEmpty()) {
+                proponiPercorsi();
             }
+        }));
+    }
 
-        } catch (Exception e) {
-            clientApp.mostraErrore("Errore di Sistema",
-                    "Errore durante la ricerca: " + e.getMessage());
-        }
+    /**
+     * Senza treni diretti propone le soluzioni con cambio
+     */
+    private void proponiPercorsi() {
+        controllerTrenical.pianificaViaggioAsync(stazionePartenza, stazioneArrivo, dataViaggio)
+                .thenAccept(risultato -> {
+                    if (!risultato.isSuccesso() || risultato.getPercorsi().isEmpty()) {
+                        return;
+                    }
+                    StringBuilder testo = new StringBuilder("Nessun treno diretto. Soluzioni con cambio:\n");
+                    for (PercorsoDTO percorso : risultato.getPercorsi()) {
+                        testo.append(String.format("%n%s → %s (%s), %d %s, € %.2f",
+                                percorso.getOrarioPartenza(), percorso.getOrarioArrivo(),
+                                percorso.getDurataFormattata(), percorso.getCambi(),
+                                percorso.getCambi() == 1 ? "cambio" : "cambi", percorso.getPrezzoTotale()));
+                        for (ViaggioDTO tratta : percorso.getTratteList()) {
+                            testo.append(String.format("%n   %s %s → %s %s",
+                                    tratta.getOrarioPartenza(), tratta.getStazionePartenza(),
+                                    tratta.getOrarioArrivo(), tratta.getStazioneArrivo()));
+                        }
+                    }
+                    Platform.runLater(() -> clientApp.mostraNotifica(testo.toString()));
+                });
     }
 }
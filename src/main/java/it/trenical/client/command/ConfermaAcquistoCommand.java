@@ -4,6 +4,7 @@ import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
 import it.trenical.client.carrello.GestoreCarrello;
 import it.trenical.client.carrello.CarrelloItem;
+import javafx.application.Platform;
 
 import java.util.List;
 
@@ -41,23 +42,32 @@ public class ConfermaAcquistoCommand implements Command {
                 return;
             }
 
-            ControllerTrenical.RisultatoAcquisto risultato = controllerTrenical.confermaAcquisto(
-                    carrelloItems, nominativi, modalitaPagamento, emailUtente, codicePromozione);
-
-            if (risultato.isSuccesso()) {
-                GestoreCarrello.getInstance().svuotaCarrello();
-                clientApp.aggiornaTabCarrello();
-
-                String messaggio = costruisciMessaggioSuccesso(risultato);
-                clientApp.mostraSuccesso("Acquisto Completato", messaggio);
-            } else {
-                clientApp.mostraErrore("Errore Acquisto", risultato.getMessaggio());
-            }
+            controllerTrenical.confermaAcquistoAsync(
+                            carrelloItems, nominativi, modalitaPagamento, emailUtente, codicePromozione)
+                    .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                        if (errore != null) {
+                            clientApp.mostraErrore("Errore", "Errore durante l'acquisto: " + errore.getMessage());
+                            return;
+                        }
+                        mostraRisultato(risultato);
+                    }));
         } catch (Exception e) {
             clientApp.mostraErrore("Errore", "Errore durante l'acquisto: " + e.getMessage());
         }
     }
 
+    private void mostraRisultato(ControllerTrenical.RisultatoAcquisto risultato) {
+        if (risultato.isSuccesso()) {
+            GestoreCarrello.getInstance().svuotaCarrello();
+            clientApp.aggiornaTabCarrello();
+
+            String messaggio = costruisciMessaggioSuccesso(risultato);
+            clientApp.mostraSuccesso("Acquisto Completato", messaggio);
+        } else {
+            clientApp.mostraErrore("Errore Acquisto", risultato.getMessaggio());
+        }
+    }
+
     private String costruisciMessaggioSuccesso(ControllerTrenical.RisultatoAcquisto risultato) {
         StringBuilder messaggio = new StringBuilder();
 
@@ -3,6 +3,7 @@ package it.trenical.client.command;
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.Login;
 import it.trenical.grpc.ClienteDTO;
+import javafx.application.Platform;
 
 import java.util.logging.Logger;
 
@@ -26,11 +27,21 @@ public class LoginCommand implements Command {
 
     @Override
     public void execute() {
-        try {
-            logger.info("Esecuzione comando login per: " + email);
+        logger.info("Esecuzione comando login per: " + email);
+
+        controllerTrenical.loginAsync(email.trim(), password, nome.trim())
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        logger.severe("Errore durante esecuzione comando login: " + errore.getMessage());
+                        loginDialog.mostraErrore("Errore di sistema durante il login:\n" + errore.getMessage());
+                        return;
+                    }
+                    mostraRisultato(risultato);
+                }));
+    }
 
-            ControllerTrenical.RisultatoLogin risultato =
-                    controllerTrenical.login(email.trim(), password, nome.trim());
+    private void mostraRisultato(ControllerTrenical.RisultatoLogin risultato) {
+        try {
             if (risultato.isSuccesso()) {
                 ClienteDTO cliente = risultato.getCliente();
                 logger.info("Login completato per: " + cliente.getEmail());
@@ -50,4 +61,4 @@ public class LoginCommand implements Command {
             loginDialog.mostraErrore("Errore di sistema durante il login:\n" + e.getMessage());
         }
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package it.trenical.client.command;
 
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
+import javafx.application.Platform;
 
 import java.util.logging.Logger;
 
@@ -25,12 +26,21 @@ public class ModificaBigliettoCommand implements Command {
 
     @Override
     public void execute() {
-        try {
-            logger.info("Esecuzione modifica biglietto: " + idBiglietto + " -> " + nuovoIdViaggio);
-
-            ControllerTrenical.RisultatoModificaBiglietto risultato =
-                    controllerTrenical.modificaBiglietto(idBiglietto, nuovoIdViaggio, emailUtente);
+        logger.info("Esecuzione modifica biglietto: " + idBiglietto + " -> " + nuovoIdViaggio);
+
+        controllerTrenical.modificaBigliettoAsync(idBiglietto, nuovoIdViaggio, emailUtente)
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        logger.severe("Errore nell'esecuzione modifica: " + errore.getMessage());
+                        clientApp.mostraErrore("Errore Sistema", "Errore durante la modifica: " + errore.getMessage());
+                        return;
+                    }
+                    mostraRisultato(risultato);
+                }));
+    }
 
+    private void mostraRisultato(ControllerTrenical.RisultatoModificaBiglietto risultato) {
+        try {
             if (risultato.isSuccesso()) {
                 String messaggioSuccesso = risultato.getMessaggio() + "\n" +
                         risultato.getDettaglioPrezzo();
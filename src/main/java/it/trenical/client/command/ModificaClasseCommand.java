@@ -4,6 +4,7 @@ import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
 import it.trenical.grpc.BigliettoDTO;
 import it.trenical.grpc.ViaggioDTO;
+import javafx.application.Platform;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -42,40 +43,51 @@ public class ModificaClasseCommand implements Command {
                 return;
             }
 
-            ControllerTrenical.RisultatoRicerca risultato = controllerTrenical.cercaViaggi(
+            controllerTrenical.cercaViaggiInCacheAsync(
                     biglietto.getStazionePartenza(),
                     biglietto.getStazioneArrivo(),
                     dataViaggio
-            );
+            ).whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                if (errore != null) {
+                    logger.severe("Errore modifica classe: " + errore.getMessage());
+                    clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + errore.getMessage());
+                    return;
+                }
+                mostraAlternative(risultato);
+            }));
 
-            if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
-                System.out.println("Trovati " + risultato.getViaggi().size() + " viaggi");
+        } catch (Exception e) {
+            logger.severe("Errore modifica classe: " + e.getMessage());
+            clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + e.getMessage());
+        }
+    }
 
-                List<ViaggioDTO> viaggiDisponibili = new ArrayList<>();
-                for (ViaggioDTO viaggio : risultato.getViaggi()) {
-                    if (!viaggio.getId().equals(biglietto.getIdViaggio())) {
-                        viaggiDisponibili.add(viaggio);
-                    } else {
-                        System.out.println("Viaggio corrente saltato: " + viaggio.getId());
-                    }
-                }
+    /**
+     * Propone i viaggi della stessa tratta e data diversi da quello del biglietto
+     */
+    private void mostraAlternative(ControllerTrenical.RisultatoRicerca risultato) {
+        if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
+            System.out.println("Trovati " + risultato.getViaggi().size() + " viaggi");
 
-                if (!viaggiDisponibili.isEmpty()) {
-                    String titolo = "Seleziona Nuova Classe - " + biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
-                    clientApp.mostraSelezionaNuovoViaggio(viaggiDisponibili, biglietto, emailUtente, titolo);
+            List<ViaggioDTO> viaggiDisponibili = new ArrayList<>();
+            for (ViaggioDTO viaggio : risultato.getViaggi()) {
+                if (!viaggio.getId().equals(biglietto.getIdViaggio())) {
+                    viaggiDisponibili.add(viaggio);
                 } else {
-                    clientApp.mostraErrore("Nessuna Alternativa", "Non ci sono altre classi disponibili per questa tratta e data.");
+                    System.out.println("Viaggio corrente saltato: " + viaggio.getId());
                 }
             }
-            else {
-                String dettaglio = risultato.isSuccesso() ? "Nessun viaggio trovato" : risultato.getMessaggio();
-                clientApp.mostraErrore("Errore Ricerca", "Impossibile trovare viaggi alternativi: " + dettaglio);
-            }
 
-        } catch (Exception e) {
-            logger.severe("Errore modifica classe: " + e.getMessage());
-            clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + e.getMessage());
+            if (!viaggiDisponibili.isEmpty()) {
+                String titolo = "Seleziona Nuova Classe - " + biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
+                clientApp.mostraSelezionaNuovoViaggio(viaggiDisponibili, biglietto, emailUtente, titolo);
+            } else {
+                clientApp.mostraErrore("Nessuna Alternativa", "Non ci sono altre classi disponibili per questa tratta e data.");
+            }
+        }
+        else {
+            String dettaglio = risultato.isSuccesso() ? "Nessun viaggio trovato" : risultato.getMessaggio();
+            clientApp.mostraErrore("Errore Ricerca", "Impossibile trovare viaggi alternativi: " + dettaglio);
         }
     }
-
-}
\ No newline at end of file
+}
@@ -3,6 +3,8 @@ package it.trenical.client.command;
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
 import it.trenical.grpc.BigliettoDTO;
+import it.trenical.grpc.TariffaGiornoDTO;
+import javafx.application.Platform;
 import javafx.scene.control.TextInputDialog;
 
 import java.time.LocalDate;
@@ -12,6 +14,7 @@ import java.util.logging.Logger;
 
 public class ModificaDataCommand implements Command {
     private static final Logger logger = Logger.getLogger(ModificaDataCommand.class.getName());
+    private static final int GIORNI_ALTERNATIVI = 3;
 
     private final ControllerTrenical controllerTrenical;
     private final ClientApp clientApp;
@@ -36,25 +39,58 @@ public class ModificaDataCommand implements Command {
                 return;
             }
 
-            ControllerTrenical.RisultatoRicerca risultato = controllerTrenical.cercaViaggi(
+            controllerTrenical.cercaViaggiInCacheAsync(
                     biglietto.getStazionePartenza(),
                     biglietto.getStazioneArrivo(),
                     nuovaData
-            );
-
-            if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
-                String titolo = "Seleziona Viaggio per " + nuovaData + " - " +
-                        biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
-                clientApp.mostraSelezionaNuovoViaggio(risultato.getViaggi(), biglietto, emailUtente, titolo);
-            } else {
-                clientApp.mostraErrore("Nessun Viaggio", "Non ci sono viaggi disponibili per la data " + nuovaData);
-            }
+            ).whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                if (errore != null) {
+                    logger.severe("Errore modifica data: " + errore.getMessage());
+                    clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + errore.getMessage());
+                } else if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
+                    String titolo = "Seleziona Viaggio per " + nuovaData + " - " +
+                            biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
+                    clientApp.mostraSelezionaNuovoViaggio(risultato.getViaggi(), biglietto, emailUtente, titolo);
+                } else {
+                    mostraNessunViaggio(nuovaData);
+                }
+            }));
         } catch (Exception e) {
             logger.severe("Errore modifica data: " + e.getMessage());
             clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + e.getMessage());
         }
     }
 
+    /**
+     * Avvisa che non ci sono viaggi proponendo i giorni vicini con la relativa tariffa minima;
+     * il calendario arriva senza bloccare il thread della GUI
+     */
+    private void mostraNessunViaggio(LocalDate data) {
+        String messaggio = "Non ci sono viaggi disponibili per la data " + data;
+        controllerTrenical.calendarioTariffeAsync(biglietto.getStazionePartenza(), biglietto.getStazioneArrivo(),
+                        data, GIORNI_ALTERNATIVI)
+                .whenComplete((calendario, errore) -> Platform.runLater(() -> clientApp.mostraErrore("Nessun Viaggio",
+                        errore == null ? messaggio + dateAlternative(calendario) : messaggio)));
+    }
+
+    /**
+     * Giorni vicini con viaggi disponibili e relativa tariffa minima, vuoto se non ce ne sono
+     */
+    private String dateAlternative(ControllerTrenical.RisultatoCalendario calendario) {
+        if (!calendario.isSuccesso()) {
+            return "";
+        }
+
+        StringBuilder testo = new StringBuilder();
+        for (TariffaGiornoDTO tariffa : calendario.getTariffe()) {
+            if (tariffa.getDisponibile() && !tariffa.getData().equals(biglietto.getDataViaggio())) {
+                testo.append(String.format("%n%s: da € %.2f, prima partenza %s",
+                        tariffa.getData(), tariffa.getPrezzoMinimo(), tariffa.getPrimaPartenza()));
+            }
+        }
+        return testo.length() == 0 ? "" : "\n\nDate vicine disponibili:" + testo;
+    }
+
     private LocalDate richiediNuovaData() {
         TextInputDialog dialog = new TextInputDialog();
         dialog.setTitle("Modifica Data Viaggio");
@@ -4,6 +4,7 @@ import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
 import it.trenical.grpc.BigliettoDTO;
 import it.trenical.grpc.ViaggioDTO;
+import javafx.application.Platform;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -42,33 +43,45 @@ public class ModificaOrarioCommand implements Command {
                 return;
             }
 
-            ControllerTrenical.RisultatoRicerca risultato = controllerTrenical.cercaViaggi(
+            controllerTrenical.cercaViaggiInCacheAsync(
                     biglietto.getStazionePartenza(),
                     biglietto.getStazioneArrivo(),
                     dataViaggio
-            );
-
-            if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
-                List<ViaggioDTO> viaggiDisponibili = new ArrayList<>();
-                for (ViaggioDTO viaggio : risultato.getViaggi()) {
-                    if (!viaggio.getId().equals(biglietto.getIdViaggio())) {
-                        viaggiDisponibili.add(viaggio);
-                    }
-                }
-                if (!viaggiDisponibili.isEmpty()) {
-                    String titolo = "Seleziona Nuova Classe - " + biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
-                    clientApp.mostraSelezionaNuovoViaggio(viaggiDisponibili, biglietto, emailUtente, titolo);
-                } else {
-                    clientApp.mostraErrore("Nessuna Alternativa", "Non ci sono altre classi disponibili per questa tratta e data.");
+            ).whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                if (errore != null) {
+                    logger.severe("Errore modifica orario: " + errore.getMessage());
+                    clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + errore.getMessage());
+                    return;
                 }
-            } else {
-                String dettaglio = risultato.isSuccesso() ? "Nessun viaggio trovato" : risultato.getMessaggio();
-                clientApp.mostraErrore("Errore Ricerca", "Impossibile trovare viaggi alternativi: " + dettaglio);
-            }
+                mostraAlternative(risultato);
+            }));
 
         } catch (Exception e) {
             logger.severe("Errore modifica orario: " + e.getMessage());
             clientApp.mostraErrore("Errore Sistema", "Errore durante la ricerca: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Propone i viaggi della stessa tratta e data diversi da quello del biglietto
+     */
+    private void mostraAlternative(ControllerTrenical.RisultatoRicerca risultato) {
+        if (risultato.isSuccesso() && risultato.getViaggi() != null && !risultato.getViaggi().isEmpty()) {
+            List<ViaggioDTO> viaggiDisponibili = new ArrayList<>();
+            for (ViaggioDTO viaggio : risultato.getViaggi()) {
+                if (!viaggio.getId().equals(biglietto.getIdViaggio())) {
+                    viaggiDisponibili.add(viaggio);
+                }
+            }
+            if (!viaggiDisponibili.isEmpty()) {
+                String titolo = "Seleziona Nuova Classe - " + biglietto.getStazionePartenza() + " -> " + biglietto.getStazioneArrivo();
+                clientApp.mostraSelezionaNuovoViaggio(viaggiDisponibili, biglietto, emailUtente, titolo);
+            } else {
+                clientApp.mostraErrore("Nessuna Alternativa", "Non ci sono altre classi disponibili per questa tratta e data.");
+            }
+        } else {
+            String dettaglio = risultato.isSuccesso() ? "Nessun viaggio trovato" : risultato.getMessaggio();
+            clientApp.mostraErrore("Errore Ricerca", "Impossibile trovare viaggi alternativi: " + dettaglio);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package it.trenical.client.command;
 
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
+import javafx.application.Platform;
 
 import java.util.logging.Logger;
 
@@ -20,10 +21,20 @@ public class VisualizzaBigliettiCommand implements Command {
 
     @Override
     public void execute() {
-        try {
-            ControllerTrenical.RisultatoBiglietti risultato =
-                    controllerTrenical.visualizzaBiglietti(emailUtente);
+        controllerTrenical.visualizzaBigliettiAsync(emailUtente)
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        log.severe("ECCEZIONE NEL COMMAND: " + errore.getMessage());
+                        clientApp.mostraErrore("Errore di Sistema",
+                                "Errore durante il caricamento dei biglietti:\n" + errore.getMessage());
+                        return;
+                    }
+                    mostraRisultato(risultato);
+                }));
+    }
 
+    private void mostraRisultato(ControllerTrenical.RisultatoBiglietti risultato) {
+        try {
             if (risultato.isSuccesso()) {
                 if (risultato.getBiglietti() != null && !risultato.getBiglietti().isEmpty()) {
                     clientApp.getBigliettiListView().getItems().clear();
@@ -3,6 +3,7 @@ package it.trenical.client.command;
 import it.trenical.client.proxy.ControllerTrenical;
 import it.trenical.client.gui.ClientApp;
 import it.trenical.grpc.PromozioneDTO;
+import javafx.application.Platform;
 import javafx.scene.control.TextArea;
 
 import java.util.List;
@@ -28,37 +29,35 @@ public class VisualizzaPromozioniCommand implements Command {
 
     @Override
     public void execute() {
-        try {
-            logger.info("Visualizzazione promozioni per: " + emailUtente);
-
-            if (emailUtente == null || emailUtente.trim().isEmpty()) {
-                clientApp.mostraErrore("Errore", "Email utente non specificata");
-                return;
-            }
-
-            ControllerTrenical.RisultatoPromozioni risultato =
-                    controllerTrenical.visualizzaPromozioni(emailUtente);
-
-            if (risultato.isSuccesso()) {
-                List<PromozioneDTO> promozioni = risultato.getPromozioni();
-                logger.info("Promozioni ricevute con successo: " + promozioni.size() + " elementi");
-
-                String testoPromozioni = generaTestoPromozioni(promozioni);
-                targetTextArea.setText(testoPromozioni);
+        logger.info("Visualizzazione promozioni per: " + emailUtente);
 
+        if (emailUtente == null || emailUtente.trim().isEmpty()) {
+            clientApp.mostraErrore("Errore", "Email utente non specificata");
+            return;
+        }
 
-            } else {
-                logger.warning("Errore visualizzazione promozioni: " + risultato.getMessaggio());
-                targetTextArea.setText("Errore nel caricamento delle promozioni: " + risultato.getMessaggio());
-                clientApp.mostraErrore("Errore Promozioni", risultato.getMessaggio());
-            }
+        controllerTrenical.visualizzaPromozioniAsync(emailUtente)
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        logger.severe("Errore nel command visualizzazione promozioni: " + errore.getMessage());
+                        targetTextArea.setText("Errore di sistema durante il caricamento delle promozioni.");
+                        clientApp.mostraErrore("Errore di Sistema",
+                                "Errore durante il caricamento delle promozioni:\n" + errore.getMessage());
+                        return;
+                    }
+                    mostraRisultato(risultato);
+                }));
+    }
 
-        } catch (Exception e) {
-            logger.severe("Errore nel command visualizzazione promozioni: " + e.getMessage());
-            e.printStackTrace();
-            targetTextArea.setText("Errore di sistema durante il caricamento delle promozioni.");
-            clientApp.mostraErrore("Errore di Sistema",
-                    "Errore durante il caricamento delle promozioni:\n" + e.getMessage());
+    private void mostraRisultato(ControllerTrenical.RisultatoPromozioni risultato) {
+        if (risultato.isSuccesso()) {
+            List<PromozioneDTO> promozioni = risultato.getPromozioni();
+            logger.info("Promozioni ricevute con successo: " + promozioni.size() + " elementi");
+            targetTextArea.setText(generaTestoPromozioni(promozioni));
+        } else {
+            logger.warning("Errore visualizzazione promozioni: " + risultato.getMessaggio());
+            targetTextArea.setText("Errore nel caricamento delle promozioni: " + risultato.getMessaggio());
+            clientApp.mostraErrore("Errore Promozioni", risultato.getMessaggio());
         }
     }
 
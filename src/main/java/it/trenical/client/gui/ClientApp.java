@@ -21,9 +21,6 @@ import javafx.stage.*;
 import java.io.InputStream;
 import java.time.LocalDate;
 import java.util.*;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 public class ClientApp extends Application {
@@ -40,7 +37,6 @@ public class ClientApp extends Application {
     private TabPane mainTabPane;
     private VBox layoutCarrello;
 
-    private ScheduledExecutorService scheduledExecutor;
     private Logger logger = Logger.getLogger(ClientApp.class.getName());
 
     private ListView<ViaggioDTO> viaggiListView;
@@ -69,10 +65,11 @@ public class ClientApp extends Application {
 
         primaryStage.setOnCloseRequest(e -> {
             System.out.println("Chiusura GUI Cliente");
+            fermaNotifiche();
         });
 
         primaryStage.show();
-        avviaPollingNotifiche();
+        avviaNotifiche();
         System.out.println("GUI Cliente avviata con successo!");
     }
 
@@ -80,52 +77,14 @@ public class ClientApp extends Application {
         return abbonamentoFedelta;
     }
 
-    public void avviaPollingNotifiche() {
-        if (scheduledExecutor != null && !scheduledExecutor.isShutdown()) {
-            return;
-        }
-        scheduledExecutor = Executors.newSingleThreadScheduledExecutor();
-
-        Runnable pollingTask = new Runnable() {
-            @Override
-            public void run() {
-                try {
-                    ControllerTrenical.RisultatoNotifichePendenti risultato = controllerTrenical.controllaNotifichePendenti(email);
-                    if (risultato.ciSonoNotifiche()) {
-                        Platform.runLater(() -> {
-                            mostraNotifica(risultato.getMessaggio());
-                        });
-                    } else if (risultato.getMessaggio().equals("ferma polling")) {
-                        Platform.runLater(() -> {
-                            fermaPollingNotifiche();
-                        });
-                    }
-                } catch (Exception e) {
-                    logger.warning("Errore durante polling notifiche: " + e.getMessage());
-                }
-            }
-        };
-        scheduledExecutor.scheduleWithFixedDelay(pollingTask,1, 5,TimeUnit.SECONDS);
-        logger.info("Polling notifiche avviato per: " + email);
+    public void avviaNotifiche() {
+        controllerTrenical.sottoscriviNotifiche(email, messaggio ->
+                Platform.runLater(() -> mostraNotifica(messaggio)));
+        logger.info("Notifiche in tempo reale attive per: " + email);
     }
 
-    public void fermaPollingNotifiche() {
-        if (scheduledExecutor != null && !scheduledExecutor.isShutdown()) {
-            scheduledExecutor.shutdown();
-        }
-        logger.info("Polling notifiche fermato");
-
-        if(scheduledExecutor.isShutdown()){
-            ScheduledExecutorService riavvioExecutor = Executors.newSingleThreadScheduledExecutor();
-            logger.info("Riavvio del polling in 15 secondi");
-
-            riavvioExecutor.schedule(() -> {
-                Platform.runLater(() -> {
-                    avviaPollingNotifiche();
-                });
-                riavvioExecutor.shutdown();
-            }, 15, TimeUnit.SECONDS);
-        }
+    public void fermaNotifiche() {
+        controllerTrenical.annullaSottoscrizioneNotifiche();
     }
 
     private VBox creaInterfacciaPrincipale() {
@@ -165,6 +124,7 @@ public class ClientApp extends Application {
         Button logoutBtn = new Button("Logout");
         logoutBtn.setStyle("-fx-background-color: red; -fx-text-fill: white; -fx-font-weight: bold;");
         logoutBtn.setOnAction(e -> {
+            fermaNotifiche();
             primaryStage.close();
             new Login(controllerTrenical).show();
         });
@@ -858,10 +818,7 @@ public class ClientApp extends Application {
 
             Button svuotaBtn = new Button("Svuota Carrello");
             svuotaBtn.setStyle("-fx-background-color: red; -fx-text-fill: white;");
-            svuotaBtn.setOnAction(e -> {
-                carrello.svuotaCarrello();
-                aggiornaTabCarrello();
-            });
+            svuotaBtn.setOnAction(e -> annullaCarrello(email));
 
             Button acquistaBtn = new Button("Acquista Tutto");
             acquistaBtn.setStyle("-fx-background-color: green; -fx-text-fill: white;");
@@ -1127,21 +1084,40 @@ public class ClientApp extends Application {
         alert.show();
     }
 
-    public void inviaEMostraNotifica(String tipoNotifica, String emailUtente) {
-        try {
-            ControllerTrenical.RisultatoNotifica risultato =
-                    controllerTrenical.inviaNotifica(tipoNotifica, emailUtente);
-
-            if (risultato.isSuccesso()) {
-                mostraNotifica(risultato.getMessaggio());
-            } else {
-                mostraErrore("Errore Notifica", risultato.getMessaggio());
-            }
+    /**
+     * Svuota il carrello e restituisce al server i posti trattenuti dalle sue prenotazioni
+     */
+    public void annullaCarrello(String emailUtente) {
+        GestoreCarrello carrello = GestoreCarrello.getInstance();
+        List<String> idPrenotazioni = carrello.getIdPrenotazioni();
+        carrello.svuotaCarrello();
+        aggiornaTabCarrello();
+
+        controllerTrenical.annullaPrenotazioniAsync(emailUtente, idPrenotazioni)
+                .thenAccept(risultato -> {
+                    if (risultato.isSuccesso()) {
+                        logger.info("Prenotazioni annullate: " + risultato.getMessaggio());
+                        return;
+                    }
+                    // il server libera comunque i posti alla scadenza delle prenotazioni
+                    logger.warning("Annullamento prenotazioni fallito: " + risultato.getMessaggio());
+                    Platform.runLater(() -> mostraErrore("Posti non rilasciati",
+                            risultato.getMessaggio() + "\nI posti torneranno disponibili alla scadenza della prenotazione."));
+                });
+    }
 
-        } catch (Exception e) {
-            mostraErrore("Errore Sistema",
-                    "Errore durante l'invio della notifica: " + e.getMessage());
-        }
+    public void inviaEMostraNotifica(String tipoNotifica, String emailUtente) {
+        controllerTrenical.inviaNotificaAsync(tipoNotifica, emailUtente)
+                .whenComplete((risultato, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        mostraErrore("Errore Sistema",
+                                "Errore durante l'invio della notifica: " + errore.getMessage());
+                    } else if (risultato.isSuccesso()) {
+                        mostraNotifica(risultato.getMessaggio());
+                    } else {
+                        mostraErrore("Errore Notifica", risultato.getMessaggio());
+                    }
+                }));
     }
 
     public void mostraSuccesso(String titolo, String messaggio) {
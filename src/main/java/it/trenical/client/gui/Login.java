@@ -140,6 +140,8 @@ public class Login {
             return;
         }
 
+        // il login ora è asincrono: niente secondo invio finché non arriva la risposta
+        loginButton.setDisable(true);
         LoginCommand command = new LoginCommand(controllerTrenical, this, email, password, nome);
         command.execute();
     }
@@ -149,6 +151,7 @@ public class Login {
             statusLabel.setText( messaggio);
             statusLabel.setStyle("-fx-text-fill: red; -fx-font-size: 12px;");
             statusLabel.setVisible(true);
+            loginButton.setDisable(false);
         });
     }
 
@@ -0,0 +1,120 @@
+package it.trenical.client.proxy;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Cache delle risposte del server per le chiamate ripetute del client.
+ * Ogni voce ha la versione ricevuta dal server e una scadenza: prima della scadenza
+ * si usa direttamente, dopo si rimanda la versione al server che può rispondere
+ * "non modificato" senza l'elenco. Le voci meno usate escono oltre la capienza (LRU).
+ *
+ * @param <V> tipo del risultato memorizzato
+ */
+public class CacheRisposte<V> {
+
+    private final int capienza;
+    private final LongSupplier orologio;
+    private final LinkedHashMap<String, Voce<V>> voci;
+    private long riusi;
+    private long rivalidazioni;
+
+    public CacheRisposte(int capienza) {
+        this(capienza, System::nanoTime);
+    }
+
+    /**
+     * @param orologio tempo in nanosecondi, sostituibile nei test
+     */
+    public CacheRisposte(int capienza, LongSupplier orologio) {
+        if (capienza <= 0) {
+            throw new IllegalArgumentException("La capienza deve essere positiva");
+        }
+        this.capienza = capienza;
+        this.orologio = orologio;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce<V>> eldest) {
+                return size() > CacheRisposte.this.capienza;
+            }
+        };
+    }
+
+    /**
+     * Risultato ancora valido senza interpellare il server, null se assente o scaduto
+     */
+    public synchronized V fresca(String chiave) {
+        Voce<V> voce = voci.get(chiave);
+        if (voce == null || orologio.getAsLong() - voce.scadenza >= 0) {
+            return null;
+        }
+        riusi++;
+        return voce.valore;
+    }
+
+    /**
+     * Versione da mandare al server per rivalidare la voce, 0 se non c'è
+     */
+    public synchronized long versione(String chiave) {
+        Voce<V> voce = voci.get(chiave);
+        return voce == null ? 0 : voce.versione;
+    }
+
+    /**
+     * Il server ha confermato la versione: la voce torna valida per un altro periodo
+     *
+     * @return il risultato memorizzato, null se nel frattempo è stato invalidato
+     */
+    public synchronized V rinnova(String chiave, long versione, long durataNanos) {
+        Voce<V> voce = voci.get(chiave);
+        if (voce == null || voce.versione != versione) {
+            return null;
+        }
+        voce.scadenza = orologio.getAsLong() + durataNanos;
+        rivalidazioni++;
+        return voce.valore;
+    }
+
+    public synchronized void metti(String chiave, V valore, long versione, long durataNanos) {
+        voci.put(chiave, new Voce<>(valore, versione, orologio.getAsLong() + durataNanos));
+    }
+
+    public synchronized void invalida(String chiave) {
+        voci.remove(chiave);
+    }
+
+    /**
+     * Toglie tutte le voci la cui chiave soddisfa il predicato (es. tutte le ricerche)
+     */
+    public synchronized void invalidaSe(Predicate<String> condizione) {
+        Iterator<String> chiavi = voci.keySet().iterator();
+        while (chiavi.hasNext()) {
+            if (condizione.test(chiavi.next())) {
+                chiavi.remove();
+            }
+        }
+    }
+
+    public synchronized void svuota() {
+        voci.clear();
+    }
+
+    public synchronized int getDimensione() { return voci.size(); }
+    public synchronized long getRiusi() { return riusi; }
+    public synchronized long getRivalidazioni() { return rivalidazioni; }
+
+    private static final class Voce<V> {
+        private final V valore;
+        private final long versione;
+        private long scadenza;
+
+        private Voce(V valore, long versione, long scadenza) {
+            this.valore = valore;
+            this.versione = versione;
+            this.scadenza = scadenza;
+        }
+    }
+}
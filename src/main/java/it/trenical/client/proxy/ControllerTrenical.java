@@ -1,12 +1,23 @@
 package it.trenical.client.proxy;
 
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import io.grpc.*;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
 import it.trenical.client.carrello.CarrelloItem;
 import it.trenical.grpc.*;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 
@@ -14,8 +25,22 @@ public class ControllerTrenical {
 
     private static final Logger logger = Logger.getLogger(ControllerTrenical.class.getName());
 
+    private static final long DEADLINE_RICERCA_MS = 5_000;
+    private static final long DEADLINE_OPERAZIONE_MS = 10_000;
+    private static final int DIMENSIONE_PAGINA_RICERCA = 20;
+    private static final long DURATA_RICERCHE_NS = TimeUnit.SECONDS.toNanos(15);
+    private static final long DURATA_BIGLIETTI_NS = TimeUnit.SECONDS.toNanos(60);
+    private static final long DURATA_PROMOZIONI_NS = TimeUnit.MINUTES.toNanos(5);
+
     private Channel channel;
     private TrenicalServiceGrpc.TrenicalServiceBlockingStub blockingStub;
+    private TrenicalServiceGrpc.TrenicalServiceStub asyncStub;
+    private TrenicalServiceGrpc.TrenicalServiceFutureStub futureStub;
+    private final AtomicReference<CompletableFuture<RisultatoRicerca>> ricercaInCorso = new AtomicReference<>();
+    private SottoscrittoreNotifiche sottoscrittoreNotifiche;
+    private final CacheRisposte<RisultatoRicerca> cacheRicerche = new CacheRisposte<>(64);
+    private final CacheRisposte<RisultatoBiglietti> cacheBiglietti = new CacheRisposte<>(8);
+    private final CacheRisposte<RisultatoPromozioni> cachePromozioni = new CacheRisposte<>(8);
 
     public ControllerTrenical(String serverAddress) {
         inizializzaConnessione(serverAddress);
@@ -26,9 +51,15 @@ public class ControllerTrenical {
             this.channel = Grpc.newChannelBuilder(
                     target,
                     InsecureChannelCredentials.create()
-            ).build();
+            )
+                    .keepAliveTime(60, TimeUnit.SECONDS)
+                    .keepAliveTimeout(20, TimeUnit.SECONDS)
+                    .keepAliveWithoutCalls(true)
+                    .build();
 
             this.blockingStub = TrenicalServiceGrpc.newBlockingStub(channel);
+            this.asyncStub = TrenicalServiceGrpc.newStub(channel);
+            this.futureStub = TrenicalServiceGrpc.newFutureStub(channel);
 
             logger.info("Connessione gRPC stabilita con " + target);
 
@@ -42,32 +73,35 @@ public class ControllerTrenical {
         logger.info("Ricerca viaggi: " + stazionePartenza + " -> " + stazioneArrivo + " il " + dataViaggio);
 
         try {
-            RicercaViaggioRequest request = RicercaViaggioRequest.newBuilder()
-                    .setStazionePartenza(stazionePartenza)
-                    .setStazioneArrivo(stazioneArrivo)
-                    .setDataViaggio(dataViaggio.toString())
-                    .build();
-
-            RicercaViaggioResponse response = blockingStub.cercaViaggi(request);
+            String chiave = chiaveRicerca(stazionePartenza, stazioneArrivo, dataViaggio);
+            RisultatoRicerca inCache = cacheRicerche.fresca(chiave);
+            if (inCache != null) {
+                logger.info("Ricerca servita dalla cache locale");
+                return inCache;
+            }
 
-            RisultatoRicerca risultato = new RisultatoRicerca(
-                    response.getSuccesso(),
-                    response.getMessaggio(),
-                    response.getViaggiList()
-            );
+            RicercaViaggioRequest request = richiestaRicerca(stazionePartenza, stazioneArrivo, dataViaggio);
+            RicercaViaggioResponse response = blockingStub.cercaViaggi(
+                    request.toBuilder().setVersioneCache(cacheRicerche.versione(chiave)).build());
+            if (response.getNonModificato()) {
+                inCache = cacheRicerche.rinnova(chiave, response.getVersione(), DURATA_RICERCHE_NS);
+                if (inCache != null) {
+                    logger.info("Ricerca invariata sul server, uso la copia locale");
+                    return inCache;
+                }
+                response = blockingStub.cercaViaggi(request);
+            }
 
+            RisultatoRicerca risultato = toRisultatoRicerca(response);
+            if (risultato.isSuccesso()) {
+                cacheRicerche.metti(chiave, risultato, response.getVersione(), DURATA_RICERCHE_NS);
+            }
             logger.info("Ricerca completata: " + risultato.getMessaggio());
             return risultato;
 
         } catch (StatusRuntimeException e) {
             logger.severe("Errore nella chiamata gRPC: " + e.getStatus());
-
-            String messaggio = "Errore di connessione al server";
-            if (e.getStatus().getCode() == Status.Code.UNAVAILABLE) {
-                messaggio = "Server non disponibile. Riprova più tardi.";
-            }
-
-            return new RisultatoRicerca(false, messaggio, null);
+            return new RisultatoRicerca(false, messaggioErrore(e.getStatus()), null);
 
         } catch (Exception e) {
             logger.severe("Errore imprevisto: " + e.getMessage());
@@ -75,39 +109,36 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Tariffa minima per ciascun giorno nell'intervallo di ±giorni attorno alla data, in una sola chiamata
+     */
+    public CompletableFuture<RisultatoCalendario> calendarioTariffeAsync(String stazionePartenza, String stazioneArrivo,
+                                                                         LocalDate dataViaggio, int giorni) {
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_RICERCA_MS, TimeUnit.MILLISECONDS)
+                        .calendarioTariffe(CalendarioTariffeRequest.newBuilder()
+                                .setStazionePartenza(stazionePartenza)
+                                .setStazioneArrivo(stazioneArrivo)
+                                .setDataViaggio(dataViaggio.toString())
+                                .setGiorni(giorni)
+                                .build()),
+                response -> new RisultatoCalendario(response.getSuccesso(), response.getMessaggio(),
+                        response.getTariffeList()),
+                status -> new RisultatoCalendario(false, messaggioErrore(status), null));
+    }
+
     public RisultatoCarrello aggiungiAlCarrello(String viaggioId, int quantita, String emailUtente) {
         logger.info("Aggiunta carrello: " + viaggioId + " - Quantità: " + quantita + " - Utente: " + emailUtente);
         try {
-            AggiungiCarrelloRequest request = AggiungiCarrelloRequest.newBuilder()
-                    .setViaggioId(viaggioId)
-                    .setQuantita(quantita)
-                    .setEmailUtente(emailUtente)
-                    .build();
-            AggiungiCarrelloResponse response = blockingStub.aggiungiAlCarrello(request);
-
-            List<CarrelloItem> carrelloItems = new ArrayList<>();
-            for (BigliettoCarrelloDTO dto : response.getBigliettiCreatiList()) {
-                CarrelloItem item = new CarrelloItem(
-                        dto.getViaggioId(),
-                        dto.getPrezzo(),
-                        dto.getQuantita(),
-                        dto.getViaggio()
-                );
-                carrelloItems.add(item);
-            }
+            AggiungiCarrelloResponse response = blockingStub.aggiungiAlCarrello(
+                    richiestaCarrello(viaggioId, quantita, emailUtente));
 
-            RisultatoCarrello risultato = new RisultatoCarrello(
-                    response.getSuccesso(),
-                    response.getMessaggio(),
-                    response.getPostiRimanenti(),
-                    carrelloItems
-            );
+            RisultatoCarrello risultato = toRisultatoCarrello(response);
             logger.info("Aggiunta carrello completata: " + risultato.getMessaggio());
             return risultato;
         } catch (StatusRuntimeException e) {
             logger.severe("Errore nella chiamata gRPC carrello: " + e.getStatus());
-            String messaggio = "Errore di connessione al server";
-            return new RisultatoCarrello(false, messaggio, 0, new ArrayList<>());
+            return new RisultatoCarrello(false, messaggioErrore(e.getStatus()), 0, new ArrayList<>());
         } catch (Exception e) {
             logger.severe("Errore imprevisto carrello: " + e.getMessage());
             return new RisultatoCarrello(false, "Errore imprevisto: " + e.getMessage(), 0, new ArrayList<>());
@@ -120,36 +151,14 @@ public class ControllerTrenical {
                                               String emailUtente,
                                               String codicePromozione) {
         try {
-            List<CarrelloItemDTO> itemsDTO = new ArrayList<>();
-            for (CarrelloItem item : carrelloItems) {
-                CarrelloItemDTO dto = CarrelloItemDTO.newBuilder()
-                        .setViaggioId(item.getViaggioId())
-                        .setQuantita(item.getQuantita())
-                        .setPrezzo(item.getPrezzo())
-                        .build();
-                itemsDTO.add(dto);
-            }
+            ConfermaAcquistoResponse response = blockingStub.confermaAcquisto(
+                    richiestaAcquisto(carrelloItems, nominativi, modalitaPagamento, emailUtente, codicePromozione));
 
-            ConfermaAcquistoRequest.Builder requestBuilder = ConfermaAcquistoRequest.newBuilder()
-                    .setEmailUtente(emailUtente)
-                    .addAllCarrelloItems(itemsDTO)
-                    .addAllNominativi(nominativi)
-                    .setModalitaPagamento(modalitaPagamento);
-            if (codicePromozione != null && !codicePromozione.trim().isEmpty()) {
-                requestBuilder.setCodicePromozione(codicePromozione.trim());
+            RisultatoAcquisto risultato = toRisultatoAcquisto(response);
+            if (risultato.isSuccesso()) {
+                invalidaDopoModifica(emailUtente);
             }
-            ConfermaAcquistoRequest request = requestBuilder.build();
-
-            ConfermaAcquistoResponse response = blockingStub.confermaAcquisto(request);
-
-            return new RisultatoAcquisto(
-                    response.getSuccesso(),
-                    response.getMessaggio(),
-                    response.getBigliettiAcquistati(),
-                    response.getPrezzoTotale(),
-                    response.getScontoApplicato(),
-                    response.getNomePromozione()
-            );
+            return risultato;
 
         } catch (Exception e) {
             logger.severe("Errore conferma acquisto: " + e.getMessage());
@@ -166,17 +175,18 @@ public class ControllerTrenical {
                 return new RisultatoBiglietti(false, "Email utente non specificata", new ArrayList<>());
             }
 
-            VisualizzaBigliettiRequest request = VisualizzaBigliettiRequest.newBuilder()
-                    .setEmailUtente(emailUtente)
-                    .build();
-
-            VisualizzaBigliettiResponse response = blockingStub.visualizzaBiglietti(request);
+            RisultatoBiglietti inCache = cacheBiglietti.fresca(emailUtente);
+            if (inCache != null) {
+                return inCache;
+            }
 
-            RisultatoBiglietti risultato = new RisultatoBiglietti(
-                    response.getSuccesso(),
-                    response.getMessaggio(),
-                    response.getBigliettiList()
-            );
+            VisualizzaBigliettiResponse response = blockingStub.visualizzaBiglietti(
+                    richiestaBiglietti(emailUtente, cacheBiglietti.versione(emailUtente)));
+            RisultatoBiglietti risultato = daRispostaBiglietti(emailUtente, response);
+            if (risultato == null) {
+                risultato = daRispostaBiglietti(emailUtente,
+                        blockingStub.visualizzaBiglietti(richiestaBiglietti(emailUtente, 0)));
+            }
 
             logger.info("Visualizzazione biglietti completata: " + risultato.getMessaggio());
             return risultato;
@@ -195,24 +205,13 @@ public class ControllerTrenical {
         logger.info("Modifica biglietto: " + idBiglietto + " -> nuovo viaggio: " + nuovoIdViaggio);
 
         try {
-            ModificaBigliettoRequest request = ModificaBigliettoRequest.newBuilder()
-                    .setIdBiglietto(idBiglietto)
-                    .setNuovoIdViaggio(nuovoIdViaggio)
-                    .setEmailUtente(emailUtente)
-                    .build();
-
-            ModificaBigliettoResponse response = blockingStub.modificaBiglietto(request);
+            ModificaBigliettoResponse response = blockingStub.modificaBiglietto(
+                    richiestaModifica(idBiglietto, nuovoIdViaggio, emailUtente));
 
-            RisultatoModificaBiglietto risultato = new RisultatoModificaBiglietto(
-                    response.getSuccesso(),
-                    response.getMessaggio(),
-                    response.getDifferenzaPrezzo(),
-                    response.getPrezzoPrecedente(),
-                    response.getPrezzoNuovo(),
-                    response.hasBigliettoAggiornato() ? response.getBigliettoAggiornato() : null
-            );
+            RisultatoModificaBiglietto risultato = toRisultatoModifica(response);
 
             if (risultato.isSuccesso()) {
+                invalidaDopoModifica(emailUtente);
                 logger.info("Modifica biglietto completata: " + risultato.getMessaggio());
             } else {
                 logger.warning("Modifica biglietto fallita: " + risultato.getMessaggio());
@@ -222,8 +221,7 @@ public class ControllerTrenical {
 
         } catch (StatusRuntimeException e) {
             logger.severe("Errore chiamata gRPC modifica biglietto: " + e.getStatus());
-            String messaggio = "Errore di connessione al server";
-            return new RisultatoModificaBiglietto(false, messaggio, 0.0, 0.0, 0.0, null);
+            return new RisultatoModificaBiglietto(false, messaggioErrore(e.getStatus()), 0.0, 0.0, 0.0, null);
 
         } catch (Exception e) {
             logger.severe("Errore imprevisto modifica biglietto: " + e.getMessage());
@@ -233,6 +231,500 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Ricerca asincrona: non blocca il thread chiamante e annulla la ricerca precedente
+     * ancora in corso, così conta solo l'ultima richiesta dell'utente
+     */
+    public CompletableFuture<RisultatoRicerca> cercaViaggiAsync(String stazionePartenza, String stazioneArrivo,
+                                                                LocalDate dataViaggio) {
+        logger.info("Ricerca viaggi asincrona: " + stazionePartenza + " -> " + stazioneArrivo + " il " + dataViaggio);
+
+        CompletableFuture<RisultatoRicerca> ricerca = inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_RICERCA_MS, TimeUnit.MILLISECONDS)
+                        .cercaViaggi(richiestaRicerca(stazionePartenza, stazioneArrivo, dataViaggio)),
+                ControllerTrenical::toRisultatoRicerca,
+                status -> new RisultatoRicerca(false, messaggioErrore(status), null));
+
+        CompletableFuture<RisultatoRicerca> precedente = ricercaInCorso.getAndSet(ricerca);
+        if (precedente != null && precedente.cancel(false)) {
+            logger.info("Ricerca precedente annullata");
+        }
+        return ricerca;
+    }
+
+    /**
+     * Ricerca per le modifiche di un biglietto: come {@link #cercaViaggi} usa la cache locale
+     * e la rivalida con il server, ma senza bloccare il chiamante e senza annullare la ricerca principale
+     */
+    public CompletableFuture<RisultatoRicerca> cercaViaggiInCacheAsync(String stazionePartenza, String stazioneArrivo,
+                                                                       LocalDate dataViaggio) {
+        String chiave = chiaveRicerca(stazionePartenza, stazioneArrivo, dataViaggio);
+        RisultatoRicerca inCache = cacheRicerche.fresca(chiave);
+        if (inCache != null) {
+            logger.info("Ricerca servita dalla cache locale");
+            return CompletableFuture.completedFuture(inCache);
+        }
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_RICERCA_MS, TimeUnit.MILLISECONDS)
+                        .cercaViaggi(richiestaRicerca(stazionePartenza, stazioneArrivo, dataViaggio).toBuilder()
+                                .setVersioneCache(cacheRicerche.versione(chiave))
+                                .build()),
+                response -> daRispostaRicerca(chiave, response),
+                status -> new RisultatoRicerca(false, messaggioErrore(status), null))
+                // null: la copia locale è stata invalidata mentre il server la confermava
+                .thenCompose(risultato -> risultato != null
+                        ? CompletableFuture.completedFuture(risultato)
+                        : cercaViaggiInCacheAsync(stazionePartenza, stazioneArrivo, dataViaggio));
+    }
+
+    /**
+     * Risultato dalla risposta del server aggiornando la cache delle ricerche.
+     * Restituisce null se il server ha confermato una versione che in locale non c'è più
+     */
+    private RisultatoRicerca daRispostaRicerca(String chiave, RicercaViaggioResponse response) {
+        if (response.getNonModificato()) {
+            return cacheRicerche.rinnova(chiave, response.getVersione(), DURATA_RICERCHE_NS);
+        }
+        RisultatoRicerca risultato = toRisultatoRicerca(response);
+        if (risultato.isSuccesso()) {
+            cacheRicerche.metti(chiave, risultato, response.getVersione(), DURATA_RICERCHE_NS);
+        }
+        return risultato;
+    }
+
+    /**
+     * Ricerca in streaming: ogni pagina arriva all'ascoltatore appena ricevuta, in ordine di partenza.
+     * Chiede al server una pagina alla volta, dopo aver consegnato la precedente.
+     * Come {@link #cercaViaggiAsync} annulla la ricerca precedente ancora in corso;
+     * il risultato finale contiene tutti i viaggi ricevuti.
+     * Usa la stessa cache di {@link #cercaViaggi}: una ricerca ripetuta entro la validità
+     * consegna subito la lista memorizzata senza aprire lo stream; dopo la scadenza manda
+     * la versione memorizzata e, se il server risponde "non modificato", riusa la lista
+     */
+    public CompletableFuture<RisultatoRicerca> cercaViaggiFlusso(String stazionePartenza, String stazioneArrivo,
+                                                                 LocalDate dataViaggio,
+                                                                 Consumer<List<ViaggioDTO>> ascoltatorePagine) {
+        logger.info("Ricerca viaggi a pagine: " + stazionePartenza + " -> " + stazioneArrivo + " il " + dataViaggio);
+
+        CompletableFuture<RisultatoRicerca> ricerca = new CompletableFuture<>();
+        CompletableFuture<RisultatoRicerca> precedente = ricercaInCorso.getAndSet(ricerca);
+        if (precedente != null && precedente.cancel(false)) {
+            logger.info("Ricerca precedente annullata");
+        }
+
+        String chiave = chiaveRicerca(stazionePartenza, stazioneArrivo, dataViaggio);
+        RisultatoRicerca inCache = cacheRicerche.fresca(chiave);
+        if (inCache != null) {
+            logger.info("Ricerca servita dalla cache locale");
+            if (!inCache.getViaggi().isEmpty()) {
+                ascoltatorePagine.accept(inCache.getViaggi());
+            }
+            ricerca.complete(inCache);
+            return ricerca;
+        }
+
+        RicercaViaggioRequest request = richiestaRicerca(stazionePartenza, stazioneArrivo, dataViaggio).toBuilder()
+                .setDimensionePagina(DIMENSIONE_PAGINA_RICERCA)
+                .setVersioneCache(cacheRicerche.versione(chiave))
+                .build();
+        apriFlussoRicerca(request, chiave, ricerca, ascoltatorePagine);
+        return ricerca;
+    }
+
+    /**
+     * Apre lo stream della ricerca e completa il future con tutti i viaggi ricevuti.
+     * Se il server conferma la versione in cache consegna la copia locale; se nel frattempo
+     * è stata invalidata ripete la ricerca senza versione
+     */
+    private void apriFlussoRicerca(RicercaViaggioRequest request, String chiave,
+                                   CompletableFuture<RisultatoRicerca> ricerca,
+                                   Consumer<List<ViaggioDTO>> ascoltatorePagine) {
+        asyncStub.withDeadlineAfter(DEADLINE_RICERCA_MS, TimeUnit.MILLISECONDS)
+                .cercaViaggiFlusso(request, new ClientResponseObserver<RicercaViaggioRequest, RicercaViaggioResponse>() {
+                    private final List<ViaggioDTO> ricevuti = new ArrayList<>();
+                    private ClientCallStreamObserver<RicercaViaggioRequest> chiamata;
+                    private String messaggio = "";
+                    private boolean successo = true;
+                    private boolean nonModificato;
+                    private long versione;
+
+                    @Override
+                    public void beforeStart(ClientCallStreamObserver<RicercaViaggioRequest> requestStream) {
+                        chiamata = requestStream;
+                        requestStream.disableAutoRequestWithInitial(1);
+                        ricerca.whenComplete((valore, eccezione) -> {
+                            if (ricerca.isCancelled()) {
+                                requestStream.cancel("Ricerca superata da una più recente", null);
+                            }
+                        });
+                    }
+
+                    @Override
+                    public void onNext(RicercaViaggioResponse response) {
+                        if (ricerca.isDone()) {
+                            return;
+                        }
+                        successo = response.getSuccesso();
+                        nonModificato = response.getNonModificato();
+                        if (response.getVersione() != 0) {
+                            versione = response.getVersione();
+                        }
+                        if (!response.getMessaggio().isEmpty()) {
+                            messaggio = response.getMessaggio();
+                        }
+                        if (!response.getViaggiList().isEmpty()) {
+                            ricevuti.addAll(response.getViaggiList());
+                            try {
+                                ascoltatorePagine.accept(response.getViaggiList());
+                            } catch (RuntimeException e) {
+                                logger.warning("Errore nella gestione della pagina: " + e.getMessage());
+                            }
+                        }
+                        chiamata.request(1);
+                    }
+
+                    @Override
+                    public void onError(Throwable t) {
+                        if (ricerca.isDone()) {
+                            return;
+                        }
+                        Status status = Status.fromThrowable(t);
+                        logger.warning("Ricerca a pagine interrotta dopo " + ricevuti.size() + " viaggi: " + status);
+                        ricerca.complete(new RisultatoRicerca(false, messaggioErrore(status), ricevuti));
+                    }
+
+                    @Override
+                    public void onCompleted() {
+                        if (ricerca.isDone()) {
+                            return;
+                        }
+                        if (nonModificato) {
+                            RisultatoRicerca inCache = cacheRicerche.rinnova(chiave, versione, DURATA_RICERCHE_NS);
+                            if (inCache == null) {
+                                apriFlussoRicerca(request.toBuilder().setVersioneCache(0).build(),
+                                        chiave, ricerca, ascoltatorePagine);
+                                return;
+                            }
+                            logger.info("Ricerca invariata, uso la copia locale");
+                            if (!inCache.getViaggi().isEmpty()) {
+                                ascoltatorePagine.accept(inCache.getViaggi());
+                            }
+                            ricerca.complete(inCache);
+                            return;
+                        }
+                        RisultatoRicerca risultato = new RisultatoRicerca(successo, messaggio, List.copyOf(ricevuti));
+                        if (risultato.isSuccesso()) {
+                            cacheRicerche.metti(chiave, risultato, versione, DURATA_RICERCHE_NS);
+                        }
+                        ricerca.complete(risultato);
+                    }
+                });
+    }
+
+    /**
+     * Percorsi con cambi per la data indicata, usata quando non ci sono treni diretti
+     */
+    public CompletableFuture<RisultatoPianificazione> pianificaViaggioAsync(String stazionePartenza,
+                                                                            String stazioneArrivo,
+                                                                            LocalDate dataViaggio) {
+        logger.info("Pianificazione viaggio: " + stazionePartenza + " -> " + stazioneArrivo + " il " + dataViaggio);
+
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_RICERCA_MS, TimeUnit.MILLISECONDS)
+                        .pianificaViaggio(PianificaViaggioRequest.newBuilder()
+                                .setStazionePartenza(stazionePartenza)
+                                .setStazioneArrivo(stazioneArrivo)
+                                .setDataViaggio(dataViaggio.toString())
+                                .build()),
+                response -> new RisultatoPianificazione(response.getSuccesso(), response.getMessaggio(),
+                        response.getPercorsiList()),
+                status -> new RisultatoPianificazione(false, messaggioErrore(status), null));
+    }
+
+    public CompletableFuture<RisultatoCarrello> aggiungiAlCarrelloAsync(String viaggioId, int quantita,
+                                                                        String emailUtente) {
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .aggiungiAlCarrello(richiestaCarrello(viaggioId, quantita, emailUtente)),
+                ControllerTrenical::toRisultatoCarrello,
+                status -> new RisultatoCarrello(false, messaggioErrore(status), 0, new ArrayList<>()));
+    }
+
+    public CompletableFuture<RisultatoAcquisto> confermaAcquistoAsync(List<CarrelloItem> carrelloItems,
+                                                                      List<String> nominativi,
+                                                                      String modalitaPagamento,
+                                                                      String emailUtente,
+                                                                      String codicePromozione) {
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .confermaAcquisto(richiestaAcquisto(carrelloItems, nominativi, modalitaPagamento,
+                                emailUtente, codicePromozione)),
+                response -> {
+                    RisultatoAcquisto risultato = toRisultatoAcquisto(response);
+                    if (risultato.isSuccesso()) {
+                        invalidaDopoModifica(emailUtente);
+                    }
+                    return risultato;
+                },
+                status -> new RisultatoAcquisto(false, messaggioErrore(status), 0, 0.0, 0.0, null));
+    }
+
+    /**
+     * Restituisce al server i posti trattenuti dal carrello svuotato o scaduto
+     */
+    public CompletableFuture<RisultatoAnnullamento> annullaPrenotazioniAsync(String emailUtente,
+                                                                           List<String> idPrenotazioni) {
+        if (idPrenotazioni.isEmpty()) {
+            return CompletableFuture.completedFuture(new RisultatoAnnullamento(true, "Nessuna prenotazione", 0));
+        }
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .annullaPrenotazioni(AnnullaPrenotazioniRequest.newBuilder()
+                                .setEmailUtente(emailUtente)
+                                .addAllIdPrenotazioni(idPrenotazioni)
+                                .build()),
+                response -> {
+                    if (response.getSuccesso() && response.getPostiRilasciati() > 0) {
+                        cacheRicerche.svuota();
+                    }
+                    return new RisultatoAnnullamento(response.getSuccesso(), response.getMessaggio(),
+                            response.getPostiRilasciati());
+                },
+                status -> new RisultatoAnnullamento(false, messaggioErrore(status), 0));
+    }
+
+    public CompletableFuture<RisultatoBiglietti> visualizzaBigliettiAsync(String emailUtente) {
+        if (emailUtente == null || emailUtente.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new RisultatoBiglietti(false, "Email utente non specificata", new ArrayList<>()));
+        }
+        RisultatoBiglietti inCache = cacheBiglietti.fresca(emailUtente);
+        if (inCache != null) {
+            return CompletableFuture.completedFuture(inCache);
+        }
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .visualizzaBiglietti(richiestaBiglietti(emailUtente, cacheBiglietti.versione(emailUtente))),
+                response -> daRispostaBiglietti(emailUtente, response),
+                status -> new RisultatoBiglietti(false, messaggioErrore(status), new ArrayList<>()))
+                // null: la copia locale è stata invalidata mentre il server la confermava
+                .thenCompose(risultato -> risultato != null
+                        ? CompletableFuture.completedFuture(risultato)
+                        : visualizzaBigliettiAsync(emailUtente));
+    }
+
+    /**
+     * Risultato dalla risposta del server aggiornando la cache dei biglietti.
+     * Restituisce null se il server ha confermato una versione che in locale non c'è più
+     */
+    private RisultatoBiglietti daRispostaBiglietti(String emailUtente, VisualizzaBigliettiResponse response) {
+        if (response.getNonModificato()) {
+            return cacheBiglietti.rinnova(emailUtente, response.getVersione(), DURATA_BIGLIETTI_NS);
+        }
+        RisultatoBiglietti risultato = toRisultatoBiglietti(response);
+        if (risultato.isSuccesso()) {
+            cacheBiglietti.metti(emailUtente, risultato, response.getVersione(), DURATA_BIGLIETTI_NS);
+        }
+        return risultato;
+    }
+
+    public CompletableFuture<RisultatoModificaBiglietto> modificaBigliettoAsync(String idBiglietto,
+                                                                                String nuovoIdViaggio,
+                                                                                String emailUtente) {
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .modificaBiglietto(richiestaModifica(idBiglietto, nuovoIdViaggio, emailUtente)),
+                response -> {
+                    RisultatoModificaBiglietto risultato = toRisultatoModifica(response);
+                    if (risultato.isSuccesso()) {
+                        invalidaDopoModifica(emailUtente);
+                    }
+                    return risultato;
+                },
+                status -> new RisultatoModificaBiglietto(false, messaggioErrore(status), 0.0, 0.0, 0.0, null));
+    }
+
+    /**
+     * Dopo un acquisto o una modifica dell'utente i suoi biglietti e i posti dei viaggi
+     * sono cambiati: le copie locali non vanno più usate
+     */
+    private void invalidaDopoModifica(String emailUtente) {
+        cacheBiglietti.invalida(emailUtente);
+        cacheRicerche.svuota();
+    }
+
+    /**
+     * Collega la chiamata gRPC a un CompletableFuture.
+     * Gli errori di rete diventano un risultato non riuscito, come nelle chiamate bloccanti;
+     * annullare il CompletableFuture annulla anche la chiamata sul server.
+     */
+    private static <R, T> CompletableFuture<T> inoltra(ListenableFuture<R> chiamata,
+                                                       Function<R, T> conversione,
+                                                       Function<Status, T> errore) {
+        CompletableFuture<T> risultato = new CompletableFuture<>();
+        Futures.addCallback(chiamata, new FutureCallback<R>() {
+            @Override
+            public void onSuccess(R response) {
+                try {
+                    risultato.complete(conversione.apply(response));
+                } catch (RuntimeException e) {
+                    risultato.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                if (risultato.isDone()) {
+                    return;
+                }
+                Status status = Status.fromThrowable(t);
+                logger.warning("Errore nella chiamata gRPC asincrona: " + status);
+                risultato.complete(errore.apply(status));
+            }
+        }, MoreExecutors.directExecutor());
+
+        risultato.whenComplete((valore, eccezione) -> {
+            if (risultato.isCancelled()) {
+                chiamata.cancel(true);
+            }
+        });
+        return risultato;
+    }
+
+    private static String messaggioErrore(Status status) {
+        switch (status.getCode()) {
+            case UNAVAILABLE:
+                return "Server non disponibile. Riprova più tardi.";
+            case DEADLINE_EXCEEDED:
+                return "Il server non ha risposto in tempo. Riprova.";
+            default:
+                return "Errore di connessione al server";
+        }
+    }
+
+    private static String chiaveRicerca(String stazionePartenza, String stazioneArrivo, LocalDate dataViaggio) {
+        return stazionePartenza + "|" + stazioneArrivo + "|" + dataViaggio;
+    }
+
+    private static RicercaViaggioRequest richiestaRicerca(String stazionePartenza, String stazioneArrivo,
+                                                          LocalDate dataViaggio) {
+        return RicercaViaggioRequest.newBuilder()
+                .setStazionePartenza(stazionePartenza)
+                .setStazioneArrivo(stazioneArrivo)
+                .setDataViaggio(dataViaggio.toString())
+                .build();
+    }
+
+    private static AggiungiCarrelloRequest richiestaCarrello(String viaggioId, int quantita, String emailUtente) {
+        return AggiungiCarrelloRequest.newBuilder()
+                .setViaggioId(viaggioId)
+                .setQuantita(quantita)
+                .setEmailUtente(emailUtente)
+                .build();
+    }
+
+    private static ConfermaAcquistoRequest richiestaAcquisto(List<CarrelloItem> carrelloItems,
+                                                             List<String> nominativi,
+                                                             String modalitaPagamento,
+                                                             String emailUtente,
+                                                             String codicePromozione) {
+        List<CarrelloItemDTO> itemsDTO = new ArrayList<>();
+        for (CarrelloItem item : carrelloItems) {
+            CarrelloItemDTO dto = CarrelloItemDTO.newBuilder()
+                    .setViaggioId(item.getViaggioId())
+                    .setQuantita(item.getQuantita())
+                    .setPrezzo(item.getPrezzo())
+                    .addAllIdPrenotazioni(item.getIdPrenotazioni())
+                    .build();
+            itemsDTO.add(dto);
+        }
+
+        ConfermaAcquistoRequest.Builder requestBuilder = ConfermaAcquistoRequest.newBuilder()
+                .setEmailUtente(emailUtente)
+                .addAllCarrelloItems(itemsDTO)
+                .addAllNominativi(nominativi)
+                .setModalitaPagamento(modalitaPagamento);
+        if (codicePromozione != null && !codicePromozione.trim().isEmpty()) {
+            requestBuilder.setCodicePromozione(codicePromozione.trim());
+        }
+        return requestBuilder.build();
+    }
+
+    private static VisualizzaBigliettiRequest richiestaBiglietti(String emailUtente, long versioneCache) {
+        return VisualizzaBigliettiRequest.newBuilder()
+                .setEmailUtente(emailUtente)
+                .setVersioneCache(versioneCache)
+                .build();
+    }
+
+    private static ModificaBigliettoRequest richiestaModifica(String idBiglietto, String nuovoIdViaggio,
+                                                              String emailUtente) {
+        return ModificaBigliettoRequest.newBuilder()
+                .setIdBiglietto(idBiglietto)
+                .setNuovoIdViaggio(nuovoIdViaggio)
+                .setEmailUtente(emailUtente)
+                .build();
+    }
+
+    private static RisultatoRicerca toRisultatoRicerca(RicercaViaggioResponse response) {
+        return new RisultatoRicerca(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getViaggiList()
+        );
+    }
+
+    private static RisultatoCarrello toRisultatoCarrello(AggiungiCarrelloResponse response) {
+        List<CarrelloItem> carrelloItems = new ArrayList<>();
+        for (BigliettoCarrelloDTO dto : response.getBigliettiCreatiList()) {
+            CarrelloItem item = new CarrelloItem(
+                    dto.getViaggioId(),
+                    dto.getPrezzo(),
+                    dto.getQuantita(),
+                    dto.getViaggio(),
+                    dto.getIdTemporaneo()
+            );
+            carrelloItems.add(item);
+        }
+
+        return new RisultatoCarrello(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getPostiRimanenti(),
+                carrelloItems
+        );
+    }
+
+    private static RisultatoAcquisto toRisultatoAcquisto(ConfermaAcquistoResponse response) {
+        return new RisultatoAcquisto(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getBigliettiAcquistati(),
+                response.getPrezzoTotale(),
+                response.getScontoApplicato(),
+                response.getNomePromozione()
+        );
+    }
+
+    private static RisultatoBiglietti toRisultatoBiglietti(VisualizzaBigliettiResponse response) {
+        return new RisultatoBiglietti(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getBigliettiList()
+        );
+    }
+
+    private static RisultatoModificaBiglietto toRisultatoModifica(ModificaBigliettoResponse response) {
+        return new RisultatoModificaBiglietto(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getDifferenzaPrezzo(),
+                response.getPrezzoPrecedente(),
+                response.getPrezzoNuovo(),
+                response.hasBigliettoAggiornato() ? response.getBigliettoAggiornato() : null
+        );
+    }
+
     public RisultatoNotifica inviaNotifica(String tipoNotifica, String emailUtente) {
         logger.info("Invio notifica: " + tipoNotifica + " per utente: " + emailUtente);
 
@@ -268,6 +760,21 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Come {@link #inviaNotifica} ma senza bloccare il chiamante
+     */
+    public CompletableFuture<RisultatoNotifica> inviaNotificaAsync(String tipoNotifica, String emailUtente) {
+        logger.info("Invio notifica: " + tipoNotifica + " per utente: " + emailUtente);
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .inviaNotificaCliente(NotificaClienteRequest.newBuilder()
+                                .setTipoNotifica(tipoNotifica)
+                                .setEmailUtente(emailUtente)
+                                .build()),
+                response -> new RisultatoNotifica(response.getSuccesso(), response.getMessaggio()),
+                status -> new RisultatoNotifica(false, messaggioErrore(status)));
+    }
+
     public RisultatoNotifichePendenti controllaNotifichePendenti(String emailUtente) {
         try {
             ControllaNotificheRequest request = ControllaNotificheRequest.newBuilder()
@@ -291,6 +798,23 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Apre lo stream delle notifiche dell'utente; sostituisce eventuali sottoscrizioni precedenti
+     */
+    public synchronized void sottoscriviNotifiche(String emailUtente, Consumer<String> ascoltatore) {
+        annullaSottoscrizioneNotifiche();
+        sottoscrittoreNotifiche = new SottoscrittoreNotifiche(asyncStub, emailUtente,
+                evento -> ascoltatore.accept(evento.getMessaggio()));
+        sottoscrittoreNotifiche.avvia();
+    }
+
+    public synchronized void annullaSottoscrizioneNotifiche() {
+        if (sottoscrittoreNotifiche != null) {
+            sottoscrittoreNotifiche.ferma();
+            sottoscrittoreNotifiche = null;
+        }
+    }
+
     public RisultatoLogin login(String email, String password, String nome) {
         logger.info("Richiesta login per: " + email);
 
@@ -325,6 +849,23 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Come {@link #login} ma senza bloccare il chiamante
+     */
+    public CompletableFuture<RisultatoLogin> loginAsync(String email, String password, String nome) {
+        logger.info("Richiesta login per: " + email);
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .login(LoginRequest.newBuilder()
+                                .setEmail(email.trim())
+                                .setPassword(password)
+                                .setNome(nome.trim())
+                                .build()),
+                response -> new RisultatoLogin(response.getSuccesso(), response.getMessaggio(),
+                        response.getSuccesso() && response.hasCliente() ? response.getCliente() : null),
+                status -> new RisultatoLogin(false, messaggioErrore(status), null));
+    }
+
     public RisultatoAbbonamento gestisciAbbonamento(String emailUtente, boolean vuoleNotifiche) {
         try {
             if (emailUtente == null || emailUtente.trim().isEmpty()) {
@@ -337,6 +878,10 @@ public class ControllerTrenical {
                     .build();
 
             GestisciAbbonamentoResponse response = blockingStub.gestisciAbbonamento(request);
+            if (response.getSuccesso()) {
+                // l'abbonamento cambia le promozioni visibili
+                cachePromozioni.invalida(emailUtente);
+            }
 
             return new RisultatoAbbonamento(
                     response.getSuccesso(),
@@ -356,6 +901,32 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Come {@link #gestisciAbbonamento} ma senza bloccare il chiamante
+     */
+    public CompletableFuture<RisultatoAbbonamento> gestisciAbbonamentoAsync(String emailUtente,
+                                                                            boolean vuoleNotifiche) {
+        if (emailUtente == null || emailUtente.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new RisultatoAbbonamento(false, "Email utente obbligatoria", false, false));
+        }
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .gestisciAbbonamento(GestisciAbbonamentoRequest.newBuilder()
+                                .setEmailUtente(emailUtente)
+                                .setNotifiche(vuoleNotifiche)
+                                .build()),
+                response -> {
+                    if (response.getSuccesso()) {
+                        // l'abbonamento cambia le promozioni visibili
+                        cachePromozioni.invalida(emailUtente);
+                    }
+                    return new RisultatoAbbonamento(response.getSuccesso(), response.getMessaggio(),
+                            response.getNuovoStatoAbbonamento(), response.getNotificheAttive());
+                },
+                status -> new RisultatoAbbonamento(false, messaggioErrore(status), false, false));
+    }
+
     public RisultatoPromozioni visualizzaPromozioni(String emailUtente) {
         logger.info("Richiesta visualizzazione promozioni per: " + emailUtente);
 
@@ -364,17 +935,36 @@ public class ControllerTrenical {
                 return new RisultatoPromozioni(false, "Email utente obbligatoria", new ArrayList<>());
             }
 
+            RisultatoPromozioni inCache = cachePromozioni.fresca(emailUtente);
+            if (inCache != null) {
+                return inCache;
+            }
+
             VisualizzaPromozioniRequest request = VisualizzaPromozioniRequest.newBuilder()
                     .setEmailUtente(emailUtente)
+                    .setVersioneCatalogo(cachePromozioni.versione(emailUtente))
                     .build();
 
             VisualizzaPromozioniResponse response = blockingStub.visualizzaPromozioni(request);
 
-            return new RisultatoPromozioni(
+            if (response.getNonModificato()) {
+                inCache = cachePromozioni.rinnova(emailUtente, response.getVersioneCatalogo(), DURATA_PROMOZIONI_NS);
+                if (inCache != null) {
+                    logger.info("Promozioni invariate, uso la copia locale");
+                    return inCache;
+                }
+                response = blockingStub.visualizzaPromozioni(request.toBuilder().setVersioneCatalogo(0).build());
+            }
+
+            RisultatoPromozioni risultato = new RisultatoPromozioni(
                     response.getSuccesso(),
                     response.getMessaggio(),
                     response.getPromozioniList()
             );
+            if (response.getSuccesso() && response.getVersioneCatalogo() > 0) {
+                cachePromozioni.metti(emailUtente, risultato, response.getVersioneCatalogo(), DURATA_PROMOZIONI_NS);
+            }
+            return risultato;
 
         } catch (StatusRuntimeException e) {
             logger.severe("Errore gRPC visualizzazione promozioni: " + e.getStatus());
@@ -387,6 +977,51 @@ public class ControllerTrenical {
         }
     }
 
+    /**
+     * Come {@link #visualizzaPromozioni} ma senza bloccare il chiamante
+     */
+    public CompletableFuture<RisultatoPromozioni> visualizzaPromozioniAsync(String emailUtente) {
+        if (emailUtente == null || emailUtente.trim().isEmpty()) {
+            return CompletableFuture.completedFuture(
+                    new RisultatoPromozioni(false, "Email utente obbligatoria", new ArrayList<>()));
+        }
+        RisultatoPromozioni inCache = cachePromozioni.fresca(emailUtente);
+        if (inCache != null) {
+            return CompletableFuture.completedFuture(inCache);
+        }
+        return inoltra(
+                futureStub.withDeadlineAfter(DEADLINE_OPERAZIONE_MS, TimeUnit.MILLISECONDS)
+                        .visualizzaPromozioni(VisualizzaPromozioniRequest.newBuilder()
+                                .setEmailUtente(emailUtente)
+                                .setVersioneCatalogo(cachePromozioni.versione(emailUtente))
+                                .build()),
+                response -> daRispostaPromozioni(emailUtente, response),
+                status -> new RisultatoPromozioni(false, messaggioErrore(status), new ArrayList<>()))
+                // null: la copia locale è stata invalidata mentre il server la confermava
+                .thenCompose(risultato -> risultato != null
+                        ? CompletableFuture.completedFuture(risultato)
+                        : visualizzaPromozioniAsync(emailUtente));
+    }
+
+    /**
+     * Risultato dalla risposta del server aggiornando la cache delle promozioni.
+     * Restituisce null se il server ha confermato una versione che in locale non c'è più
+     */
+    private RisultatoPromozioni daRispostaPromozioni(String emailUtente, VisualizzaPromozioniResponse response) {
+        if (response.getNonModificato()) {
+            return cachePromozioni.rinnova(emailUtente, response.getVersioneCatalogo(), DURATA_PROMOZIONI_NS);
+        }
+        RisultatoPromozioni risultato = new RisultatoPromozioni(
+                response.getSuccesso(),
+                response.getMessaggio(),
+                response.getPromozioniList()
+        );
+        if (response.getSuccesso() && response.getVersioneCatalogo() > 0) {
+            cachePromozioni.metti(emailUtente, risultato, response.getVersioneCatalogo(), DURATA_PROMOZIONI_NS);
+        }
+        return risultato;
+    }
+
     public static class RisultatoRicerca {
         private final boolean successo;
         private final String messaggio;
@@ -423,6 +1058,22 @@ public class ControllerTrenical {
         public List<CarrelloItem> getCarrelloItems() { return carrelloItems; }
     }
 
+    public static class RisultatoAnnullamento {
+        private final boolean successo;
+        private final String messaggio;
+        private final int postiRilasciati;
+
+        public RisultatoAnnullamento(boolean successo, String messaggio, int postiRilasciati) {
+            this.successo = successo;
+            this.messaggio = messaggio;
+            this.postiRilasciati = postiRilasciati;
+        }
+
+        public boolean isSuccesso() { return successo; }
+        public String getMessaggio() { return messaggio; }
+        public int getPostiRilasciati() { return postiRilasciati; }
+    }
+
     public static class RisultatoAcquisto {
         private final boolean successo;
         private final String messaggio;
@@ -568,4 +1219,36 @@ public class ControllerTrenical {
         public String getMessaggio() { return messaggio; }
         public List<PromozioneDTO> getPromozioni() { return promozioni; }
     }
-}
\ No newline at end of file
+
+    public static class RisultatoPianificazione {
+        private final boolean successo;
+        private final String messaggio;
+        private final List<PercorsoDTO> percorsi;
+
+        public RisultatoPianificazione(boolean successo, String messaggio, List<PercorsoDTO> percorsi) {
+            this.successo = successo;
+            this.messaggio = messaggio;
+            this.percorsi = percorsi != null ? percorsi : new ArrayList<>();
+        }
+
+        public boolean isSuccesso() { return successo; }
+        public String getMessaggio() { return messaggio; }
+        public List<PercorsoDTO> getPercorsi() { return percorsi; }
+    }
+
+    public static class RisultatoCalendario {
+        private final boolean successo;
+        private final String messaggio;
+        private final List<TariffaGiornoDTO> tariffe;
+
+        public RisultatoCalendario(boolean successo, String messaggio, List<TariffaGiornoDTO> tariffe) {
+            this.successo = successo;
+            this.messaggio = messaggio;
+            this.tariffe = tariffe != null ? tariffe : new ArrayList<>();
+        }
+
+        public boolean isSuccesso() { return successo; }
+        public String getMessaggio() { return messaggio; }
+        public List<TariffaGiornoDTO> getTariffe() { return tariffe; }
+    }
+}
@@ -0,0 +1,129 @@
+package it.trenical.client.proxy;
+
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import it.trenical.grpc.NotificaEvento;
+import it.trenical.grpc.SottoscriviNotificheRequest;
+import it.trenical.grpc.TrenicalServiceGrpc;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Mantiene aperto lo stream delle notifiche di un utente.
+ * Chiede al server un messaggio alla volta (controllo di flusso lato client),
+ * ricorda l'ultima sequenza ricevuta e, se lo stream cade, si riconnette con
+ * attesa esponenziale ripartendo da quella sequenza.
+ */
+class SottoscrittoreNotifiche {
+    private static final Logger logger = Logger.getLogger(SottoscrittoreNotifiche.class.getName());
+
+    private static final long ATTESA_INIZIALE_MS = 1_000;
+    private static final long ATTESA_MASSIMA_MS = 60_000;
+
+    private final TrenicalServiceGrpc.TrenicalServiceStub asyncStub;
+    private final String email;
+    private final Consumer<NotificaEvento> ascoltatore;
+    private final ScheduledExecutorService riconnessioni;
+    private final AtomicLong ultimaSequenza;
+
+    private volatile boolean fermato;
+    private volatile ClientCallStreamObserver<SottoscriviNotificheRequest> chiamataCorrente;
+    private volatile long attesaMs;
+
+    SottoscrittoreNotifiche(TrenicalServiceGrpc.TrenicalServiceStub asyncStub, String email,
+                            Consumer<NotificaEvento> ascoltatore) {
+        this.asyncStub = asyncStub;
+        this.email = email;
+        this.ascoltatore = ascoltatore;
+        this.riconnessioni = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "notifiche-" + email);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.ultimaSequenza = new AtomicLong();
+        this.attesaMs = ATTESA_INIZIALE_MS;
+    }
+
+    void avvia() {
+        riconnessioni.execute(this::connetti);
+    }
+
+    void ferma() {
+        fermato = true;
+        ClientCallStreamObserver<SottoscriviNotificheRequest> chiamata = chiamataCorrente;
+        if (chiamata != null) {
+            chiamata.cancel("Sottoscrizione notifiche terminata", null);
+        }
+        riconnessioni.shutdownNow();
+        logger.info("Sottoscrizione notifiche fermata per: " + email);
+    }
+
+    private void connetti() {
+        if (fermato) {
+            return;
+        }
+
+        SottoscriviNotificheRequest request = SottoscriviNotificheRequest.newBuilder()
+                .setEmailUtente(email)
+                .setUltimaSequenza(ultimaSequenza.get())
+                .build();
+
+        asyncStub.sottoscriviNotifiche(request, new ClientResponseObserver<SottoscriviNotificheRequest, NotificaEvento>() {
+            @Override
+            public void beforeStart(ClientCallStreamObserver<SottoscriviNotificheRequest> requestStream) {
+                chiamataCorrente = requestStream;
+                requestStream.disableAutoRequestWithInitial(1);
+            }
+
+            @Override
+            public void onNext(NotificaEvento evento) {
+                attesaMs = ATTESA_INIZIALE_MS;
+                if (evento.getSequenza() > ultimaSequenza.get()) {
+                    ultimaSequenza.set(evento.getSequenza());
+                }
+                try {
+                    ascoltatore.accept(evento);
+                } catch (RuntimeException e) {
+                    logger.warning("Errore nella gestione della notifica: " + e.getMessage());
+                }
+                chiamataCorrente.request(1);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                if (!fermato) {
+                    logger.warning("Stream notifiche interrotto: " + Status.fromThrowable(t));
+                    programmaRiconnessione();
+                }
+            }
+
+            @Override
+            public void onCompleted() {
+                if (!fermato) {
+                    logger.info("Stream notifiche chiuso dal server");
+                    programmaRiconnessione();
+                }
+            }
+        });
+
+        logger.info("Sottoscrizione notifiche avviata per: " + email + " da sequenza " + ultimaSequenza.get());
+    }
+
+    private void programmaRiconnessione() {
+        long attesa = attesaMs + ThreadLocalRandom.current().nextLong(attesaMs / 2 + 1);
+        attesaMs = Math.min(attesaMs * 2, ATTESA_MASSIMA_MS);
+        try {
+            riconnessioni.schedule(this::connetti, attesa, TimeUnit.MILLISECONDS);
+            logger.info("Nuovo tentativo di sottoscrizione tra " + attesa + " ms");
+        } catch (RuntimeException e) {
+            logger.fine("Riconnessione non programmata: sottoscrizione fermata");
+        }
+    }
+}
@@ -3,29 +3,82 @@ package it.trenical.server;
 import io.grpc.Grpc;
 import io.grpc.InsecureServerCredentials;
 import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.grpc.EsecutoreRichieste;
+import it.trenical.server.grpc.InterceptorMetriche;
+import it.trenical.server.grpc.LimitatoreConcorrenza;
 import it.trenical.server.grpc.TrenicalServiceImpl;
 import it.trenical.server.gui.ServerAdminApp;
+import it.trenical.server.metriche.RegistroMetriche;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.prenotazioni.GestorePrenotazioni;
+import it.trenical.server.viaggi.GestorePosti;
+import it.trenical.server.viaggi.IndiceOrari;
 import javafx.application.Platform;
 
 import java.io.IOException;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 public class ServerMain {
 
     private static Logger logger = Logger.getLogger(ServerMain.class.getName());
     private static int port = 1010;
+    // gli stream delle notifiche restano aperti a lungo: il keepalive rileva i client spariti
+    private static final long KEEPALIVE_SECONDI = 60;
 
     private Server server;
+    private EsecutoreRichieste esecutore;
+    private LimitatoreConcorrenza limitatore;
 
     private void avviaServer() throws IOException {
+        IndiceOrari.getInstance();
+        esecutore = EsecutoreRichieste.daConfigurazione();
+        limitatore = new LimitatoreConcorrenza();
+        registraMetriche();
+
         server = Grpc.newServerBuilderForPort(
                         port,
                         InsecureServerCredentials.create())
-                .addService(new TrenicalServiceImpl())
+                .executor(esecutore)
+                .addService(ServerInterceptors.intercept(new TrenicalServiceImpl(), limitatore, new InterceptorMetriche()))
+                .keepAliveTime(KEEPALIVE_SECONDI, TimeUnit.SECONDS)
+                .keepAliveTimeout(20, TimeUnit.SECONDS)
+                .permitKeepAliveTime(KEEPALIVE_SECONDI / 2, TimeUnit.SECONDS)
+                .permitKeepAliveWithoutCalls(true)
                 .build()
                 .start();
 
         logger.info("Server gRPC in ascolto sulla porta: " + port);
+
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.shutdown();
+            RegistroMetriche.getInstance().fermaDump();
+            registraStatistiche();
+            GestorePrenotazioni.getInstance().chiudi();
+            esecutore.chiudi();
+            DatabaseManager.getInstance().chiudi();
+        }));
+    }
+
+    private void registraMetriche() {
+        RegistroMetriche registro = RegistroMetriche.getInstance();
+        registro.registraIstogramma(esecutore.getAttesaCoda());
+        registro.registraIndicatore("posti.tentativi_contesi", () -> GestorePosti.getInstance().getTentativiContesi());
+        registro.registraIndicatore("notifiche.in_attesa", () -> GestoreNotifiche.getInstance().getProfonditaTotale());
+        registro.registraIndicatore("notifiche.consegnate", () -> GestoreNotifiche.getInstance().getConsegnate());
+        registro.registraIndicatore("notifiche.scartate", () -> GestoreNotifiche.getInstance().getScartate());
+        registro.registraIndicatore("prenotazioni.attive", () -> GestorePrenotazioni.getInstance().getAttive());
+        registro.registraIndicatore("db.statement.preparati", () -> DatabaseManager.getInstance().getStatementPreparati());
+        registro.registraIndicatore("db.statement.compilati", () -> DatabaseManager.getInstance().getStatementCompilati());
+        registro.avviaDump();
+    }
+
+    private void registraStatistiche() {
+        logger.info("Esecutore " + esecutore.getModalita() + ": " + esecutore.getAttesaCoda());
+        limitatore.getTempiServizio().values().forEach(istogramma -> logger.info("Servizio " + istogramma));
+        logger.info(RegistroMetriche.getInstance().istantanea().formatta());
     }
 
     private void avviaGUIAdmin() {
@@ -1,5 +1,6 @@
 package it.trenical.server.cliente;
 
+import it.trenical.server.identificativi.GeneratoriId;
 import it.trenical.server.viaggi.Viaggio;
 import it.trenical.server.stazioni.Binario;
 import it.trenical.server.stazioni.Stazione;
@@ -9,7 +10,6 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.Objects;
-import java.util.concurrent.TimeUnit;
 
 public class Biglietto implements Cloneable {
 
@@ -44,18 +44,7 @@ public class Biglietto implements Cloneable {
         if (nominativo == null) {
             return null; // Non genera ID se non c'è nominativo
         }
-        try {
-            TimeUnit.MILLISECONDS.sleep(50);
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
-        }
-        String input = String.format("%s_%s_%d",
-                nominativo.replaceAll("\\s+", ""),
-                viaggio.getId(),
-                System.currentTimeMillis() // Timestamp unico!
-        );
-        int hash = Math.abs(input.hashCode());
-        return String.format("BGT_%08d", hash % 100000000);
+        return GeneratoriId.prossimoId("BGT_");
     }
 
     @Override
@@ -2,7 +2,7 @@ package it.trenical.server.cliente;
 
 import it.trenical.server.observer.Notifica;
 import it.trenical.server.observer.Observer;
-import it.trenical.server.gui.AdminViaggi;
+import it.trenical.server.notifiche.GestoreNotifiche;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -40,10 +40,16 @@ public class Cliente implements Observer {
 
     @Override
     public void update(Notifica notifica) {
+        ricevuta(notifica);
+        GestoreNotifiche.getInstance().invia(email, notifica);
+    }
+
+    /**
+     * Registra la notifica tra quelle ricevute senza accodarla:
+     * serve a chi la accoda insieme a quelle di altri clienti
+     */
+    public void ricevuta(Notifica notifica) {
         notificheRicevute.add(notifica);
-        String notificaCompleta = this.email + "|" + notifica.getMessaggio();
-        AdminViaggi.aggiungiNotificaStatica(notificaCompleta);
-        System.out.println("Cliente " + email + " ha ricevuto notifica: " + notifica.getMessaggio());
     }
 
     @Override
@@ -0,0 +1,272 @@
+package it.trenical.server.db;
+
+import it.trenical.server.metriche.IstogrammaLatenze;
+import it.trenical.server.metriche.RegistroMetriche;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.logging.Logger;
+
+/**
+ * Statement preparati di una connessione del pool, indicizzati per testo SQL.
+ * Gli statement restano compilati tra un prestito e l'altro: la close() chiamata dai DAO
+ * chiude il ResultSet aperto, azzera i parametri e rimette lo statement in cache.
+ * Oltre la capienza viene chiuso quello usato meno di recente (LRU).
+ * Ogni execute viene cronometrato nell'istogramma db.(testo SQL) del {@link RegistroMetriche},
+ * anche per gli statement fuori cache; il nome della metrica si calcola una volta per testo SQL.
+ * Usata da un solo thread alla volta, quello che ha la connessione in prestito.
+ */
+class CacheStatement {
+    private static final Logger logger = Logger.getLogger(CacheStatement.class.getName());
+
+    private static final int LUNGHEZZA_NOME_METRICA = 80;
+    private static final ConcurrentHashMap<String, IstogrammaLatenze> ISTOGRAMMI = new ConcurrentHashMap<>();
+
+    private final PoolConnessioni pool;
+    private final Connection connection;
+    private final int capienza;
+    private final LinkedHashMap<String, Voce> voci;
+
+    CacheStatement(PoolConnessioni pool, Connection connection, int capienza) {
+        this.pool = pool;
+        this.connection = connection;
+        this.capienza = capienza;
+        this.voci = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Voce> piuVecchia) {
+                if (size() <= CacheStatement.this.capienza) {
+                    return false;
+                }
+                piuVecchia.getValue().scarta();
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Statement per il testo SQL indicato, compilato solo se non è già in cache.
+     * Se lo stesso SQL è ancora aperto nel prestito corrente ne prepara uno fuori cache
+     */
+    synchronized PreparedStatement prepara(String sql) throws SQLException {
+        if (capienza <= 0) {
+            pool.registraCompilazione();
+            return fuoriCache(sql, connection.prepareStatement(sql));
+        }
+
+        Voce voce = voci.get(sql);
+        if (voce != null && !voce.inUso) {
+            pool.registraRiuso();
+            voce.inUso = true;
+            return voce;
+        }
+
+        pool.registraCompilazione();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        if (voce != null) {
+            return fuoriCache(sql, statement);
+        }
+
+        voce = new Voce(sql, statement, true);
+        voce.inUso = true;
+        voci.put(sql, voce);
+        return voce;
+    }
+
+    private PreparedStatement fuoriCache(String sql, PreparedStatement statement) {
+        Voce voce = new Voce(sql, statement, false);
+        voce.inUso = true;
+        return voce;
+    }
+
+    /**
+     * Istogramma delle esecuzioni di un testo SQL, condiviso da tutte le connessioni
+     */
+    private static IstogrammaLatenze istogramma(String sql) {
+        IstogrammaLatenze istogramma = ISTOGRAMMI.get(sql);
+        if (istogramma == null) {
+            istogramma = ISTOGRAMMI.computeIfAbsent(sql,
+                    s -> RegistroMetriche.getInstance().istogramma(nomeMetrica(s)));
+        }
+        return istogramma;
+    }
+
+    /**
+     * Nome della metrica per un testo SQL: spazi compattati e lunghezza limitata
+     */
+    static String nomeMetrica(String sql) {
+        String compatto = sql.strip().replaceAll("\\s+", " ");
+        if (compatto.length() > LUNGHEZZA_NOME_METRICA) {
+            compatto = compatto.substring(0, LUNGHEZZA_NOME_METRICA) + "...";
+        }
+        return "db." + compatto;
+    }
+
+    synchronized int getDimensione() {
+        return voci.size();
+    }
+
+    private synchronized void rimuovi(Voce voce) {
+        voci.remove(voce.sql, voce);
+    }
+
+    /**
+     * Chiude tutti gli statement, da chiamare prima di chiudere la connessione
+     */
+    synchronized void svuota() {
+        List<Voce> daChiudere = new ArrayList<>(voci.values());
+        voci.clear();
+        for (Voce voce : daChiudere) {
+            voce.chiudi();
+        }
+    }
+
+    /**
+     * Statement restituito ai DAO. Fuori cache la close() lo chiude davvero
+     */
+    private final class Voce extends StatementDelegato {
+        private final String sql;
+        private final boolean inCache;
+        private final IstogrammaLatenze esecuzioni;
+        private ResultSet risultato;
+        private boolean inUso;
+        private boolean scartata;
+
+        Voce(String sql, PreparedStatement statement, boolean inCache) {
+            super(statement);
+            this.sql = sql;
+            this.inCache = inCache;
+            this.esecuzioni = istogramma(sql);
+        }
+
+        @Override
+        public void close() {
+            rilascia();
+        }
+
+        @Override
+        public boolean isClosed() throws SQLException {
+            return !inUso || statement.isClosed();
+        }
+
+        @Override
+        public ResultSet executeQuery() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return risultato = statement.executeQuery();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public int executeUpdate() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return statement.executeUpdate();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public long executeLargeUpdate() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return statement.executeLargeUpdate();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public boolean execute() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return statement.execute();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public int[] executeBatch() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return statement.executeBatch();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public long[] executeLargeBatch() throws SQLException {
+            long inizio = System.nanoTime();
+            try {
+                return statement.executeLargeBatch();
+            } finally {
+                esecuzioni.registraNanos(System.nanoTime() - inizio);
+            }
+        }
+
+        @Override
+        public ResultSet getResultSet() throws SQLException {
+            return risultato = statement.getResultSet();
+        }
+
+        @Override
+        public ResultSet getGeneratedKeys() throws SQLException {
+            return risultato = statement.getGeneratedKeys();
+        }
+
+        private void rilascia() {
+            if (!inUso) {
+                return;
+            }
+            inUso = false;
+            if (!inCache) {
+                chiudi();
+                return;
+            }
+            try {
+                if (risultato != null) {
+                    risultato.close();
+                    risultato = null;
+                }
+                statement.clearParameters();
+                statement.clearBatch();
+            } catch (SQLException e) {
+                logger.warning("Statement non riutilizzabile, rimosso dalla cache: " + e.getMessage());
+                scartata = true;
+                rimuovi(this);
+            }
+            if (scartata) {
+                chiudi();
+            }
+        }
+
+        /**
+         * Uscita dalla cache: se il DAO lo sta ancora usando viene chiuso al rilascio
+         */
+        private void scarta() {
+            scartata = true;
+            if (!inUso) {
+                chiudi();
+            }
+        }
+
+        private void chiudi() {
+            try {
+                statement.close();
+            } catch (SQLException e) {
+                logger.warning("Errore nella chiusura statement: " + e.getMessage());
+            }
+        }
+    }
+}
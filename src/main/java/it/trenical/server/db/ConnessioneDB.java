@@ -0,0 +1,51 @@
+package it.trenical.server.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Connessione fisica presa in prestito dal pool.
+ * La close() restituisce la connessione al pool senza chiuderla,
+ * quindi va usata sempre in un try-with-resources.
+ */
+public class ConnessioneDB implements AutoCloseable {
+
+    private final PoolConnessioni pool;
+    private final Connection connection;
+    private final CacheStatement cache;
+    private boolean restituita;
+
+    ConnessioneDB(PoolConnessioni pool, Connection connection, CacheStatement cache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.cache = cache;
+        this.restituita = false;
+    }
+
+    public Connection getConnection() {
+        if (restituita) {
+            throw new IllegalStateException("Connessione già restituita al pool");
+        }
+        return connection;
+    }
+
+    /**
+     * Prepara uno statement sulla connessione in prestito, riusando quello in cache
+     * se lo stesso SQL è già stato compilato su questa connessione.
+     * Va chiuso come sempre: la close() lo rimette in cache
+     */
+    public PreparedStatement prepara(String sql) throws SQLException {
+        getConnection();
+        pool.registraStatement();
+        return cache.prepara(sql);
+    }
+
+    @Override
+    public void close() {
+        if (!restituita) {
+            restituita = true;
+            pool.restituisci(connection);
+        }
+    }
+}
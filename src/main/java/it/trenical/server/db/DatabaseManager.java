@@ -1,30 +1,60 @@
 package it.trenical.server.db;
 
+import it.trenical.server.db.migrazioni.GestoreMigrazioni;
+
 import java.sql.*;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.logging.Logger;
 
 /**
- * Gestisce la connessione al database SQLite
- * Pattern Singleton per garantire una sola connessione
+ * Gestisce le connessioni al database SQLite
+ * Pattern Singleton: mantiene due pool di connessioni in modalità WAL,
+ * uno per le letture e uno (a connessione singola) per le scritture
  */
 public class DatabaseManager {
     private static final Logger logger = Logger.getLogger(DatabaseManager.class.getName());
-    private static final String DB_PATH = "trenical.db";
+    private static final String DB_PATH = System.getProperty("trenical.db.percorso", "trenical.db");
     private static final String DB_URL = "jdbc:sqlite:" + DB_PATH;
 
+    private static final int CONNESSIONI_LETTURA =
+            Integer.getInteger("trenical.db.lettori", Math.max(2, Runtime.getRuntime().availableProcessors()));
+    private static final int CONNESSIONI_SCRITTURA = Integer.getInteger("trenical.db.scrittori", 1);
+    private static final long ATTESA_CONNESSIONE_MS = 10_000;
+    private static final int STATEMENT_IN_CACHE = Integer.getInteger("trenical.db.cache.statement", 64);
+
+    private static final List<String> PRAGMA_COMUNI = List.of(
+            "PRAGMA foreign_keys = ON",
+            "PRAGMA busy_timeout = 5000",
+            "PRAGMA synchronous = NORMAL",
+            "PRAGMA mmap_size = 268435456",
+            "PRAGMA cache_size = -16384",
+            "PRAGMA temp_store = MEMORY"
+    );
+
     private static DatabaseManager instance;
+
+    private final PoolConnessioni poolLettura;
+    private final PoolConnessioni poolScrittura;
     private Connection connection;
 
     private DatabaseManager() {
         try {
             Class.forName("org.sqlite.JDBC");
-            this.connection = DriverManager.getConnection(DB_URL);
+            impostaWal();
+            eseguiMigrazioni();
 
-            try (Statement stmt = connection.createStatement()) {
-                stmt.execute("PRAGMA foreign_keys = ON");
-            }
+            List<String> pragmaScrittura = new ArrayList<>(PRAGMA_COMUNI);
+            List<String> pragmaLettura = new ArrayList<>(PRAGMA_COMUNI);
+            pragmaLettura.add("PRAGMA query_only = ON");
+
+            this.poolScrittura = new PoolConnessioni("scrittura", DB_URL, CONNESSIONI_SCRITTURA,
+                    pragmaScrittura, ATTESA_CONNESSIONE_MS, STATEMENT_IN_CACHE);
+            this.poolLettura = new PoolConnessioni("lettura", DB_URL, CONNESSIONI_LETTURA,
+                    pragmaLettura, ATTESA_CONNESSIONE_MS, STATEMENT_IN_CACHE);
 
-            logger.info("Connessione al database SQLite stabilita: " + DB_PATH);
+            logger.info("Connessione al database SQLite stabilita: " + DB_PATH +
+                    " (lettori: " + CONNESSIONI_LETTURA + ", scrittori: " + CONNESSIONI_SCRITTURA + ")");
         } catch (ClassNotFoundException | SQLException e) {
             logger.severe("Errore nella connessione al database: " + e.getMessage());
             throw new RuntimeException("Impossibile connettersi al database", e);
@@ -39,16 +69,79 @@ public class DatabaseManager {
     }
 
     /**
-     * Ottiene la connessione al database
+     * La modalità WAL è persistente nel file: basta impostarla una volta all'avvio
+     */
+    private void impostaWal() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DB_URL);
+             Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA journal_mode = WAL")) {
+            if (rs.next() && !"wal".equalsIgnoreCase(rs.getString(1))) {
+                logger.warning("Modalità WAL non attivata, journal_mode: " + rs.getString(1));
+            }
+        }
+    }
+
+    /**
+     * Aggiorna lo schema prima di aprire i pool, su una connessione dedicata
+     */
+    private void eseguiMigrazioni() throws SQLException {
+        try (Connection conn = DriverManager.getConnection(DB_URL)) {
+            int versione = GestoreMigrazioni.predefinito().aggiorna(conn);
+            logger.info("Schema database alla versione " + versione);
+        }
+    }
+
+    /**
+     * Prende in prestito una connessione di sola lettura.
+     * Da usare in try-with-resources: la close() la restituisce al pool
+     */
+    public ConnessioneDB lettura() {
+        return poolLettura.prendi();
+    }
+
+    /**
+     * Prende in prestito la connessione di scrittura.
+     * Da usare in try-with-resources: la close() la restituisce al pool
+     */
+    public ConnessioneDB scrittura() {
+        return poolScrittura.prendi();
+    }
+
+    /**
+     * Esegue l'operazione in un'unica transazione sulla connessione di scrittura:
+     * commit se termina normalmente, rollback se lancia un'eccezione
      */
-    public Connection getConnection() {
+    public <T> T eseguiTransazione(OperazioneTransazione<T> operazione) throws SQLException {
+        try (ConnessioneDB conn = scrittura()) {
+            Connection connection = conn.getConnection();
+            connection.setAutoCommit(false);
+            try {
+                T risultato = operazione.esegui(conn);
+                connection.commit();
+                return risultato;
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * Ottiene una connessione condivisa fuori dai pool
+     * @deprecated usare {@link #lettura()} o {@link #scrittura()}
+     */
+    @Deprecated
+    public synchronized Connection getConnection() {
         try {
             if (connection == null || connection.isClosed()) {
-                logger.warning("Connessione chiusa, riconnessione in corso...");
                 this.connection = DriverManager.getConnection(DB_URL);
 
                 try (Statement stmt = connection.createStatement()) {
-                    stmt.execute("PRAGMA foreign_keys = ON");
+                    for (String pragma : PRAGMA_COMUNI) {
+                        stmt.execute(pragma);
+                    }
                 }
             }
             return connection;
@@ -57,4 +150,30 @@ public class DatabaseManager {
             throw new RuntimeException("Errore connessione database", e);
         }
     }
-}
\ No newline at end of file
+
+    public long getStatementPreparati() {
+        return poolLettura.getStatementPreparati() + poolScrittura.getStatementPreparati();
+    }
+
+    /**
+     * Statement effettivamente compilati da SQLite, al netto dei riusi dalla cache
+     */
+    public long getStatementCompilati() {
+        return poolLettura.getStatementCompilati() + poolScrittura.getStatementCompilati();
+    }
+
+    public PoolConnessioni getPoolLettura() { return poolLettura; }
+    public PoolConnessioni getPoolScrittura() { return poolScrittura; }
+
+    public synchronized void chiudi() {
+        poolLettura.chiudi();
+        poolScrittura.chiudi();
+        try {
+            if (connection != null && !connection.isClosed()) {
+                connection.close();
+            }
+        } catch (SQLException e) {
+            logger.warning("Errore nella chiusura connessione: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package it.trenical.server.db;
+
+import java.sql.SQLException;
+
+/**
+ * Operazione eseguita all'interno di una transazione sulla connessione di scrittura
+ * @param <T> tipo del risultato
+ */
+@FunctionalInterface
+public interface OperazioneTransazione<T> {
+    T esegui(ConnessioneDB conn) throws SQLException;
+}
@@ -0,0 +1,190 @@
+package it.trenical.server.db;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Pool limitato di connessioni SQLite a lunga vita.
+ * Le connessioni vengono aperte una volta sola con i PRAGMA già impostati
+ * e prestate tramite {@link ConnessioneDB}.
+ * Ogni connessione ha la propria {@link CacheStatement}: uno statement viene compilato
+ * una volta per connessione e riusato dai prestiti successivi.
+ */
+public class PoolConnessioni {
+    private static final Logger logger = Logger.getLogger(PoolConnessioni.class.getName());
+
+    private final String nome;
+    private final String url;
+    private final List<String> pragma;
+    private final long attesaMassimaMs;
+    private final int capienzaCache;
+    private final BlockingQueue<Connection> libere;
+    private final List<Connection> tutte;
+    private final Map<Connection, CacheStatement> cache = new ConcurrentHashMap<>();
+
+    private final AtomicLong prestiti = new AtomicLong();
+    private final AtomicLong statement = new AtomicLong();
+    private final AtomicLong compilazioni = new AtomicLong();
+    private final AtomicLong riusi = new AtomicLong();
+
+    public PoolConnessioni(String nome, String url, int dimensione, List<String> pragma, long attesaMassimaMs) {
+        this(nome, url, dimensione, pragma, attesaMassimaMs, 0);
+    }
+
+    /**
+     * @param capienzaCache statement tenuti in cache per ogni connessione, 0 per disattivare la cache
+     */
+    public PoolConnessioni(String nome, String url, int dimensione, List<String> pragma,
+                           long attesaMassimaMs, int capienzaCache) {
+        if (dimensione <= 0) throw new IllegalArgumentException("Dimensione pool deve essere positiva");
+        this.nome = nome;
+        this.url = url;
+        this.pragma = List.copyOf(pragma);
+        this.attesaMassimaMs = attesaMassimaMs;
+        this.capienzaCache = capienzaCache;
+        this.libere = new ArrayBlockingQueue<>(dimensione);
+        this.tutte = new ArrayList<>(dimensione);
+
+        for (int i = 0; i < dimensione; i++) {
+            Connection connection = apriConnessione();
+            tutte.add(connection);
+            libere.add(connection);
+        }
+        logger.info("Pool " + nome + " pronto con " + dimensione + " connessioni" +
+                (capienzaCache > 0 ? " (cache di " + capienzaCache + " statement per connessione)" : ""));
+    }
+
+    /**
+     * Prende in prestito una connessione, attendendo al massimo il timeout configurato
+     */
+    public ConnessioneDB prendi() {
+        try {
+            Connection connection = libere.poll(attesaMassimaMs, TimeUnit.MILLISECONDS);
+            if (connection == null) {
+                throw new RuntimeException("Nessuna connessione libera nel pool " + nome +
+                        " dopo " + attesaMassimaMs + " ms");
+            }
+            prestiti.incrementAndGet();
+            Connection valida = verifica(connection);
+            return new ConnessioneDB(this, valida, cacheDi(valida));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Attesa connessione interrotta", e);
+        }
+    }
+
+    void restituisci(Connection connection) {
+        try {
+            if (!connection.isClosed() && !connection.getAutoCommit()) {
+                logger.warning("Connessione restituita al pool " + nome + " con transazione aperta: rollback");
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            logger.warning("Errore nel ripristino connessione del pool " + nome + ": " + e.getMessage());
+        }
+        libere.offer(connection);
+    }
+
+    void registraStatement() {
+        statement.incrementAndGet();
+    }
+
+    void registraCompilazione() {
+        compilazioni.incrementAndGet();
+    }
+
+    void registraRiuso() {
+        riusi.incrementAndGet();
+    }
+
+    private CacheStatement cacheDi(Connection connection) {
+        return cache.computeIfAbsent(connection, c -> new CacheStatement(this, c, capienzaCache));
+    }
+
+    private Connection verifica(Connection connection) {
+        try {
+            if (!connection.isClosed()) {
+                return connection;
+            }
+        } catch (SQLException e) {
+            logger.warning("Connessione non valida nel pool " + nome + ": " + e.getMessage());
+        }
+        logger.warning("Connessione chiusa nel pool " + nome + ", riapertura in corso...");
+        Connection nuova = apriConnessione();
+        synchronized (tutte) {
+            tutte.remove(connection);
+            tutte.add(nuova);
+        }
+        CacheStatement vecchia = cache.remove(connection);
+        if (vecchia != null) {
+            vecchia.svuota();
+        }
+        return nuova;
+    }
+
+    private Connection apriConnessione() {
+        try {
+            Connection connection = DriverManager.getConnection(url);
+            try (Statement stmt = connection.createStatement()) {
+                for (String p : pragma) {
+                    stmt.execute(p);
+                }
+            }
+            return connection;
+        } catch (SQLException e) {
+            logger.severe("Errore nell'apertura connessione del pool " + nome + ": " + e.getMessage());
+            throw new RuntimeException("Impossibile aprire connessione database", e);
+        }
+    }
+
+    public void chiudi() {
+        synchronized (tutte) {
+            for (CacheStatement statementAperti : cache.values()) {
+                statementAperti.svuota();
+            }
+            cache.clear();
+            for (Connection connection : tutte) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    logger.warning("Errore nella chiusura connessione: " + e.getMessage());
+                }
+            }
+            tutte.clear();
+        }
+        libere.clear();
+        logger.info("Pool " + nome + " chiuso");
+    }
+
+    public String getNome() { return nome; }
+    public int getDimensione() { return tutte.size(); }
+    public int getConnessioniLibere() { return libere.size(); }
+    public long getPrestiti() { return prestiti.get(); }
+    public long getStatementPreparati() { return statement.get(); }
+    public long getStatementCompilati() { return compilazioni.get(); }
+    public long getStatementRiusati() { return riusi.get(); }
+    public int getCapienzaCache() { return capienzaCache; }
+
+    /**
+     * Statement attualmente in cache su tutte le connessioni
+     */
+    public int getStatementInCache() {
+        int totale = 0;
+        for (CacheStatement statementAperti : cache.values()) {
+            totale += statementAperti.getDimensione();
+        }
+        return totale;
+    }
+}
@@ -0,0 +1,591 @@
+package it.trenical.server.db;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.net.URL;
+import java.sql.*;
+import java.util.Calendar;
+
+/**
+ * PreparedStatement che inoltra ogni chiamata a quello del driver.
+ * Base per gli statement della {@link CacheStatement}, che ridefiniscono solo
+ * close() e le esecuzioni: le altre chiamate dei DAO restano dirette, senza riflessione.
+ */
+abstract class StatementDelegato implements PreparedStatement {
+    protected final PreparedStatement statement;
+
+    StatementDelegato(PreparedStatement statement) {
+        this.statement = statement;
+    }
+
+    @Override
+    public void addBatch() throws SQLException {
+        statement.addBatch();
+    }
+
+    @Override
+    public void clearParameters() throws SQLException {
+        statement.clearParameters();
+    }
+
+    @Override
+    public boolean execute() throws SQLException {
+        return statement.execute();
+    }
+
+    @Override
+    public long executeLargeUpdate() throws SQLException {
+        return statement.executeLargeUpdate();
+    }
+
+    @Override
+    public ResultSet executeQuery() throws SQLException {
+        return statement.executeQuery();
+    }
+
+    @Override
+    public int executeUpdate() throws SQLException {
+        return statement.executeUpdate();
+    }
+
+    @Override
+    public ResultSetMetaData getMetaData() throws SQLException {
+        return statement.getMetaData();
+    }
+
+    @Override
+    public ParameterMetaData getParameterMetaData() throws SQLException {
+        return statement.getParameterMetaData();
+    }
+
+    @Override
+    public void setArray(int indice, Array valore) throws SQLException {
+        statement.setArray(indice, valore);
+    }
+
+    @Override
+    public void setAsciiStream(int indice, InputStream valore, int lunghezza) throws SQLException {
+        statement.setAsciiStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setAsciiStream(int indice, InputStream valore, long lunghezza) throws SQLException {
+        statement.setAsciiStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setAsciiStream(int indice, InputStream valore) throws SQLException {
+        statement.setAsciiStream(indice, valore);
+    }
+
+    @Override
+    public void setBigDecimal(int indice, BigDecimal valore) throws SQLException {
+        statement.setBigDecimal(indice, valore);
+    }
+
+    @Override
+    public void setBinaryStream(int indice, InputStream valore, int lunghezza) throws SQLException {
+        statement.setBinaryStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setBinaryStream(int indice, InputStream valore, long lunghezza) throws SQLException {
+        statement.setBinaryStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setBinaryStream(int indice, InputStream valore) throws SQLException {
+        statement.setBinaryStream(indice, valore);
+    }
+
+    @Override
+    public void setBlob(int indice, InputStream valore, long lunghezza) throws SQLException {
+        statement.setBlob(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setBlob(int indice, InputStream valore) throws SQLException {
+        statement.setBlob(indice, valore);
+    }
+
+    @Override
+    public void setBlob(int indice, Blob valore) throws SQLException {
+        statement.setBlob(indice, valore);
+    }
+
+    @Override
+    public void setBoolean(int indice, boolean valore) throws SQLException {
+        statement.setBoolean(indice, valore);
+    }
+
+    @Override
+    public void setByte(int indice, byte valore) throws SQLException {
+        statement.setByte(indice, valore);
+    }
+
+    @Override
+    public void setBytes(int indice, byte[] valore) throws SQLException {
+        statement.setBytes(indice, valore);
+    }
+
+    @Override
+    public void setCharacterStream(int indice, Reader valore, int lunghezza) throws SQLException {
+        statement.setCharacterStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setCharacterStream(int indice, Reader valore, long lunghezza) throws SQLException {
+        statement.setCharacterStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setCharacterStream(int indice, Reader valore) throws SQLException {
+        statement.setCharacterStream(indice, valore);
+    }
+
+    @Override
+    public void setClob(int indice, Reader valore, long lunghezza) throws SQLException {
+        statement.setClob(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setClob(int indice, Reader valore) throws SQLException {
+        statement.setClob(indice, valore);
+    }
+
+    @Override
+    public void setClob(int indice, Clob valore) throws SQLException {
+        statement.setClob(indice, valore);
+    }
+
+    @Override
+    public void setDate(int indice, Date valore, Calendar calendario) throws SQLException {
+        statement.setDate(indice, valore, calendario);
+    }
+
+    @Override
+    public void setDate(int indice, Date valore) throws SQLException {
+        statement.setDate(indice, valore);
+    }
+
+    @Override
+    public void setDouble(int indice, double valore) throws SQLException {
+        statement.setDouble(indice, valore);
+    }
+
+    @Override
+    public void setFloat(int indice, float valore) throws SQLException {
+        statement.setFloat(indice, valore);
+    }
+
+    @Override
+    public void setInt(int indice, int valore) throws SQLException {
+        statement.setInt(indice, valore);
+    }
+
+    @Override
+    public void setLong(int indice, long valore) throws SQLException {
+        statement.setLong(indice, valore);
+    }
+
+    @Override
+    public void setNCharacterStream(int indice, Reader valore, long lunghezza) throws SQLException {
+        statement.setNCharacterStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setNCharacterStream(int indice, Reader valore) throws SQLException {
+        statement.setNCharacterStream(indice, valore);
+    }
+
+    @Override
+    public void setNClob(int indice, Reader valore, long lunghezza) throws SQLException {
+        statement.setNClob(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void setNClob(int indice, Reader valore) throws SQLException {
+        statement.setNClob(indice, valore);
+    }
+
+    @Override
+    public void setNClob(int indice, NClob valore) throws SQLException {
+        statement.setNClob(indice, valore);
+    }
+
+    @Override
+    public void setNString(int indice, String valore) throws SQLException {
+        statement.setNString(indice, valore);
+    }
+
+    @Override
+    public void setNull(int indice, int tipoSql, String nomeTipo) throws SQLException {
+        statement.setNull(indice, tipoSql, nomeTipo);
+    }
+
+    @Override
+    public void setNull(int indice, int tipoSql) throws SQLException {
+        statement.setNull(indice, tipoSql);
+    }
+
+    @Override
+    public void setObject(int indice, Object valore, int tipoSql, int scala) throws SQLException {
+        statement.setObject(indice, valore, tipoSql, scala);
+    }
+
+    @Override
+    public void setObject(int indice, Object valore, int tipoSql) throws SQLException {
+        statement.setObject(indice, valore, tipoSql);
+    }
+
+    @Override
+    public void setObject(int indice, Object valore, SQLType tipoSql, int scala) throws SQLException {
+        statement.setObject(indice, valore, tipoSql, scala);
+    }
+
+    @Override
+    public void setObject(int indice, Object valore, SQLType tipoSql) throws SQLException {
+        statement.setObject(indice, valore, tipoSql);
+    }
+
+    @Override
+    public void setObject(int indice, Object valore) throws SQLException {
+        statement.setObject(indice, valore);
+    }
+
+    @Override
+    public void setRef(int indice, Ref valore) throws SQLException {
+        statement.setRef(indice, valore);
+    }
+
+    @Override
+    public void setRowId(int indice, RowId valore) throws SQLException {
+        statement.setRowId(indice, valore);
+    }
+
+    @Override
+    public void setSQLXML(int indice, SQLXML valore) throws SQLException {
+        statement.setSQLXML(indice, valore);
+    }
+
+    @Override
+    public void setShort(int indice, short valore) throws SQLException {
+        statement.setShort(indice, valore);
+    }
+
+    @Override
+    public void setString(int indice, String valore) throws SQLException {
+        statement.setString(indice, valore);
+    }
+
+    @Override
+    public void setTime(int indice, Time valore, Calendar calendario) throws SQLException {
+        statement.setTime(indice, valore, calendario);
+    }
+
+    @Override
+    public void setTime(int indice, Time valore) throws SQLException {
+        statement.setTime(indice, valore);
+    }
+
+    @Override
+    public void setTimestamp(int indice, Timestamp valore, Calendar calendario) throws SQLException {
+        statement.setTimestamp(indice, valore, calendario);
+    }
+
+    @Override
+    public void setTimestamp(int indice, Timestamp valore) throws SQLException {
+        statement.setTimestamp(indice, valore);
+    }
+
+    @Override
+    public void setURL(int indice, URL valore) throws SQLException {
+        statement.setURL(indice, valore);
+    }
+
+    @Override
+    public void setUnicodeStream(int indice, InputStream valore, int lunghezza) throws SQLException {
+        statement.setUnicodeStream(indice, valore, lunghezza);
+    }
+
+    @Override
+    public void addBatch(String sql) throws SQLException {
+        statement.addBatch(sql);
+    }
+
+    @Override
+    public void cancel() throws SQLException {
+        statement.cancel();
+    }
+
+    @Override
+    public void clearBatch() throws SQLException {
+        statement.clearBatch();
+    }
+
+    @Override
+    public void clearWarnings() throws SQLException {
+        statement.clearWarnings();
+    }
+
+    @Override
+    public void close() throws SQLException {
+        statement.close();
+    }
+
+    @Override
+    public void closeOnCompletion() throws SQLException {
+        statement.closeOnCompletion();
+    }
+
+    @Override
+    public String enquoteIdentifier(String identificatore, boolean sempreTraApici) throws SQLException {
+        return statement.enquoteIdentifier(identificatore, sempreTraApici);
+    }
+
+    @Override
+    public String enquoteLiteral(String valore) throws SQLException {
+        return statement.enquoteLiteral(valore);
+    }
+
+    @Override
+    public String enquoteNCharLiteral(String valore) throws SQLException {
+        return statement.enquoteNCharLiteral(valore);
+    }
+
+    @Override
+    public boolean execute(String sql, int[] indiciColonne) throws SQLException {
+        return statement.execute(sql, indiciColonne);
+    }
+
+    @Override
+    public boolean execute(String sql, String[] nomiColonne) throws SQLException {
+        return statement.execute(sql, nomiColonne);
+    }
+
+    @Override
+    public boolean execute(String sql, int chiaviGenerate) throws SQLException {
+        return statement.execute(sql, chiaviGenerate);
+    }
+
+    @Override
+    public boolean execute(String sql) throws SQLException {
+        return statement.execute(sql);
+    }
+
+    @Override
+    public int[] executeBatch() throws SQLException {
+        return statement.executeBatch();
+    }
+
+    @Override
+    public long[] executeLargeBatch() throws SQLException {
+        return statement.executeLargeBatch();
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int[] indiciColonne) throws SQLException {
+        return statement.executeLargeUpdate(sql, indiciColonne);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, String[] nomiColonne) throws SQLException {
+        return statement.executeLargeUpdate(sql, nomiColonne);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql, int chiaviGenerate) throws SQLException {
+        return statement.executeLargeUpdate(sql, chiaviGenerate);
+    }
+
+    @Override
+    public long executeLargeUpdate(String sql) throws SQLException {
+        return statement.executeLargeUpdate(sql);
+    }
+
+    @Override
+    public ResultSet executeQuery(String sql) throws SQLException {
+        return statement.executeQuery(sql);
+    }
+
+    @Override
+    public int executeUpdate(String sql, int[] indiciColonne) throws SQLException {
+        return statement.executeUpdate(sql, indiciColonne);
+    }
+
+    @Override
+    public int executeUpdate(String sql, String[] nomiColonne) throws SQLException {
+        return statement.executeUpdate(sql, nomiColonne);
+    }
+
+    @Override
+    public int executeUpdate(String sql, int chiaviGenerate) throws SQLException {
+        return statement.executeUpdate(sql, chiaviGenerate);
+    }
+
+    @Override
+    public int executeUpdate(String sql) throws SQLException {
+        return statement.executeUpdate(sql);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return statement.getConnection();
+    }
+
+    @Override
+    public int getFetchDirection() throws SQLException {
+        return statement.getFetchDirection();
+    }
+
+    @Override
+    public int getFetchSize() throws SQLException {
+        return statement.getFetchSize();
+    }
+
+    @Override
+    public ResultSet getGeneratedKeys() throws SQLException {
+        return statement.getGeneratedKeys();
+    }
+
+    @Override
+    public long getLargeMaxRows() throws SQLException {
+        return statement.getLargeMaxRows();
+    }
+
+    @Override
+    public long getLargeUpdateCount() throws SQLException {
+        return statement.getLargeUpdateCount();
+    }
+
+    @Override
+    public int getMaxFieldSize() throws SQLException {
+        return statement.getMaxFieldSize();
+    }
+
+    @Override
+    public int getMaxRows() throws SQLException {
+        return statement.getMaxRows();
+    }
+
+    @Override
+    public boolean getMoreResults() throws SQLException {
+        return statement.getMoreResults();
+    }
+
+    @Override
+    public boolean getMoreResults(int corrente) throws SQLException {
+        return statement.getMoreResults(corrente);
+    }
+
+    @Override
+    public int getQueryTimeout() throws SQLException {
+        return statement.getQueryTimeout();
+    }
+
+    @Override
+    public ResultSet getResultSet() throws SQLException {
+        return statement.getResultSet();
+    }
+
+    @Override
+    public int getResultSetConcurrency() throws SQLException {
+        return statement.getResultSetConcurrency();
+    }
+
+    @Override
+    public int getResultSetHoldability() throws SQLException {
+        return statement.getResultSetHoldability();
+    }
+
+    @Override
+    public int getResultSetType() throws SQLException {
+        return statement.getResultSetType();
+    }
+
+    @Override
+    public int getUpdateCount() throws SQLException {
+        return statement.getUpdateCount();
+    }
+
+    @Override
+    public SQLWarning getWarnings() throws SQLException {
+        return statement.getWarnings();
+    }
+
+    @Override
+    public boolean isCloseOnCompletion() throws SQLException {
+        return statement.isCloseOnCompletion();
+    }
+
+    @Override
+    public boolean isClosed() throws SQLException {
+        return statement.isClosed();
+    }
+
+    @Override
+    public boolean isPoolable() throws SQLException {
+        return statement.isPoolable();
+    }
+
+    @Override
+    public boolean isSimpleIdentifier(String identificatore) throws SQLException {
+        return statement.isSimpleIdentifier(identificatore);
+    }
+
+    @Override
+    public void setCursorName(String valore) throws SQLException {
+        statement.setCursorName(valore);
+    }
+
+    @Override
+    public void setEscapeProcessing(boolean valore) throws SQLException {
+        statement.setEscapeProcessing(valore);
+    }
+
+    @Override
+    public void setFetchDirection(int valore) throws SQLException {
+        statement.setFetchDirection(valore);
+    }
+
+    @Override
+    public void setFetchSize(int valore) throws SQLException {
+        statement.setFetchSize(valore);
+    }
+
+    @Override
+    public void setLargeMaxRows(long valore) throws SQLException {
+        statement.setLargeMaxRows(valore);
+    }
+
+    @Override
+    public void setMaxFieldSize(int valore) throws SQLException {
+        statement.setMaxFieldSize(valore);
+    }
+
+    @Override
+    public void setMaxRows(int valore) throws SQLException {
+        statement.setMaxRows(valore);
+    }
+
+    @Override
+    public void setPoolable(boolean valore) throws SQLException {
+        statement.setPoolable(valore);
+    }
+
+    @Override
+    public void setQueryTimeout(int valore) throws SQLException {
+        statement.setQueryTimeout(valore);
+    }
+
+    @Override
+    public boolean isWrapperFor(Class<?> interfaccia) throws SQLException {
+        return statement.isWrapperFor(interfaccia);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> interfaccia) throws SQLException {
+        return statement.unwrap(interfaccia);
+    }
+}
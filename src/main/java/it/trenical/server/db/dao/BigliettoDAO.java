@@ -1,11 +1,13 @@
 package it.trenical.server.db.dao;
 
 import it.trenical.server.cliente.Biglietto;
-import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.cliente.Cliente;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.BigliettoMapper;
+import it.trenical.server.db.mapper.ClienteMapper;
 
 import java.sql.*;
-import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
@@ -37,8 +39,8 @@ public class BigliettoDAO {
             VALUES (?, ?, ?, ?, ?, ?)
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, biglietto.getId());
             stmt.setString(2, clienteEmail);
@@ -63,20 +65,66 @@ public class BigliettoDAO {
         return false;
     }
 
+    /**
+     * Salva tutti i biglietti di un acquisto in un'unica transazione con un solo batch:
+     * o vengono salvati tutti o nessuno
+     * @return numero di biglietti salvati (0 se l'acquisto è stato annullato)
+     */
     public int saveAll(List<Biglietto> biglietti, String clienteEmail) {
-        int salvatiConSuccesso = 0;
+        if (biglietti.isEmpty()) {
+            return 0;
+        }
 
-        for (Biglietto biglietto : biglietti) {
-            if (save(biglietto, clienteEmail)) {
-                salvatiConSuccesso++;
-            }
+        try {
+            int salvati = dbManager.eseguiTransazione(conn -> saveAll(conn, biglietti, clienteEmail));
+            logger.info("Salvati " + salvati + "/" + biglietti.size() +
+                    " biglietti per cliente " + clienteEmail);
+            return salvati;
+        } catch (SQLException e) {
+            logger.severe("Errore nel salvataggio biglietti, acquisto annullato: " + e.getMessage());
+            return 0;
         }
+    }
+
+    /**
+     * Variante da usare dentro una transazione già aperta: lancia SQLException
+     * se anche un solo biglietto non può essere salvato, così il chiamante fa rollback
+     */
+    public int saveAll(ConnessioneDB conn, List<Biglietto> biglietti, String clienteEmail) throws SQLException {
+        String sql = """
+            INSERT INTO biglietti (id, cliente_email, viaggio_id, nominativo, prezzo, data_acquisto)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            for (Biglietto biglietto : biglietti) {
+                if (!biglietto.isCompleto()) {
+                    throw new SQLException("Biglietto incompleto: " + biglietto.getId());
+                }
+                stmt.setString(1, biglietto.getId());
+                stmt.setString(2, clienteEmail);
+                stmt.setString(3, biglietto.getIdViaggio());
+                stmt.setString(4, biglietto.getNominativo());
+                stmt.setDouble(5, biglietto.getPrezzo());
+                stmt.setTimestamp(6, Timestamp.valueOf(biglietto.getDataAcquisto()));
+                stmt.addBatch();
+            }
 
-        logger.info("Salvati " + salvatiConSuccesso + "/" + biglietti.size() +
-                " biglietti per cliente " + clienteEmail);
-        return salvatiConSuccesso;
+            int salvati = 0;
+            for (int risultato : stmt.executeBatch()) {
+                if (risultato == 0 || risultato == Statement.EXECUTE_FAILED) {
+                    throw new SQLException("Inserimento biglietto fallito nel batch");
+                }
+                salvati++;
+            }
+            return salvati;
+        }
     }
 
+    /**
+     * Carica i biglietti del cliente insieme ai rispettivi viaggi con un'unica JOIN.
+     * I viaggi ripetuti vengono ricostruiti una sola volta
+     */
     public List<Biglietto> findByClienteEmail(String clienteEmail) {
         List<Biglietto> biglietti = new ArrayList<>();
 
@@ -85,28 +133,27 @@ public class BigliettoDAO {
             return biglietti;
         }
 
-        List<BigliettoDatabase> bigliettiDatabase = new ArrayList<>();
-
         String sql = """
-                    SELECT id, nominativo, viaggio_id, data_acquisto, prezzo
-                    FROM biglietti 
-                    WHERE cliente_email = ? 
+                    SELECT b.id AS b_id, b.nominativo, b.data_acquisto, b.prezzo AS b_prezzo, v.*
+                    FROM biglietti b
+                    JOIN viaggi v ON v.id = b.viaggio_id
+                    WHERE b.cliente_email = ?
                     """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, clienteEmail);
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                BigliettoDatabase data = new BigliettoDatabase(
-                        rs.getString("id"),
-                        rs.getString("nominativo"),
-                        rs.getString("viaggio_id"),
-                        rs.getDouble("prezzo"),
-                        rs.getTimestamp("data_acquisto").toLocalDateTime()
-                );
-                bigliettiDatabase.add(data);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                BigliettoMapper mapper = new BigliettoMapper(rs);
+                while (rs.next()) {
+                    try {
+                        biglietti.add(mapper.mappa(rs));
+                    } catch (SQLException e) {
+                        logger.severe("Errore ricostruzione " + e.getMessage());
+                    }
+                }
             }
 
         } catch (SQLException e) {
@@ -115,76 +162,125 @@ public class BigliettoDAO {
             return new ArrayList<>();
         }
 
-        for (BigliettoDatabase data : bigliettiDatabase) {
-            try {
-                Optional<Viaggio> viaggioOpt = viaggioDAO.findById(data.viaggioId);
+        logger.info("Trovati " + biglietti.size() + " biglietti per cliente " + clienteEmail);
+        return biglietti;
+    }
 
-                Viaggio viaggio = viaggioOpt.get();
-                Biglietto biglietto = new Biglietto(viaggio, data.id, data.nominativo, data.prezzo, data.dataAcquisto);
-                biglietti.add(biglietto);
+    /**
+     * Cerca un singolo biglietto verificando che appartenga al cliente
+     */
+    public Optional<Biglietto> findByIdAndCliente(String bigliettoId, String clienteEmail) {
+        String sql = """
+                    SELECT b.id AS b_id, b.nominativo, b.data_acquisto, b.prezzo AS b_prezzo, v.*
+                    FROM biglietti b
+                    JOIN viaggi v ON v.id = b.viaggio_id
+                    WHERE b.id = ? AND b.cliente_email = ?
+                    """;
+
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-            } catch (Exception e) {
-                logger.severe("Errore ricostruzione" + e.getMessage());
-                e.printStackTrace();
+            stmt.setString(1, bigliettoId);
+            stmt.setString(2, clienteEmail);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return Optional.of(new BigliettoMapper(rs).mappa(rs));
+                }
             }
+
+        } catch (SQLException e) {
+            logger.severe("Errore nella ricerca biglietto " + bigliettoId + ": " + e.getMessage());
         }
 
-        logger.info("Trovati " + biglietti.size() + " biglietti per cliente " + clienteEmail);
-        return biglietti;
+        return Optional.empty();
     }
 
-    private static class BigliettoDatabase {
-        final String id;
-        final String nominativo;
-        final String viaggioId;
-        final double prezzo;
-        final LocalDateTime dataAcquisto;
-
-        BigliettoDatabase(String id, String nominativo, String viaggioId, double prezzo, LocalDateTime dataAcquisto) {
-            this.id = id;
-            this.nominativo = nominativo;
-            this.viaggioId = viaggioId;
-            this.prezzo = prezzo;
-            this.dataAcquisto = dataAcquisto;
+    /**
+     * Sposta un biglietto su un altro viaggio in un'unica transazione:
+     * verifica proprietà e viaggio attuale, occupa un posto sul nuovo viaggio,
+     * libera quello sul vecchio e aggiorna il prezzo. Se un passo fallisce non cambia nulla
+     * @return true se il cambio è stato applicato
+     */
+    public boolean cambiaViaggio(String bigliettoId, String clienteEmail,
+                                 String vecchioViaggioId, String nuovoViaggioId, double nuovoPrezzo) {
+        String sql = """
+                UPDATE biglietti SET viaggio_id = ?, prezzo = ?
+                WHERE id = ? AND cliente_email = ? AND viaggio_id = ?
+                """;
+
+        try {
+            return dbManager.eseguiTransazione(conn -> {
+                try (PreparedStatement stmt = conn.prepara(sql)) {
+                    stmt.setString(1, nuovoViaggioId);
+                    stmt.setDouble(2, nuovoPrezzo);
+                    stmt.setString(3, bigliettoId);
+                    stmt.setString(4, clienteEmail);
+                    stmt.setString(5, vecchioViaggioId);
+
+                    if (stmt.executeUpdate() == 0) {
+                        throw new SQLException("Biglietto " + bigliettoId + " non trovato o già modificato");
+                    }
+                }
+
+                if (viaggioDAO.decrementaPosti(conn, nuovoViaggioId, 1) < 0) {
+                    throw new SQLException("Nessun posto disponibile sul viaggio " + nuovoViaggioId);
+                }
+                if (viaggioDAO.incrementaPosti(conn, vecchioViaggioId, 1) < 0) {
+                    logger.warning("Posto non restituito al viaggio " + vecchioViaggioId + ": capienza già piena");
+                }
+                return true;
+            });
+        } catch (SQLException e) {
+            logger.warning("Cambio viaggio annullato per biglietto " + bigliettoId + ": " + e.getMessage());
+            return false;
         }
     }
 
-    public List<String> findEmailClientiByViaggioId(String viaggioId) {
-        List<String> emailClienti = new ArrayList<>();
+    /**
+     * Passeggeri di un viaggio da avvisare, caricati con un'unica query.
+     * La semi-join con IN restituisce una sola volta il cliente con più biglietti
+     */
+    public List<Cliente> findClientiByViaggioId(String viaggioId) {
+        List<Cliente> clienti = new ArrayList<>();
 
         if (viaggioId == null || viaggioId.trim().isEmpty()) {
-            logger.warning("ViaggioId null o vuoto per findEmailClientiByViaggioId");
-            return emailClienti;
+            logger.warning("ViaggioId null o vuoto per findClientiByViaggioId");
+            return clienti;
         }
 
-        String sql = "SELECT DISTINCT cliente_email FROM biglietti WHERE viaggio_id = ?";
+        String sql = """
+                SELECT c.* FROM clienti c
+                WHERE c.email IN (SELECT b.cliente_email FROM biglietti b WHERE b.viaggio_id = ?)
+                """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, viaggioId);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                String email = rs.getString("cliente_email");
-                if (email != null && !email.trim().isEmpty()) {
-                    emailClienti.add(email);
+            try (ResultSet rs = stmt.executeQuery()) {
+                ClienteMapper mapper = new ClienteMapper(rs);
+                while (rs.next()) {
+                    try {
+                        clienti.add(mapper.mappa(rs));
+                    } catch (IllegalArgumentException e) {
+                        logger.warning("Cliente non valido per viaggio " + viaggioId + ": " + e.getMessage());
+                    }
                 }
             }
 
         } catch (SQLException e) {
-            logger.severe("Errore nel recupero email clienti per viaggio " + viaggioId + ": " + e.getMessage());
-            e.printStackTrace();
+            logger.severe("Errore nel recupero clienti per viaggio " + viaggioId + ": " + e.getMessage());
         }
 
-        return emailClienti;
+        return clienti;
     }
 
     public boolean updateViaggioIdEPrezzo(String bigliettoId, String nuovoViaggioId, double nuovoPrezzo) {
         String sql = "UPDATE biglietti SET viaggio_id = ?, prezzo = ? WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, nuovoViaggioId);
             stmt.setDouble(2, nuovoPrezzo);
@@ -1,7 +1,9 @@
 package it.trenical.server.db.dao;
 
 import it.trenical.server.cliente.Cliente;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.ClienteMapper;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -31,8 +33,8 @@ public class ClienteDAO {
             VALUES (?, ?, ?, ?, ?)
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, cliente.getEmail());
             stmt.setString(2, cliente.getPassword());
@@ -62,16 +64,16 @@ public class ClienteDAO {
     public Optional<Cliente> findByEmail(String email) {
         String sql = "SELECT * FROM clienti WHERE email = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Cliente cliente = mapResultSetToCliente(rs);
-                logger.info("Cliente trovato: " + email);
-                return Optional.of(cliente);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Cliente cliente = new ClienteMapper(rs).mappa(rs);
+                    logger.info("Cliente trovato: " + email);
+                    return Optional.of(cliente);
+                }
             }
 
         } catch (SQLException e) {
@@ -89,12 +91,13 @@ public class ClienteDAO {
         List<Cliente> clienti = new ArrayList<>();
         String sql = "SELECT * FROM clienti ORDER BY nome";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
+            ClienteMapper mapper = new ClienteMapper(rs);
             while (rs.next()) {
-                clienti.add(mapResultSetToCliente(rs));
+                clienti.add(mapper.mappa(rs));
             }
 
             logger.info("Trovati " + clienti.size() + " clienti");
@@ -118,8 +121,8 @@ public class ClienteDAO {
             WHERE email = ?
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, cliente.getNome());
             stmt.setString(2, cliente.getPassword());
@@ -149,8 +152,8 @@ public class ClienteDAO {
     public boolean delete(String email) {
         String sql = "DELETE FROM clienti WHERE email = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, email);
             int rowsAffected = stmt.executeUpdate();
@@ -175,12 +178,13 @@ public class ClienteDAO {
         List<Cliente> clienti = new ArrayList<>();
         String sql = "SELECT * FROM clienti WHERE abbonamento_fedelta = 1 ORDER BY email";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
+            ClienteMapper mapper = new ClienteMapper(rs);
             while (rs.next()) {
-                clienti.add(mapResultSetToCliente(rs));
+                clienti.add(mapper.mappa(rs));
             }
 
             logger.info("Trovati " + clienti.size() + " clienti fedeltà");
@@ -196,12 +200,13 @@ public class ClienteDAO {
         List<Cliente> clienti = new ArrayList<>();
         String sql = "SELECT * FROM clienti WHERE abbonamento_fedelta = 1 AND notifiche_promozioni = 1 ORDER BY email";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
+            ClienteMapper mapper = new ClienteMapper(rs);
             while (rs.next()) {
-                clienti.add(mapResultSetToCliente(rs));
+                clienti.add(mapper.mappa(rs));
             }
 
             logger.info("Trovati " + clienti.size() + " clienti fedeltà");
@@ -221,14 +226,14 @@ public class ClienteDAO {
     public boolean exists(String email) {
         String sql = "SELECT COUNT(*) FROM clienti WHERE email = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, email);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt(1) > 0;
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    return rs.getInt(1) > 0;
+                }
             }
 
         } catch (SQLException e) {
@@ -245,9 +250,9 @@ public class ClienteDAO {
     public int count() {
         String sql = "SELECT COUNT(*) FROM clienti";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
             if (rs.next()) {
                 return rs.getInt(1);
@@ -260,16 +265,6 @@ public class ClienteDAO {
         return 0;
     }
 
-    private Cliente mapResultSetToCliente(ResultSet rs) throws SQLException {
-        String email = rs.getString("email");
-        String password = rs.getString("password");
-        String nome = rs.getString("nome");
-        boolean abbonamentoFedelta = rs.getBoolean("abbonamento_fedelta");
-        boolean notificheAttive = rs.getBoolean("notifiche_promozioni");
-
-        return new Cliente(email, password, nome, abbonamentoFedelta, notificheAttive);
-    }
-
     public Optional<Cliente> autenticaCliente(String email, String password) {
         Optional<Cliente> clienteOpt = findByEmail(email);
 
@@ -0,0 +1,150 @@
+package it.trenical.server.db.dao;
+
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.observer.TipoNotifica;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * DAO per le notifiche non ancora consegnate ai clienti
+ */
+public class NotificaDAO {
+    private static final Logger logger = Logger.getLogger(NotificaDAO.class.getName());
+    private final DatabaseManager dbManager;
+
+    public NotificaDAO() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    /**
+     * Salva una notifica in attesa di consegna
+     * @param email Destinatario
+     * @param notifica Notifica con identificativo già assegnato
+     * @return true se salvata con successo
+     */
+    public boolean save(String email, Notifica notifica) {
+        String sql = """
+            INSERT INTO notifiche_pendenti (id, cliente_email, tipo, messaggio, data_creazione)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
+
+            stmt.setLong(1, notifica.getId());
+            stmt.setString(2, email);
+            stmt.setString(3, notifica.getTipo().name());
+            stmt.setString(4, notifica.getMessaggio());
+            stmt.setString(5, notifica.getDataCreazione().toString());
+
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.warning("Notifica per " + email + " non persistita: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Salva in un'unica transazione con un solo batch le notifiche di più clienti
+     * @param notifichePerCliente Notifica con identificativo già assegnato per ogni destinatario
+     * @return numero di notifiche salvate (0 se la transazione è stata annullata)
+     */
+    public int saveAll(Map<String, Notifica> notifichePerCliente) {
+        if (notifichePerCliente.isEmpty()) {
+            return 0;
+        }
+
+        String sql = """
+            INSERT INTO notifiche_pendenti (id, cliente_email, tipo, messaggio, data_creazione)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+        try {
+            return dbManager.eseguiTransazione(conn -> {
+                try (PreparedStatement stmt = conn.prepara(sql)) {
+                    for (Map.Entry<String, Notifica> voce : notifichePerCliente.entrySet()) {
+                        Notifica notifica = voce.getValue();
+                        stmt.setLong(1, notifica.getId());
+                        stmt.setString(2, voce.getKey());
+                        stmt.setString(3, notifica.getTipo().name());
+                        stmt.setString(4, notifica.getMessaggio());
+                        stmt.setString(5, notifica.getDataCreazione().toString());
+                        stmt.addBatch();
+                    }
+
+                    int salvate = 0;
+                    for (int risultato : stmt.executeBatch()) {
+                        if (risultato == 0 || risultato == Statement.EXECUTE_FAILED) {
+                            throw new SQLException("Inserimento notifica fallito nel batch");
+                        }
+                        salvate++;
+                    }
+                    return salvate;
+                }
+            });
+        } catch (SQLException e) {
+            logger.warning(notifichePerCliente.size() + " notifiche non persistite: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Rimuove una notifica consegnata o scartata
+     */
+    public boolean delete(long id) {
+        String sql = "DELETE FROM notifiche_pendenti WHERE id = ?";
+
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
+
+            stmt.setLong(1, id);
+            return stmt.executeUpdate() > 0;
+
+        } catch (SQLException e) {
+            logger.severe("Errore nell'eliminazione notifica: " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Notifiche pendenti raggruppate per destinatario, in ordine di arrivo
+     */
+    public Map<String, List<Notifica>> findAllPerCliente() {
+        Map<String, List<Notifica>> notifiche = new LinkedHashMap<>();
+        String sql = "SELECT * FROM notifiche_pendenti ORDER BY id";
+
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            while (rs.next()) {
+                notifiche.computeIfAbsent(rs.getString("cliente_email"), email -> new ArrayList<>())
+                        .add(mapResultSetToNotifica(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.severe("Errore nel recupero notifiche pendenti: " + e.getMessage());
+        }
+
+        return notifiche;
+    }
+
+    private Notifica mapResultSetToNotifica(ResultSet rs) throws SQLException {
+        return new Notifica(
+                rs.getLong("id"),
+                TipoNotifica.valueOf(rs.getString("tipo")),
+                rs.getString("messaggio"),
+                LocalDateTime.parse(rs.getString("data_creazione")));
+    }
+}
@@ -0,0 +1,117 @@
+package it.trenical.server.db.dao;
+
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.PrenotazioneMapper;
+import it.trenical.server.prenotazioni.Prenotazione;
+
+import java.sql.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * DAO per le prenotazioni dei posti nel carrello
+ */
+public class PrenotazioneDAO {
+    private static final Logger logger = Logger.getLogger(PrenotazioneDAO.class.getName());
+    private final DatabaseManager dbManager;
+
+    public PrenotazioneDAO() {
+        this.dbManager = DatabaseManager.getInstance();
+    }
+
+    public boolean save(Prenotazione prenotazione) {
+        try (ConnessioneDB conn = dbManager.scrittura()) {
+            return save(conn, prenotazione);
+        } catch (SQLException e) {
+            logger.severe("Errore nel salvataggio prenotazione " + prenotazione.getId() + ": " + e.getMessage());
+        }
+
+        return false;
+    }
+
+    /**
+     * Variante da usare dentro una transazione già aperta sulla connessione di scrittura
+     */
+    public boolean save(ConnessioneDB conn, Prenotazione prenotazione) throws SQLException {
+        String sql = """
+            INSERT INTO prenotazioni (id, viaggio_id, cliente_email, quantita, scadenza)
+            VALUES (?, ?, ?, ?, ?)
+            """;
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            stmt.setString(1, prenotazione.getId());
+            stmt.setString(2, prenotazione.getViaggioId());
+            stmt.setString(3, prenotazione.getEmail());
+            stmt.setInt(4, prenotazione.getQuantita());
+            stmt.setLong(5, prenotazione.getScadenza());
+
+            return stmt.executeUpdate() > 0;
+        }
+    }
+
+    /**
+     * Elimina in un unico batch le prenotazioni scadute, annullate o convertite in biglietti
+     * @return numero di prenotazioni eliminate, -1 in caso di errore
+     */
+    public int deleteAll(Collection<String> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        try (ConnessioneDB conn = dbManager.scrittura()) {
+            return deleteAll(conn, ids);
+        } catch (SQLException e) {
+            logger.severe("Errore nell'eliminazione prenotazioni: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
+    /**
+     * Variante da usare dentro una transazione già aperta sulla connessione di scrittura
+     */
+    public int deleteAll(ConnessioneDB conn, Collection<String> ids) throws SQLException {
+        String sql = "DELETE FROM prenotazioni WHERE id = ?";
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            for (String id : ids) {
+                stmt.setString(1, id);
+                stmt.addBatch();
+            }
+
+            int eliminate = 0;
+            for (int risultato : stmt.executeBatch()) {
+                if (risultato > 0) {
+                    eliminate += risultato;
+                }
+            }
+            return eliminate;
+        }
+    }
+
+    /**
+     * Tutte le prenotazioni salvate, in ordine di scadenza
+     */
+    public List<Prenotazione> findAll() {
+        List<Prenotazione> prenotazioni = new ArrayList<>();
+        String sql = "SELECT * FROM prenotazioni ORDER BY scadenza";
+
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
+
+            PrenotazioneMapper mapper = new PrenotazioneMapper(rs);
+            while (rs.next()) {
+                prenotazioni.add(mapper.mappa(rs));
+            }
+
+        } catch (SQLException e) {
+            logger.severe("Errore nel recupero prenotazioni: " + e.getMessage());
+        }
+
+        return prenotazioni;
+    }
+}
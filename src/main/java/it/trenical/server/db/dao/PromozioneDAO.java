@@ -1,9 +1,9 @@
 package it.trenical.server.db.dao;
 
 import it.trenical.server.promozioni.Promozione;
-import it.trenical.server.promozioni.PromozioneStandard;
-import it.trenical.server.promozioni.PromozioneFedelta;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.PromozioneMapper;
 
 import java.sql.*;
 import java.util.ArrayList;
@@ -25,8 +25,8 @@ public class PromozioneDAO {
             VALUES (?, ?, ?, ?)
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, promozione.getId());
             stmt.setString(2, promozione.getNome());
@@ -50,16 +50,16 @@ public class PromozioneDAO {
     public Optional<Promozione> findById(String id) {
         String sql = "SELECT * FROM promozioni WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Promozione promozione = mapResultSetToPromozione(rs);
-                logger.info("Promozione trovata: " + id);
-                return Optional.of(promozione);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Promozione promozione = new PromozioneMapper(rs).mappa(rs);
+                    logger.info("Promozione trovata: " + id);
+                    return Optional.of(promozione);
+                }
             }
 
         } catch (SQLException e) {
@@ -73,12 +73,13 @@ public class PromozioneDAO {
         List<Promozione> promozioni = new ArrayList<>();
         String sql = "SELECT * FROM promozioni ";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
+            PromozioneMapper mapper = new PromozioneMapper(rs);
             while (rs.next()) {
-                promozioni.add(mapResultSetToPromozione(rs));
+                promozioni.add(mapper.mappa(rs));
             }
 
             logger.info("Trovate " + promozioni.size() + " promozioni");
@@ -94,14 +95,15 @@ public class PromozioneDAO {
         List<Promozione> promozioni = new ArrayList<>();
         String sql = "SELECT * FROM promozioni WHERE tipo = ? ORDER BY percentuale_sconto DESC";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, tipo);
-            ResultSet rs = stmt.executeQuery();
-
-            while (rs.next()) {
-                promozioni.add(mapResultSetToPromozione(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                PromozioneMapper mapper = new PromozioneMapper(rs);
+                while (rs.next()) {
+                    promozioni.add(mapper.mappa(rs));
+                }
             }
 
             logger.info("Trovate " + promozioni.size() + " promozioni " + tipo);
@@ -116,8 +118,8 @@ public class PromozioneDAO {
     public boolean delete(String id) {
         String sql = "DELETE FROM promozioni WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, id);
             int rowsAffected = stmt.executeUpdate();
@@ -133,21 +135,4 @@ public class PromozioneDAO {
 
         return false;
     }
-
-    private Promozione mapResultSetToPromozione(ResultSet rs) throws SQLException {
-        String id = rs.getString("id");
-        String nome = rs.getString("nome");
-        String tipo = rs.getString("tipo");
-        double sconto = rs.getDouble("percentuale_sconto");
-
-        Promozione promozione;
-        if ("Standard".equals(tipo)) {
-            promozione = new PromozioneStandard(id, nome, sconto);
-        } else if ("Fedelta".equals(tipo)) {
-            promozione = new PromozioneFedelta(id, nome, sconto);
-        } else {
-            throw new SQLException("Tipo promozione non riconosciuto: " + tipo);
-        }
-        return promozione;
-    }
 }
\ No newline at end of file
@@ -1,14 +1,11 @@
 package it.trenical.server.db.dao;
 
 import it.trenical.server.stazioni.Stazione;
-import it.trenical.server.stazioni.Binario;
 import it.trenical.server.viaggi.StatoViaggio;
 import it.trenical.server.viaggi.Viaggio;
-import it.trenical.server.treni.TipoTreno;
-import it.trenical.server.treni.Treno;
-import it.trenical.server.treni.builder.TrenoDirector;
-import it.trenical.server.tratte.Tratta;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.mapper.ViaggioMapper;
 
 import java.sql.*;
 import java.time.LocalDate;
@@ -20,16 +17,25 @@ import java.util.logging.Logger;
 
 /**
  * DAO per la gestione dei viaggi nel database
- * Gestisce la persistenza dei viaggi con tutte le loro proprietà
+ * Gestisce la persistenza dei viaggi con tutte le loro proprietà.
+ * Le colonne sono intere (schema versione 1): date in giorni dall'epoca,
+ * orari in minuti dalla mezzanotte, enum come ordinale e binario come numero.
  */
 public class ViaggioDAO {
     private static final Logger logger = Logger.getLogger(ViaggioDAO.class.getName());
+    private static final String COLONNE_INSERIMENTO = """
+        (
+            id, codice_treno, tipo_treno, stazione_partenza, stazione_arrivo,
+            data_viaggio, orario_partenza, orario_arrivo, data_arrivo,
+            prezzo, durata_minuti, posti_totali, posti_disponibili,
+            stato, binario_partenza, ritardo_minuti, distanza_km
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+        """;
+
     private final DatabaseManager dbManager;
-    private final TrenoDirector trenoDirector;
 
     public ViaggioDAO() {
         this.dbManager = DatabaseManager.getInstance();
-        this.trenoDirector = new TrenoDirector();
     }
 
     /**
@@ -38,35 +44,12 @@ public class ViaggioDAO {
      * @return true se salvato con successo
      */
     public boolean save(Viaggio viaggio) {
-        String sql = """
-        INSERT INTO viaggi (
-            id, codice_treno, tipo_treno, stazione_partenza, stazione_arrivo,
-            data_viaggio, orario_partenza, orario_arrivo, data_arrivo,
-            prezzo, durata_minuti, posti_totali, posti_disponibili,
-            stato, binario_partenza, ritardo_minuti, distanza_km
-        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
+        String sql = "INSERT INTO viaggi " + COLONNE_INSERIMENTO;
+
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
-
-            stmt.setString(1, viaggio.getId());
-            stmt.setString(2, viaggio.getTreno().getCodice());
-            stmt.setString(3, viaggio.getTreno().getTipoTreno().name());
-            stmt.setString(4, viaggio.getTratta().getStazionePartenza().getNome());
-            stmt.setString(5, viaggio.getTratta().getStazioneArrivo().getNome());
-            stmt.setString(6, viaggio.getDataViaggio().toString());
-            stmt.setString(7, viaggio.getOrarioPartenza().toString());
-            stmt.setString(8, viaggio.getOrarioArrivo().toString());
-            stmt.setString(9, viaggio.getDataArrivo().toString());
-            stmt.setDouble(10, viaggio.getPrezzo());
-            stmt.setInt(11, viaggio.getDurataMinuti());
-            stmt.setInt(12, viaggio.getTreno().getPostiTotali());
-            stmt.setInt(13, viaggio.getPostiDisponibili());
-            stmt.setString(14, viaggio.getStato().name());
-            stmt.setString(15, "Binario " + viaggio.getBinarioPartenza().getNumero());
-            stmt.setInt(16, viaggio.getRitardoMinuti());
-            stmt.setInt(17, viaggio.getTratta().getDistanzaKm());
+            impostaParametriInserimento(stmt, viaggio);
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -104,19 +87,82 @@ public class ViaggioDAO {
         return false;
     }
 
+    /**
+     * Salva molti viaggi in un'unica transazione con un solo batch.
+     * I viaggi in conflitto con uno già presente vengono saltati (INSERT OR IGNORE)
+     * @return i viaggi effettivamente inseriti
+     */
+    public List<Viaggio> saveAll(List<Viaggio> viaggi) {
+        if (viaggi.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        try {
+            List<Viaggio> salvati = dbManager.eseguiTransazione(conn -> saveAll(conn, viaggi));
+            logger.info("Salvati " + salvati.size() + "/" + viaggi.size() + " viaggi");
+            return salvati;
+        } catch (SQLException e) {
+            logger.severe("Errore nel salvataggio massivo viaggi: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Variante da usare dentro una transazione già aperta sulla connessione di scrittura
+     */
+    public List<Viaggio> saveAll(ConnessioneDB conn, List<Viaggio> viaggi) throws SQLException {
+        String sql = "INSERT OR IGNORE INTO viaggi " + COLONNE_INSERIMENTO;
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            for (Viaggio viaggio : viaggi) {
+                impostaParametriInserimento(stmt, viaggio);
+                stmt.addBatch();
+            }
+
+            int[] risultati = stmt.executeBatch();
+            List<Viaggio> salvati = new ArrayList<>(viaggi.size());
+            for (int i = 0; i < risultati.length; i++) {
+                if (risultati[i] > 0 || risultati[i] == Statement.SUCCESS_NO_INFO) {
+                    salvati.add(viaggi.get(i));
+                }
+            }
+            return salvati;
+        }
+    }
+
+    private void impostaParametriInserimento(PreparedStatement stmt, Viaggio viaggio) throws SQLException {
+        stmt.setString(1, viaggio.getId());
+        stmt.setString(2, viaggio.getTreno().getCodice());
+        stmt.setInt(3, viaggio.getTreno().getTipoTreno().ordinal());
+        stmt.setInt(4, viaggio.getTratta().getStazionePartenza().ordinal());
+        stmt.setInt(5, viaggio.getTratta().getStazioneArrivo().ordinal());
+        stmt.setLong(6, viaggio.getDataViaggio().toEpochDay());
+        stmt.setInt(7, minuti(viaggio.getOrarioPartenza()));
+        stmt.setInt(8, minuti(viaggio.getOrarioArrivo()));
+        stmt.setLong(9, viaggio.getDataArrivo().toEpochDay());
+        stmt.setDouble(10, viaggio.getPrezzo());
+        stmt.setInt(11, viaggio.getDurataMinuti());
+        stmt.setInt(12, viaggio.getTreno().getPostiTotali());
+        stmt.setInt(13, viaggio.getPostiDisponibili());
+        stmt.setInt(14, viaggio.getStato().ordinal());
+        stmt.setInt(15, viaggio.getBinarioPartenza().getNumero());
+        stmt.setInt(16, viaggio.getRitardoMinuti());
+        stmt.setInt(17, viaggio.getTratta().getDistanzaKm());
+    }
+
     public Optional<Viaggio> findById(String id) {
         String sql = "SELECT * FROM viaggi WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, id);
-            ResultSet rs = stmt.executeQuery();
-
-            if (rs.next()) {
-                Viaggio viaggio = mapResultSetToViaggio(rs);
-                logger.info("Viaggio trovato: " + id);
-                return Optional.of(viaggio);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    Viaggio viaggio = new ViaggioMapper(rs).mappa(rs);
+                    logger.info("Viaggio trovato: " + id);
+                    return Optional.of(viaggio);
+                }
             }
 
         } catch (SQLException e) {
@@ -134,16 +180,18 @@ public class ViaggioDAO {
             ORDER BY orario_partenza
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-            stmt.setString(1, partenza.getNome());
-            stmt.setString(2, arrivo.getNome());
-            stmt.setString(3, data.toString());
+            stmt.setInt(1, partenza.ordinal());
+            stmt.setInt(2, arrivo.ordinal());
+            stmt.setLong(3, data.toEpochDay());
 
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                viaggi.add(mapResultSetToViaggio(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    viaggi.add(mapper.mappa(rs));
+                }
             }
 
             logger.info("Trovati " + viaggi.size() + " viaggi per " +
@@ -164,15 +212,17 @@ public class ViaggioDAO {
             ORDER BY data_viaggio, orario_partenza
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-            stmt.setString(1, partenza.getNome());
-            stmt.setString(2, arrivo.getNome());
+            stmt.setInt(1, partenza.ordinal());
+            stmt.setInt(2, arrivo.ordinal());
 
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                viaggi.add(mapResultSetToViaggio(rs));
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    viaggi.add(mapper.mappa(rs));
+                }
             }
 
             logger.info("Trovati " + viaggi.size() + " viaggi per " +
@@ -192,14 +242,15 @@ public class ViaggioDAO {
                 WHERE data_viaggio = ? 
                 """;
 
-        try{
-            Connection connection = dbManager.getConnection();
-            PreparedStatement stmt = connection.prepareStatement(sql);
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-            stmt.setString(1, data.toString());
-            ResultSet rs = stmt.executeQuery();
-            while (rs.next()) {
-                viaggi.add(mapResultSetToViaggio(rs));
+            stmt.setLong(1, data.toEpochDay());
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    viaggi.add(mapper.mappa(rs));
+                }
             }
 
             logger.info("Trovati " + viaggi.size() + " viaggi in partenza il "+data);
@@ -210,11 +261,41 @@ public class ViaggioDAO {
         return viaggi;
     }
 
+    /**
+     * Trova i viaggi dalla data indicata in poi, ordinati per data e orario
+     */
+    public List<Viaggio> findDallaData(LocalDate data) {
+        List<Viaggio> viaggi = new ArrayList<>();
+        String sql = """
+                SELECT * FROM viaggi
+                WHERE data_viaggio >= ?
+                ORDER BY data_viaggio, orario_partenza
+                """;
+
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
+
+            stmt.setLong(1, data.toEpochDay());
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    viaggi.add(mapper.mappa(rs));
+                }
+            }
+
+            logger.info("Trovati " + viaggi.size() + " viaggi dal " + data);
+
+        } catch (SQLException e) {
+            logger.severe("Errore nella ricerca viaggi dalla data: " + e.getMessage());
+        }
+        return viaggi;
+    }
+
     public boolean updatePostiDisponibili(String viaggioId, int nuoviPostiDisponibili) {
         String sql = "UPDATE viaggi SET posti_disponibili = ? WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setInt(1, nuoviPostiDisponibili);
             stmt.setString(2, viaggioId);
@@ -233,11 +314,102 @@ public class ViaggioDAO {
         return false;
     }
 
+    /**
+     * Decrementa i posti solo se ne restano abbastanza, in un unico UPDATE condizionale
+     * @return posti rimanenti, oppure -1 se insufficienti o viaggio inesistente
+     */
+    public int decrementaPosti(String viaggioId, int quantita) {
+        try (ConnessioneDB conn = dbManager.scrittura()) {
+            return decrementaPosti(conn, viaggioId, quantita);
+        } catch (SQLException e) {
+            logger.severe("Errore nel decremento posti: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    /**
+     * Variante da usare dentro una transazione già aperta sulla connessione di scrittura
+     */
+    public int decrementaPosti(ConnessioneDB conn, String viaggioId, int quantita) throws SQLException {
+        String sql = """
+                UPDATE viaggi SET posti_disponibili = posti_disponibili - ?
+                WHERE id = ? AND posti_disponibili >= ?
+                """;
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            stmt.setInt(1, quantita);
+            stmt.setString(2, viaggioId);
+            stmt.setInt(3, quantita);
+
+            if (stmt.executeUpdate() == 0) {
+                return -1;
+            }
+        }
+        return leggiPostiDisponibili(conn, viaggioId);
+    }
+
+    /**
+     * Restituisce posti senza superare i posti totali del treno
+     * @return posti disponibili dopo l'incremento, oppure -1 se non applicabile
+     */
+    public int incrementaPosti(String viaggioId, int quantita) {
+        try (ConnessioneDB conn = dbManager.scrittura()) {
+            return incrementaPosti(conn, viaggioId, quantita);
+        } catch (SQLException e) {
+            logger.severe("Errore nell'incremento posti: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    public int incrementaPosti(ConnessioneDB conn, String viaggioId, int quantita) throws SQLException {
+        String sql = """
+                UPDATE viaggi SET posti_disponibili = posti_disponibili + ?
+                WHERE id = ? AND posti_disponibili + ? <= posti_totali
+                """;
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            stmt.setInt(1, quantita);
+            stmt.setString(2, viaggioId);
+            stmt.setInt(3, quantita);
+
+            if (stmt.executeUpdate() == 0) {
+                return -1;
+            }
+        }
+        return leggiPostiDisponibili(conn, viaggioId);
+    }
+
+    /**
+     * Legge i posti disponibili correnti, -1 se il viaggio non esiste
+     */
+    public int findPostiDisponibili(String viaggioId) {
+        try (ConnessioneDB conn = dbManager.lettura()) {
+            return leggiPostiDisponibili(conn, viaggioId);
+        } catch (SQLException e) {
+            logger.severe("Errore nella lettura posti: " + e.getMessage());
+        }
+        return -1;
+    }
+
+    private int leggiPostiDisponibili(ConnessioneDB conn, String viaggioId) throws SQLException {
+        String sql = "SELECT posti_disponibili FROM viaggi WHERE id = ?";
+
+        try (PreparedStatement stmt = conn.prepara(sql)) {
+            stmt.setString(1, viaggioId);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : -1;
+            }
+        }
+    }
+
+    /**
+     * Aggiorna i dati modificabili dall'amministratore.
+     * I posti disponibili non vengono toccati: sono gestiti solo da GestorePosti
+     */
     public boolean updateViaggioCompleto(Viaggio viaggio) {
         String sql = """
-                    UPDATE viaggi SET 
+                    UPDATE viaggi SET
                         prezzo = ?,
-                        posti_disponibili = ?,
                         stato = ?,
                         ritardo_minuti = ?,
                         motivo_cancellazione = ?,
@@ -248,19 +420,18 @@ public class ViaggioDAO {
                     WHERE id = ?
                     """;
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setDouble(1, viaggio.getPrezzo());
-            stmt.setInt(2, viaggio.getPostiDisponibili());
-            stmt.setString(3, viaggio.getStato().name());
-            stmt.setInt(4, viaggio.getRitardoMinuti());
-            stmt.setString(5, viaggio.getMotivoCancellazione());
-            stmt.setString(6, "Binario " + viaggio.getBinarioPartenza().getNumero());
-            stmt.setString(7, viaggio.getOrarioPartenzaEffettivo().toString());
-            stmt.setString(8, viaggio.getOrarioArrivoEffettivo().toString());
-            stmt.setString(9, viaggio.getDataArrivoEffettiva().toString());
-            stmt.setString(10, viaggio.getId());
+            stmt.setInt(2, viaggio.getStato().ordinal());
+            stmt.setInt(3, viaggio.getRitardoMinuti());
+            stmt.setString(4, viaggio.getMotivoCancellazione());
+            stmt.setInt(5, viaggio.getBinarioPartenza().getNumero());
+            stmt.setInt(6, minuti(viaggio.getOrarioPartenzaEffettivo()));
+            stmt.setInt(7, minuti(viaggio.getOrarioArrivoEffettivo()));
+            stmt.setLong(8, viaggio.getDataArrivoEffettiva().toEpochDay());
+            stmt.setString(9, viaggio.getId());
 
             int rowsAffected = stmt.executeUpdate();
 
@@ -288,15 +459,18 @@ public class ViaggioDAO {
         List<Viaggio> viaggi = new ArrayList<>();
         String sql = """
             SELECT * FROM viaggi 
-            WHERE posti_disponibili > 0 AND stato != 'CANCELLATO'
+            WHERE posti_disponibili > 0 AND stato != ?
             """;
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
-            while (rs.next()) {
-                viaggi.add(mapResultSetToViaggio(rs));
+            stmt.setInt(1, StatoViaggio.CANCELLATO.ordinal());
+            try (ResultSet rs = stmt.executeQuery()) {
+                ViaggioMapper mapper = new ViaggioMapper(rs);
+                while (rs.next()) {
+                    viaggi.add(mapper.mappa(rs));
+                }
             }
 
             logger.info("Trovati " + viaggi.size() + " viaggi disponibili");
@@ -316,8 +490,8 @@ public class ViaggioDAO {
     public boolean delete(String viaggioId) {
         String sql = "DELETE FROM viaggi WHERE id = ?";
 
-        try (Connection conn = dbManager.getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
 
             stmt.setString(1, viaggioId);
             int rowsAffected = stmt.executeUpdate();
@@ -334,6 +508,31 @@ public class ViaggioDAO {
         return false;
     }
 
+    /**
+     * Elimina i viaggi già partiti: giorni precedenti, oppure oggi con orario non successivo ad adesso
+     * @return numero di viaggi eliminati, -1 in caso di errore
+     */
+    public int deleteGiaPartiti(LocalDate oggi, LocalTime adesso) {
+        String sql = """
+                DELETE FROM viaggi
+                WHERE data_viaggio < ? OR (data_viaggio = ? AND orario_partenza <= ?)
+                """;
+
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara(sql)) {
+
+            stmt.setLong(1, oggi.toEpochDay());
+            stmt.setLong(2, oggi.toEpochDay());
+            stmt.setInt(3, minuti(adesso));
+            return stmt.executeUpdate();
+
+        } catch (SQLException e) {
+            logger.severe("Errore nell'eliminazione viaggi partiti: " + e.getMessage());
+        }
+
+        return -1;
+    }
+
     /**
      * Conta il numero totale di viaggi
      * @return Numero di viaggi
@@ -341,9 +540,9 @@ public class ViaggioDAO {
     public int count() {
         String sql = "SELECT COUNT(*) FROM viaggi";
 
-        try (Connection conn = dbManager.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara(sql);
+             ResultSet rs = stmt.executeQuery()) {
 
             if (rs.next()) {
                 return rs.getInt(1);
@@ -356,46 +555,7 @@ public class ViaggioDAO {
         return 0;
     }
 
-    private Viaggio mapResultSetToViaggio(ResultSet rs) throws SQLException {
-        try {
-            String idDatabase = rs.getString("id");
-            String codiceTreno = rs.getString("codice_treno");
-            TipoTreno tipoTreno = TipoTreno.valueOf(rs.getString("tipo_treno"));
-            String nomePartenza = rs.getString("stazione_partenza");
-            String nomeArrivo = rs.getString("stazione_arrivo");
-            LocalDate dataViaggio = LocalDate.parse(rs.getString("data_viaggio"));
-            LocalTime orarioPartenza = LocalTime.parse(rs.getString("orario_partenza"));
-            LocalTime orarioArrivo = LocalTime.parse(rs.getString("orario_arrivo"));
-            LocalDate dataArrivo = LocalDate.parse(rs.getString("data_arrivo"));
-            double prezzo = rs.getDouble("prezzo");
-            int durataMinuti = rs.getInt("durata_minuti");
-            int postiTotali = rs.getInt("posti_totali");
-            int postiDisponibili = rs.getInt("posti_disponibili");
-            StatoViaggio stato = StatoViaggio.valueOf(rs.getString("stato"));
-            String binarioStr = rs.getString("binario_partenza");
-            int ritardoMinuti = rs.getInt("ritardo_minuti");
-            String motivoCancellazione = rs.getString("motivo_cancellazione");
-
-            Stazione stazionePartenza = Stazione.fromNome(nomePartenza);
-            Stazione stazioneArrivo = Stazione.fromNome(nomeArrivo);
-            Tratta tratta = new Tratta(stazionePartenza, stazioneArrivo);
-            Treno treno = trenoDirector.costruisciTrenoPerTipo(tipoTreno, codiceTreno);
-
-            int numeroBinario = Integer.parseInt(binarioStr.replace("Binario ", ""));
-            Binario binario = Binario.values()[numeroBinario - 1];
-
-            Viaggio viaggio = new Viaggio(
-                    idDatabase, treno, tratta, dataViaggio,
-                    orarioPartenza, orarioArrivo, dataArrivo,
-                    prezzo, durataMinuti, postiDisponibili,
-                    stato, binario, motivoCancellazione
-            );
-
-            return viaggio;
-
-        } catch (Exception e) {
-            logger.severe("Errore nel mapping viaggio: " + e.getMessage());
-            throw new SQLException("Errore nella ricostruzione viaggio dal database", e);
-        }
+    static int minuti(LocalTime orario) {
+        return orario.getHour() * 60 + orario.getMinute();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package it.trenical.server.db.mapper;
+
+import it.trenical.server.cliente.Biglietto;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Righe della JOIN biglietti-viaggi: colonne del biglietto con alias b_id e b_prezzo, più v.*
+ * I viaggi ripetuti nello stesso ResultSet vengono ricostruiti una sola volta
+ */
+public class BigliettoMapper implements MapperRiga<Biglietto> {
+
+    private final ViaggioMapper viaggioMapper;
+    private final Map<String, Viaggio> viaggiCaricati = new HashMap<>();
+
+    private final int id;
+    private final int nominativo;
+    private final int prezzo;
+    private final int dataAcquisto;
+
+    public BigliettoMapper(ResultSet rs) throws SQLException {
+        this.viaggioMapper = new ViaggioMapper(rs);
+        this.id = rs.findColumn("b_id");
+        this.nominativo = rs.findColumn("nominativo");
+        this.prezzo = rs.findColumn("b_prezzo");
+        this.dataAcquisto = rs.findColumn("data_acquisto");
+    }
+
+    @Override
+    public Biglietto mappa(ResultSet rs) throws SQLException {
+        String viaggioId = viaggioMapper.leggiId(rs);
+        Viaggio viaggio = viaggiCaricati.get(viaggioId);
+        if (viaggio == null) {
+            viaggio = viaggioMapper.mappa(rs);
+            viaggiCaricati.put(viaggioId, viaggio);
+        }
+
+        return new Biglietto(viaggio,
+                rs.getString(id),
+                rs.getString(nominativo),
+                rs.getDouble(prezzo),
+                rs.getTimestamp(dataAcquisto).toLocalDateTime());
+    }
+}
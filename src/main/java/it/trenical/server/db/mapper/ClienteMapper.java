@@ -0,0 +1,36 @@
+package it.trenical.server.db.mapper;
+
+import it.trenical.server.cliente.Cliente;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Righe della tabella clienti
+ */
+public class ClienteMapper implements MapperRiga<Cliente> {
+
+    private final int email;
+    private final int password;
+    private final int nome;
+    private final int abbonamentoFedelta;
+    private final int notifichePromozioni;
+
+    public ClienteMapper(ResultSet rs) throws SQLException {
+        this.email = rs.findColumn("email");
+        this.password = rs.findColumn("password");
+        this.nome = rs.findColumn("nome");
+        this.abbonamentoFedelta = rs.findColumn("abbonamento_fedelta");
+        this.notifichePromozioni = rs.findColumn("notifiche_promozioni");
+    }
+
+    @Override
+    public Cliente mappa(ResultSet rs) throws SQLException {
+        return new Cliente(
+                rs.getString(email),
+                rs.getString(password),
+                rs.getString(nome),
+                rs.getBoolean(abbonamentoFedelta),
+                rs.getBoolean(notifichePromozioni));
+    }
+}
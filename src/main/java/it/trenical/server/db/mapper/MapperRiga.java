@@ -0,0 +1,15 @@
+package it.trenical.server.db.mapper;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Ricostruisce un oggetto dalla riga corrente di un ResultSet.
+ * Le implementazioni risolvono gli indici delle colonne una sola volta, alla creazione
+ * sul ResultSet, e poi leggono ogni riga per posizione invece che per nome.
+ */
+@FunctionalInterface
+public interface MapperRiga<T> {
+
+    T mappa(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,36 @@
+package it.trenical.server.db.mapper;
+
+import it.trenical.server.prenotazioni.Prenotazione;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Righe della tabella prenotazioni
+ */
+public class PrenotazioneMapper implements MapperRiga<Prenotazione> {
+
+    private final int id;
+    private final int viaggioId;
+    private final int clienteEmail;
+    private final int quantita;
+    private final int scadenza;
+
+    public PrenotazioneMapper(ResultSet rs) throws SQLException {
+        this.id = rs.findColumn("id");
+        this.viaggioId = rs.findColumn("viaggio_id");
+        this.clienteEmail = rs.findColumn("cliente_email");
+        this.quantita = rs.findColumn("quantita");
+        this.scadenza = rs.findColumn("scadenza");
+    }
+
+    @Override
+    public Prenotazione mappa(ResultSet rs) throws SQLException {
+        return new Prenotazione(
+                rs.getString(id),
+                rs.getString(viaggioId),
+                rs.getString(clienteEmail),
+                rs.getInt(quantita),
+                rs.getLong(scadenza));
+    }
+}
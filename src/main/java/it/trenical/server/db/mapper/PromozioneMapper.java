@@ -0,0 +1,37 @@
+package it.trenical.server.db.mapper;
+
+import it.trenical.server.promozioni.Promozione;
+import it.trenical.server.promozioni.PromozioneFedelta;
+import it.trenical.server.promozioni.PromozioneStandard;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Righe della tabella promozioni: la colonna tipo sceglie la sottoclasse
+ */
+public class PromozioneMapper implements MapperRiga<Promozione> {
+
+    private final int id;
+    private final int nome;
+    private final int tipo;
+    private final int percentualeSconto;
+
+    public PromozioneMapper(ResultSet rs) throws SQLException {
+        this.id = rs.findColumn("id");
+        this.nome = rs.findColumn("nome");
+        this.tipo = rs.findColumn("tipo");
+        this.percentualeSconto = rs.findColumn("percentuale_sconto");
+    }
+
+    @Override
+    public Promozione mappa(ResultSet rs) throws SQLException {
+        String tipoPromozione = rs.getString(tipo);
+        if ("Standard".equals(tipoPromozione)) {
+            return new PromozioneStandard(rs.getString(id), rs.getString(nome), rs.getDouble(percentualeSconto));
+        } else if ("Fedelta".equals(tipoPromozione)) {
+            return new PromozioneFedelta(rs.getString(id), rs.getString(nome), rs.getDouble(percentualeSconto));
+        }
+        throw new SQLException("Tipo promozione non riconosciuto: " + tipoPromozione);
+    }
+}
@@ -0,0 +1,98 @@
+package it.trenical.server.db.mapper;
+
+import it.trenical.server.stazioni.Binario;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.treni.RegistroTreni;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.viaggi.StatoViaggio;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.logging.Logger;
+
+/**
+ * Righe della tabella viaggi (schema versione 1), anche da query con JOIN che includono v.*
+ * Legge solo valori primitivi: nessun parsing di testo.
+ * Tratta e treno sono le istanze condivise, non vengono ricostruiti a ogni riga
+ */
+public class ViaggioMapper implements MapperRiga<Viaggio> {
+    private static final Logger logger = Logger.getLogger(ViaggioMapper.class.getName());
+
+    private static final Stazione[] STAZIONI = Stazione.values();
+    private static final TipoTreno[] TIPI_TRENO = TipoTreno.values();
+    private static final StatoViaggio[] STATI = StatoViaggio.values();
+    private static final Binario[] BINARI = Binario.values();
+
+    private final int id;
+    private final int codiceTreno;
+    private final int tipoTreno;
+    private final int stazionePartenza;
+    private final int stazioneArrivo;
+    private final int dataViaggio;
+    private final int orarioPartenza;
+    private final int orarioArrivo;
+    private final int dataArrivo;
+    private final int prezzo;
+    private final int durataMinuti;
+    private final int postiDisponibili;
+    private final int stato;
+    private final int binarioPartenza;
+    private final int motivoCancellazione;
+
+    private final RegistroTreni registroTreni = RegistroTreni.getInstance();
+
+    public ViaggioMapper(ResultSet rs) throws SQLException {
+        this.id = rs.findColumn("id");
+        this.codiceTreno = rs.findColumn("codice_treno");
+        this.tipoTreno = rs.findColumn("tipo_treno");
+        this.stazionePartenza = rs.findColumn("stazione_partenza");
+        this.stazioneArrivo = rs.findColumn("stazione_arrivo");
+        this.dataViaggio = rs.findColumn("data_viaggio");
+        this.orarioPartenza = rs.findColumn("orario_partenza");
+        this.orarioArrivo = rs.findColumn("orario_arrivo");
+        this.dataArrivo = rs.findColumn("data_arrivo");
+        this.prezzo = rs.findColumn("prezzo");
+        this.durataMinuti = rs.findColumn("durata_minuti");
+        this.postiDisponibili = rs.findColumn("posti_disponibili");
+        this.stato = rs.findColumn("stato");
+        this.binarioPartenza = rs.findColumn("binario_partenza");
+        this.motivoCancellazione = rs.findColumn("motivo_cancellazione");
+    }
+
+    /**
+     * Id del viaggio nella riga corrente, senza ricostruirlo
+     */
+    public String leggiId(ResultSet rs) throws SQLException {
+        return rs.getString(id);
+    }
+
+    @Override
+    public Viaggio mappa(ResultSet rs) throws SQLException {
+        try {
+            Tratta tratta = Tratta.di(STAZIONI[rs.getInt(stazionePartenza)], STAZIONI[rs.getInt(stazioneArrivo)]);
+            Treno treno = registroTreni.getTreno(TIPI_TRENO[rs.getInt(tipoTreno)], rs.getString(codiceTreno));
+
+            return new Viaggio(
+                    rs.getString(id), treno, tratta, LocalDate.ofEpochDay(rs.getLong(dataViaggio)),
+                    orario(rs.getInt(orarioPartenza)), orario(rs.getInt(orarioArrivo)),
+                    LocalDate.ofEpochDay(rs.getLong(dataArrivo)),
+                    rs.getDouble(prezzo), rs.getInt(durataMinuti), rs.getInt(postiDisponibili),
+                    STATI[rs.getInt(stato)], BINARI[rs.getInt(binarioPartenza) - 1],
+                    rs.getString(motivoCancellazione)
+            );
+
+        } catch (RuntimeException e) {
+            logger.severe("Errore nel mapping viaggio: " + e.getMessage());
+            throw new SQLException("Errore nella ricostruzione viaggio dal database", e);
+        }
+    }
+
+    private static LocalTime orario(int minuti) {
+        return LocalTime.of(minuti / 60, minuti % 60);
+    }
+}
@@ -0,0 +1,118 @@
+package it.trenical.server.db.migrazioni;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Porta lo schema del database all'ultima versione all'avvio.
+ * Legge PRAGMA user_version e applica in ordine le migrazioni successive,
+ * ognuna nella propria transazione insieme al nuovo numero di versione:
+ * se una migrazione fallisce il database resta alla versione precedente.
+ */
+public class GestoreMigrazioni {
+    private static final Logger logger = Logger.getLogger(GestoreMigrazioni.class.getName());
+
+    private final List<Migrazione> migrazioni;
+
+    public GestoreMigrazioni(List<Migrazione> migrazioni) {
+        List<Migrazione> ordinate = new ArrayList<>(migrazioni);
+        ordinate.sort(Comparator.comparingInt(Migrazione::getVersione));
+        for (int i = 0; i < ordinate.size(); i++) {
+            if (ordinate.get(i).getVersione() != i + 1) {
+                throw new IllegalArgumentException("Versioni delle migrazioni non consecutive: attesa " + (i + 1)
+                        + ", trovata " + ordinate.get(i).getVersione());
+            }
+        }
+        this.migrazioni = List.copyOf(ordinate);
+    }
+
+    /**
+     * Migrazioni dello schema TreniCal
+     */
+    public static GestoreMigrazioni predefinito() {
+        return new GestoreMigrazioni(List.of(new MigrazioneViaggiCompatti(), new MigrazionePrenotazioni(),
+                new MigrazioneNotifichePendenti()));
+    }
+
+    /**
+     * Applica le migrazioni mancanti
+     * @return la versione dello schema dopo l'aggiornamento
+     */
+    public int aggiorna(Connection conn) throws SQLException {
+        int versione = leggiVersione(conn);
+        int ultima = getUltimaVersione();
+
+        if (versione > ultima) {
+            logger.warning("Schema database alla versione " + versione
+                    + ", più recente di quella conosciuta (" + ultima + ")");
+            return versione;
+        }
+
+        for (Migrazione migrazione : migrazioni) {
+            if (migrazione.getVersione() > versione) {
+                applica(conn, migrazione);
+                versione = migrazione.getVersione();
+            }
+        }
+        return versione;
+    }
+
+    private void applica(Connection conn, Migrazione migrazione) throws SQLException {
+        logger.info("Migrazione schema alla versione " + migrazione.getVersione() + ": " + migrazione.getDescrizione());
+        long inizio = System.nanoTime();
+        boolean autoCommit = conn.getAutoCommit();
+
+        // va disattivato fuori dalla transazione: dentro è ignorato
+        esegui(conn, "PRAGMA foreign_keys = OFF");
+        conn.setAutoCommit(false);
+        try {
+            migrazione.applica(conn);
+            verificaChiaviEsterne(conn);
+            esegui(conn, "PRAGMA user_version = " + migrazione.getVersione());
+            conn.commit();
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            logger.severe("Migrazione " + migrazione.getVersione() + " fallita: " + e.getMessage());
+            throw e;
+        } finally {
+            conn.setAutoCommit(autoCommit);
+            esegui(conn, "PRAGMA foreign_keys = ON");
+        }
+
+        logger.info("Migrazione " + migrazione.getVersione() + " completata in "
+                + (System.nanoTime() - inizio) / 1_000_000 + " ms");
+    }
+
+    private static void verificaChiaviEsterne(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA foreign_key_check")) {
+            if (rs.next()) {
+                throw new SQLException("Chiave esterna non valida nella tabella " + rs.getString(1)
+                        + " dopo la migrazione");
+            }
+        }
+    }
+
+    public static int leggiVersione(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA user_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void esegui(Connection conn, String sql) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute(sql);
+        }
+    }
+
+    public int getUltimaVersione() {
+        return migrazioni.isEmpty() ? 0 : migrazioni.get(migrazioni.size() - 1).getVersione();
+    }
+}
@@ -0,0 +1,22 @@
+package it.trenical.server.db.migrazioni;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Passo di aggiornamento dello schema del database.
+ * Le versioni partono da 1 e sono consecutive; la versione applicata
+ * è salvata in PRAGMA user_version.
+ */
+public interface Migrazione {
+
+    int getVersione();
+
+    String getDescrizione();
+
+    /**
+     * Applica la migrazione. Viene eseguita in una transazione con le chiavi esterne disattivate:
+     * non deve fare commit né cambiare l'autocommit
+     */
+    void applica(Connection conn) throws SQLException;
+}
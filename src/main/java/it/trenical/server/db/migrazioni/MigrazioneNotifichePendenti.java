@@ -0,0 +1,40 @@
+package it.trenical.server.db.migrazioni;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Versione 3: notifiche non ancora consegnate ai clienti, rilette all'avvio del server.
+ * Prima la tabella veniva creata dal NotificaDAO a ogni avvio: IF NOT EXISTS
+ * lascia intatte quelle già presenti.
+ */
+class MigrazioneNotifichePendenti implements Migrazione {
+
+    @Override
+    public int getVersione() {
+        return 3;
+    }
+
+    @Override
+    public String getDescrizione() {
+        return "notifiche pendenti dei clienti";
+    }
+
+    @Override
+    public void applica(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS notifiche_pendenti (
+                        id INTEGER PRIMARY KEY,
+                        cliente_email VARCHAR(255) NOT NULL,
+                        tipo VARCHAR(50) NOT NULL,
+                        messaggio TEXT NOT NULL,
+                        data_creazione DATETIME NOT NULL,
+                        FOREIGN KEY (cliente_email) REFERENCES clienti(email) ON DELETE CASCADE
+                    )
+                    """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_notifiche_cliente ON notifiche_pendenti(cliente_email)");
+        }
+    }
+}
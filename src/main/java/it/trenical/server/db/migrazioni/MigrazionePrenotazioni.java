@@ -0,0 +1,40 @@
+package it.trenical.server.db.migrazioni;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Versione 2: tabella delle prenotazioni del carrello, così i posti trattenuti
+ * vengono ritrovati (e restituiti se scaduti) dopo un riavvio del server.
+ * La scadenza è in millisecondi dall'epoca.
+ */
+class MigrazionePrenotazioni implements Migrazione {
+
+    @Override
+    public int getVersione() {
+        return 2;
+    }
+
+    @Override
+    public String getDescrizione() {
+        return "prenotazioni dei posti nel carrello";
+    }
+
+    @Override
+    public void applica(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE IF NOT EXISTS prenotazioni (
+                        id VARCHAR(255) PRIMARY KEY,
+                        viaggio_id VARCHAR(255) NOT NULL,
+                        cliente_email VARCHAR(255) NOT NULL,
+                        quantita INTEGER NOT NULL CHECK (quantita > 0),
+                        scadenza INTEGER NOT NULL,
+                        FOREIGN KEY (viaggio_id) REFERENCES viaggi(id) ON DELETE CASCADE
+                    )
+                    """);
+            stmt.execute("CREATE INDEX IF NOT EXISTS idx_prenotazioni_scadenza ON prenotazioni(scadenza)");
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package it.trenical.server.db.migrazioni;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.viaggi.StatoViaggio;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Versione 1: tabella viaggi con colonne intere.
+ * Date in giorni dall'epoca, orari in minuti dalla mezzanotte, stazioni, tipo treno e stato
+ * come ordinale dell'enum, binario come numero. La tabella viene ricostruita convertendo
+ * i dati esistenti in SQL; i biglietti restano collegati perché l'id non cambia.
+ */
+class MigrazioneViaggiCompatti implements Migrazione {
+    private static final Logger logger = Logger.getLogger(MigrazioneViaggiCompatti.class.getName());
+
+    private static final String TABELLA_VIAGGI = """
+            CREATE TABLE %s (
+                id VARCHAR(255) PRIMARY KEY,
+                codice_treno VARCHAR(50) NOT NULL,
+                tipo_treno INTEGER NOT NULL,
+                stazione_partenza INTEGER NOT NULL,
+                stazione_arrivo INTEGER NOT NULL,
+                data_viaggio INTEGER NOT NULL,
+                orario_partenza INTEGER NOT NULL,
+                orario_arrivo INTEGER NOT NULL,
+                data_arrivo INTEGER NOT NULL,
+                prezzo DECIMAL(10,2) NOT NULL,
+                durata_minuti INTEGER NOT NULL,
+                posti_totali INTEGER NOT NULL,
+                posti_disponibili INTEGER NOT NULL,
+                stato INTEGER NOT NULL DEFAULT 0,
+                binario_partenza INTEGER,
+                ritardo_minuti INTEGER DEFAULT 0,
+                motivo_cancellazione TEXT,
+                distanza_km INTEGER NOT NULL,
+                UNIQUE(stazione_partenza, data_viaggio, orario_partenza, binario_partenza, codice_treno)
+            )
+            """;
+
+    // julianday('1970-01-01')
+    private static final String EPOCA_GIULIANA = "2440587.5";
+
+    @Override
+    public int getVersione() {
+        return 1;
+    }
+
+    @Override
+    public String getDescrizione() {
+        return "date, orari, stazioni, tipo treno, stato e binario dei viaggi come interi";
+    }
+
+    @Override
+    public void applica(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            if (!esisteTabella(conn, "viaggi")) {
+                stmt.execute(TABELLA_VIAGGI.formatted("viaggi"));
+                creaIndici(stmt);
+                return;
+            }
+
+            stmt.execute(TABELLA_VIAGGI.formatted("viaggi_compatti"));
+            int copiati = stmt.executeUpdate("""
+                    INSERT INTO viaggi_compatti (
+                        id, codice_treno, tipo_treno, stazione_partenza, stazione_arrivo,
+                        data_viaggio, orario_partenza, orario_arrivo, data_arrivo,
+                        prezzo, durata_minuti, posti_totali, posti_disponibili,
+                        stato, binario_partenza, ritardo_minuti, motivo_cancellazione, distanza_km
+                    )
+                    SELECT
+                        id, codice_treno, %s, %s, %s,
+                        %s, %s, %s, %s,
+                        prezzo, durata_minuti, posti_totali, posti_disponibili,
+                        %s, CAST(substr(binario_partenza, 9) AS INTEGER), ritardo_minuti, motivo_cancellazione, distanza_km
+                    FROM viaggi
+                    """.formatted(
+                    codici("tipo_treno", TipoTreno.values(), TipoTreno::name),
+                    codici("stazione_partenza", Stazione.values(), Stazione::getNome),
+                    codici("stazione_arrivo", Stazione.values(), Stazione::getNome),
+                    giorno("data_viaggio"), minuti("orario_partenza"),
+                    minuti("orario_arrivo"), giorno("data_arrivo"),
+                    codici("stato", StatoViaggio.values(), StatoViaggio::name)));
+
+            stmt.execute("DROP TABLE viaggi");
+            stmt.execute("ALTER TABLE viaggi_compatti RENAME TO viaggi");
+            creaIndici(stmt);
+
+            logger.info("Convertiti " + copiati + " viaggi");
+        }
+    }
+
+    private static void creaIndici(Statement stmt) throws SQLException {
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_viaggi_data ON viaggi(data_viaggio)");
+        stmt.execute("CREATE INDEX IF NOT EXISTS idx_viaggi_stazioni ON viaggi(stazione_partenza, stazione_arrivo)");
+    }
+
+    private static boolean esisteTabella(Connection conn, String nome) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery(
+                     "SELECT 1 FROM sqlite_master WHERE type = 'table' AND name = '" + nome + "'")) {
+            return rs.next();
+        }
+    }
+
+    /**
+     * CASE che traduce il testo salvato nell'ordinale della costante; un valore sconosciuto
+     * diventa NULL e fa fallire la migrazione sul vincolo NOT NULL
+     */
+    private static <E extends Enum<E>> String codici(String colonna, E[] valori, Function<E, String> testo) {
+        StringBuilder caso = new StringBuilder("CASE lower(").append(colonna).append(')');
+        for (E valore : valori) {
+            caso.append(" WHEN '").append(testo.apply(valore).toLowerCase().replace("'", "''"))
+                    .append("' THEN ").append(valore.ordinal());
+        }
+        return caso.append(" END").toString();
+    }
+
+    private static String giorno(String colonna) {
+        return "CAST(julianday(" + colonna + ") - " + EPOCA_GIULIANA + " AS INTEGER)";
+    }
+
+    private static String minuti(String colonna) {
+        return "(CAST(substr(" + colonna + ", 1, 2) AS INTEGER) * 60 + CAST(substr(" + colonna + ", 4, 2) AS INTEGER))";
+    }
+}
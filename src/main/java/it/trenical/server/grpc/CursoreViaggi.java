@@ -0,0 +1,154 @@
+package it.trenical.server.grpc;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Scorre a pagine i viaggi di una ricerca, già ordinati per orario di partenza e id
+ * come nell'indice orari. Il token di continuazione contiene tratta, data e chiave
+ * (orario, id) dell'ultimo viaggio inviato: la pagina successiva riparte dal primo viaggio
+ * con chiave maggiore, anche se nel frattempo l'indice è cambiato.
+ * Salta i viaggi non acquistabili (cancellati o senza posti).
+ */
+class CursoreViaggi {
+
+    static final int DIMENSIONE_PREDEFINITA = 20;
+    static final int DIMENSIONE_MASSIMA = 200;
+
+    private static final String SEPARATORE = ":";
+
+    private final List<Viaggio> viaggi;
+    private final Stazione partenza;
+    private final Stazione arrivo;
+    private final LocalDate data;
+    private int posizione;
+    private Viaggio ultimo;
+
+    private CursoreViaggi(List<Viaggio> viaggi, Stazione partenza, Stazione arrivo, LocalDate data, int posizione) {
+        this.viaggi = viaggi;
+        this.partenza = partenza;
+        this.arrivo = arrivo;
+        this.data = data;
+        this.posizione = posizione;
+        saltaNonDisponibili();
+    }
+
+    /**
+     * @param viaggi viaggi della tratta e del giorno ordinati per orario di partenza e id
+     * @param token  token_pagina della richiesta, vuoto per partire dall'inizio
+     * @throws IllegalArgumentException se il token è malformato o di un'altra ricerca
+     */
+    static CursoreViaggi apri(List<Viaggio> viaggi, Stazione partenza, Stazione arrivo, LocalDate data,
+                              String token) {
+        if (token == null || token.isEmpty()) {
+            return new CursoreViaggi(viaggi, partenza, arrivo, data, 0);
+        }
+
+        String[] parti;
+        try {
+            parti = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8)
+                    .split(SEPARATORE, 5);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Token di pagina non valido");
+        }
+        if (parti.length != 5) {
+            throw new IllegalArgumentException("Token di pagina non valido");
+        }
+
+        int minuti;
+        try {
+            if (Integer.parseInt(parti[0]) != partenza.ordinal()
+                    || Integer.parseInt(parti[1]) != arrivo.ordinal()
+                    || Long.parseLong(parti[2]) != data.toEpochDay()) {
+                throw new IllegalArgumentException("Token di pagina di un'altra ricerca");
+            }
+            minuti = Integer.parseInt(parti[3]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Token di pagina non valido");
+        }
+
+        return new CursoreViaggi(viaggi, partenza, arrivo, data, primoDopo(viaggi, minuti, parti[4]));
+    }
+
+    /**
+     * Dimensione di pagina richiesta riportata nei limiti, quella predefinita se non indicata
+     */
+    static int dimensionePagina(int richiesta) {
+        if (richiesta <= 0) {
+            return DIMENSIONE_PREDEFINITA;
+        }
+        return Math.min(richiesta, DIMENSIONE_MASSIMA);
+    }
+
+    /**
+     * Prossimi viaggi acquistabili, al massimo quanti indicati
+     */
+    List<Viaggio> prossima(int dimensione) {
+        List<Viaggio> pagina = new ArrayList<>(Math.min(dimensione, viaggi.size() - posizione));
+        while (pagina.size() < dimensione && posizione < viaggi.size()) {
+            ultimo = viaggi.get(posizione++);
+            pagina.add(ultimo);
+            saltaNonDisponibili();
+        }
+        return pagina;
+    }
+
+    boolean haAltri() {
+        return posizione < viaggi.size();
+    }
+
+    /**
+     * Token per riprendere dopo l'ultimo viaggio restituito, vuoto se la ricerca è finita
+     */
+    String tokenSuccessivo() {
+        if (!haAltri() || ultimo == null) {
+            return "";
+        }
+        String chiave = partenza.ordinal() + SEPARATORE + arrivo.ordinal() + SEPARATORE + data.toEpochDay()
+                + SEPARATORE + minuti(ultimo.getOrarioPartenza()) + SEPARATORE + ultimo.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(chiave.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void saltaNonDisponibili() {
+        while (posizione < viaggi.size() && !acquistabile(viaggi.get(posizione))) {
+            posizione++;
+        }
+    }
+
+    private static boolean acquistabile(Viaggio viaggio) {
+        return viaggio.isDisponibile() && viaggio.getPostiDisponibili() > 0;
+    }
+
+    /**
+     * Ricerca binaria del primo viaggio con chiave (orario, id) maggiore di quella indicata
+     */
+    private static int primoDopo(List<Viaggio> viaggi, int minuti, String id) {
+        int basso = 0;
+        int alto = viaggi.size();
+        while (basso < alto) {
+            int medio = (basso + alto) >>> 1;
+            Viaggio viaggio = viaggi.get(medio);
+            int confronto = Integer.compare(minuti(viaggio.getOrarioPartenza()), minuti);
+            if (confronto == 0) {
+                confronto = viaggio.getId().compareTo(id);
+            }
+            if (confronto <= 0) {
+                basso = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return basso;
+    }
+
+    private static int minuti(LocalTime orario) {
+        return orario.getHour() * 60 + orario.getMinute();
+    }
+}
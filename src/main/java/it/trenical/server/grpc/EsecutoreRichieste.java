@@ -0,0 +1,99 @@
+package it.trenical.server.grpc;
+
+import it.trenical.server.metriche.IstogrammaLatenze;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Esecutore delle chiamate gRPC.
+ * I metodi del servizio bloccano su JDBC, quindi l'executor predefinito di gRPC
+ * (cached pool) crea un thread per ogni richiesta in attesa durante i picchi.
+ * Modalità scelta con la proprietà trenical.server.esecutore:
+ * "virtuale" (predefinita) usa un virtual thread per chiamata,
+ * "fisso" usa un pool di trenical.server.thread thread di piattaforma.
+ * Ogni task misura il tempo passato in coda prima di essere eseguito.
+ */
+public class EsecutoreRichieste implements Executor {
+    private static final Logger logger = Logger.getLogger(EsecutoreRichieste.class.getName());
+
+    public static final String PROPRIETA_MODALITA = "trenical.server.esecutore";
+    public static final String PROPRIETA_THREAD = "trenical.server.thread";
+
+    private final ExecutorService esecutore;
+    private final String modalita;
+    private final IstogrammaLatenze attesaCoda;
+
+    private EsecutoreRichieste(ExecutorService esecutore, String modalita) {
+        this.esecutore = esecutore;
+        this.modalita = modalita;
+        this.attesaCoda = new IstogrammaLatenze("attesa-coda");
+    }
+
+    /**
+     * Crea l'esecutore secondo le proprietà di sistema
+     */
+    public static EsecutoreRichieste daConfigurazione() {
+        String modalita = System.getProperty(PROPRIETA_MODALITA, "virtuale");
+        if ("fisso".equalsIgnoreCase(modalita)) {
+            int thread = Integer.getInteger(PROPRIETA_THREAD, Runtime.getRuntime().availableProcessors() * 2);
+            return fisso(thread);
+        }
+        if (!"virtuale".equalsIgnoreCase(modalita)) {
+            logger.warning("Modalità esecutore sconosciuta '" + modalita + "', uso virtual thread");
+        }
+        return virtuale();
+    }
+
+    public static EsecutoreRichieste virtuale() {
+        ExecutorService esecutore = Executors.newThreadPerTaskExecutor(
+                Thread.ofVirtual().name("grpc-virtuale-", 0).factory());
+        logger.info("Esecutore richieste: virtual thread per chiamata");
+        return new EsecutoreRichieste(esecutore, "virtuale");
+    }
+
+    public static EsecutoreRichieste fisso(int thread) {
+        if (thread <= 0) throw new IllegalArgumentException("Il numero di thread deve essere positivo");
+        AtomicInteger contatore = new AtomicInteger();
+        ExecutorService esecutore = Executors.newFixedThreadPool(thread, r -> {
+            Thread t = new Thread(r, "grpc-fisso-" + contatore.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        logger.info("Esecutore richieste: pool fisso di " + thread + " thread");
+        return new EsecutoreRichieste(esecutore, "fisso(" + thread + ")");
+    }
+
+    @Override
+    public void execute(Runnable task) {
+        long accodato = System.nanoTime();
+        esecutore.execute(() -> {
+            attesaCoda.registraNanos(System.nanoTime() - accodato);
+            task.run();
+        });
+    }
+
+    public void chiudi() {
+        esecutore.shutdown();
+        try {
+            if (!esecutore.awaitTermination(5, TimeUnit.SECONDS)) {
+                esecutore.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            esecutore.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public IstogrammaLatenze getAttesaCoda() {
+        return attesaCoda;
+    }
+
+    public String getModalita() {
+        return modalita;
+    }
+}
@@ -0,0 +1,112 @@
+package it.trenical.server.grpc;
+
+import io.grpc.stub.ServerCallStreamObserver;
+import it.trenical.grpc.NotificaEvento;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.observer.Notifica;
+
+import java.util.ArrayDeque;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Stream delle notifiche verso un cliente collegato.
+ * Invia solo quando il trasporto è pronto (isReady) e riprende dall'onReadyHandler,
+ * così un client lento non accumula messaggi in memoria sul server.
+ * Ogni segnalazione incrementa un contatore: un solo thread alla volta svuota la casella,
+ * quindi lo StreamObserver non viene mai usato in concorrenza.
+ * Una notifica scritta sullo stream esce dal database; se la scrittura fallisce torna in coda.
+ * La sequenza inviata è quella della casella del cliente, assegnata all'accodamento,
+ * quindi il client la riceve sempre in ordine crescente. Una notifica scritta ma non ancora
+ * confermata dal client resta solo in memoria e va persa se il server si riavvia.
+ */
+class FlussoNotifiche {
+    private static final Logger logger = Logger.getLogger(FlussoNotifiche.class.getName());
+
+    private final ServerCallStreamObserver<NotificaEvento> observer;
+    private final String email;
+    private final GestoreNotifiche gestoreNotifiche;
+    private final ArrayDeque<Notifica> daRispedire;
+    private final AtomicInteger segnalazioni;
+    private final AtomicBoolean chiuso;
+    private final Runnable ascoltatore;
+
+    FlussoNotifiche(ServerCallStreamObserver<NotificaEvento> observer, String email,
+                    GestoreNotifiche gestoreNotifiche) {
+        this.observer = observer;
+        this.email = email;
+        this.gestoreNotifiche = gestoreNotifiche;
+        this.daRispedire = new ArrayDeque<>();
+        this.segnalazioni = new AtomicInteger();
+        this.chiuso = new AtomicBoolean();
+        this.ascoltatore = this::segnala;
+    }
+
+    /**
+     * Conferma le notifiche già ricevute dal client e inizia a inviare le successive
+     */
+    void avvia(long ultimaSequenza) {
+        daRispedire.addAll(gestoreNotifiche.riprendi(email, ultimaSequenza));
+
+        observer.setOnCancelHandler(this::chiudi);
+        observer.setOnReadyHandler(this::segnala);
+        gestoreNotifiche.registraAscoltatore(email, ascoltatore);
+
+        logger.info("Stream notifiche aperto per " + email + " da sequenza " + ultimaSequenza
+                + " (" + daRispedire.size() + " da rispedire)");
+        segnala();
+    }
+
+    private void segnala() {
+        if (segnalazioni.getAndIncrement() == 0) {
+            svuota();
+        }
+    }
+
+    private void svuota() {
+        do {
+            while (!chiuso.get() && observer.isReady()) {
+                Notifica notifica = prossima();
+                if (notifica == null) {
+                    break;
+                }
+                try {
+                    observer.onNext(toEvento(notifica));
+                } catch (RuntimeException e) {
+                    logger.warning("Invio notifica fallito per " + email + ": " + e.getMessage());
+                    gestoreNotifiche.nonInviata(email, notifica);
+                    chiudi();
+                    continue;
+                }
+                gestoreNotifiche.inviata(notifica);
+            }
+        } while (segnalazioni.decrementAndGet() != 0);
+    }
+
+    private Notifica prossima() {
+        Notifica notifica = daRispedire.poll();
+        if (notifica != null) {
+            return notifica;
+        }
+        Optional<Notifica> nuova = gestoreNotifiche.consegna(email);
+        return nuova.orElse(null);
+    }
+
+    private void chiudi() {
+        if (chiuso.compareAndSet(false, true)) {
+            gestoreNotifiche.rimuoviAscoltatore(email, ascoltatore);
+            logger.info("Stream notifiche chiuso per " + email);
+        }
+    }
+
+    private static NotificaEvento toEvento(Notifica notifica) {
+        return NotificaEvento.newBuilder()
+                .setSequenza(notifica.getSequenza())
+                .setTipo(notifica.getTipo().name())
+                .setMessaggio(notifica.getMessaggio())
+                .setDataCreazione(notifica.getDataCreazione().toString())
+                .build();
+    }
+}
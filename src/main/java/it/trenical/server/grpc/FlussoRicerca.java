@@ -0,0 +1,116 @@
+package it.trenical.server.grpc;
+
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import it.trenical.grpc.RicercaViaggioResponse;
+import it.trenical.grpc.ViaggioDTO;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Invio a pagine dei risultati di una ricerca, in ordine di partenza.
+ * Come {@link FlussoNotifiche} scrive solo finché il trasporto è pronto e riprende
+ * dall'onReadyHandler: un client lento riceve le pagine al proprio ritmo
+ * e il server non converte in anticipo viaggi che non può ancora inviare.
+ * Ogni pagina porta il token per riprendere la ricerca se lo stream si interrompe.
+ * Se la ricerca parte dall'inizio l'ultima pagina porta anche la versione dell'intero risultato,
+ * la stessa della ricerca in una sola risposta, che il client usa per la propria cache.
+ */
+class FlussoRicerca {
+    private static final Logger logger = Logger.getLogger(FlussoRicerca.class.getName());
+
+    private final ServerCallStreamObserver<RicercaViaggioResponse> observer;
+    private final CursoreViaggi cursore;
+    private final int dimensionePagina;
+    private final Function<Viaggio, ViaggioDTO> conversione;
+    private final AtomicInteger segnalazioni;
+    private final AtomicBoolean chiuso;
+    private final VersioneRisposta.Calcolo versione;
+    private int inviati;
+
+    /**
+     * @param completa true se il cursore parte dall'inizio della ricerca: solo allora
+     *                 la versione calcolata copre tutto il risultato
+     */
+    FlussoRicerca(ServerCallStreamObserver<RicercaViaggioResponse> observer, CursoreViaggi cursore,
+                  int dimensionePagina, Function<Viaggio, ViaggioDTO> conversione, boolean completa) {
+        this.observer = observer;
+        this.cursore = cursore;
+        this.dimensionePagina = dimensionePagina;
+        this.conversione = conversione;
+        this.segnalazioni = new AtomicInteger();
+        this.chiuso = new AtomicBoolean();
+        this.versione = completa ? new VersioneRisposta.Calcolo() : null;
+    }
+
+    void avvia() {
+        observer.setOnCancelHandler(() -> {
+            if (chiuso.compareAndSet(false, true)) {
+                logger.info("Ricerca annullata dal client dopo " + inviati + " viaggi");
+            }
+        });
+        observer.setOnReadyHandler(this::segnala);
+        segnala();
+    }
+
+    private void segnala() {
+        if (segnalazioni.getAndIncrement() == 0) {
+            svuota();
+        }
+    }
+
+    private void svuota() {
+        do {
+            while (!chiuso.get() && observer.isReady()) {
+                try {
+                    inviaPagina();
+                } catch (RuntimeException e) {
+                    logger.severe("Errore durante l'invio dei risultati: " + e.getMessage());
+                    if (chiuso.compareAndSet(false, true)) {
+                        observer.onError(Status.INTERNAL
+                                .withDescription("Errore interno del server")
+                                .asRuntimeException());
+                    }
+                }
+            }
+        } while (segnalazioni.decrementAndGet() != 0);
+    }
+
+    private void inviaPagina() {
+        List<Viaggio> pagina = cursore.prossima(dimensionePagina);
+        boolean ultima = !cursore.haAltri();
+
+        RicercaViaggioResponse.Builder risposta = RicercaViaggioResponse.newBuilder()
+                .setSuccesso(true)
+                .setTokenSuccessivo(cursore.tokenSuccessivo());
+        for (Viaggio viaggio : pagina) {
+            ViaggioDTO dto = conversione.apply(viaggio);
+            risposta.addViaggi(dto);
+            if (versione != null) {
+                versione.aggiungi(dto);
+            }
+        }
+        inviati += pagina.size();
+
+        if (ultima) {
+            risposta.setMessaggio(inviati == 0
+                    ? "Nessun viaggio disponibile per la tratta e data richieste"
+                    : "Trovati " + inviati + " viaggi disponibili");
+            if (versione != null) {
+                risposta.setVersione(versione.chiudi(cursore.tokenSuccessivo()));
+            }
+        }
+
+        observer.onNext(risposta.build());
+
+        if (ultima && chiuso.compareAndSet(false, true)) {
+            observer.onCompleted();
+            logger.info("Ricerca a pagine completata con " + inviati + " viaggi");
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package it.trenical.server.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import it.trenical.server.metriche.IstogrammaLatenze;
+import it.trenical.server.metriche.RegistroMetriche;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Registra nel {@link RegistroMetriche} la durata di ogni chiamata (istogramma rpc.NomeMetodo)
+ * e l'esito (contatore rpc.NomeMetodo.CODICE, es. rpc.ConfermaAcquisto.OK).
+ * Va installato come più esterno, così misura anche le chiamate rifiutate dal limitatore.
+ * Per gli stream la durata è il tempo in cui la chiamata è rimasta aperta.
+ */
+public class InterceptorMetriche implements ServerInterceptor {
+    private final RegistroMetriche registro;
+
+    public InterceptorMetriche() {
+        this(RegistroMetriche.getInstance());
+    }
+
+    public InterceptorMetriche(RegistroMetriche registro) {
+        this.registro = registro;
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        String nome = "rpc." + call.getMethodDescriptor().getBareMethodName();
+        IstogrammaLatenze durata = registro.istogramma(nome);
+        long inizio = System.nanoTime();
+        AtomicBoolean registrata = new AtomicBoolean();
+        Consumer<Status.Code> registra = codice -> {
+            if (registrata.compareAndSet(false, true)) {
+                durata.registraNanos(System.nanoTime() - inizio);
+                registro.incrementa(nome + "." + codice.name());
+            }
+        };
+
+        ServerCall<ReqT, RespT> chiamata = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                try {
+                    super.close(status, trailers);
+                } finally {
+                    registra.accept(status.getCode());
+                }
+            }
+        };
+
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(chiamata, headers)) {
+                @Override
+                public void onCancel() {
+                    try {
+                        super.onCancel();
+                    } finally {
+                        registra.accept(Status.Code.CANCELLED);
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            registra.accept(Status.Code.INTERNAL);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package it.trenical.server.grpc;
+
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import it.trenical.server.metriche.IstogrammaLatenze;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Logger;
+
+/**
+ * Limita le chiamate unarie contemporanee per metodo.
+ * Le scritture lunghe (ConfermaAcquisto, ModificaBiglietto) hanno pochi permessi,
+ * così non occupano tutti i thread e le letture restano servite.
+ * Se i permessi sono finiti la chiamata viene rifiutata subito con RESOURCE_EXHAUSTED
+ * invece di accodarsi. Per ogni metodo misura il tempo di servizio.
+ * Il limite di un metodo si cambia con la proprietà trenical.server.limite.NomeMetodo.
+ */
+public class LimitatoreConcorrenza implements ServerInterceptor {
+    private static final Logger logger = Logger.getLogger(LimitatoreConcorrenza.class.getName());
+
+    private static final String PREFISSO_PROPRIETA = "trenical.server.limite.";
+    private static final int LIMITE_PREDEFINITO = 64;
+    private static final Map<String, Integer> LIMITI_INIZIALI = Map.of(
+            "ConfermaAcquisto", 4,
+            "ModificaBiglietto", 4,
+            "GestisciAbbonamento", 4,
+            "AggiungiAlCarrello", 16);
+
+    private final Map<String, Semaphore> permessi;
+    private final Map<String, IstogrammaLatenze> tempiServizio;
+
+    public LimitatoreConcorrenza() {
+        this.permessi = new ConcurrentHashMap<>();
+        this.tempiServizio = new ConcurrentHashMap<>();
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> metodo = call.getMethodDescriptor();
+        if (metodo.getType() != MethodDescriptor.MethodType.UNARY) {
+            // gli stream restano aperti a lungo: non occupano permessi
+            return next.startCall(call, headers);
+        }
+
+        String nome = metodo.getBareMethodName();
+        Semaphore semaforo = permessi.computeIfAbsent(nome, n -> new Semaphore(limitePer(n)));
+        if (!semaforo.tryAcquire()) {
+            logger.warning("Troppe richieste contemporanee per " + nome + ", chiamata rifiutata");
+            call.close(Status.RESOURCE_EXHAUSTED.withDescription("Server occupato, riprova tra poco"), new Metadata());
+            return new ServerCall.Listener<>() {
+            };
+        }
+
+        IstogrammaLatenze servizio = tempiServizio.computeIfAbsent(nome, IstogrammaLatenze::new);
+        long inizio = System.nanoTime();
+        AtomicBoolean rilasciato = new AtomicBoolean();
+        Runnable rilascia = () -> {
+            if (rilasciato.compareAndSet(false, true)) {
+                servizio.registraNanos(System.nanoTime() - inizio);
+                semaforo.release();
+            }
+        };
+
+        ServerCall<ReqT, RespT> chiamata = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                try {
+                    super.close(status, trailers);
+                } finally {
+                    rilascia.run();
+                }
+            }
+        };
+
+        try {
+            return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(chiamata, headers)) {
+                @Override
+                public void onCancel() {
+                    try {
+                        super.onCancel();
+                    } finally {
+                        rilascia.run();
+                    }
+                }
+            };
+        } catch (RuntimeException e) {
+            rilascia.run();
+            throw e;
+        }
+    }
+
+    private static int limitePer(String metodo) {
+        int limite = Integer.getInteger(PREFISSO_PROPRIETA + metodo,
+                LIMITI_INIZIALI.getOrDefault(metodo, LIMITE_PREDEFINITO));
+        logger.info("Limite di concorrenza per " + metodo + ": " + limite);
+        return Math.max(1, limite);
+    }
+
+    /**
+     * Tempi di servizio per metodo, dall'ingresso nell'handler alla chiusura della chiamata
+     */
+    public Map<String, IstogrammaLatenze> getTempiServizio() {
+        return Collections.unmodifiableMap(tempiServizio);
+    }
+
+    public int getPermessiDisponibili(String metodo) {
+        Semaphore semaforo = permessi.get(metodo);
+        return semaforo == null ? limitePer(metodo) : semaforo.availablePermits();
+    }
+}
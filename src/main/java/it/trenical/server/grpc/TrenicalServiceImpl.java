@@ -1,5 +1,7 @@
 package it.trenical.server.grpc;
 
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import it.trenical.server.cliente.Biglietto;
 import it.trenical.server.cliente.Cliente;
@@ -7,56 +9,100 @@ import it.trenical.grpc.*;
 import it.trenical.server.stazioni.Stazione;
 import it.trenical.server.db.dao.BigliettoDAO;
 import it.trenical.server.db.dao.ClienteDAO;
-import it.trenical.server.db.dao.PromozioneDAO;
 import it.trenical.server.db.dao.ViaggioDAO;
-import it.trenical.server.gui.AdminViaggi;
+import it.trenical.server.metriche.IstantaneaMetriche;
+import it.trenical.server.metriche.RegistroMetriche;
+import it.trenical.server.metriche.RiepilogoLatenze;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.prenotazioni.GestorePrenotazioni;
+import it.trenical.server.prenotazioni.Prenotazione;
+import it.trenical.server.promozioni.CatalogoPromozioni;
 import it.trenical.server.promozioni.Promozione;
+import it.trenical.server.viaggi.GestorePosti;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.TariffaGiorno;
 import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.percorsi.Percorso;
+import it.trenical.server.viaggi.percorsi.PianificatoreViaggi;
 
+import java.sql.SQLException;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Optional;
+import java.util.Map;
+import java.util.HashMap;
+import java.util.function.Function;
 import java.util.logging.Logger;
 
 
 public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImplBase {
 
     private static final Logger logger = Logger.getLogger(TrenicalServiceImpl.class.getName());
+    private static final int GIORNI_CALENDARIO_PREDEFINITI = 3;
+    private static final int GIORNI_CALENDARIO_MASSIMI = 30;
     private final ViaggioDAO viaggioDAO;
+    private final GestorePosti gestorePosti;
+    private final IndiceOrari indiceOrari;
+    private final GestoreNotifiche gestoreNotifiche;
+    private final CatalogoPromozioni catalogoPromozioni;
+    private final GestorePrenotazioni gestorePrenotazioni;
 
     public TrenicalServiceImpl() {
         this.viaggioDAO = new ViaggioDAO();
+        this.gestorePosti = GestorePosti.getInstance();
+        this.indiceOrari = IndiceOrari.getInstance();
+        this.gestoreNotifiche = GestoreNotifiche.getInstance();
+        this.catalogoPromozioni = CatalogoPromozioni.getInstance();
+        this.gestorePrenotazioni = GestorePrenotazioni.getInstance();
         logger.info("TrenicalServiceImpl inizializzato");
     }
 
 
+    /**
+     * Ricerca in una sola risposta. Con dimensione_pagina restituisce una pagina
+     * e il token per chiedere la successiva
+     */
     @Override
     public void cercaViaggi(RicercaViaggioRequest request, StreamObserver<RicercaViaggioResponse> responseObserver) {
         try {
-            Stazione stazionePartenza = convertiStringaInStazione(request.getStazionePartenza());
-            Stazione stazioneArrivo = convertiStringaInStazione(request.getStazioneArrivo());
-
-            LocalDate dataViaggio= LocalDate.parse(request.getDataViaggio(), DateTimeFormatter.ISO_LOCAL_DATE);
-
-            List<Viaggio> viaggiTrovati = viaggioDAO.findByTrattaEData(stazionePartenza, stazioneArrivo, dataViaggio);
-
-            List<Viaggio> viaggiDisponibili = new ArrayList<>();
-            for (Viaggio viaggio : viaggiTrovati) {
-                if (viaggio.isDisponibile() && viaggio.getPostiDisponibili() > 0) {
-                    viaggiDisponibili.add(viaggio);
-                }
+            CursoreViaggi cursore = apriCursore(request, responseObserver);
+            if (cursore == null) {
+                return;
             }
 
+            int dimensione = request.getDimensionePagina() > 0
+                    ? CursoreViaggi.dimensionePagina(request.getDimensionePagina())
+                    : Integer.MAX_VALUE;
+
             List<ViaggioDTO> viaggiDTO = new ArrayList<>();
-            for (Viaggio viaggio : viaggiDisponibili) {
+            for (Viaggio viaggio : cursore.prossima(dimensione)) {
                 viaggiDTO.add(convertiViaggioInDTO(viaggio));
             }
 
+            String tokenSuccessivo = cursore.tokenSuccessivo();
+            long versione = VersioneRisposta.di(viaggiDTO, tokenSuccessivo);
+            if (request.getVersioneCache() == versione) {
+                responseObserver.onNext(RicercaViaggioResponse.newBuilder()
+                        .setSuccesso(true)
+                        .setNonModificato(true)
+                        .setVersione(versione)
+                        .setTokenSuccessivo(tokenSuccessivo)
+                        .build());
+                responseObserver.onCompleted();
+                return;
+            }
+
             RicercaViaggioResponse.Builder responseBuilder = RicercaViaggioResponse.newBuilder()
                     .setSuccesso(true)
-                    .addAllViaggi(viaggiDTO);
+                    .addAllViaggi(viaggiDTO)
+                    .setTokenSuccessivo(tokenSuccessivo)
+                    .setVersione(versione);
 
             if (viaggiDTO.isEmpty()) {
                 responseBuilder.setMessaggio("Nessun viaggio disponibile per la tratta e data richieste");
@@ -76,7 +122,249 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
         }
     }
 
-    private ViaggioDTO convertiViaggioInDTO(Viaggio viaggio) {
+    /**
+     * Ricerca in streaming: una risposta per pagina, inviate man mano che il client le accetta.
+     * Se il client ha in cache la versione del risultato completo risponde solo "non modificato";
+     * altrimenti la versione arriva con l'ultima pagina
+     */
+    @Override
+    public void cercaViaggiFlusso(RicercaViaggioRequest request,
+                                  StreamObserver<RicercaViaggioResponse> responseObserver) {
+        try {
+            CursoreViaggi cursore = apriCursore(request, responseObserver);
+            if (cursore == null) {
+                return;
+            }
+
+            boolean completa = request.getTokenPagina().isEmpty();
+            Function<Viaggio, ViaggioDTO> conversione = this::convertiViaggioInDTO;
+            if (completa && request.getVersioneCache() != 0) {
+                // per confrontare la versione serve tutto il risultato: le conversioni fatte qui
+                // vengono riusate dallo stream se il risultato è cambiato
+                Map<String, ViaggioDTO> convertiti = new HashMap<>();
+                List<ViaggioDTO> viaggiDTO = new ArrayList<>();
+                for (Viaggio viaggio : cursore.prossima(Integer.MAX_VALUE)) {
+                    ViaggioDTO dto = convertiViaggioInDTO(viaggio);
+                    convertiti.put(viaggio.getId(), dto);
+                    viaggiDTO.add(dto);
+                }
+                long versione = VersioneRisposta.di(viaggiDTO, cursore.tokenSuccessivo());
+                if (request.getVersioneCache() == versione) {
+                    responseObserver.onNext(RicercaViaggioResponse.newBuilder()
+                            .setSuccesso(true)
+                            .setNonModificato(true)
+                            .setVersione(versione)
+                            .build());
+                    responseObserver.onCompleted();
+                    return;
+                }
+                cursore = apriCursore(request, responseObserver);
+                if (cursore == null) {
+                    return;
+                }
+                conversione = viaggio -> {
+                    ViaggioDTO dto = convertiti.get(viaggio.getId());
+                    return dto != null ? dto : convertiViaggioInDTO(viaggio);
+                };
+            }
+
+            new FlussoRicerca((ServerCallStreamObserver<RicercaViaggioResponse>) responseObserver, cursore,
+                    CursoreViaggi.dimensionePagina(request.getDimensionePagina()), conversione, completa)
+                    .avvia();
+
+        } catch (Exception e) {
+            logger.severe("Errore durante la ricerca viaggi: " + e.getMessage());
+            inviaRispostaRicercaErrore(responseObserver, "Errore interno del server");
+        }
+    }
+
+    /**
+     * Valida la richiesta e posiziona il cursore sui viaggi dell'indice orari.
+     * Se la richiesta non è valida risponde con l'errore e restituisce null
+     */
+    private CursoreViaggi apriCursore(RicercaViaggioRequest request,
+                                      StreamObserver<RicercaViaggioResponse> responseObserver) {
+        Stazione stazionePartenza = convertiStringaInStazione(request.getStazionePartenza());
+        Stazione stazioneArrivo = convertiStringaInStazione(request.getStazioneArrivo());
+        if (stazionePartenza == null || stazioneArrivo == null) {
+            inviaRispostaRicercaErrore(responseObserver, "Stazione non valida");
+            return null;
+        }
+
+        LocalDate dataViaggio = LocalDate.parse(request.getDataViaggio(), DateTimeFormatter.ISO_LOCAL_DATE);
+        List<Viaggio> viaggiTrovati = indiceOrari.cerca(stazionePartenza, stazioneArrivo, dataViaggio);
+
+        try {
+            return CursoreViaggi.apri(viaggiTrovati, stazionePartenza, stazioneArrivo, dataViaggio,
+                    request.getTokenPagina());
+        } catch (IllegalArgumentException e) {
+            logger.warning(e.getMessage() + ": " + request.getTokenPagina());
+            inviaRispostaRicercaErrore(responseObserver, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Percorsi con cambi tra due stazioni, a partire dalla data (e dall'orario minimo se indicato)
+     */
+    @Override
+    public void pianificaViaggio(PianificaViaggioRequest request,
+                                 StreamObserver<PianificaViaggioResponse> responseObserver) {
+        try {
+            Stazione stazionePartenza = convertiStringaInStazione(request.getStazionePartenza());
+            Stazione stazioneArrivo = convertiStringaInStazione(request.getStazioneArrivo());
+            if (stazionePartenza == null || stazioneArrivo == null) {
+                inviaRispostaPianificazioneErrore(responseObserver, "Stazione non valida");
+                return;
+            }
+            if (stazionePartenza == stazioneArrivo) {
+                inviaRispostaPianificazioneErrore(responseObserver,
+                        "Stazione di partenza e arrivo devono essere diverse");
+                return;
+            }
+
+            LocalDateTime dopo;
+            try {
+                LocalDate data = LocalDate.parse(request.getDataViaggio(), DateTimeFormatter.ISO_LOCAL_DATE);
+                LocalTime orario = request.getOrarioMinimo().isEmpty()
+                        ? LocalTime.MIDNIGHT
+                        : LocalTime.parse(request.getOrarioMinimo());
+                dopo = LocalDateTime.of(data, orario);
+            } catch (DateTimeParseException e) {
+                inviaRispostaPianificazioneErrore(responseObserver, "Data o orario non validi");
+                return;
+            }
+            LocalDateTime adesso = LocalDateTime.now();
+            if (dopo.isBefore(adesso)) {
+                dopo = adesso;
+            }
+
+            int massimoCambi = request.getMassimoCambi() > 0
+                    ? request.getMassimoCambi()
+                    : PianificatoreViaggi.MASSIMO_CAMBI;
+            List<Percorso> percorsi = PianificatoreViaggi.getInstance()
+                    .pianifica(stazionePartenza, stazioneArrivo, dopo, massimoCambi);
+
+            PianificaViaggioResponse.Builder responseBuilder = PianificaViaggioResponse.newBuilder()
+                    .setSuccesso(true);
+            for (Percorso percorso : percorsi) {
+                responseBuilder.addPercorsi(convertiPercorsoInDTO(percorso));
+            }
+            responseBuilder.setMessaggio(percorsi.isEmpty()
+                    ? "Nessun percorso disponibile per la tratta e data richieste"
+                    : "Trovati " + percorsi.size() + " percorsi");
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+
+            logger.info("Pianificazione " + stazionePartenza + " -> " + stazioneArrivo
+                    + ": " + percorsi.size() + " percorsi");
+
+        } catch (Exception e) {
+            logger.severe("Errore durante la pianificazione del viaggio: " + e.getMessage());
+            inviaRispostaPianificazioneErrore(responseObserver, "Errore interno del server");
+        }
+    }
+
+    private PercorsoDTO convertiPercorsoInDTO(Percorso percorso) {
+        PercorsoDTO.Builder builder = PercorsoDTO.newBuilder()
+                .setCambi(percorso.getCambi())
+                .setPrezzoTotale(percorso.getPrezzoTotale())
+                .setOrarioPartenza(percorso.getPartenza().toLocalTime().toString())
+                .setOrarioArrivo(percorso.getArrivo().toLocalTime().toString())
+                .setDataArrivo(percorso.getArrivo().toLocalDate().toString())
+                .setDurataFormattata(String.format("%dh %dm",
+                        percorso.getDurataMinuti() / 60, percorso.getDurataMinuti() % 60));
+        for (Viaggio viaggio : percorso.getTratte()) {
+            builder.addTratte(convertiViaggioInDTO(viaggio));
+        }
+        return builder.build();
+    }
+
+    private void inviaRispostaPianificazioneErrore(StreamObserver<PianificaViaggioResponse> responseObserver,
+                                                   String messaggio) {
+        responseObserver.onNext(PianificaViaggioResponse.newBuilder()
+                .setSuccesso(false)
+                .setMessaggio(messaggio)
+                .build());
+        responseObserver.onCompleted();
+
+        logger.warning("Risposta errore inviata: " + messaggio);
+    }
+
+    /**
+     * Tariffa minima e prima partenza dei giorni attorno alla data richiesta,
+     * lette dal calendario dell'indice orari senza toccare il database
+     */
+    @Override
+    public void calendarioTariffe(CalendarioTariffeRequest request,
+                                  StreamObserver<CalendarioTariffeResponse> responseObserver) {
+        try {
+            Stazione stazionePartenza = convertiStringaInStazione(request.getStazionePartenza());
+            Stazione stazioneArrivo = convertiStringaInStazione(request.getStazioneArrivo());
+            if (stazionePartenza == null || stazioneArrivo == null || stazionePartenza == stazioneArrivo) {
+                inviaRispostaCalendarioErrore(responseObserver, "Stazione non valida");
+                return;
+            }
+
+            LocalDate data;
+            try {
+                data = LocalDate.parse(request.getDataViaggio(), DateTimeFormatter.ISO_LOCAL_DATE);
+            } catch (DateTimeParseException e) {
+                inviaRispostaCalendarioErrore(responseObserver, "Data non valida");
+                return;
+            }
+
+            int giorni = request.getGiorni() > 0
+                    ? Math.min(request.getGiorni(), GIORNI_CALENDARIO_MASSIMI)
+                    : GIORNI_CALENDARIO_PREDEFINITI;
+            LocalDate oggi = LocalDate.now();
+            LocalDate dal = data.minusDays(giorni).isBefore(oggi) ? oggi : data.minusDays(giorni);
+            LocalDate al = data.plusDays(giorni);
+
+            CalendarioTariffeResponse.Builder responseBuilder = CalendarioTariffeResponse.newBuilder()
+                    .setSuccesso(true);
+            int disponibili = 0;
+            if (!al.isBefore(dal)) {
+                for (TariffaGiorno tariffa : indiceOrari.getCalendario()
+                        .calendario(stazionePartenza, stazioneArrivo, dal, al)) {
+                    TariffaGiornoDTO.Builder dto = TariffaGiornoDTO.newBuilder()
+                            .setData(tariffa.getData().toString())
+                            .setDisponibile(tariffa.isDisponibile())
+                            .setViaggiDisponibili(tariffa.getViaggiDisponibili());
+                    if (tariffa.isDisponibile()) {
+                        dto.setPrezzoMinimo(tariffa.getPrezzoMinimo())
+                                .setPrimaPartenza(tariffa.getPrimaPartenza().toString());
+                        disponibili++;
+                    }
+                    responseBuilder.addTariffe(dto);
+                }
+            }
+            responseBuilder.setMessaggio(disponibili == 0
+                    ? "Nessun viaggio disponibile nei giorni richiesti"
+                    : "Viaggi disponibili in " + disponibili + " giorni");
+
+            responseObserver.onNext(responseBuilder.build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            logger.severe("Errore durante il calcolo del calendario tariffe: " + e.getMessage());
+            inviaRispostaCalendarioErrore(responseObserver, "Errore interno del server");
+        }
+    }
+
+    private void inviaRispostaCalendarioErrore(StreamObserver<CalendarioTariffeResponse> responseObserver,
+                                               String messaggio) {
+        responseObserver.onNext(CalendarioTariffeResponse.newBuilder()
+                .setSuccesso(false)
+                .setMessaggio(messaggio)
+                .build());
+        responseObserver.onCompleted();
+
+        logger.warning("Risposta errore inviata: " + messaggio);
+    }
+
+    ViaggioDTO convertiViaggioInDTO(Viaggio viaggio) {
         return ViaggioDTO.newBuilder()
                 .setId(viaggio.getId())
                 .setTipoTreno(viaggio.getTreno().getTipoTreno().name())
@@ -87,7 +375,7 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                 .setDataPartenza(viaggio.getDataViaggio().toString())
                 .setDataArrivo(viaggio.getDataArrivo().toString())
                 .setPrezzo(viaggio.getPrezzo())
-                .setServizi(ottieniServiziTreno(viaggio))
+                .setServizi(viaggio.getTreno().getElencoServizi())
                 .setDurataFormattata(viaggio.getDurataFormattata())
                 .setDistanzaKm(viaggio.getTratta().getDistanzaKm())
                 .setStato(viaggio.getStato().name())
@@ -97,35 +385,11 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
     }
 
     private Stazione convertiStringaInStazione(String nomeStazione) {
-        try {
-            for (Stazione stazione : Stazione.values()) {
-                if (stazione.getNome().equalsIgnoreCase(nomeStazione.trim())) {
-                    return stazione;
-                }
-            }
-
-            return Stazione.valueOf(nomeStazione.trim().toUpperCase().replace(" ", "_"));
-
-        } catch (IllegalArgumentException e) {
+        Optional<Stazione> stazione = Stazione.cerca(nomeStazione);
+        if (stazione.isEmpty()) {
             logger.warning("Stazione non trovata: " + nomeStazione);
-            return null;
         }
-    }
-
-    private String ottieniServiziTreno(Viaggio viaggio) {
-        StringBuilder servizi = new StringBuilder();
-        boolean primo = true;
-
-        for (Object servizio : viaggio.getTreno().getServizi()) {
-            if (!primo)
-                servizi.append(", ");
-
-            String nomeServizio = servizio.toString().replace("_", " ").toLowerCase();
-            servizi.append(nomeServizio);
-            primo = false;
-        }
-
-        return servizi.toString();
+        return stazione.orElse(null);
     }
 
     private void inviaRispostaRicercaErrore(StreamObserver<RicercaViaggioResponse> responseObserver, String messaggio) {
@@ -151,7 +415,7 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
             logger.info("Richiesta aggiunta carrello - Viaggio: " + viaggioId +
                     ", Quantità: " + quantita + ", Utente: " + emailUtente);
 
-            Optional<Viaggio> viaggioOpt = viaggioDAO.findById(viaggioId);
+            Optional<Viaggio> viaggioOpt = indiceOrari.trova(viaggioId).or(() -> viaggioDAO.findById(viaggioId));
             if (viaggioOpt.isEmpty()) {
                 inviaRispostaCarrelloErrore(responseObserver, "Viaggio non trovato");
                 return;
@@ -162,19 +426,26 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                 inviaRispostaCarrelloErrore(responseObserver, "Viaggio non disponibile");
                 return;
             }
-            if (viaggio.getPostiDisponibili() < quantita) {
-                inviaRispostaCarrelloErrore(responseObserver,
-                        "Posti insufficienti. Disponibili: " + viaggio.getPostiDisponibili() +
-                                ", Richiesti: " + quantita);
+            if (quantita <= 0) {
+                inviaRispostaCarrelloErrore(responseObserver, "Quantità non valida");
                 return;
             }
 
-            int nuoviPostiDisponibili = viaggio.getPostiDisponibili() - quantita;
-            boolean postiAggiornati = viaggioDAO.updatePostiDisponibili(viaggioId, nuoviPostiDisponibili);
-            if (!postiAggiornati) {
-                inviaRispostaCarrelloErrore(responseObserver, "Errore nell'aggiornamento posti");
+            Optional<Prenotazione> prenotazione;
+            try {
+                prenotazione = gestorePrenotazioni.crea(viaggioId, emailUtente, quantita);
+            } catch (SQLException e) {
+                logger.severe("Errore nella prenotazione dei posti: " + e.getMessage());
+                inviaRispostaCarrelloErrore(responseObserver, "Impossibile registrare la prenotazione");
+                return;
+            }
+            if (prenotazione.isEmpty()) {
+                inviaRispostaCarrelloErrore(responseObserver,
+                        "Posti insufficienti. Disponibili: " + gestorePosti.getPostiDisponibili(viaggioId) +
+                                ", Richiesti: " + quantita);
                 return;
             }
+            int nuoviPostiDisponibili = gestorePosti.getPostiDisponibili(viaggioId);
 
             ViaggioDTO viaggioDTO = convertiViaggioInDTO(viaggio);
 
@@ -183,10 +454,8 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                     .build();
 
             List<BigliettoCarrelloDTO> bigliettiCarrello = new ArrayList<>();
-            String idTemporaneo = "PRENOTATO_" + System.currentTimeMillis();
-
             BigliettoCarrelloDTO dto = BigliettoCarrelloDTO.newBuilder()
-                    .setIdTemporaneo(idTemporaneo)
+                    .setIdTemporaneo(prenotazione.get().getId())
                     .setViaggioId(viaggioId)
                     .setPrezzo(viaggio.getPrezzo())
                     .setInfoViaggio(viaggio.getTratta().getStazionePartenza().getNome() +
@@ -247,8 +516,7 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
             if (codicePromozione != null && !codicePromozione.trim().isEmpty()) {
                 logger.info("Codice promozione fornito: " + codicePromozione.trim());
 
-                PromozioneDAO promozioneDAO = new PromozioneDAO();
-                Optional<Promozione> promozioneOpt = promozioneDAO.findById(codicePromozione.trim());
+                Optional<Promozione> promozioneOpt = catalogoPromozioni.trova(codicePromozione.trim());
 
                 if (promozioneOpt.isPresent()) {
                     promozioneApplicata = promozioneOpt.get();
@@ -289,9 +557,18 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                 }
             }
 
-            BigliettoDAO bigliettoDAO = new BigliettoDAO();
-            int bigliettSalvati = bigliettoDAO.saveAll(bigliettiCreati, emailUtente);
+            List<String> idPrenotazioni = new ArrayList<>();
+            for (CarrelloItemDTO item : carrelloItems) {
+                idPrenotazioni.addAll(item.getIdPrenotazioniList());
+            }
+
+            int bigliettSalvati = gestorePrenotazioni.converti(emailUtente, idPrenotazioni, bigliettiCreati);
 
+            if (bigliettSalvati == GestorePosti.POSTI_INSUFFICIENTI) {
+                inviaRispostaAcquistoErrore(responseObserver,
+                        "Prenotazione scaduta: i posti non sono più disponibili");
+                return;
+            }
             if (bigliettSalvati != bigliettiCreati.size()) {
                 inviaRispostaAcquistoErrore(responseObserver, "Errore nel salvataggio biglietti");
                 return;
@@ -333,6 +610,32 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
         logger.warning("Errore acquisto: " + messaggio);
     }
 
+    /**
+     * Il cliente ha svuotato il carrello o il suo timer è scaduto: i posti tornano subito disponibili
+     */
+    @Override
+    public void annullaPrenotazioni(AnnullaPrenotazioniRequest request,
+                                    StreamObserver<AnnullaPrenotazioniResponse> responseObserver) {
+        try {
+            int posti = gestorePrenotazioni.annulla(request.getEmailUtente(), request.getIdPrenotazioniList());
+
+            responseObserver.onNext(AnnullaPrenotazioniResponse.newBuilder()
+                    .setSuccesso(true)
+                    .setMessaggio("Restituiti " + posti + " posti")
+                    .setPostiRilasciati(posti)
+                    .build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            logger.severe("Errore durante annullamento prenotazioni: " + e.getMessage());
+            responseObserver.onNext(AnnullaPrenotazioniResponse.newBuilder()
+                    .setSuccesso(false)
+                    .setMessaggio("Errore interno del server")
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+
     @Override
     public void visualizzaBiglietti(VisualizzaBigliettiRequest request,
                                     StreamObserver<VisualizzaBigliettiResponse> responseObserver) {
@@ -364,11 +667,23 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                 }
             }
 
+            long versione = VersioneRisposta.di(bigliettiDTO);
+            if (request.getVersioneCache() == versione) {
+                responseObserver.onNext(VisualizzaBigliettiResponse.newBuilder()
+                        .setSuccesso(true)
+                        .setNonModificato(true)
+                        .setVersione(versione)
+                        .build());
+                responseObserver.onCompleted();
+                return;
+            }
+
             String messaggio = "Trovati " + bigliettiDTO.size() + " biglietti";
             VisualizzaBigliettiResponse response = VisualizzaBigliettiResponse.newBuilder()
                     .setSuccesso(true)
                     .setMessaggio(messaggio)
                     .addAllBiglietti(bigliettiDTO)
+                    .setVersione(versione)
                     .build();
 
             responseObserver.onNext(response);
@@ -426,20 +741,13 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                 return;
             }
 
-            List<Biglietto> bigliettiCliente = bigliettoDAO.findByClienteEmail(request.getEmailUtente());
-            Biglietto bigliettoCorrente = null;
-
-            for (Biglietto biglietto : bigliettiCliente) {
-                if (biglietto.getId().equals(request.getIdBiglietto())) {
-                    bigliettoCorrente = biglietto;
-                    break;
-                }
-            }
-
-            if (bigliettoCorrente == null) {
+            Optional<Biglietto> bigliettoOpt =
+                    bigliettoDAO.findByIdAndCliente(request.getIdBiglietto(), request.getEmailUtente());
+            if (bigliettoOpt.isEmpty()) {
                 inviaRispostaModificaErrore(responseObserver, "Biglietto non trovato o non appartiene al cliente");
                 return;
             }
+            Biglietto bigliettoCorrente = bigliettoOpt.get();
 
             Optional<Viaggio> nuovoViaggioOpt = viaggioDAO.findById(request.getNuovoIdViaggio());
             if (!nuovoViaggioOpt.isPresent()) {
@@ -455,24 +763,8 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
             }
 
             String vecchioViaggioId = bigliettoCorrente.getIdViaggio();
-            Optional<Viaggio> vecchioViaggioOpt = viaggioDAO.findById(vecchioViaggioId);
-            if (vecchioViaggioOpt.isPresent()) {
-                Viaggio vecchioViaggio = vecchioViaggioOpt.get();
-                int nuoviPostiVecchio = vecchioViaggio.getPostiDisponibili() + 1;
-                viaggioDAO.updatePostiDisponibili(vecchioViaggioId, nuoviPostiVecchio);
-                logger.info("Liberato posto nel viaggio precedente: " + vecchioViaggioId);
-            }
-
-            int nuoviPostiNuovo = nuovoViaggio.getPostiDisponibili() - 1;
-            boolean postiAggiornati = viaggioDAO.updatePostiDisponibili(request.getNuovoIdViaggio(), nuoviPostiNuovo);
-
-            if (!postiAggiornati) {
-                if (vecchioViaggioOpt.isPresent()) {
-                    Viaggio vecchioViaggio = vecchioViaggioOpt.get();
-                    int ripristinaPostiVecchio = vecchioViaggio.getPostiDisponibili();
-                    viaggioDAO.updatePostiDisponibili(vecchioViaggioId, ripristinaPostiVecchio);
-                }
-                inviaRispostaModificaErrore(responseObserver, "Errore nell'aggiornamento posti disponibili");
+            if (vecchioViaggioId.equals(nuovoViaggio.getId())) {
+                inviaRispostaModificaErrore(responseObserver, "Il biglietto è già associato a questo viaggio");
                 return;
             }
 
@@ -480,22 +772,23 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
             double prezzoNuovo = nuovoViaggio.getPrezzo();
             double differenzaPrezzo = prezzoNuovo - prezzoPrecedente;
 
-            boolean bigliettoAggiornato = bigliettoDAO.updateViaggioIdEPrezzo(
+            boolean bigliettoAggiornato = bigliettoDAO.cambiaViaggio(
                     request.getIdBiglietto(),
-                    request.getNuovoIdViaggio(),
+                    request.getEmailUtente(),
+                    vecchioViaggioId,
+                    nuovoViaggio.getId(),
                     prezzoNuovo
             );
 
             if (!bigliettoAggiornato) {
-                viaggioDAO.updatePostiDisponibili(request.getNuovoIdViaggio(), nuovoViaggio.getPostiDisponibili());
-                if (vecchioViaggioOpt.isPresent()) {
-                    Viaggio vecchioViaggio = vecchioViaggioOpt.get();
-                    viaggioDAO.updatePostiDisponibili(vecchioViaggioId, vecchioViaggio.getPostiDisponibili());
-                }
-                inviaRispostaModificaErrore(responseObserver, "Errore nell'aggiornamento del biglietto");
+                inviaRispostaModificaErrore(responseObserver,
+                        "Il viaggio selezionato non è più disponibile");
                 return;
             }
 
+            gestorePosti.registraSpostamento(vecchioViaggioId, nuovoViaggio.getId(), 1);
+            logger.info("Liberato posto nel viaggio precedente: " + vecchioViaggioId);
+
             Biglietto bigliettoModificato = new Biglietto(nuovoViaggio,
                     bigliettoCorrente.getId(),
                     bigliettoCorrente.getNominativo(),
@@ -595,7 +888,9 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
         try {
             String emailUtente = request.getEmailUtente();
 
-            String messaggio = AdminViaggi.trovaNotificaPerEmail(emailUtente);
+            String messaggio = gestoreNotifiche.preleva(emailUtente)
+                    .map(Notifica::getMessaggio)
+                    .orElse(null);
 
             ControllaNotificheResponse response;
             if (messaggio != null) {
@@ -627,6 +922,21 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
         }
     }
 
+    @Override
+    public void sottoscriviNotifiche(SottoscriviNotificheRequest request,
+                                     StreamObserver<NotificaEvento> responseObserver) {
+        String emailUtente = request.getEmailUtente();
+        if (emailUtente == null || emailUtente.trim().isEmpty()) {
+            responseObserver.onError(Status.INVALID_ARGUMENT
+                    .withDescription("Email utente obbligatoria")
+                    .asRuntimeException());
+            return;
+        }
+
+        new FlussoNotifiche((ServerCallStreamObserver<NotificaEvento>) responseObserver,
+                emailUtente, gestoreNotifiche).avvia(request.getUltimaSequenza());
+    }
+
     public String generaMessaggioNotifica(String tipoNotifica) {
         switch (tipoNotifica.toUpperCase()) {
             case "SCADENZA_PRENOTAZIONE":
@@ -861,17 +1171,26 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
             Cliente cliente = clienteOpt.get();
             boolean isAbbonato = cliente.hasAbbonamentoFedelta();
 
-            PromozioneDAO promozioneDAO = new PromozioneDAO();
-            List<Promozione> promozioni;
+            CatalogoPromozioni.Istantanea catalogo = catalogoPromozioni.getIstantanea();
+            // la vista dipende anche dall'abbonamento: il bit basso distingue le due viste
+            long versioneVista = catalogo.getVersione() << 1 | (isAbbonato ? 1 : 0);
 
-            if (isAbbonato) {
-                promozioni = promozioneDAO.findAll();
-                logger.info("Cliente abbonato - recuperate tutte le promozioni");
-            } else {
-                promozioni = promozioneDAO.findByTipo("Standard");
-                logger.info("Cliente non abbonato - recuperate solo promozioni Standard");
+            if (request.getVersioneCatalogo() == versioneVista) {
+                responseObserver.onNext(VisualizzaPromozioniResponse.newBuilder()
+                        .setSuccesso(true)
+                        .setNonModificato(true)
+                        .setVersioneCatalogo(versioneVista)
+                        .setMessaggio("Promozioni invariate")
+                        .build());
+                responseObserver.onCompleted();
+                return;
             }
 
+            List<Promozione> promozioni = catalogo.perCliente(isAbbonato);
+            logger.info(isAbbonato
+                    ? "Cliente abbonato - tutte le promozioni del catalogo"
+                    : "Cliente non abbonato - solo promozioni Standard");
+
             List<PromozioneDTO> promozioniDTO = new ArrayList<>();
             for (Promozione promozione : promozioni) {
                 PromozioneDTO dto = convertiPromozioneInDTO(promozione);
@@ -891,6 +1210,7 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
                     .setSuccesso(true)
                     .setMessaggio(messaggio)
                     .addAllPromozioni(promozioniDTO)
+                    .setVersioneCatalogo(versioneVista)
                     .build();
 
             responseObserver.onNext(response);
@@ -923,4 +1243,46 @@ public class TrenicalServiceImpl extends TrenicalServiceGrpc.TrenicalServiceImpl
 
         logger.warning("Errore visualizzazione promozioni: " + messaggio);
     }
-}
\ No newline at end of file
+
+    /**
+     * Istantanea delle metriche del server, filtrata per prefisso (es. "rpc." o "db.")
+     */
+    @Override
+    public void leggiMetriche(MetricheRequest request, StreamObserver<MetricheResponse> responseObserver) {
+        try {
+            IstantaneaMetriche istantanea = RegistroMetriche.getInstance().istantanea(request.getPrefisso());
+
+            MetricheResponse.Builder risposta = MetricheResponse.newBuilder()
+                    .setSuccesso(true)
+                    .setIstante(istantanea.getIstante().toString());
+            istantanea.getValori().forEach((nome, valore) -> risposta.addValori(ValoreMetricaDTO.newBuilder()
+                    .setNome(nome)
+                    .setValore(valore)
+                    .build()));
+            for (RiepilogoLatenze latenza : istantanea.getLatenze().values()) {
+                risposta.addLatenze(LatenzaMetricaDTO.newBuilder()
+                        .setNome(latenza.getNome())
+                        .setConteggio(latenza.getConteggio())
+                        .setMediaMicros(latenza.getMediaMicros())
+                        .setP50Micros(latenza.getP50Micros())
+                        .setP90Micros(latenza.getP90Micros())
+                        .setP99Micros(latenza.getP99Micros())
+                        .setMassimoMicros(latenza.getMassimoMicros())
+                        .build());
+            }
+            risposta.setMessaggio(String.format("%d valori, %d istogrammi",
+                    risposta.getValoriCount(), risposta.getLatenzeCount()));
+
+            responseObserver.onNext(risposta.build());
+            responseObserver.onCompleted();
+
+        } catch (Exception e) {
+            logger.severe("Errore durante lettura metriche: " + e.getMessage());
+            responseObserver.onNext(MetricheResponse.newBuilder()
+                    .setSuccesso(false)
+                    .setMessaggio("Errore interno del server")
+                    .build());
+            responseObserver.onCompleted();
+        }
+    }
+}
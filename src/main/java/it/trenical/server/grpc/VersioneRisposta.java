@@ -0,0 +1,52 @@
+package it.trenical.server.grpc;
+
+import java.util.List;
+
+/**
+ * Versione del contenuto di una risposta, calcolata dai messaggi che contiene
+ * (gli hashCode dei messaggi protobuf dipendono solo dai campi).
+ * Il client la rimanda con la richiesta successiva: se coincide il server risponde
+ * "non modificato" senza ripetere l'elenco.
+ */
+final class VersioneRisposta {
+
+    private VersioneRisposta() {
+    }
+
+    static long di(List<?> elementi, Object... altri) {
+        Calcolo calcolo = new Calcolo();
+        for (Object elemento : elementi) {
+            calcolo.aggiungi(elemento);
+        }
+        return calcolo.chiudi(altri);
+    }
+
+    /**
+     * Calcolo incrementale, per le risposte inviate a pagine:
+     * a parità di elementi dà la stessa versione di {@link #di}
+     */
+    static final class Calcolo {
+        private long versione = 17;
+        private int elementi;
+
+        void aggiungi(Object elemento) {
+            versione = mescola(versione, elemento.hashCode());
+            elementi++;
+        }
+
+        long chiudi(Object... altri) {
+            long risultato = versione;
+            for (Object altro : altri) {
+                risultato = mescola(risultato, altro == null ? 0 : altro.hashCode());
+            }
+            risultato = mescola(risultato, elementi);
+            // 0 è il valore di chi non ha una copia in cache
+            return risultato == 0 ? 1 : risultato;
+        }
+    }
+
+    private static long mescola(long versione, int valore) {
+        long h = (versione ^ valore) * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 29);
+    }
+}
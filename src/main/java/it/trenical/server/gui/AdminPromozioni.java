@@ -2,12 +2,17 @@ package it.trenical.server.gui;
 
 import it.trenical.server.cliente.Cliente;
 import it.trenical.server.db.dao.ClienteDAO;
+import it.trenical.server.promozioni.CatalogoPromozioni;
 import it.trenical.server.promozioni.Promozione;
 import it.trenical.server.promozioni.factoryMethod.PromozioneFactory;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
 import it.trenical.server.db.dao.PromozioneDAO;
 import it.trenical.server.db.dao.ViaggioDAO;
 import it.trenical.server.grpc.TrenicalServiceImpl;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.observer.TipoNotifica;
 
 import java.sql.*;
 import java.util.List;
@@ -19,6 +24,7 @@ public class AdminPromozioni {
     private static final Logger logger = Logger.getLogger(AdminPromozioni.class.getName());
 
     private final PromozioneDAO promozioneDAO;
+    private final CatalogoPromozioni catalogoPromozioni;
     private final ViaggioDAO viaggioDAO;
     private final ClienteDAO clienteDAO;
     private final ServerAdminApp gui;
@@ -26,6 +32,7 @@ public class AdminPromozioni {
 
     public AdminPromozioni(PromozioneDAO promozioneDAO, ViaggioDAO viaggioDAO, ServerAdminApp gui) {
         this.promozioneDAO = promozioneDAO;
+        this.catalogoPromozioni = CatalogoPromozioni.getInstance();
         this.viaggioDAO = viaggioDAO;
         this.clienteDAO = new ClienteDAO();
         this.gui = gui;
@@ -42,19 +49,16 @@ public class AdminPromozioni {
                 return;
             }
 
-            List<Promozione> promozioniEsistenti = promozioneDAO.findAll();
-            for (Promozione p : promozioniEsistenti) {
-                if (p.getNome().equalsIgnoreCase(nome.trim())) {
-                    gui.mostraErrore("Promozione Già Esistente",
-                            "Esiste già una promozione con il nome: " + nome);
-                    return;
-                }
+            if (catalogoPromozioni.getIstantanea().esisteNome(nome)) {
+                gui.mostraErrore("Promozione Già Esistente",
+                        "Esiste già una promozione con il nome: " + nome);
+                return;
             }
 
             PromozioneFactory factory = PromozioneFactory.getFactory(tipo.toLowerCase());
             Promozione nuovaPromozione = factory.creaPromozione(nome.trim(), percentualeSconto);
 
-            boolean salvata = promozioneDAO.save(nuovaPromozione);
+            boolean salvata = catalogoPromozioni.aggiungi(nuovaPromozione);
             if (salvata) {
                 String messaggio = String.format(
                         "ID: %s\n" +
@@ -73,6 +77,9 @@ public class AdminPromozioni {
 
                 gui.mostraSuccesso("Promozione Creata", messaggio);
                 logger.info("Promozione creata: " + nuovaPromozione);
+            } else {
+                gui.mostraErrore("Promozione Non Creata",
+                        "Impossibile salvare la promozione: " + nome);
             }
 
         } catch (Exception e) {
@@ -98,9 +105,10 @@ public class AdminPromozioni {
                     promozione.getSconto()
             );
 
+            GestoreNotifiche gestoreNotifiche = GestoreNotifiche.getInstance();
             for (Cliente cliente : clientiFedelta) {
-                String notificaCompleta = cliente.getEmail() + "|" + messaggioNotifica;
-                AdminViaggi.aggiungiNotificaStatica(notificaCompleta);
+                gestoreNotifiche.invia(cliente.getEmail(),
+                        new Notifica(TipoNotifica.PROMOZIONE_FEDELTA, messaggioNotifica));
             }
 
             logger.info("Notifiche promozione inviate a " + clientiFedelta.size() +
@@ -116,7 +124,7 @@ public class AdminPromozioni {
         logger.info("Elimina promozione " + promozioneId);
 
         try {
-            Optional<Promozione> promozioneOpt = promozioneDAO.findById(promozioneId);
+            Optional<Promozione> promozioneOpt = catalogoPromozioni.trova(promozioneId);
             if (promozioneOpt.isEmpty()) {
                 gui.mostraErrore("Promozione Non Trovata",
                         "Nessuna promozione trovata con ID: " + promozioneId);
@@ -124,7 +132,7 @@ public class AdminPromozioni {
             }
 
             Promozione promozione = promozioneOpt.get();
-            boolean eliminata = promozioneDAO.delete(promozioneId);
+            boolean eliminata = catalogoPromozioni.rimuovi(promozioneId);
             if (eliminata) {
                 String messaggio = String.format(
                         "Promozione eliminata %s", promozione.getNome()
@@ -144,26 +152,32 @@ public class AdminPromozioni {
 
         try {
             String countSql = "SELECT COUNT(*) FROM promozioni";
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            Statement countStmt = conn.createStatement();
-            ResultSet rs = countStmt.executeQuery(countSql);
-
+            String deleteSql = "DELETE FROM promozioni";
             int promozioniTotali = 0;
-            if (rs.next()) {
-                promozioniTotali = rs.getInt(1);
+            int promozioniEliminate = 0;
+
+            try (ConnessioneDB conn = DatabaseManager.getInstance().scrittura()) {
+                try (PreparedStatement countStmt = conn.prepara(countSql);
+                     ResultSet rs = countStmt.executeQuery()) {
+                    if (rs.next()) {
+                        promozioniTotali = rs.getInt(1);
+                    }
+                }
+
+                if (promozioniTotali > 0) {
+                    try (PreparedStatement deleteStmt = conn.prepara(deleteSql)) {
+                        promozioniEliminate = deleteStmt.executeUpdate();
+                    }
+                }
+            } finally {
+                catalogoPromozioni.invalida();
             }
-            countStmt.close();
 
             if (promozioniTotali == 0) {
                 gui.mostraSuccesso("Database Già Pulito", "Il database non contiene promozioni da eliminare.");
                 return;
             }
 
-            String deleteSql = "DELETE FROM promozioni";
-            Statement deleteStmt = conn.createStatement();
-            int promozioniEliminate = deleteStmt.executeUpdate(deleteSql);
-            deleteStmt.close();
-
             String messaggio = String.format("Promozioni eliminate: %,d\n", promozioniEliminate);
 
             gui.mostraSuccesso("Eliminazione Totale Completata", messaggio);
@@ -1,26 +1,33 @@
 package it.trenical.server.gui;
 
 import it.trenical.server.cliente.Cliente;
+import it.trenical.server.notifiche.DistributoreNotifiche;
 import it.trenical.server.observer.Notifica;
 import it.trenical.server.observer.TipoNotifica;
 import it.trenical.server.db.dao.BigliettoDAO;
-import it.trenical.server.db.dao.ClienteDAO;
 import it.trenical.server.grpc.TrenicalServiceImpl;
+import it.trenical.server.viaggi.GestorePosti;
+import it.trenical.server.viaggi.IndiceOrari;
 import it.trenical.server.viaggi.StatoViaggio;
 import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.generazione.AscoltatoreGenerazione;
+import it.trenical.server.viaggi.generazione.EsitoGenerazione;
+import it.trenical.server.viaggi.generazione.GeneratoreViaggi;
+import it.trenical.server.db.ConnessioneDB;
 import it.trenical.server.db.DatabaseManager;
 import it.trenical.server.db.dao.ViaggioDAO;
 import it.trenical.server.tratte.*;
 import it.trenical.server.treni.*;
 import it.trenical.server.treni.builder.*;
+import javafx.application.Platform;
 
 import java.sql.*;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 import java.util.logging.Logger;
 
 public class AdminViaggi {
@@ -33,7 +40,7 @@ public class AdminViaggi {
     private final TrenicalServiceImpl trenicalService;
     private final BigliettoDAO bigliettoDAO;
 
-    private static List<String> notificheDaInviare = new ArrayList<>();
+    private volatile GeneratoreViaggi generazioneInCorso;
 
     public AdminViaggi(ViaggioDAO viaggioDAO, ServerAdminApp gui) {
         this.viaggioDAO = viaggioDAO;
@@ -68,13 +75,10 @@ public class AdminViaggi {
             viaggio.aggiornaStato(StatoViaggio.RITARDO);
             boolean aggiornato = viaggioDAO.updateViaggioCompleto(viaggio);
             if(aggiornato) {
-                notificaClientiViaggio(viaggioId, "RITARDO_TRENO");
+                IndiceOrari.getInstance().ricarica(viaggioId);
 
-                String messaggio = String.format(
-                        "Ritardo impostato per il viaggio %s.\nClienti notificati automaticamente.",
-                        viaggioId
-                );
-                gui.mostraSuccesso("Ritardo Impostato", messaggio);
+                String messaggio = String.format("Ritardo impostato per il viaggio %s.", viaggioId);
+                notificaClientiViaggio(viaggioId, "RITARDO_TRENO", "Ritardo Impostato", messaggio);
                 logger.info(String.format("Ritardo viaggio %s:", viaggioId)
                 );
             }
@@ -103,16 +107,16 @@ public class AdminViaggi {
                 return;
             }
 
-            notificaClientiViaggio(viaggioId, "CANCELLAZIONE_VIAGGIO");
+            // i passeggeri vanno letti prima dell'eliminazione, che cancella anche i loro biglietti
+            List<Cliente> passeggeri = bigliettoDAO.findClientiByViaggioId(viaggioId);
 
             viaggio.cancellaViaggio(motivo);
             boolean aggiornato = viaggioDAO.delete(viaggioId);
             if(aggiornato) {
-                String messaggioSuccesso = String.format(
-                        "Viaggio %s cancellato.\nClienti notificati automaticamente.",
-                        viaggioId
-                );
-                gui.mostraSuccesso("Viaggio Cancellato", messaggioSuccesso);
+                GestorePosti.getInstance().invalida(viaggioId);
+                IndiceOrari.getInstance().rimuovi(viaggioId);
+                String messaggioSuccesso = String.format("Viaggio %s cancellato.", viaggioId);
+                notificaClienti(() -> passeggeri, "CANCELLAZIONE_VIAGGIO", "Viaggio Cancellato", messaggioSuccesso);
                 logger.info("Viaggio cancellato");
             }
         } catch (Exception e) {
@@ -148,13 +152,10 @@ public class AdminViaggi {
             viaggio.cambioBinario(nuovoBinario-1);
             boolean aggiornato = viaggioDAO.updateViaggioCompleto(viaggio);
             if (aggiornato) {
-                notificaClientiViaggio(viaggioId, "CAMBIO_BINARIO");
+                IndiceOrari.getInstance().ricarica(viaggioId);
 
-                String messaggio = String.format(
-                        "Binario cambiato con successo per viaggio %s.\nClienti notificati automaticamente.",
-                        viaggioId
-                );
-                gui.mostraSuccesso("Binario Cambiato", messaggio);
+                String messaggio = String.format("Binario cambiato con successo per viaggio %s.", viaggioId);
+                notificaClientiViaggio(viaggioId, "CAMBIO_BINARIO", "Binario Cambiato", messaggio);
                 logger.info("Binario cambiato: " + nuovoBinario);
             }
 
@@ -164,115 +165,74 @@ public class AdminViaggi {
         }
     }
 
-    private void notificaClientiViaggio(String viaggioId, String tipoNotifica) {
-        try {
-            List<String> emailClienti = bigliettoDAO.findEmailClientiByViaggioId(viaggioId);
-            String messaggio = trenicalService.generaMessaggioNotifica(tipoNotifica);
-
-            Optional<Viaggio> viaggioOpt = viaggioDAO.findById(viaggioId);
-            if (viaggioOpt.isEmpty()) {
-                logger.warning("Viaggio non trovato per notifica: " + viaggioId);
-                return;
-            }
-            Viaggio viaggio = viaggioOpt.get();
-
-            ClienteDAO clienteDAO = new ClienteDAO();
-            for (String emailCliente : emailClienti) {
-                Optional<Cliente> clienteOpt = clienteDAO.findByEmail(emailCliente);
-                if (clienteOpt.isPresent()) {
-                    Cliente cliente = clienteOpt.get();
-                    viaggio.attach(cliente);
-                    logger.info("Cliente " + emailCliente + " registrato come observer per viaggio " + viaggioId);
-                }
-            }
-
-            Notifica notifica = new Notifica(
-                    TipoNotifica.valueOf(tipoNotifica),
-                    messaggio
-            );
-            viaggio.notifyObservers(notifica);
-
-        } catch (Exception e) {
-            logger.severe("Errore nell'invio notifiche via Observer: " + e.getMessage());
-            e.printStackTrace();
-        }
+    private void notificaClientiViaggio(String viaggioId, String tipoNotifica, String titolo, String messaggio) {
+        notificaClienti(() -> bigliettoDAO.findClientiByViaggioId(viaggioId), tipoNotifica, titolo, messaggio);
     }
 
-    public static String trovaNotificaPerEmail(String email) {
-        for (int i = 0; i < notificheDaInviare.size(); i++) {
-            String notifica = notificheDaInviare.get(i);
-            if (notifica.contains(email)) {
-                notificheDaInviare.remove(i);
-                return notifica.substring(email.length() + 1);
-            }
-        }
-        return null;
-    }
-
-    public static void aggiungiNotificaStatica(String notificaCompleta) {
-        if (notificaCompleta != null && !notificaCompleta.trim().isEmpty()) {
-            notificheDaInviare.add(notificaCompleta);
-            logger.info("NOTIFICA AGGIUNTA " + notificaCompleta);
-        }
+    /**
+     * Cerca i passeggeri e invia loro la notifica fuori dal thread della GUI, poi mostra
+     * l'esito dell'operazione con il conteggio delle notifiche consegnate
+     */
+    private void notificaClienti(Supplier<List<Cliente>> passeggeri, String tipoNotifica, String titolo,
+                                 String messaggio) {
+        Notifica notifica = new Notifica(
+                TipoNotifica.valueOf(tipoNotifica),
+                trenicalService.generaMessaggioNotifica(tipoNotifica)
+        );
+
+        DistributoreNotifiche.getInstance().distribuisciAsync(passeggeri, notifica)
+                .whenComplete((esito, errore) -> Platform.runLater(() -> {
+                    if (errore != null) {
+                        logger.severe("Errore nell'invio notifiche " + tipoNotifica + ": " + errore.getMessage());
+                        gui.mostraErrore(titolo, messaggio + "\nErrore nell'invio delle notifiche ai clienti.");
+                        return;
+                    }
+                    String riepilogo = String.format("%s\nClienti notificati: %d/%d",
+                            messaggio, esito.getConsegnate(), esito.getDestinatari());
+                    if (esito.getFallite() > 0) {
+                        riepilogo += String.format(" (%d non raggiunti)", esito.getFallite());
+                    }
+                    gui.mostraSuccesso(titolo, riepilogo);
+                }));
     }
 
-    public void generaViaggi(LocalDate dataInizio, LocalDate dataFine, int viaggiPerTratta) {
+    /**
+     * Genera i viaggi del periodo per tutte le tratte. Blocca fino al termine:
+     * la GUI lo esegue su un thread separato e riceve l'avanzamento dall'ascoltatore
+     */
+    public void generaViaggi(LocalDate dataInizio, LocalDate dataFine, int viaggiPerTratta,
+                             AscoltatoreGenerazione ascoltatore) {
 
         logger.info("Inizio generazione viaggi sistematica dal " + dataInizio + " al " + dataFine);
         try {
             List<Tratta> tutteLeTratte = TrattaUtil.creaTutteLeTratte();
-            List<Treno> treniDisponibili = creaTreniBase();
-
-            long giorni = ChronoUnit.DAYS.between(dataInizio, dataFine) + 1;
-            long viaggiTotaliAttesi = tutteLeTratte.size() * viaggiPerTratta * giorni;
-
-            logger.info("Viaggi totali attesi: " + viaggiTotaliAttesi);
-
-            int viaggiCreati = 0;
-
-            LocalDate dataCorrente = dataInizio;
-            while (!dataCorrente.isAfter(dataFine)) {
-                logger.info("Processando data: " + dataCorrente);
-                for (Tratta tratta : tutteLeTratte) {
-                    for (int i = 0; i < viaggiPerTratta; i++) {
-                        int maxTentativi = 100;
-                        boolean viaggioCreato = false;
-                        for (int tentativo = 0; tentativo < maxTentativi && !viaggioCreato; tentativo++) {
-                            try {
-                                Treno trenoCasuale = treniDisponibili.get((int) (Math.random() * treniDisponibili.size()));
-                                Viaggio nuovoViaggio = new Viaggio(trenoCasuale, tratta, dataCorrente);
-                                boolean salvato = viaggioDAO.save(nuovoViaggio);
-                                if (salvato) {
-                                    viaggiCreati++;
-                                    viaggioCreato = true;
-                                }
-                            } catch (IllegalArgumentException e) {
-                                logger.fine("Tentativo ignorato");
-                            } catch (Exception e) {
-                                logger.warning("Errore imprevisto creazione viaggio: " + e.getMessage());
-                            }
-                        }
-                        if (!viaggioCreato) {
-                            logger.warning("ATTENZIONE: Impossibile creare viaggio per tratta " +
-                                    tratta + " dopo " + maxTentativi + " tentativi");
-                        }
-                    }
-                }
-                dataCorrente = dataCorrente.plusDays(1);
+            GeneratoreViaggi generatore = new GeneratoreViaggi(viaggioDAO, creaTreniBase());
+            generazioneInCorso = generatore;
+
+            EsitoGenerazione esito;
+            try {
+                esito = generatore.genera(dataInizio, dataFine, tutteLeTratte, viaggiPerTratta, ascoltatore);
+            } finally {
+                generazioneInCorso = null;
             }
+
             String risultatiFinali = String.format(
                     "Viaggi attesi: %,d\n" + "Viaggi creati con successo: %,d",
-                    viaggiTotaliAttesi, viaggiCreati
+                    esito.getViaggiAttesi(), esito.getViaggiCreati()
             );
-
             logger.info(risultatiFinali);
-            if (viaggiCreati == viaggiTotaliAttesi) {
-                gui.mostraSuccesso("Generazione Completata",
-                        String.format("Creati tutti i %,d viaggi !", viaggiCreati));
+
+            if (esito.isAnnullata()) {
+                Platform.runLater(() -> gui.mostraSuccesso("Generazione Annullata",
+                        String.format("Creati %,d viaggi prima dell'annullamento", esito.getViaggiCreati())));
+            } else if (esito.isCompleta()) {
+                Platform.runLater(() -> gui.mostraSuccesso("Generazione Completata",
+                        String.format("Creati tutti i %,d viaggi in %,d ms!",
+                                esito.getViaggiCreati(), esito.getDurataMs())));
             } else {
-                gui.mostraSuccesso("Generazione Parzialmente Completata",
+                Platform.runLater(() -> gui.mostraSuccesso("Generazione Parzialmente Completata",
                         String.format("Creati %,d viaggi su %,d richiesti",
-                                viaggiCreati, viaggiTotaliAttesi));
+                                esito.getViaggiCreati(), esito.getViaggiAttesi())));
             }
 
             logger.info("Generazione completata");
@@ -281,10 +241,22 @@ public class AdminViaggi {
             String errorMsg = "Errore durante la generazione: " + e.getMessage();
             logger.severe(errorMsg);
             e.printStackTrace();
-            gui.mostraErrore("Errore Generazione", errorMsg);
+            Platform.runLater(() -> gui.mostraErrore("Errore Generazione", errorMsg));
+        }
+    }
+
+    public void annullaGenerazione() {
+        GeneratoreViaggi generatore = generazioneInCorso;
+        if (generatore != null) {
+            generatore.annulla();
+            logger.info("Annullamento generazione viaggi richiesto");
         }
     }
 
+    public boolean isGenerazioneInCorso() {
+        return generazioneInCorso != null;
+    }
+
     public void eliminaViaggiTerminati() {
         logger.info("Eliminazione viaggi passati (data < oggi)");
 
@@ -294,23 +266,11 @@ public class AdminViaggi {
 
             logger.info("Data/ora corrente: " + oggi + " " + adesso);
 
-            String sql = """
-            DELETE FROM viaggi 
-            WHERE (data_viaggio < ? OR 
-                   (data_viaggio = ? AND orario_partenza <= ?))
-            """;
-
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            PreparedStatement stmt = conn.prepareStatement(sql);
-
-            stmt.setString(1, oggi.toString());
-
-            stmt.setString(2, oggi.toString());
-
-            stmt.setString(3, adesso.toString());
-
-            int viaggiEliminati = stmt.executeUpdate();
-            stmt.close();
+            int viaggiEliminati = viaggioDAO.deleteGiaPartiti(oggi, adesso);
+            if (viaggiEliminati < 0) {
+                gui.mostraErrore("Errore Eliminazione", "Impossibile eliminare i viaggi terminati");
+                return;
+            }
 
             String messaggio = String.format(
                     "Eliminati %,d viaggi già partiti\n" +
@@ -321,6 +281,8 @@ public class AdminViaggi {
                     adesso
             );
 
+            GestorePosti.getInstance().svuota();
+            IndiceOrari.getInstance().carica();
             logger.info("Viaggi terminati eliminati: " + viaggiEliminati);
             gui.mostraSuccesso("Eliminazione Viaggi Terminati", messaggio);
 
@@ -336,26 +298,32 @@ public class AdminViaggi {
 
         try {
             String countSql = "SELECT COUNT(*) FROM viaggi";
-            Connection conn = DatabaseManager.getInstance().getConnection();
-            Statement countStmt = conn.createStatement();
-            ResultSet rs = countStmt.executeQuery(countSql);
-
+            String deleteSql = "DELETE FROM viaggi";
             int viaggiTotali = 0;
-            if (rs.next()) {
-                viaggiTotali = rs.getInt(1);
+            int viaggiEliminati = 0;
+
+            try (ConnessioneDB conn = DatabaseManager.getInstance().scrittura()) {
+                try (PreparedStatement countStmt = conn.prepara(countSql);
+                     ResultSet rs = countStmt.executeQuery()) {
+                    if (rs.next()) {
+                        viaggiTotali = rs.getInt(1);
+                    }
+                }
+
+                if (viaggiTotali > 0) {
+                    try (PreparedStatement deleteStmt = conn.prepara(deleteSql)) {
+                        viaggiEliminati = deleteStmt.executeUpdate();
+                    }
+                }
             }
-            countStmt.close();
 
             if (viaggiTotali == 0) {
                 gui.mostraSuccesso("Database Già Pulito", "Il database non contiene viaggi da eliminare.");
                 return;
             }
 
-            String deleteSql = "DELETE FROM viaggi";
-            Statement deleteStmt = conn.createStatement();
-            int viaggiEliminati = deleteStmt.executeUpdate(deleteSql);
-            deleteStmt.close();
-
+            GestorePosti.getInstance().svuota();
+            IndiceOrari.getInstance().svuota();
             String messaggio = String.format("Viaggi eliminati: %,d\n" ,viaggiEliminati);
 
             gui.mostraSuccesso("Eliminazione Totale Completata", messaggio);
@@ -3,6 +3,7 @@ package it.trenical.server.gui;
 import it.trenical.server.stazioni.Stazione;
 import it.trenical.server.db.dao.*;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.*;
 import javafx.scene.*;
 import javafx.scene.control.*;
@@ -288,6 +289,14 @@ public class ServerAdminApp extends Application {
 
         Button generaBtn = new Button("Genera Viaggi");
         generaBtn.setStyle("-fx-background-color: #2c3e50; -fx-text-fill: white;");
+
+        Button annullaBtn = new Button("Annulla");
+        annullaBtn.setStyle("-fx-background-color: red; -fx-text-fill: white;");
+        annullaBtn.setDisable(true);
+
+        ProgressBar avanzamentoBar = new ProgressBar(0);
+        avanzamentoBar.setMaxWidth(Double.MAX_VALUE);
+        Label avanzamentoLabel = new Label();
         generaBtn.setOnAction(e -> {
             LocalDate inizio = dataInizio.getValue();
             LocalDate fine = dataFine.getValue();
@@ -313,10 +322,36 @@ public class ServerAdminApp extends Application {
 
             Optional<ButtonType> result = conferma.showAndWait();
             if (result.isPresent() && result.get() == ButtonType.OK) {
-                adminViaggi.generaViaggi(inizio, fine, viaggiTratta);
+                generaBtn.setDisable(true);
+                annullaBtn.setDisable(false);
+                avanzamentoBar.setProgress(0);
+                avanzamentoLabel.setText("Generazione in corso...");
+
+                Thread generazione = new Thread(() -> {
+                    try {
+                        adminViaggi.generaViaggi(inizio, fine, viaggiTratta,
+                                (completati, totali, creati) -> Platform.runLater(() -> {
+                                    avanzamentoBar.setProgress((double) completati / totali);
+                                    avanzamentoLabel.setText(String.format("Giorni %d/%d - %,d viaggi creati",
+                                            completati, totali, creati));
+                                }));
+                    } finally {
+                        Platform.runLater(() -> {
+                            generaBtn.setDisable(false);
+                            annullaBtn.setDisable(true);
+                        });
+                    }
+                }, "generazione-viaggi");
+                generazione.setDaemon(true);
+                generazione.start();
             }
         });
 
+        annullaBtn.setOnAction(e -> {
+            adminViaggi.annullaGenerazione();
+            avanzamentoLabel.setText("Annullamento in corso...");
+        });
+
         box.getChildren().addAll(
                 title,
                 new Label("Periodo Generazione:"),
@@ -324,7 +359,9 @@ public class ServerAdminApp extends Application {
                 dataFine,
                 new Label("Configurazione:"),
                 viaggiPerTratta,
-                generaBtn
+                new HBox(10, generaBtn, annullaBtn),
+                avanzamentoBar,
+                avanzamentoLabel
         );
 
         return box;
@@ -0,0 +1,17 @@
+package it.trenical.server.identificativi;
+
+/**
+ * Generatore di identificativi univoci
+ * Le implementazioni devono essere thread-safe e non bloccanti
+ */
+public interface GeneratoreId {
+
+    long prossimo();
+
+    /**
+     * Identificativo testuale compatto: prefisso seguito dal valore in base 36
+     */
+    default String prossimoId(String prefisso) {
+        return prefisso + Long.toString(prossimo(), Character.MAX_RADIX).toUpperCase();
+    }
+}
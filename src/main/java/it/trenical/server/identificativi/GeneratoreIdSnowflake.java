@@ -0,0 +1,61 @@
+package it.trenical.server.identificativi;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generatore in stile Snowflake: 41 bit di millisecondi dall'epoca TreniCal,
+ * 10 bit di nodo e 12 bit di sequenza nel millisecondo.
+ * Timestamp e sequenza stanno in un unico AtomicLong aggiornato con CAS:
+ * nessun lock e nessuna attesa. Se la sequenza di un millisecondo si esaurisce,
+ * o l'orologio torna indietro, si prosegue sul millisecondo successivo
+ * e gli id restano strettamente crescenti.
+ */
+public class GeneratoreIdSnowflake implements GeneratoreId {
+
+    private static final long EPOCA_MS = 1704067200000L; // 2024-01-01T00:00:00Z
+
+    private static final int BIT_NODO = 10;
+    private static final int BIT_SEQUENZA = 12;
+
+    public static final int NODO_MASSIMO = (1 << BIT_NODO) - 1;
+    private static final long SEQUENZA_MASSIMA = (1L << BIT_SEQUENZA) - 1;
+
+    private final long nodo;
+    private final AtomicLong stato; // (millisecondi << BIT_SEQUENZA) | sequenza
+
+    public GeneratoreIdSnowflake(int nodo) {
+        if (nodo < 0 || nodo > NODO_MASSIMO) {
+            throw new IllegalArgumentException("Nodo deve essere tra 0 e " + NODO_MASSIMO);
+        }
+        this.nodo = nodo;
+        this.stato = new AtomicLong();
+    }
+
+    @Override
+    public long prossimo() {
+        while (true) {
+            long corrente = stato.get();
+            long ultimoMs = corrente >>> BIT_SEQUENZA;
+            long sequenza = corrente & SEQUENZA_MASSIMA;
+            long adesso = System.currentTimeMillis() - EPOCA_MS;
+
+            long nuovo;
+            if (adesso > ultimoMs) {
+                nuovo = adesso << BIT_SEQUENZA;
+            } else if (sequenza < SEQUENZA_MASSIMA) {
+                nuovo = corrente + 1;
+            } else {
+                nuovo = (ultimoMs + 1) << BIT_SEQUENZA;
+            }
+
+            if (stato.compareAndSet(corrente, nuovo)) {
+                long ms = nuovo >>> BIT_SEQUENZA;
+                return (ms << (BIT_NODO + BIT_SEQUENZA)) | (nodo << BIT_SEQUENZA) | (nuovo & SEQUENZA_MASSIMA);
+            }
+        }
+    }
+
+    public long getNodo() {
+        return nodo;
+    }
+}
@@ -0,0 +1,29 @@
+package it.trenical.server.identificativi;
+
+/**
+ * Punto di accesso al generatore di identificativi condiviso.
+ * Il nodo si configura con la proprietà di sistema trenical.nodo (default 0),
+ * così più istanze del server non generano mai lo stesso id.
+ * Il generatore può essere sostituito, ad esempio nei test.
+ */
+public final class GeneratoriId {
+
+    private static volatile GeneratoreId generatore =
+            new GeneratoreIdSnowflake(Integer.getInteger("trenical.nodo", 0));
+
+    private GeneratoriId() {
+    }
+
+    public static GeneratoreId getGeneratore() {
+        return generatore;
+    }
+
+    public static void impostaGeneratore(GeneratoreId nuovoGeneratore) {
+        if (nuovoGeneratore == null) throw new IllegalArgumentException("Generatore obbligatorio");
+        generatore = nuovoGeneratore;
+    }
+
+    public static String prossimoId(String prefisso) {
+        return generatore.prossimoId(prefisso);
+    }
+}
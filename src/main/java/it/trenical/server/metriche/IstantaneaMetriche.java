@@ -0,0 +1,46 @@
+package it.trenical.server.metriche;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Valori del {@link RegistroMetriche} in un certo istante, ordinati per nome. Immutabile
+ */
+public class IstantaneaMetriche {
+    private final Instant istante;
+    private final SortedMap<String, Long> valori;
+    private final SortedMap<String, RiepilogoLatenze> latenze;
+
+    IstantaneaMetriche(Instant istante, Map<String, Long> valori, Map<String, RiepilogoLatenze> latenze) {
+        this.istante = istante;
+        this.valori = Collections.unmodifiableSortedMap(new TreeMap<>(valori));
+        this.latenze = Collections.unmodifiableSortedMap(new TreeMap<>(latenze));
+    }
+
+    public Instant getIstante() { return istante; }
+
+    /**
+     * Contatori e indicatori
+     */
+    public SortedMap<String, Long> getValori() { return valori; }
+
+    public SortedMap<String, RiepilogoLatenze> getLatenze() { return latenze; }
+
+    /**
+     * Testo su più righe, una metrica per riga, per il log periodico
+     */
+    public String formatta() {
+        StringBuilder testo = new StringBuilder("Metriche al ").append(istante);
+        valori.forEach((nome, valore) -> testo.append("\n  ").append(nome).append(" = ").append(valore));
+        latenze.values().forEach(riepilogo -> testo.append("\n  ").append(riepilogo));
+        return testo.toString();
+    }
+
+    @Override
+    public String toString() {
+        return formatta();
+    }
+}
@@ -0,0 +1,138 @@
+package it.trenical.server.metriche;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Istogramma di latenze senza lock, con bucket logaritmici sui microsecondi.
+ * Ogni potenza di due è divisa in SOTTO_BUCKET intervalli, quindi i percentili
+ * hanno un errore relativo massimo del 25%. La registrazione è un solo incremento atomico.
+ */
+public class IstogrammaLatenze {
+
+    private static final int BIT_SOTTO_BUCKET = 2;
+    private static final int SOTTO_BUCKET = 1 << BIT_SOTTO_BUCKET;
+    private static final int NUMERO_BUCKET = (Long.SIZE - BIT_SOTTO_BUCKET) * SOTTO_BUCKET + SOTTO_BUCKET;
+
+    private final String nome;
+    private final AtomicLongArray conteggi;
+    private final LongAdder totale;
+    private final LongAdder sommaMicros;
+    private final AtomicLong massimoMicros;
+
+    public IstogrammaLatenze(String nome) {
+        this.nome = nome;
+        this.conteggi = new AtomicLongArray(NUMERO_BUCKET);
+        this.totale = new LongAdder();
+        this.sommaMicros = new LongAdder();
+        this.massimoMicros = new AtomicLong();
+    }
+
+    public void registraNanos(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+        conteggi.incrementAndGet(indiceBucket(micros));
+        totale.increment();
+        sommaMicros.add(micros);
+        massimoMicros.accumulateAndGet(micros, Math::max);
+    }
+
+    public long getConteggio() {
+        return totale.sum();
+    }
+
+    public double getMediaMicros() {
+        long conteggio = totale.sum();
+        return conteggio == 0 ? 0 : (double) sommaMicros.sum() / conteggio;
+    }
+
+    public long getMassimoMicros() {
+        return massimoMicros.get();
+    }
+
+    /**
+     * Limite superiore del bucket che contiene il percentile richiesto
+     * @param percentile valore tra 0 e 100
+     */
+    public long getPercentileMicros(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile deve essere tra 0 e 100");
+        }
+        return percentile(copiaConteggi(), percentile, massimoMicros.get());
+    }
+
+    /**
+     * Valori principali letti da un'unica copia dei bucket, così i percentili sono coerenti tra loro
+     */
+    public RiepilogoLatenze riepilogo() {
+        long[] copia = copiaConteggi();
+        long massimo = massimoMicros.get();
+        return new RiepilogoLatenze(nome, getConteggio(), getMediaMicros(),
+                percentile(copia, 50, massimo), percentile(copia, 90, massimo),
+                percentile(copia, 99, massimo), massimo);
+    }
+
+    private long[] copiaConteggi() {
+        long[] copia = new long[NUMERO_BUCKET];
+        for (int i = 0; i < NUMERO_BUCKET; i++) {
+            copia[i] = conteggi.get(i);
+        }
+        return copia;
+    }
+
+    private static long percentile(long[] bucket, double percentile, long massimo) {
+        long conteggio = 0;
+        for (long valore : bucket) {
+            conteggio += valore;
+        }
+        if (conteggio == 0) {
+            return 0;
+        }
+
+        long soglia = Math.max(1, (long) Math.ceil(conteggio * percentile / 100.0));
+        long cumulato = 0;
+        for (int i = 0; i < bucket.length; i++) {
+            cumulato += bucket[i];
+            if (cumulato >= soglia) {
+                return Math.min(limiteSuperiore(i), massimo);
+            }
+        }
+        return massimo;
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    /**
+     * I valori sotto SOTTO_BUCKET hanno un bucket ciascuno,
+     * gli altri sono indicizzati da potenza di due e primi bit dopo quello più alto
+     */
+    private static int indiceBucket(long micros) {
+        if (micros < SOTTO_BUCKET) {
+            return (int) micros;
+        }
+        int esponente = 63 - Long.numberOfLeadingZeros(micros);
+        int sotto = (int) (micros >>> (esponente - BIT_SOTTO_BUCKET)) & (SOTTO_BUCKET - 1);
+        return (esponente - BIT_SOTTO_BUCKET + 1) * SOTTO_BUCKET + sotto;
+    }
+
+    private static long limiteSuperiore(int indice) {
+        if (indice < SOTTO_BUCKET) {
+            return indice;
+        }
+        int esponente = indice / SOTTO_BUCKET + BIT_SOTTO_BUCKET - 1;
+        long sotto = indice % SOTTO_BUCKET;
+        long base = 1L << esponente;
+        long passo = base >>> BIT_SOTTO_BUCKET;
+        return base + (sotto + 1) * passo - 1;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s{n=%d, media=%.0fµs, p50=%dµs, p99=%dµs, max=%dµs}",
+                nome, getConteggio(), getMediaMicros(), getPercentileMicros(50),
+                getPercentileMicros(99), getMassimoMicros());
+    }
+}
@@ -0,0 +1,138 @@
+package it.trenical.server.metriche;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.logging.Logger;
+
+/**
+ * Metriche del server raccolte in memoria, senza servizi esterni.
+ * Pattern Singleton con tre tipi di metrica, identificate da un nome con punti
+ * (es. rpc.CercaViaggi, db.SELECT ...):
+ * contatori incrementati senza lock, indicatori letti al momento dell'istantanea
+ * da chi li registra, istogrammi di latenza a bucket fissi.
+ * Con la proprietà trenical.metriche.dump.secondi (default 300, 0 per disattivare)
+ * l'istantanea viene scritta periodicamente nel log.
+ */
+public class RegistroMetriche {
+    private static final Logger logger = Logger.getLogger(RegistroMetriche.class.getName());
+
+    private static final long DUMP_SECONDI = Long.getLong("trenical.metriche.dump.secondi", 300);
+
+    private static RegistroMetriche instance;
+
+    private final ConcurrentHashMap<String, LongAdder> contatori;
+    private final ConcurrentHashMap<String, LongSupplier> indicatori;
+    private final ConcurrentHashMap<String, IstogrammaLatenze> istogrammi;
+    private ScheduledExecutorService dump;
+
+    private RegistroMetriche() {
+        this.contatori = new ConcurrentHashMap<>();
+        this.indicatori = new ConcurrentHashMap<>();
+        this.istogrammi = new ConcurrentHashMap<>();
+    }
+
+    public static synchronized RegistroMetriche getInstance() {
+        if (instance == null) {
+            instance = new RegistroMetriche();
+        }
+        return instance;
+    }
+
+    public void incrementa(String nome) {
+        contatore(nome).increment();
+    }
+
+    public void incrementa(String nome, long quantita) {
+        contatore(nome).add(quantita);
+    }
+
+    /**
+     * Contatore da tenere in un campo quando si incrementa spesso, per evitare la ricerca per nome
+     */
+    public LongAdder contatore(String nome) {
+        return contatori.computeIfAbsent(nome, n -> new LongAdder());
+    }
+
+    /**
+     * Registra un valore letto a ogni istantanea (es. profondità di una coda).
+     * Un nuovo indicatore con lo stesso nome sostituisce il precedente
+     */
+    public void registraIndicatore(String nome, LongSupplier valore) {
+        indicatori.put(nome, valore);
+    }
+
+    public IstogrammaLatenze istogramma(String nome) {
+        return istogrammi.computeIfAbsent(nome, IstogrammaLatenze::new);
+    }
+
+    /**
+     * Aggiunge un istogramma già misurato da un altro componente, con il suo nome
+     */
+    public void registraIstogramma(IstogrammaLatenze istogramma) {
+        istogrammi.put(istogramma.getNome(), istogramma);
+    }
+
+    public IstantaneaMetriche istantanea() {
+        return istantanea("");
+    }
+
+    /**
+     * Valori correnti delle metriche il cui nome inizia con il prefisso (vuoto per tutte)
+     */
+    public IstantaneaMetriche istantanea(String prefisso) {
+        Map<String, Long> valori = new HashMap<>();
+        contatori.forEach((nome, contatore) -> {
+            if (nome.startsWith(prefisso)) {
+                valori.put(nome, contatore.sum());
+            }
+        });
+        indicatori.forEach((nome, indicatore) -> {
+            if (nome.startsWith(prefisso)) {
+                try {
+                    valori.put(nome, indicatore.getAsLong());
+                } catch (RuntimeException e) {
+                    logger.warning("Indicatore " + nome + " non leggibile: " + e.getMessage());
+                }
+            }
+        });
+
+        Map<String, RiepilogoLatenze> latenze = new HashMap<>();
+        istogrammi.forEach((nome, istogramma) -> {
+            if (nome.startsWith(prefisso) && istogramma.getConteggio() > 0) {
+                latenze.put(nome, istogramma.riepilogo());
+            }
+        });
+        return new IstantaneaMetriche(Instant.now(), valori, latenze);
+    }
+
+    /**
+     * Avvia la scrittura periodica dell'istantanea nel log, se configurata
+     */
+    public synchronized void avviaDump() {
+        if (dump != null || DUMP_SECONDI <= 0) {
+            return;
+        }
+        dump = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "metriche-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dump.scheduleAtFixedRate(() -> logger.info(istantanea().formatta()),
+                DUMP_SECONDI, DUMP_SECONDI, TimeUnit.SECONDS);
+        logger.info("Dump delle metriche ogni " + DUMP_SECONDI + " secondi");
+    }
+
+    public synchronized void fermaDump() {
+        if (dump != null) {
+            dump.shutdownNow();
+            dump = null;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package it.trenical.server.metriche;
+
+/**
+ * Valori di un {@link IstogrammaLatenze} in un certo istante. Immutabile
+ */
+public class RiepilogoLatenze {
+    private final String nome;
+    private final long conteggio;
+    private final double mediaMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long massimoMicros;
+
+    public RiepilogoLatenze(String nome, long conteggio, double mediaMicros,
+                            long p50Micros, long p90Micros, long p99Micros, long massimoMicros) {
+        this.nome = nome;
+        this.conteggio = conteggio;
+        this.mediaMicros = mediaMicros;
+        this.p50Micros = p50Micros;
+        this.p90Micros = p90Micros;
+        this.p99Micros = p99Micros;
+        this.massimoMicros = massimoMicros;
+    }
+
+    public String getNome() { return nome; }
+    public long getConteggio() { return conteggio; }
+    public double getMediaMicros() { return mediaMicros; }
+    public long getP50Micros() { return p50Micros; }
+    public long getP90Micros() { return p90Micros; }
+    public long getP99Micros() { return p99Micros; }
+    public long getMassimoMicros() { return massimoMicros; }
+
+    @Override
+    public String toString() {
+        return String.format("%s{n=%d, media=%.0fµs, p50=%dµs, p90=%dµs, p99=%dµs, max=%dµs}",
+                nome, conteggio, mediaMicros, p50Micros, p90Micros, p99Micros, massimoMicros);
+    }
+}
@@ -0,0 +1,170 @@
+package it.trenical.server.notifiche;
+
+import it.trenical.server.observer.Notifica;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Casella delle notifiche di un singolo cliente.
+ * Coda con capacità limitata: quando è piena viene scartata la notifica più vecchia,
+ * e una notifica identica a una già in attesa non viene accodata due volte.
+ * Ogni notifica riceve all'accodamento una sequenza propria della casella, crescente
+ * nello stesso ordine della coda: solo l'accodamento è serializzato, il prelievo resta senza lock.
+ * Le notifiche inviate su uno stream restano tra le non confermate finché il client
+ * non ne conferma la sequenza riconnettendosi, così possono essere rispedite;
+ * una nuova sessione (sequenza 0) le scarta senza rispedirle.
+ */
+public class CodaNotifiche {
+
+    private final ConcurrentLinkedQueue<Notifica> coda;
+    private final ConcurrentLinkedQueue<Notifica> nonConfermate;
+    private final AtomicInteger dimensione;
+    private final Object accodamento;
+    private final int capacita;
+    private long ultimaSequenza;
+
+    public CodaNotifiche(int capacita) {
+        this(capacita, 0);
+    }
+
+    /**
+     * @param primaSequenza sequenza da cui partire: deve superare quelle assegnate
+     *                      da una casella precedente dello stesso cliente (es. prima di un riavvio)
+     */
+    public CodaNotifiche(int capacita, long primaSequenza) {
+        if (capacita <= 0) throw new IllegalArgumentException("Capacità deve essere positiva");
+        this.coda = new ConcurrentLinkedQueue<>();
+        this.nonConfermate = new ConcurrentLinkedQueue<>();
+        this.dimensione = new AtomicInteger();
+        this.accodamento = new Object();
+        this.capacita = capacita;
+        this.ultimaSequenza = primaSequenza;
+    }
+
+    /**
+     * Verifica se una notifica equivalente è già in attesa.
+     * La scansione è limitata dalla capacità della casella.
+     */
+    public boolean contieneEquivalente(Notifica notifica) {
+        for (Notifica inAttesa : coda) {
+            if (inAttesa.equivalenteA(notifica)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Accoda una notifica assegnandole la prossima sequenza della casella
+     * @return la notifica scartata per fare spazio, oppure null
+     */
+    public Notifica accoda(Notifica notifica) {
+        synchronized (accodamento) {
+            coda.offer(notifica.conSequenza(++ultimaSequenza));
+        }
+        if (dimensione.incrementAndGet() <= capacita) {
+            return null;
+        }
+        Notifica scartata = coda.poll();
+        if (scartata != null) {
+            dimensione.decrementAndGet();
+        }
+        return scartata;
+    }
+
+    /**
+     * Estrae la notifica più vecchia
+     * @return la notifica oppure null se la casella è vuota
+     */
+    public Notifica preleva() {
+        Notifica notifica = coda.poll();
+        if (notifica != null) {
+            dimensione.decrementAndGet();
+        }
+        return notifica;
+    }
+
+    public List<Notifica> prelevaTutte() {
+        List<Notifica> notifiche = new ArrayList<>();
+        Notifica notifica;
+        while ((notifica = preleva()) != null) {
+            notifiche.add(notifica);
+        }
+        return notifiche;
+    }
+
+    /**
+     * Registra una notifica inviata in attesa di conferma
+     * @return la notifica non confermata scartata per fare spazio, oppure null
+     */
+    public Notifica inAttesaDiConferma(Notifica notifica) {
+        nonConfermate.offer(notifica);
+        if (nonConfermate.size() <= capacita) {
+            return null;
+        }
+        return nonConfermate.poll();
+    }
+
+    /**
+     * Conferma tutte le notifiche con sequenza fino a quella indicata,
+     * togliendole sia dalle non confermate sia dalla coda
+     * @return le notifiche confermate
+     */
+    public List<Notifica> confermaFinoA(long sequenza) {
+        List<Notifica> confermate = new ArrayList<>();
+        nonConfermate.removeIf(notifica -> notifica.getSequenza() <= sequenza && confermate.add(notifica));
+        coda.removeIf(notifica -> {
+            if (notifica.getSequenza() <= sequenza && confermate.add(notifica)) {
+                dimensione.decrementAndGet();
+                return true;
+            }
+            return false;
+        });
+        return confermate;
+    }
+
+    /**
+     * Toglie una notifica dalle non confermate, ad esempio perché l'invio è fallito
+     * @return true se era tra le non confermate
+     */
+    public boolean rimuoviNonConfermata(Notifica notifica) {
+        return nonConfermate.remove(notifica);
+    }
+
+    /**
+     * Scarta tutte le notifiche non confermate
+     * @return quante ne sono state scartate
+     */
+    public int scartaNonConfermate() {
+        int scartate = 0;
+        while (nonConfermate.poll() != null) {
+            scartate++;
+        }
+        return scartate;
+    }
+
+    /**
+     * Notifiche inviate e non ancora confermate, in ordine di sequenza
+     */
+    public List<Notifica> getNonConfermate() {
+        List<Notifica> notifiche = new ArrayList<>(nonConfermate);
+        notifiche.sort(Comparator.comparingLong(Notifica::getSequenza));
+        return notifiche;
+    }
+
+    public int getDimensione() {
+        return Math.max(0, dimensione.get());
+    }
+
+    public int getCapacita() {
+        return capacita;
+    }
+
+    public boolean isVuota() {
+        return coda.isEmpty();
+    }
+}
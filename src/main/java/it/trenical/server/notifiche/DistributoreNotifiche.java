@@ -0,0 +1,162 @@
+package it.trenical.server.notifiche;
+
+import it.trenical.server.cliente.Cliente;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.observer.Observer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.logging.Logger;
+
+/**
+ * Invia una notifica a molti destinatari (es. tutti i passeggeri di un viaggio cancellato).
+ * Pattern Singleton: i destinatari vengono divisi in blocchi elaborati in parallelo da un pool
+ * di thread (proprietà trenical.notifiche.distribuzione.thread, default 4); i blocchi in volo
+ * sono limitati da un semaforo, così una lista molto lunga non riempie la coda del pool.
+ * Un destinatario che fallisce viene contato e non ferma gli altri.
+ * I clienti di un blocco vengono accodati insieme con {@link GestoreNotifiche#inviaTutti},
+ * una sola transazione per blocco invece di una scrittura per passeggero.
+ * Le richieste asincrone passano da un thread coordinatore, mai da quello della GUI.
+ */
+public class DistributoreNotifiche {
+    private static final Logger logger = Logger.getLogger(DistributoreNotifiche.class.getName());
+
+    private static final int THREAD = Integer.getInteger("trenical.notifiche.distribuzione.thread", 4);
+    private static final int DIMENSIONE_BLOCCO = Integer.getInteger("trenical.notifiche.distribuzione.blocco", 50);
+
+    private static DistributoreNotifiche instance;
+
+    private final int dimensioneBlocco;
+    private final ExecutorService lavoratori;
+    private final ExecutorService coordinatore;
+    private final Semaphore blocchiInVolo;
+
+    public DistributoreNotifiche(int thread, int dimensioneBlocco) {
+        if (thread <= 0) throw new IllegalArgumentException("Serve almeno un thread");
+        if (dimensioneBlocco <= 0) throw new IllegalArgumentException("La dimensione del blocco deve essere positiva");
+
+        this.dimensioneBlocco = dimensioneBlocco;
+        this.blocchiInVolo = new Semaphore(thread * 2);
+        AtomicInteger numero = new AtomicInteger();
+        this.lavoratori = Executors.newFixedThreadPool(thread, r -> {
+            Thread lavoratore = new Thread(r, "notifiche-distribuzione-" + numero.incrementAndGet());
+            lavoratore.setDaemon(true);
+            return lavoratore;
+        });
+        this.coordinatore = Executors.newSingleThreadExecutor(r -> {
+            Thread coordina = new Thread(r, "notifiche-coordinatore");
+            coordina.setDaemon(true);
+            return coordina;
+        });
+    }
+
+    public static synchronized DistributoreNotifiche getInstance() {
+        if (instance == null) {
+            instance = new DistributoreNotifiche(THREAD, DIMENSIONE_BLOCCO);
+        }
+        return instance;
+    }
+
+    /**
+     * Come {@link #distribuisci} ma senza bloccare il chiamante
+     */
+    public CompletableFuture<EsitoDistribuzione> distribuisciAsync(List<? extends Observer> destinatari,
+                                                                   Notifica notifica) {
+        List<? extends Observer> copia = List.copyOf(destinatari);
+        return CompletableFuture.supplyAsync(() -> distribuisci(copia, notifica), coordinatore);
+    }
+
+    /**
+     * Come sopra, ma anche la ricerca dei destinatari (es. i passeggeri di un viaggio sul database)
+     * avviene sul thread coordinatore invece che su quello del chiamante
+     */
+    public CompletableFuture<EsitoDistribuzione> distribuisciAsync(
+            Supplier<? extends List<? extends Observer>> destinatari, Notifica notifica) {
+        return CompletableFuture.supplyAsync(destinatari, coordinatore)
+                .thenCompose(trovati -> distribuisciAsync(trovati, notifica));
+    }
+
+    /**
+     * Consegna la notifica a tutti i destinatari e attende la fine dei blocchi
+     */
+    public EsitoDistribuzione distribuisci(List<? extends Observer> destinatari, Notifica notifica) {
+        long avvio = System.nanoTime();
+        int blocchi = (destinatari.size() + dimensioneBlocco - 1) / dimensioneBlocco;
+        CountDownLatch terminati = new CountDownLatch(blocchi);
+        AtomicInteger consegnate = new AtomicInteger();
+        AtomicInteger fallite = new AtomicInteger();
+
+        try {
+            for (int da = 0; da < destinatari.size(); da += dimensioneBlocco) {
+                List<? extends Observer> blocco =
+                        destinatari.subList(da, Math.min(da + dimensioneBlocco, destinatari.size()));
+                blocchiInVolo.acquire();
+                try {
+                    lavoratori.execute(() -> {
+                        try {
+                            consegnaBlocco(blocco, notifica, consegnate, fallite);
+                        } finally {
+                            blocchiInVolo.release();
+                            terminati.countDown();
+                        }
+                    });
+                } catch (RuntimeException e) {
+                    blocchiInVolo.release();
+                    throw e;
+                }
+            }
+            terminati.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Distribuzione notifica " + notifica.getTipo() + " interrotta");
+        }
+
+        int nonRaggiunti = destinatari.size() - consegnate.get() - fallite.get();
+        EsitoDistribuzione esito = new EsitoDistribuzione(destinatari.size(), consegnate.get(),
+                fallite.get() + nonRaggiunti, (System.nanoTime() - avvio) / 1_000_000);
+        logger.info("Notifica " + notifica.getTipo() + ": " + esito);
+        return esito;
+    }
+
+    private static void consegnaBlocco(List<? extends Observer> blocco, Notifica notifica,
+                                       AtomicInteger consegnate, AtomicInteger fallite) {
+        List<String> clienti = new ArrayList<>();
+        for (Observer destinatario : blocco) {
+            try {
+                if (destinatario instanceof Cliente cliente) {
+                    cliente.ricevuta(notifica);
+                    clienti.add(cliente.getEmail());
+                } else {
+                    destinatario.update(notifica);
+                    consegnate.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                fallite.incrementAndGet();
+                logger.warning("Notifica non consegnata a " + destinatario.getObserverId() + ": " + e.getMessage());
+            }
+        }
+
+        if (clienti.isEmpty()) {
+            return;
+        }
+        try {
+            GestoreNotifiche.getInstance().inviaTutti(clienti, notifica);
+            consegnate.addAndGet(clienti.size());
+        } catch (RuntimeException e) {
+            fallite.addAndGet(clienti.size());
+            logger.warning("Notifica non consegnata a " + clienti.size() + " clienti: " + e.getMessage());
+        }
+    }
+
+    public void chiudi() {
+        coordinatore.shutdown();
+        lavoratori.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+package it.trenical.server.notifiche;
+
+/**
+ * Riepilogo dell'invio di una notifica a un gruppo di clienti
+ */
+public class EsitoDistribuzione {
+    private final int destinatari;
+    private final int consegnate;
+    private final int fallite;
+    private final long durataMs;
+
+    public EsitoDistribuzione(int destinatari, int consegnate, int fallite, long durataMs) {
+        this.destinatari = destinatari;
+        this.consegnate = consegnate;
+        this.fallite = fallite;
+        this.durataMs = durataMs;
+    }
+
+    public int getDestinatari() { return destinatari; }
+    public int getConsegnate() { return consegnate; }
+    public int getFallite() { return fallite; }
+    public long getDurataMs() { return durataMs; }
+    public boolean isCompleta() { return fallite == 0 && consegnate == destinatari; }
+
+    @Override
+    public String toString() {
+        return String.format("EsitoDistribuzione{consegnate=%d/%d, fallite=%d, %d ms}",
+                consegnate, destinatari, fallite, durataMs);
+    }
+}
@@ -0,0 +1,335 @@
+package it.trenical.server.notifiche;
+
+import it.trenical.server.db.dao.NotificaDAO;
+import it.trenical.server.identificativi.GeneratoriId;
+import it.trenical.server.observer.Notifica;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Caselle delle notifiche in attesa di consegna, una per cliente.
+ * Pattern Singleton: accodamento e prelievo sono O(1) e senza lock.
+ * Capacità per cliente con la proprietà trenical.notifiche.capacita (default 50);
+ * con trenical.notifiche.persistenti (default true) le notifiche vengono salvate
+ * sul database e ricaricate all'avvio, così sopravvivono a un riavvio del server.
+ * Chi tiene aperto uno stream verso il cliente si registra come ascoltatore
+ * e viene avvisato a ogni nuova notifica.
+ * Lo stream riprende dalla sequenza della casella, non dall'identificativo sul database:
+ * le caselle create dopo un riavvio partono dall'istante di creazione spostato di 10 bit,
+ * quindi oltre qualsiasi sequenza che il client può aver ricevuto dal processo precedente.
+ * Limite: una notifica esce dal database appena scritta sullo stream, non quando il client
+ * la conferma, quindi se il server si riavvia mentre è ancora in viaggio va persa.
+ */
+public class GestoreNotifiche {
+    private static final Logger logger = Logger.getLogger(GestoreNotifiche.class.getName());
+
+    private static final int CAPACITA = Integer.getInteger("trenical.notifiche.capacita", 50);
+    private static final boolean PERSISTENTI =
+            Boolean.parseBoolean(System.getProperty("trenical.notifiche.persistenti", "true"));
+
+    private static GestoreNotifiche instance;
+
+    private final ConcurrentHashMap<String, CodaNotifiche> caselle;
+    private final ConcurrentHashMap<String, Runnable> ascoltatori;
+    private final NotificaDAO notificaDAO;
+    private final AtomicInteger inAttesa;
+    private final AtomicLong consegnate;
+    private final AtomicLong scartate;
+    private final AtomicLong unite;
+
+    private GestoreNotifiche() {
+        this.caselle = new ConcurrentHashMap<>();
+        this.ascoltatori = new ConcurrentHashMap<>();
+        this.inAttesa = new AtomicInteger();
+        this.consegnate = new AtomicLong();
+        this.scartate = new AtomicLong();
+        this.unite = new AtomicLong();
+
+        this.notificaDAO = PERSISTENTI ? new NotificaDAO() : null;
+        if (notificaDAO != null) {
+            ripristina();
+        }
+    }
+
+    public static synchronized GestoreNotifiche getInstance() {
+        if (instance == null) {
+            instance = new GestoreNotifiche();
+        }
+        return instance;
+    }
+
+    /**
+     * Accoda una notifica per un cliente
+     * @return true se accodata, false se una notifica identica era già in attesa
+     */
+    public boolean invia(String email, Notifica notifica) {
+        if (email == null || email.trim().isEmpty()) throw new IllegalArgumentException("Email obbligatoria");
+        if (notifica == null) throw new IllegalArgumentException("Notifica obbligatoria");
+
+        Notifica daAccodare = preparaPer(email, notifica);
+        if (daAccodare == null) {
+            return false;
+        }
+        if (notificaDAO != null) {
+            notificaDAO.save(chiave(email), daAccodare);
+        }
+        accoda(email, daAccodare);
+        return true;
+    }
+
+    /**
+     * Accoda la stessa notifica per più clienti salvandole sul database
+     * in un'unica transazione, invece di una scrittura per destinatario
+     * @return numero di notifiche accodate (esclusi i clienti che l'avevano già in attesa)
+     */
+    public int inviaTutti(List<String> emails, Notifica notifica) {
+        if (notifica == null) throw new IllegalArgumentException("Notifica obbligatoria");
+
+        Map<String, Notifica> daAccodare = new LinkedHashMap<>();
+        for (String email : emails) {
+            if (email == null || email.trim().isEmpty()) throw new IllegalArgumentException("Email obbligatoria");
+            if (daAccodare.containsKey(chiave(email))) {
+                unite.incrementAndGet();
+                continue;
+            }
+            Notifica perCliente = preparaPer(email, notifica);
+            if (perCliente != null) {
+                daAccodare.put(chiave(email), perCliente);
+            }
+        }
+
+        if (notificaDAO != null) {
+            notificaDAO.saveAll(daAccodare);
+        }
+        daAccodare.forEach(this::accoda);
+        return daAccodare.size();
+    }
+
+    /**
+     * Registra chi deve essere avvisato quando arriva una notifica per il cliente.
+     * Un nuovo ascoltatore sostituisce il precedente (es. riconnessione del client).
+     */
+    public void registraAscoltatore(String email, Runnable ascoltatore) {
+        ascoltatori.put(chiave(email), ascoltatore);
+    }
+
+    public void rimuoviAscoltatore(String email, Runnable ascoltatore) {
+        ascoltatori.remove(chiave(email), ascoltatore);
+    }
+
+    /**
+     * Estrae la prossima notifica da inviare su uno stream.
+     * Resta tra le non confermate finché il client non ne conferma la sequenza.
+     */
+    public Optional<Notifica> consegna(String email) {
+        CodaNotifiche casella = caselle.get(chiave(email));
+        if (casella == null) {
+            return Optional.empty();
+        }
+
+        Notifica notifica = casella.preleva();
+        if (notifica == null) {
+            return Optional.empty();
+        }
+        inAttesa.decrementAndGet();
+        consegnate.incrementAndGet();
+
+        Notifica scartata = casella.inAttesaDiConferma(notifica);
+        if (scartata != null) {
+            scartate.incrementAndGet();
+        }
+        return Optional.of(notifica);
+    }
+
+    /**
+     * Registra che la notifica è stata scritta sullo stream: esce dal database,
+     * così non viene ripristinata dopo un riavvio, ma resta in memoria
+     * per essere rispedita se il client si riconnette senza averla ricevuta.
+     * Se il server si riavvia prima della conferma del client la notifica è persa
+     */
+    public void inviata(Notifica notifica) {
+        elimina(notifica);
+    }
+
+    /**
+     * Rimette in coda una notifica il cui invio sullo stream è fallito
+     */
+    public void nonInviata(String email, Notifica notifica) {
+        CodaNotifiche casella = casella(email);
+        if (!casella.rimuoviNonConfermata(notifica)) {
+            return;
+        }
+        consegnate.decrementAndGet();
+        inAttesa.incrementAndGet();
+        Notifica scartata = casella.accoda(notifica);
+        if (scartata != null) {
+            inAttesa.decrementAndGet();
+            scartate.incrementAndGet();
+            elimina(scartata);
+        }
+    }
+
+    /**
+     * Conferma le notifiche ricevute dal client fino a ultimaSequenza
+     * e restituisce quelle inviate ma non confermate, da rispedire.
+     * Con ultimaSequenza 0 il client apre una nuova sessione (es. dopo il login):
+     * le notifiche inviate alle sessioni precedenti si considerano ricevute e non vengono rispedite
+     */
+    public List<Notifica> riprendi(String email, long ultimaSequenza) {
+        CodaNotifiche casella = casella(email);
+        if (ultimaSequenza <= 0) {
+            int scartate = casella.scartaNonConfermate();
+            if (scartate > 0) {
+                logger.fine("Nuova sessione per " + email + ": " + scartate + " notifiche già inviate non rispedite");
+            }
+            return List.of();
+        }
+
+        int dimensionePrima = casella.getDimensione();
+        List<Notifica> confermate = casella.confermaFinoA(ultimaSequenza);
+        inAttesa.addAndGet(casella.getDimensione() - dimensionePrima);
+        for (Notifica notifica : confermate) {
+            elimina(notifica);
+        }
+        return casella.getNonConfermate();
+    }
+
+    /**
+     * Estrae la prossima notifica di un cliente
+     */
+    public Optional<Notifica> preleva(String email) {
+        CodaNotifiche casella = caselle.get(chiave(email));
+        if (casella == null) {
+            return Optional.empty();
+        }
+
+        Notifica notifica = casella.preleva();
+        if (notifica != null) {
+            consegnato(notifica);
+        }
+        return Optional.ofNullable(notifica);
+    }
+
+    /**
+     * Estrae tutte le notifiche in attesa di un cliente, dalla più vecchia
+     */
+    public List<Notifica> prelevaTutte(String email) {
+        CodaNotifiche casella = caselle.get(chiave(email));
+        if (casella == null) {
+            return List.of();
+        }
+
+        List<Notifica> notifiche = casella.prelevaTutte();
+        for (Notifica notifica : notifiche) {
+            consegnato(notifica);
+        }
+        return notifiche;
+    }
+
+    /**
+     * Notifiche in attesa per un cliente
+     */
+    public int getProfondita(String email) {
+        CodaNotifiche casella = caselle.get(chiave(email));
+        return casella != null ? casella.getDimensione() : 0;
+    }
+
+    /**
+     * Notifiche in attesa per tutti i clienti
+     */
+    public int getProfonditaTotale() {
+        return Math.max(0, inAttesa.get());
+    }
+
+    public int getNumeroAscoltatori() {
+        return ascoltatori.size();
+    }
+
+    public int getNumeroCaselle() {
+        return caselle.size();
+    }
+
+    public long getConsegnate() { return consegnate.get(); }
+    public long getScartate() { return scartate.get(); }
+    public long getUnite() { return unite.get(); }
+    public int getCapacita() { return CAPACITA; }
+    public boolean isPersistente() { return notificaDAO != null; }
+
+    private void ripristina() {
+        Map<String, List<Notifica>> pendenti = notificaDAO.findAllPerCliente();
+        int totale = 0;
+        for (Map.Entry<String, List<Notifica>> voce : pendenti.entrySet()) {
+            CodaNotifiche casella = casella(voce.getKey());
+            for (Notifica notifica : voce.getValue()) {
+                inAttesa.incrementAndGet();
+                Notifica scartata = casella.accoda(notifica);
+                if (scartata != null) {
+                    inAttesa.decrementAndGet();
+                    elimina(scartata);
+                }
+                totale++;
+            }
+        }
+        if (totale > 0) {
+            logger.info("Ripristinate " + totale + " notifiche pendenti per " + pendenti.size() + " clienti");
+        }
+    }
+
+    /**
+     * Copia della notifica con un identificativo proprio per il cliente, usato come chiave sul database,
+     * oppure null se una notifica identica è già in attesa
+     */
+    private Notifica preparaPer(String email, Notifica notifica) {
+        if (casella(email).contieneEquivalente(notifica)) {
+            unite.incrementAndGet();
+            return null;
+        }
+        return notifica.getId() == 0
+                ? notifica.conId(GeneratoriId.getGeneratore().prossimo())
+                : notifica;
+    }
+
+    private void accoda(String email, Notifica notifica) {
+        inAttesa.incrementAndGet();
+        Notifica scartata = casella(email).accoda(notifica);
+        if (scartata != null) {
+            inAttesa.decrementAndGet();
+            scartate.incrementAndGet();
+            elimina(scartata);
+            logger.warning("Casella notifiche piena per " + email + ", scartata la più vecchia");
+        }
+
+        Runnable ascoltatore = ascoltatori.get(chiave(email));
+        if (ascoltatore != null) {
+            ascoltatore.run();
+        }
+    }
+
+    private void consegnato(Notifica notifica) {
+        inAttesa.decrementAndGet();
+        consegnate.incrementAndGet();
+        elimina(notifica);
+    }
+
+    private void elimina(Notifica notifica) {
+        if (notificaDAO != null) {
+            notificaDAO.delete(notifica.getId());
+        }
+    }
+
+    private CodaNotifiche casella(String email) {
+        return caselle.computeIfAbsent(chiave(email),
+                e -> new CodaNotifiche(CAPACITA, System.currentTimeMillis() << 10));
+    }
+
+    private static String chiave(String email) {
+        return email == null ? "" : email.trim().toLowerCase();
+    }
+}
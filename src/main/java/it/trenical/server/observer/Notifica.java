@@ -1,21 +1,62 @@
 package it.trenical.server.observer;
 
+import java.time.LocalDateTime;
+import java.util.Objects;
+
 public class Notifica {
 
+    private final long id;
     private final TipoNotifica tipo;
     private final String messaggio;
+    private final LocalDateTime dataCreazione;
+    private final long sequenza;
 
     public Notifica(TipoNotifica tipo, String message) {
+        this(0, tipo, message, LocalDateTime.now());
+    }
+
+    public Notifica(long id, TipoNotifica tipo, String messaggio, LocalDateTime dataCreazione) {
+        this(id, tipo, messaggio, dataCreazione, 0);
+    }
+
+    private Notifica(long id, TipoNotifica tipo, String messaggio, LocalDateTime dataCreazione, long sequenza) {
+        this.id = id;
         this.tipo = tipo;
-        this.messaggio = message;
+        this.messaggio = messaggio;
+        this.dataCreazione = dataCreazione;
+        this.sequenza = sequenza;
+    }
+
+    /**
+     * Copia della notifica con l'identificativo assegnato prima del salvataggio
+     */
+    public Notifica conId(long nuovoId) {
+        return new Notifica(nuovoId, tipo, messaggio, dataCreazione, sequenza);
+    }
+
+    /**
+     * Copia della notifica con la sequenza assegnata dalla casella del cliente al momento dell'accodamento
+     */
+    public Notifica conSequenza(long nuovaSequenza) {
+        return new Notifica(id, tipo, messaggio, dataCreazione, nuovaSequenza);
+    }
+
+    /**
+     * Due notifiche sono equivalenti se hanno stesso tipo e stesso messaggio
+     */
+    public boolean equivalenteA(Notifica altra) {
+        return altra != null && tipo == altra.tipo && Objects.equals(messaggio, altra.messaggio);
     }
 
+    public long getId() { return id; }
     public TipoNotifica getTipo() { return tipo; }
     public String getMessaggio() { return messaggio; }
+    public LocalDateTime getDataCreazione() { return dataCreazione; }
+    public long getSequenza() { return sequenza; }
 
     @Override
     public String toString() {
         return String.format("Notifica: tipo=%s, messaggio='%s'}",
                  tipo, messaggio);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,283 @@
+package it.trenical.server.prenotazioni;
+
+import it.trenical.server.cliente.Biglietto;
+import it.trenical.server.db.dao.BigliettoDAO;
+import it.trenical.server.db.dao.PrenotazioneDAO;
+import it.trenical.server.viaggi.GestorePosti;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Prenotazioni dei posti messi nel carrello.
+ * Pattern Singleton: ogni prenotazione trattiene i posti fino alla scadenza
+ * (proprietà trenical.prenotazioni.durata.secondi, default 150: il timer del carrello
+ * più un margine per la conferma) ed è pianificata in una {@link RuotaTemporale}.
+ * Un thread avanza la ruota a ogni tick e restituisce i posti delle prenotazioni scadute
+ * eliminandole nella stessa transazione. Le prenotazioni sono salvate sul database: all'avvio
+ * quelle ancora valide vengono ripianificate e quelle scadute durante il fermo liberate.
+ */
+public class GestorePrenotazioni {
+    private static final Logger logger = Logger.getLogger(GestorePrenotazioni.class.getName());
+
+    private static final long DURATA_MS =
+            TimeUnit.SECONDS.toMillis(Long.getLong("trenical.prenotazioni.durata.secondi", 150));
+    private static final long TICK_MS = Long.getLong("trenical.prenotazioni.tick.ms", 1000);
+    private static final int SLOT = 512;
+
+    private static GestorePrenotazioni instance;
+
+    private final PrenotazioneDAO prenotazioneDAO;
+    private final BigliettoDAO bigliettoDAO;
+    private final GestorePosti gestorePosti;
+    private final RuotaTemporale<Prenotazione> ruota;
+    private final Map<String, RuotaTemporale.Voce<Prenotazione>> attive;
+    private final ScheduledExecutorService scadenze;
+    private final AtomicLong scadute;
+    private final AtomicLong convertite;
+    private final AtomicLong annullate;
+
+    private GestorePrenotazioni() {
+        this.prenotazioneDAO = new PrenotazioneDAO();
+        this.bigliettoDAO = new BigliettoDAO();
+        this.gestorePosti = GestorePosti.getInstance();
+        this.ruota = new RuotaTemporale<>(SLOT, TICK_MS, System.currentTimeMillis());
+        this.attive = new HashMap<>();
+        this.scadute = new AtomicLong();
+        this.convertite = new AtomicLong();
+        this.annullate = new AtomicLong();
+
+        ripristina();
+
+        this.scadenze = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "prenotazioni-scadenze");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scadenze.scheduleAtFixedRate(this::avanza, TICK_MS, TICK_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public static synchronized GestorePrenotazioni getInstance() {
+        if (instance == null) {
+            instance = new GestorePrenotazioni();
+        }
+        return instance;
+    }
+
+    /**
+     * Toglie i posti al viaggio e salva la prenotazione nella stessa transazione:
+     * un crash a metà non lascia posti tolti senza una prenotazione che li restituisca
+     * @return la prenotazione, vuoto se i posti non bastano
+     * @throws SQLException se la transazione fallisce; i posti restano disponibili
+     */
+    public Optional<Prenotazione> crea(String viaggioId, String email, int quantita) throws SQLException {
+        Prenotazione prenotazione = Prenotazione.nuova(viaggioId, email, quantita,
+                System.currentTimeMillis() + DURATA_MS);
+        int rimanenti = gestorePosti.prenota(viaggioId, quantita, conn -> {
+            if (!prenotazioneDAO.save(conn, prenotazione)) {
+                throw new SQLException("Prenotazione " + prenotazione.getId() + " non salvata");
+            }
+            return null;
+        });
+        if (rimanenti == GestorePosti.POSTI_INSUFFICIENTI) {
+            return Optional.empty();
+        }
+
+        synchronized (this) {
+            attive.put(prenotazione.getId(), ruota.pianifica(prenotazione, prenotazione.getScadenza()));
+        }
+        logger.info("Prenotati " + quantita + " posti sul viaggio " + viaggioId + " per " + email
+                + " fino a " + prenotazione.getScadenza());
+        return Optional.of(prenotazione);
+    }
+
+    /**
+     * Trasforma in biglietti le prenotazioni del cliente in un'unica transazione:
+     * biglietti salvati, prenotazioni eliminate e posti aggiornati vengono scritti insieme.
+     * Se una prenotazione è scaduta (o manca) i posti vengono ripresi dal viaggio, se ancora
+     * disponibili; i posti trattenuti in più di quelli acquistati tornano disponibili.
+     * @return biglietti salvati, 0 se il salvataggio fallisce,
+     *         {@link GestorePosti#POSTI_INSUFFICIENTI} se i posti di una prenotazione scaduta sono esauriti
+     */
+    public int converti(String email, Collection<String> idPrenotazioni, List<Biglietto> biglietti) {
+        Map<String, Integer> richiesti = new LinkedHashMap<>();
+        for (Biglietto biglietto : biglietti) {
+            richiesti.merge(biglietto.getIdViaggio(), 1, Integer::sum);
+        }
+
+        List<Prenotazione> prelevate = preleva(email, idPrenotazioni);
+        Map<String, Integer> trattenuti = postiPerViaggio(prelevate);
+        Map<String, Integer> mancanti = new LinkedHashMap<>();
+        Map<String, Integer> eccedenze = new LinkedHashMap<>();
+        richiesti.forEach((viaggioId, posti) -> {
+            int differenza = posti - trattenuti.getOrDefault(viaggioId, 0);
+            if (differenza > 0) {
+                mancanti.put(viaggioId, differenza);
+            }
+        });
+        trattenuti.forEach((viaggioId, posti) -> {
+            int differenza = posti - richiesti.getOrDefault(viaggioId, 0);
+            if (differenza > 0) {
+                eccedenze.put(viaggioId, differenza);
+            }
+        });
+
+        List<String> ids = prelevate.stream().map(Prenotazione::getId).toList();
+        Optional<Integer> salvati;
+        try {
+            salvati = gestorePosti.variaInTransazione(mancanti, eccedenze, conn -> {
+                int inseriti = bigliettoDAO.saveAll(conn, biglietti, email);
+                prenotazioneDAO.deleteAll(conn, ids);
+                return inseriti;
+            });
+        } catch (SQLException e) {
+            logger.severe("Errore nel salvataggio biglietti, prenotazioni ripristinate: " + e.getMessage());
+            ripianifica(prelevate);
+            return 0;
+        }
+        if (salvati.isEmpty()) {
+            logger.warning("Prenotazione scaduta e posti esauriti sui viaggi " + mancanti.keySet());
+            ripianifica(prelevate);
+            return GestorePosti.POSTI_INSUFFICIENTI;
+        }
+
+        convertite.addAndGet(prelevate.size());
+        logger.info("Convertite " + prelevate.size() + " prenotazioni in " + salvati.get() + " biglietti per " + email);
+        return salvati.get();
+    }
+
+    /**
+     * Annulla le prenotazioni del cliente (carrello svuotato) restituendo subito i posti
+     * @return posti restituiti
+     */
+    public int annulla(String email, Collection<String> idPrenotazioni) {
+        List<Prenotazione> prelevate = preleva(email, idPrenotazioni);
+        int posti = libera(prelevate);
+        annullate.addAndGet(prelevate.size());
+        return posti;
+    }
+
+    /**
+     * Toglie dalla ruota le prenotazioni non scadute del cliente tra quelle indicate.
+     * Chi le preleva ne diventa responsabile: le converte, le libera o le ripianifica
+     */
+    private synchronized List<Prenotazione> preleva(String email, Collection<String> idPrenotazioni) {
+        long adesso = System.currentTimeMillis();
+        List<Prenotazione> prelevate = new ArrayList<>();
+        for (String id : idPrenotazioni) {
+            RuotaTemporale.Voce<Prenotazione> voce = attive.get(id);
+            if (voce == null) {
+                continue;
+            }
+            Prenotazione prenotazione = voce.getValore();
+            if (!prenotazione.getEmail().equals(email) || prenotazione.isScaduta(adesso)) {
+                continue;
+            }
+            ruota.annulla(voce);
+            attive.remove(id);
+            prelevate.add(prenotazione);
+        }
+        return prelevate;
+    }
+
+    private synchronized void ripianifica(List<Prenotazione> prelevate) {
+        for (Prenotazione prenotazione : prelevate) {
+            attive.put(prenotazione.getId(), ruota.pianifica(prenotazione, prenotazione.getScadenza()));
+        }
+    }
+
+    /**
+     * Passo del thread delle scadenze
+     */
+    private void avanza() {
+        try {
+            List<Prenotazione> scaduteOra;
+            synchronized (this) {
+                scaduteOra = ruota.avanza(System.currentTimeMillis());
+                for (Prenotazione prenotazione : scaduteOra) {
+                    attive.remove(prenotazione.getId());
+                }
+            }
+            if (!scaduteOra.isEmpty()) {
+                int posti = libera(scaduteOra);
+                scadute.addAndGet(scaduteOra.size());
+                logger.info("Scadute " + scaduteOra.size() + " prenotazioni, restituiti " + posti + " posti");
+            }
+        } catch (RuntimeException e) {
+            // un'eccezione fermerebbe le esecuzioni successive del thread
+            logger.severe("Errore nella scadenza delle prenotazioni: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Restituisce i posti ed elimina le prenotazioni nella stessa transazione:
+     * un crash a metà non lascia prenotazioni i cui posti sono già stati restituiti.
+     * Se la transazione fallisce le prenotazioni restano sul database e vengono liberate al riavvio
+     * @return posti restituiti
+     */
+    private int libera(List<Prenotazione> prenotazioni) {
+        if (prenotazioni.isEmpty()) {
+            return 0;
+        }
+
+        Map<String, Integer> posti = postiPerViaggio(prenotazioni);
+        List<String> ids = prenotazioni.stream().map(Prenotazione::getId).toList();
+        try {
+            gestorePosti.variaInTransazione(Map.of(), posti, conn -> prenotazioneDAO.deleteAll(conn, ids));
+        } catch (SQLException e) {
+            logger.severe("Errore nel rilascio di " + ids.size() + " prenotazioni: " + e.getMessage());
+            return 0;
+        }
+        return posti.values().stream().mapToInt(Integer::intValue).sum();
+    }
+
+    private void ripristina() {
+        long adesso = System.currentTimeMillis();
+        List<Prenotazione> scaduteDuranteFermo = new ArrayList<>();
+        int ripianificate = 0;
+
+        for (Prenotazione prenotazione : prenotazioneDAO.findAll()) {
+            if (prenotazione.isScaduta(adesso)) {
+                scaduteDuranteFermo.add(prenotazione);
+            } else {
+                attive.put(prenotazione.getId(), ruota.pianifica(prenotazione, prenotazione.getScadenza()));
+                ripianificate++;
+            }
+        }
+
+        int posti = libera(scaduteDuranteFermo);
+        if (ripianificate > 0 || !scaduteDuranteFermo.isEmpty()) {
+            logger.info("Ripristinate " + ripianificate + " prenotazioni, liberate " + scaduteDuranteFermo.size()
+                    + " scadute durante il fermo (" + posti + " posti)");
+        }
+    }
+
+    private static Map<String, Integer> postiPerViaggio(List<Prenotazione> prenotazioni) {
+        Map<String, Integer> posti = new LinkedHashMap<>();
+        for (Prenotazione prenotazione : prenotazioni) {
+            posti.merge(prenotazione.getViaggioId(), prenotazione.getQuantita(), Integer::sum);
+        }
+        return posti;
+    }
+
+    public void chiudi() {
+        scadenze.shutdownNow();
+    }
+
+    public synchronized int getAttive() { return attive.size(); }
+    public long getScadute() { return scadute.get(); }
+    public long getConvertite() { return convertite.get(); }
+    public long getAnnullate() { return annullate.get(); }
+    public long getDurataMs() { return DURATA_MS; }
+}
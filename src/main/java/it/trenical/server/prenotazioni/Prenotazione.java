@@ -0,0 +1,47 @@
+package it.trenical.server.prenotazioni;
+
+import it.trenical.server.identificativi.GeneratoriId;
+
+/**
+ * Posti trattenuti su un viaggio per il carrello di un cliente fino alla scadenza.
+ * Immutabile
+ */
+public class Prenotazione {
+
+    private final String id;
+    private final String viaggioId;
+    private final String email;
+    private final int quantita;
+    private final long scadenza;
+
+    /**
+     * @param scadenza istante di scadenza in millisecondi dall'epoca
+     */
+    public Prenotazione(String id, String viaggioId, String email, int quantita, long scadenza) {
+        if (quantita <= 0) throw new IllegalArgumentException("Quantità deve essere positiva");
+        this.id = id;
+        this.viaggioId = viaggioId;
+        this.email = email;
+        this.quantita = quantita;
+        this.scadenza = scadenza;
+    }
+
+    public static Prenotazione nuova(String viaggioId, String email, int quantita, long scadenza) {
+        return new Prenotazione(GeneratoriId.prossimoId("PREN_"), viaggioId, email, quantita, scadenza);
+    }
+
+    public String getId() { return id; }
+    public String getViaggioId() { return viaggioId; }
+    public String getEmail() { return email; }
+    public int getQuantita() { return quantita; }
+    public long getScadenza() { return scadenza; }
+
+    public boolean isScaduta(long adesso) {
+        return adesso >= scadenza;
+    }
+
+    @Override
+    public String toString() {
+        return "Prenotazione{" + id + ", viaggio=" + viaggioId + ", quantita=" + quantita + "}";
+    }
+}
@@ -0,0 +1,156 @@
+package it.trenical.server.prenotazioni;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ruota temporale a hash (timing wheel) per le scadenze.
+ * Il tempo è diviso in tick di durata fissa; ogni tick cade in uno slot della ruota
+ * (tick modulo numero di slot) che contiene una lista doppiamente collegata di voci.
+ * Pianificare e annullare sono O(1); a ogni avanzamento si visitano solo gli slot
+ * dei tick trascorsi e si tolgono le voci con tick già raggiunto: quelle di un giro
+ * successivo restano nello slot. Non è thread-safe: la sincronizzazione è del chiamante.
+ *
+ * @param <T> valore associato alla scadenza
+ */
+public class RuotaTemporale<T> {
+
+    private final Voce<T>[] slot;
+    private final int maschera;
+    private final long durataTick;
+    private long tickCorrente;
+    private int dimensione;
+
+    /**
+     * @param numeroSlot slot della ruota, arrotondati alla potenza di due successiva
+     * @param durataTick durata di un tick in millisecondi
+     * @param inizio istante iniziale in millisecondi
+     */
+    @SuppressWarnings("unchecked")
+    public RuotaTemporale(int numeroSlot, long durataTick, long inizio) {
+        if (numeroSlot <= 0) throw new IllegalArgumentException("Il numero di slot deve essere positivo");
+        if (durataTick <= 0) throw new IllegalArgumentException("La durata del tick deve essere positiva");
+
+        int slotEffettivi = Integer.highestOneBit(numeroSlot);
+        if (slotEffettivi < numeroSlot) {
+            slotEffettivi <<= 1;
+        }
+        this.slot = (Voce<T>[]) new Voce[slotEffettivi];
+        this.maschera = slotEffettivi - 1;
+        this.durataTick = durataTick;
+        this.tickCorrente = Math.floorDiv(inizio, durataTick);
+    }
+
+    /**
+     * Inserisce un valore che scade all'istante indicato; una scadenza già passata
+     * viene restituita al prossimo avanzamento
+     * @return la voce, da conservare per annullarla
+     */
+    public Voce<T> pianifica(T valore, long scadenza) {
+        long tick = Math.max(Math.floorDiv(scadenza + durataTick - 1, durataTick), tickCorrente + 1);
+        Voce<T> voce = new Voce<>(valore, scadenza, tick);
+        int indice = (int) (tick & maschera);
+
+        voce.successiva = slot[indice];
+        if (slot[indice] != null) {
+            slot[indice].precedente = voce;
+        }
+        slot[indice] = voce;
+        voce.indice = indice;
+        dimensione++;
+        return voce;
+    }
+
+    /**
+     * Toglie una voce prima della scadenza
+     * @return false se era già scaduta o annullata
+     */
+    public boolean annulla(Voce<T> voce) {
+        if (voce.indice < 0) {
+            return false;
+        }
+        scollega(voce);
+        return true;
+    }
+
+    /**
+     * Porta la ruota all'istante indicato
+     * @return i valori scaduti nel frattempo, in ordine di tick
+     */
+    public List<T> avanza(long adesso) {
+        List<T> scaduti = new ArrayList<>();
+        long obiettivo = Math.floorDiv(adesso, durataTick);
+        if (obiettivo <= tickCorrente) {
+            return scaduti;
+        }
+
+        // dopo una lunga pausa basta un giro completo: ogni slot viene visitato una volta
+        long primo = Math.max(tickCorrente + 1, obiettivo - slot.length + 1);
+        for (long tick = primo; tick <= obiettivo; tick++) {
+            Voce<T> voce = slot[(int) (tick & maschera)];
+            while (voce != null) {
+                Voce<T> successiva = voce.successiva;
+                if (voce.tick <= obiettivo) {
+                    scollega(voce);
+                    scaduti.add(voce.valore);
+                }
+                voce = successiva;
+            }
+        }
+        tickCorrente = obiettivo;
+        return scaduti;
+    }
+
+    public int size() {
+        return dimensione;
+    }
+
+    public boolean isEmpty() {
+        return dimensione == 0;
+    }
+
+    public long getDurataTick() {
+        return durataTick;
+    }
+
+    public int getNumeroSlot() {
+        return slot.length;
+    }
+
+    private void scollega(Voce<T> voce) {
+        if (voce.precedente != null) {
+            voce.precedente.successiva = voce.successiva;
+        } else {
+            slot[voce.indice] = voce.successiva;
+        }
+        if (voce.successiva != null) {
+            voce.successiva.precedente = voce.precedente;
+        }
+        voce.precedente = null;
+        voce.successiva = null;
+        voce.indice = -1;
+        dimensione--;
+    }
+
+    /**
+     * Elemento pianificato nella ruota
+     */
+    public static final class Voce<T> {
+        private final T valore;
+        private final long scadenza;
+        private final long tick;
+        private Voce<T> precedente;
+        private Voce<T> successiva;
+        private int indice = -1;
+
+        private Voce(T valore, long scadenza, long tick) {
+            this.valore = valore;
+            this.scadenza = scadenza;
+            this.tick = tick;
+        }
+
+        public T getValore() { return valore; }
+        public long getScadenza() { return scadenza; }
+        public boolean isPianificata() { return indice >= 0; }
+    }
+}
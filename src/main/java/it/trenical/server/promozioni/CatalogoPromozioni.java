@@ -0,0 +1,184 @@
+package it.trenical.server.promozioni;
+
+import it.trenical.server.db.dao.PromozioneDAO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Catalogo in memoria delle promozioni.
+ * Pattern Singleton: le letture usano un'{@link Istantanea} immutabile con le viste
+ * già pronte (tutte, Standard, Fedeltà) e gli indici per id e per nome; le modifiche
+ * dell'amministratore passano dal catalogo, scrivono sul database e pubblicano
+ * un'istantanea nuova con versione maggiore. Le modifiche sono serializzate, così il
+ * controllo del nome duplicato e il salvataggio non si intrecciano.
+ */
+public class CatalogoPromozioni {
+    private static final Logger logger = Logger.getLogger(CatalogoPromozioni.class.getName());
+
+    private static final Comparator<Promozione> PER_SCONTO =
+            Comparator.comparingDouble(Promozione::getSconto).reversed();
+
+    private static CatalogoPromozioni instance;
+
+    private final PromozioneDAO promozioneDAO;
+    private final AtomicLong versioni;
+    private volatile Istantanea istantanea;
+
+    private CatalogoPromozioni() {
+        this.promozioneDAO = new PromozioneDAO();
+        // parte dall'istante di avvio: dopo un riavvio le versioni non ripetono quelle
+        // già viste dai client, che altrimenti riceverebbero "non modificato" per un catalogo diverso
+        this.versioni = new AtomicLong(System.currentTimeMillis() << 10);
+    }
+
+    public static synchronized CatalogoPromozioni getInstance() {
+        if (instance == null) {
+            instance = new CatalogoPromozioni();
+        }
+        return instance;
+    }
+
+    /**
+     * Istantanea corrente, caricata dal database alla prima richiesta o dopo {@link #invalida()}
+     */
+    public Istantanea getIstantanea() {
+        Istantanea corrente = istantanea;
+        if (corrente != null) {
+            return corrente;
+        }
+        synchronized (this) {
+            if (istantanea == null) {
+                pubblica(promozioneDAO.findAll());
+            }
+            return istantanea;
+        }
+    }
+
+    public long getVersione() {
+        return getIstantanea().getVersione();
+    }
+
+    public Optional<Promozione> trova(String id) {
+        return getIstantanea().trova(id);
+    }
+
+    /**
+     * Salva la promozione se non ne esiste già una con lo stesso nome (senza distinzione di maiuscole)
+     *
+     * @return false se il nome è già usato o il salvataggio fallisce
+     */
+    public synchronized boolean aggiungi(Promozione promozione) {
+        Istantanea corrente = getIstantanea();
+        if (corrente.esisteNome(promozione.getNome())) {
+            logger.warning("Promozione già esistente con nome: " + promozione.getNome());
+            return false;
+        }
+        if (!promozioneDAO.save(promozione)) {
+            return false;
+        }
+        List<Promozione> promozioni = new ArrayList<>(corrente.getTutte());
+        promozioni.add(promozione);
+        pubblica(promozioni);
+        return true;
+    }
+
+    public synchronized boolean rimuovi(String id) {
+        Istantanea corrente = getIstantanea();
+        if (!promozioneDAO.delete(id)) {
+            return false;
+        }
+        List<Promozione> promozioni = new ArrayList<>(corrente.getTutte());
+        promozioni.removeIf(p -> p.getId().equals(id));
+        pubblica(promozioni);
+        return true;
+    }
+
+    /**
+     * Da chiamare dopo modifiche fatte direttamente sul database:
+     * la prossima lettura ricarica il catalogo con una versione nuova
+     */
+    public synchronized void invalida() {
+        istantanea = null;
+    }
+
+    private void pubblica(List<Promozione> promozioni) {
+        istantanea = new Istantanea(versioni.incrementAndGet(), promozioni);
+        logger.info("Catalogo promozioni versione " + istantanea.getVersione()
+                + " con " + promozioni.size() + " promozioni");
+    }
+
+    static String chiaveNome(String nome) {
+        return nome.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Contenuto del catalogo a una certa versione. Immutabile
+     */
+    public static final class Istantanea {
+        private final long versione;
+        private final List<Promozione> tutte;
+        private final List<Promozione> standard;
+        private final List<Promozione> fedelta;
+        private final Map<String, Promozione> perId;
+        private final Map<String, Promozione> perNome;
+
+        Istantanea(long versione, List<Promozione> promozioni) {
+            this.versione = versione;
+            this.tutte = Collections.unmodifiableList(new ArrayList<>(promozioni));
+
+            List<Promozione> standard = new ArrayList<>();
+            List<Promozione> fedelta = new ArrayList<>();
+            Map<String, Promozione> perId = new HashMap<>();
+            Map<String, Promozione> perNome = new HashMap<>();
+            for (Promozione promozione : promozioni) {
+                if ("Standard".equals(promozione.getTipo())) {
+                    standard.add(promozione);
+                } else {
+                    fedelta.add(promozione);
+                }
+                perId.put(promozione.getId(), promozione);
+                perNome.putIfAbsent(chiaveNome(promozione.getNome()), promozione);
+            }
+            standard.sort(PER_SCONTO);
+            fedelta.sort(PER_SCONTO);
+
+            this.standard = Collections.unmodifiableList(standard);
+            this.fedelta = Collections.unmodifiableList(fedelta);
+            this.perId = perId;
+            this.perNome = perNome;
+        }
+
+        public long getVersione() { return versione; }
+        public List<Promozione> getTutte() { return tutte; }
+        public List<Promozione> getStandard() { return standard; }
+        public List<Promozione> getFedelta() { return fedelta; }
+
+        /**
+         * Promozioni visibili al cliente: gli abbonati fedeltà vedono anche quelle Fedeltà
+         */
+        public List<Promozione> perCliente(boolean abbonato) {
+            return abbonato ? tutte : standard;
+        }
+
+        public Optional<Promozione> trova(String id) {
+            return Optional.ofNullable(id == null ? null : perId.get(id));
+        }
+
+        public boolean esisteNome(String nome) {
+            return nome != null && perNome.containsKey(chiaveNome(nome));
+        }
+
+        public int size() {
+            return tutte.size();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package it.trenical.server.promozioni;
 
+import it.trenical.server.identificativi.GeneratoriId;
+
 import java.util.Objects;
 
 public abstract class Promozione {
@@ -13,7 +15,7 @@ public abstract class Promozione {
 
         this.nome = nome;
         this.sconto = sconto;
-        this.id = generaId(nome, sconto);
+        this.id = generaId();
     }
 
     public Promozione(String id, String nome, double sconto) {
@@ -25,10 +27,8 @@ public abstract class Promozione {
         this.sconto = sconto;
     }
 
-    private String generaId(String nome, double sconto) {
-        String input = nome + "_" + sconto;
-        int hash = Math.abs(input.hashCode());
-        return String.format("PROMO_%08d", hash % 100000000);
+    private String generaId() {
+        return GeneratoriId.prossimoId("PROMO_");
     }
 
     public double applicaSconto(double prezzo) {
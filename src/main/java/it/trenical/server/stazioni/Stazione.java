@@ -1,8 +1,13 @@
 package it.trenical.server.stazioni;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
 
 public enum Stazione {
+    // l'ordinale è salvato nel database: nuove costanti solo in fondo
     REGGIO_CALABRIA("Reggio Calabria", 38.1144, 15.6500),
     COSENZA("Cosenza", 39.2985, 16.2538),
     NAPOLI("Napoli", 40.8518, 14.2681),
@@ -16,6 +21,16 @@ public enum Stazione {
     GENOVA("Genova", 44.4056, 8.9463),
     VENEZIA("Venezia", 45.4408, 12.3155);
 
+    // nome normalizzato -> stazione, sia per "Reggio Calabria" sia per "REGGIO_CALABRIA"
+    private static final Map<String, Stazione> PER_NOME = new HashMap<>();
+
+    static {
+        for (Stazione stazione : values()) {
+            PER_NOME.put(normalizza(stazione.nome), stazione);
+            PER_NOME.put(normalizza(stazione.name()), stazione);
+        }
+    }
+
     private final String nome;
     private final double latitudine;
     private final double longitudine;
@@ -55,12 +70,21 @@ public enum Stazione {
     public String toString() {return nome;}
 
     public static Stazione fromNome(String nome) {
-        for (Stazione stazione : values()) {
-            if (stazione.nome.equalsIgnoreCase(nome)) {
-                return stazione;
-            }
+        return cerca(nome).orElseThrow(() -> new IllegalArgumentException("Stazione non trovata: " + nome));
+    }
+
+    /**
+     * Cerca la stazione per nome o per nome della costante, senza distinguere maiuscole e spazi ai lati
+     */
+    public static Optional<Stazione> cerca(String nome) {
+        if (nome == null) {
+            return Optional.empty();
         }
-        throw new IllegalArgumentException("Stazione non trovata: " + nome);
+        return Optional.ofNullable(PER_NOME.get(normalizza(nome)));
+    }
+
+    private static String normalizza(String nome) {
+        return nome.trim().replace('_', ' ').toLowerCase(Locale.ROOT);
     }
 
     public static List<Stazione> getTutteLeStazioni() {
@@ -5,6 +5,20 @@ import it.trenical.server.stazioni.Stazione;
 import java.util.Objects;
 
 public class Tratta {
+    private static final Stazione[] STAZIONI = Stazione.values();
+    // tratte canoniche indicizzate per ordinale [partenza][arrivo], null sulla diagonale
+    private static final Tratta[][] CANONICHE = new Tratta[STAZIONI.length][STAZIONI.length];
+
+    static {
+        for (Stazione partenza : STAZIONI) {
+            for (Stazione arrivo : STAZIONI) {
+                if (partenza != arrivo) {
+                    CANONICHE[partenza.ordinal()][arrivo.ordinal()] = new Tratta(partenza, arrivo);
+                }
+            }
+        }
+    }
+
     private final Stazione stazionePartenza;
     private final Stazione stazioneArrivo;
     private final int distanzaKm;
@@ -19,6 +33,17 @@ public class Tratta {
         this.distanzaKm = (int) (stazionePartenza.calcolaDistanzaVerso(stazioneArrivo));
     }
 
+    /**
+     * Istanza condivisa della tratta, con la distanza già calcolata.
+     * Tratta è immutabile, quindi la stessa istanza può stare in più viaggi
+     */
+    public static Tratta di(Stazione stazionePartenza, Stazione stazioneArrivo) {
+        if (stazionePartenza == null) throw new IllegalArgumentException("Stazione di partenza obbligatoria");
+        if (stazioneArrivo == null) throw new IllegalArgumentException("Stazione di arrivo obbligatoria");
+        if (stazionePartenza == stazioneArrivo) throw new IllegalArgumentException("Stazione di partenza e arrivo non possono essere uguali");
+        return CANONICHE[stazionePartenza.ordinal()][stazioneArrivo.ordinal()];
+    }
+
     public Stazione getStazionePartenza() {return stazionePartenza;}
     public Stazione getStazioneArrivo() {return stazioneArrivo;}
     public int getDistanzaKm() {return distanzaKm;}
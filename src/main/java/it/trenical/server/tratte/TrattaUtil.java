@@ -7,13 +7,13 @@ import java.util.List;
 public class TrattaUtil {
 
     public static Tratta creaTratta(Stazione partenza, Stazione arrivo) {
-        return new Tratta(partenza, arrivo);
+        return Tratta.di(partenza, arrivo);
     }
 
     public static Tratta creaTratta(String nomePartenza, String nomeArrivo) {
         Stazione stazionePartenza = Stazione.fromNome(nomePartenza);
         Stazione stazioneArrivo = Stazione.fromNome(nomeArrivo);
-        return new Tratta(stazionePartenza, stazioneArrivo);
+        return Tratta.di(stazionePartenza, stazioneArrivo);
     }
 
     public static List<Tratta> creaTutteLeTratte() {
@@ -22,7 +22,7 @@ public class TrattaUtil {
         for (Stazione partenza : stazioni) {
             for (Stazione arrivo : stazioni) {
                 if (!partenza.equals(arrivo)) {
-                    tratte.add(new Tratta(partenza, arrivo));
+                    tratte.add(Tratta.di(partenza, arrivo));
                 }
             }
         }
@@ -0,0 +1,62 @@
+package it.trenical.server.treni;
+
+import it.trenical.server.treni.builder.TrenoDirector;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Istanze condivise dei treni, una per coppia (tipo, codice).
+ * Pattern Singleton: Treno è immutabile, quindi i viaggi letti dal database
+ * possono condividere lo stesso oggetto invece di ripassare ogni volta dal builder.
+ */
+public class RegistroTreni {
+
+    private static final TipoTreno[] TIPI = TipoTreno.values();
+
+    private static RegistroTreni instance;
+
+    private final TrenoDirector trenoDirector;
+    private final ConcurrentHashMap<String, Treno>[] perTipo;
+
+    @SuppressWarnings("unchecked")
+    private RegistroTreni() {
+        this.trenoDirector = new TrenoDirector();
+        this.perTipo = new ConcurrentHashMap[TIPI.length];
+        for (int i = 0; i < perTipo.length; i++) {
+            perTipo[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    public static synchronized RegistroTreni getInstance() {
+        if (instance == null) {
+            instance = new RegistroTreni();
+        }
+        return instance;
+    }
+
+    /**
+     * Treno del tipo e codice indicati, costruito con il director solo la prima volta
+     */
+    public Treno getTreno(TipoTreno tipo, String codice) {
+        Treno treno = perTipo[tipo.ordinal()].get(codice);
+        if (treno != null) {
+            return treno;
+        }
+        return perTipo[tipo.ordinal()].computeIfAbsent(codice,
+                c -> trenoDirector.costruisciTrenoPerTipo(tipo, c));
+    }
+
+    public int getTreniRegistrati() {
+        int totale = 0;
+        for (ConcurrentHashMap<String, Treno> treni : perTipo) {
+            totale += treni.size();
+        }
+        return totale;
+    }
+
+    public void svuota() {
+        for (ConcurrentHashMap<String, Treno> treni : perTipo) {
+            treni.clear();
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package it.trenical.server.treni;
 
 public enum TipoTreno {
+    // l'ordinale è salvato nel database: nuove costanti solo in fondo
     ECONOMY("Economy", 450, 70.0),
     STANDARD("Standard", 350, 90.0),
     BUSINESS("Business", 250, 120.0);
@@ -9,6 +9,7 @@ public class Treno {
     private final TipoTreno tipoTreno;
     private final int postiTotali;
     private final Set<ServizioTreno> servizi;
+    private final String elencoServizi;
 
     public Treno(String codice,TipoTreno tipoTreno,int postiTotali,Set<ServizioTreno> servizi) {
         if (codice == null || codice.trim().isEmpty())
@@ -22,6 +23,17 @@ public class Treno {
         this.tipoTreno = tipoTreno;
         this.postiTotali = postiTotali;
         this.servizi = EnumSet.copyOf(servizi);
+        this.elencoServizi = componiElencoServizi(this.servizi);
+    }
+
+    private static String componiElencoServizi(Set<ServizioTreno> servizi) {
+        StringBuilder elenco = new StringBuilder();
+        for (ServizioTreno servizio : servizi) {
+            if (!elenco.isEmpty())
+                elenco.append(", ");
+            elenco.append(servizio.toString().replace("_", " ").toLowerCase());
+        }
+        return elenco.toString();
     }
 
     public String getCodice() { return codice; }
@@ -29,6 +41,12 @@ public class Treno {
     public int getPostiTotali() { return postiTotali; }
     public Set<ServizioTreno> getServizi() { return EnumSet.copyOf(servizi); }
 
+    /**
+     * Servizi in minuscolo separati da virgola, come mostrati al client.
+     * Calcolato una volta sola: il treno è immutabile
+     */
+    public String getElencoServizi() { return elencoServizi; }
+
     public boolean hasServizio(ServizioTreno servizio) {
         return servizi.contains(servizio);
     }
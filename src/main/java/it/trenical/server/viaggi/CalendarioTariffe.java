@@ -0,0 +1,84 @@
+package it.trenical.server.viaggi;
+
+import it.trenical.server.stazioni.Stazione;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Calendario delle tariffe minime per tratta e giorno, mantenuto dall'{@link IndiceOrari}.
+ * Ogni volta che l'indice cambia i viaggi o i posti di una tratta in un giorno
+ * si ricalcola solo quel giorno, quindi un calendario di N giorni costa N letture.
+ */
+public class CalendarioTariffe {
+
+    private static final int STAZIONI = Stazione.values().length;
+
+    private final ConcurrentHashMap<LocalDate, TariffaGiorno>[] celle;
+
+    @SuppressWarnings("unchecked")
+    CalendarioTariffe() {
+        this.celle = new ConcurrentHashMap[STAZIONI * STAZIONI];
+        for (int i = 0; i < celle.length; i++) {
+            celle[i] = new ConcurrentHashMap<>();
+        }
+    }
+
+    /**
+     * Tariffe dei giorni da {@code dal} a {@code al} compresi, anche quelli senza viaggi
+     */
+    public List<TariffaGiorno> calendario(Stazione partenza, Stazione arrivo, LocalDate dal, LocalDate al) {
+        Map<LocalDate, TariffaGiorno> cella = celle[cella(partenza, arrivo)];
+        List<TariffaGiorno> tariffe = new ArrayList<>();
+        for (LocalDate data = dal; !data.isAfter(al); data = data.plusDays(1)) {
+            TariffaGiorno tariffa = cella.get(data);
+            tariffe.add(tariffa != null ? tariffa : TariffaGiorno.vuota(data));
+        }
+        return tariffe;
+    }
+
+    /**
+     * Ricalcola il giorno leggendo i viaggi correnti dell'indice dentro il compute,
+     * così due aggiornamenti concorrenti non lasciano un riepilogo vecchio
+     */
+    void ricalcola(Stazione partenza, Stazione arrivo, LocalDate data, Map<LocalDate, Viaggio[]> viaggiPerGiorno) {
+        celle[cella(partenza, arrivo)].compute(data, (d, precedente) -> riassumi(d, viaggiPerGiorno.get(d)));
+    }
+
+    void svuota() {
+        for (ConcurrentHashMap<LocalDate, TariffaGiorno> cella : celle) {
+            cella.clear();
+        }
+    }
+
+    private static TariffaGiorno riassumi(LocalDate data, Viaggio[] viaggi) {
+        if (viaggi == null) {
+            return null;
+        }
+        double prezzoMinimo = Double.MAX_VALUE;
+        Viaggio primo = null;
+        int disponibili = 0;
+        // i viaggi sono ordinati per orario: il primo acquistabile è la prima partenza
+        for (Viaggio viaggio : viaggi) {
+            if (!viaggio.isDisponibile() || viaggio.getPostiDisponibili() <= 0) {
+                continue;
+            }
+            if (primo == null) {
+                primo = viaggio;
+            }
+            prezzoMinimo = Math.min(prezzoMinimo, viaggio.getPrezzo());
+            disponibili++;
+        }
+        if (primo == null) {
+            return TariffaGiorno.vuota(data);
+        }
+        return new TariffaGiorno(data, prezzoMinimo, primo.getOrarioPartenza(), disponibili);
+    }
+
+    private static int cella(Stazione partenza, Stazione arrivo) {
+        return partenza.ordinal() * STAZIONI + arrivo.ordinal();
+    }
+}
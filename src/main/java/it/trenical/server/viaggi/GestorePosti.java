@@ -0,0 +1,311 @@
+package it.trenical.server.viaggi;
+
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.OperazioneTransazione;
+import it.trenical.server.db.dao.ViaggioDAO;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Gestisce la disponibilità dei posti in modo atomico.
+ * Pattern Singleton: ogni viaggio ha un contatore in memoria aggiornato con CAS
+ * che fa da filtro veloce (un viaggio esaurito viene rifiutato senza andare sul DB);
+ * la verità resta il database, aggiornato con UPDATE condizionali.
+ */
+public class GestorePosti {
+    private static final Logger logger = Logger.getLogger(GestorePosti.class.getName());
+
+    public static final int POSTI_INSUFFICIENTI = -1;
+
+    private static GestorePosti instance;
+
+    private final ViaggioDAO viaggioDAO;
+    private final ConcurrentHashMap<String, AtomicInteger> contatori;
+    private final AtomicLong tentativiContesi;
+
+    private GestorePosti() {
+        this.viaggioDAO = new ViaggioDAO();
+        this.contatori = new ConcurrentHashMap<>();
+        this.tentativiContesi = new AtomicLong();
+    }
+
+    public static synchronized GestorePosti getInstance() {
+        if (instance == null) {
+            instance = new GestorePosti();
+        }
+        return instance;
+    }
+
+    /**
+     * Prenota posti su un viaggio
+     * @return posti rimanenti dopo la prenotazione, oppure POSTI_INSUFFICIENTI
+     */
+    public int prenota(String viaggioId, int quantita) {
+        AtomicInteger contatore = riserva(viaggioId, quantita);
+        if (contatore == null) {
+            return POSTI_INSUFFICIENTI;
+        }
+
+        int rimanenti;
+        try {
+            rimanenti = viaggioDAO.decrementaPosti(viaggioId, quantita);
+        } catch (RuntimeException e) {
+            contatore.addAndGet(quantita);
+            throw e;
+        }
+        return applica(viaggioId, quantita, rimanenti);
+    }
+
+    /**
+     * Come {@link #prenota(String, int)}, ma il decremento sul database avviene nella stessa
+     * transazione dell'operazione indicata (es. il salvataggio della prenotazione del carrello):
+     * o vengono scritti entrambi o nessuno dei due
+     * @return posti rimanenti dopo la prenotazione, oppure POSTI_INSUFFICIENTI
+     * @throws SQLException se la transazione fallisce; i posti restano disponibili
+     */
+    public int prenota(String viaggioId, int quantita, OperazioneTransazione<?> insieme) throws SQLException {
+        AtomicInteger contatore = riserva(viaggioId, quantita);
+        if (contatore == null) {
+            return POSTI_INSUFFICIENTI;
+        }
+
+        int rimanenti;
+        try {
+            rimanenti = DatabaseManager.getInstance().eseguiTransazione(conn -> {
+                int dopo = viaggioDAO.decrementaPosti(conn, viaggioId, quantita);
+                if (dopo != POSTI_INSUFFICIENTI) {
+                    insieme.esegui(conn);
+                }
+                return dopo;
+            });
+        } catch (SQLException | RuntimeException e) {
+            contatore.addAndGet(quantita);
+            throw e;
+        }
+        return applica(viaggioId, quantita, rimanenti);
+    }
+
+    /**
+     * Toglie e restituisce posti su più viaggi nella stessa transazione dell'operazione indicata
+     * (es. biglietti salvati e prenotazioni eliminate): o viene scritto tutto o niente.
+     * I contatori in memoria e l'indice vengono aggiornati solo dopo il commit.
+     * Un rilascio che supererebbe i posti totali viene saltato e il viaggio risincronizzato
+     * @return risultato dell'operazione, vuoto se i posti da togliere non bastano (nulla viene scritto)
+     * @throws SQLException se la transazione fallisce; i posti restano com'erano
+     */
+    public <T> Optional<T> variaInTransazione(Map<String, Integer> daTogliere, Map<String, Integer> daRestituire,
+                                              OperazioneTransazione<T> insieme) throws SQLException {
+        Map<String, AtomicInteger> riservati = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> voce : daTogliere.entrySet()) {
+            AtomicInteger contatore = riserva(voce.getKey(), voce.getValue());
+            if (contatore == null) {
+                ripristinaRiservati(riservati, daTogliere);
+                return Optional.empty();
+            }
+            riservati.put(voce.getKey(), contatore);
+        }
+
+        List<String> restituiti = new ArrayList<>();
+        T risultato;
+        try {
+            risultato = DatabaseManager.getInstance().eseguiTransazione(conn -> {
+                for (Map.Entry<String, Integer> voce : daTogliere.entrySet()) {
+                    if (viaggioDAO.decrementaPosti(conn, voce.getKey(), voce.getValue()) == POSTI_INSUFFICIENTI) {
+                        throw new PostiEsauriti(voce.getKey());
+                    }
+                }
+                T valore = insieme.esegui(conn);
+                for (Map.Entry<String, Integer> voce : daRestituire.entrySet()) {
+                    if (viaggioDAO.incrementaPosti(conn, voce.getKey(), voce.getValue()) >= 0) {
+                        restituiti.add(voce.getKey());
+                    } else {
+                        logger.warning("Impossibile rilasciare " + voce.getValue() + " posti sul viaggio " + voce.getKey());
+                    }
+                }
+                return valore;
+            });
+        } catch (PostiEsauriti e) {
+            ripristinaRiservati(riservati, daTogliere);
+            logger.warning("Contatore posti disallineato per viaggio " + e.viaggioId + ", risincronizzazione");
+            risincronizza(e.viaggioId);
+            return Optional.empty();
+        } catch (SQLException | RuntimeException e) {
+            ripristinaRiservati(riservati, daTogliere);
+            throw e;
+        }
+
+        IndiceOrari indice = IndiceOrari.getInstance();
+        daTogliere.forEach((viaggioId, quantita) -> indice.variaPosti(viaggioId, -quantita));
+        for (Map.Entry<String, Integer> voce : daRestituire.entrySet()) {
+            if (!restituiti.contains(voce.getKey())) {
+                risincronizza(voce.getKey());
+                continue;
+            }
+            AtomicInteger contatore = contatori.get(voce.getKey());
+            if (contatore != null) {
+                contatore.addAndGet(voce.getValue());
+            }
+            indice.variaPosti(voce.getKey(), voce.getValue());
+        }
+        return Optional.of(risultato);
+    }
+
+    private static void ripristinaRiservati(Map<String, AtomicInteger> riservati, Map<String, Integer> quantita) {
+        riservati.forEach((viaggioId, contatore) -> contatore.addAndGet(quantita.get(viaggioId)));
+    }
+
+    /**
+     * Toglie i posti dal contatore in memoria
+     * @return il contatore, null se il viaggio non esiste o i posti non bastano
+     */
+    private AtomicInteger riserva(String viaggioId, int quantita) {
+        if (quantita <= 0) throw new IllegalArgumentException("Quantità deve essere positiva");
+
+        AtomicInteger contatore = contatore(viaggioId);
+        if (contatore == null) {
+            return null;
+        }
+
+        while (true) {
+            int correnti = contatore.get();
+            if (correnti < quantita) {
+                return null;
+            }
+            if (contatore.compareAndSet(correnti, correnti - quantita)) {
+                return contatore;
+            }
+            tentativiContesi.incrementAndGet();
+        }
+    }
+
+    /**
+     * Allinea indice e contatore all'esito dell'UPDATE sul database.
+     * L'indice riceve la variazione e non il valore assoluto: con prenotazioni concorrenti
+     * un valore letto prima non può sovrascrivere uno più recente
+     */
+    private int applica(String viaggioId, int quantita, int rimanenti) {
+        if (rimanenti == POSTI_INSUFFICIENTI) {
+            logger.warning("Contatore posti disallineato per viaggio " + viaggioId + ", risincronizzazione");
+            risincronizza(viaggioId);
+        } else {
+            IndiceOrari.getInstance().variaPosti(viaggioId, -quantita);
+        }
+        return rimanenti;
+    }
+
+    /**
+     * Restituisce posti a un viaggio senza superare i posti totali
+     * @return posti disponibili dopo il rilascio, oppure -1 se non applicabile
+     */
+    public int rilascia(String viaggioId, int quantita) {
+        if (quantita <= 0) throw new IllegalArgumentException("Quantità deve essere positiva");
+
+        int disponibili = viaggioDAO.incrementaPosti(viaggioId, quantita);
+        if (disponibili < 0) {
+            logger.warning("Impossibile rilasciare " + quantita + " posti sul viaggio " + viaggioId);
+            risincronizza(viaggioId);
+            return disponibili;
+        }
+
+        AtomicInteger contatore = contatori.get(viaggioId);
+        if (contatore != null) {
+            contatore.addAndGet(quantita);
+        }
+        IndiceOrari.getInstance().variaPosti(viaggioId, quantita);
+        return disponibili;
+    }
+
+    /**
+     * Allinea i contatori dopo uno spostamento di posti già applicato sul database
+     * (es. cambio viaggio di un biglietto eseguito in transazione)
+     */
+    public void registraSpostamento(String daViaggioId, String aViaggioId, int quantita) {
+        AtomicInteger destinazione = contatori.get(aViaggioId);
+        if (destinazione != null) {
+            destinazione.addAndGet(-quantita);
+        }
+        AtomicInteger origine = contatori.get(daViaggioId);
+        if (origine != null) {
+            origine.addAndGet(quantita);
+        }
+
+        IndiceOrari indice = IndiceOrari.getInstance();
+        indice.variaPosti(aViaggioId, -quantita);
+        indice.variaPosti(daViaggioId, quantita);
+    }
+
+    /**
+     * Posti disponibili secondo il contatore in memoria
+     */
+    public int getPostiDisponibili(String viaggioId) {
+        AtomicInteger contatore = contatore(viaggioId);
+        return contatore != null ? contatore.get() : 0;
+    }
+
+    /**
+     * Rilegge dal database i posti di un viaggio
+     */
+    public void risincronizza(String viaggioId) {
+        int posti = viaggioDAO.findPostiDisponibili(viaggioId);
+        if (posti < 0) {
+            contatori.remove(viaggioId);
+        } else {
+            AtomicInteger contatore = contatori.get(viaggioId);
+            if (contatore != null) {
+                contatore.set(posti);
+            }
+            IndiceOrari.getInstance().aggiornaPosti(viaggioId, posti);
+        }
+    }
+
+    /**
+     * Dimentica il contatore di un viaggio (es. viaggio eliminato o modificato dall'admin)
+     */
+    public void invalida(String viaggioId) {
+        contatori.remove(viaggioId);
+    }
+
+    public void svuota() {
+        contatori.clear();
+    }
+
+    public long getTentativiContesi() {
+        return tentativiContesi.get();
+    }
+
+    private AtomicInteger contatore(String viaggioId) {
+        AtomicInteger contatore = contatori.get(viaggioId);
+        if (contatore != null) {
+            return contatore;
+        }
+
+        int posti = viaggioDAO.findPostiDisponibili(viaggioId);
+        if (posti < 0) {
+            return null;
+        }
+        AtomicInteger nuovo = new AtomicInteger(posti);
+        AtomicInteger esistente = contatori.putIfAbsent(viaggioId, nuovo);
+        return esistente != null ? esistente : nuovo;
+    }
+
+    /**
+     * Annulla la transazione quando il database ha meno posti del contatore in memoria
+     */
+    private static final class PostiEsauriti extends SQLException {
+        private final String viaggioId;
+
+        private PostiEsauriti(String viaggioId) {
+            super("Posti esauriti sul viaggio " + viaggioId);
+            this.viaggioId = viaggioId;
+        }
+    }
+}
@@ -0,0 +1,281 @@
+package it.trenical.server.viaggi;
+
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Stazione;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Indice in memoria degli orari per la ricerca viaggi.
+ * Pattern Singleton: una cella per ogni coppia (partenza, arrivo) indicizzata per ordinale
+ * delle stazioni, e in ogni cella i viaggi di ciascun giorno in un array ordinato per orario.
+ * Gli array non vengono mai modificati: ogni aggiornamento ne pubblica una copia,
+ * così le ricerche non prendono lock e non toccano il database.
+ * Il ricaricamento completo costruisce una nuova struttura a parte e la pubblica
+ * con un'unica scrittura volatile: una ricerca concorrente vede l'indice vecchio o il nuovo, mai vuoto.
+ * I viaggi indicizzati sono in sola lettura: chi deve modificarli li rilegge dal DAO.
+ */
+public class IndiceOrari {
+    private static final Logger logger = Logger.getLogger(IndiceOrari.class.getName());
+
+    private static final int STAZIONI = Stazione.values().length;
+    private static final Comparator<Viaggio> PER_ORARIO =
+            Comparator.comparing(Viaggio::getOrarioPartenza).thenComparing(Viaggio::getId);
+
+    private static IndiceOrari instance;
+
+    private final ViaggioDAO viaggioDAO;
+    private final AtomicLong versione;
+    private final AtomicLong versioneStruttura;
+    private volatile Struttura struttura;
+
+    private IndiceOrari() {
+        this.viaggioDAO = new ViaggioDAO();
+        this.versione = new AtomicLong();
+        this.versioneStruttura = new AtomicLong();
+        this.struttura = new Struttura();
+        carica();
+    }
+
+    /**
+     * Celle, viaggi per id e calendario pubblicati insieme
+     */
+    private static final class Struttura {
+        final ConcurrentHashMap<LocalDate, Viaggio[]>[] celle;
+        final ConcurrentHashMap<String, Viaggio> perId;
+        final CalendarioTariffe calendario;
+
+        @SuppressWarnings("unchecked")
+        Struttura() {
+            this.celle = new ConcurrentHashMap[STAZIONI * STAZIONI];
+            for (int i = 0; i < celle.length; i++) {
+                celle[i] = new ConcurrentHashMap<>();
+            }
+            this.perId = new ConcurrentHashMap<>();
+            this.calendario = new CalendarioTariffe();
+        }
+    }
+
+    public static synchronized IndiceOrari getInstance() {
+        if (instance == null) {
+            instance = new IndiceOrari();
+        }
+        return instance;
+    }
+
+    /**
+     * Ricostruisce l'indice con i viaggi da oggi in poi
+     */
+    public synchronized void carica() {
+        long inizio = System.nanoTime();
+        List<Viaggio> viaggi = viaggioDAO.findDallaData(LocalDate.now());
+
+        Struttura nuova = new Struttura();
+        for (Viaggio viaggio : viaggi) {
+            inserisci(nuova, viaggio);
+        }
+        struttura = nuova;
+        versioneStruttura.incrementAndGet();
+        versione.incrementAndGet();
+
+        logger.info(String.format("Indice orari caricato: %d viaggi in %.1f ms",
+                viaggi.size(), (System.nanoTime() - inizio) / 1_000_000.0));
+    }
+
+    /**
+     * Viaggi della tratta nel giorno indicato, ordinati per orario di partenza
+     */
+    public List<Viaggio> cerca(Stazione partenza, Stazione arrivo, LocalDate data) {
+        Viaggio[] viaggi = struttura.celle[cella(partenza, arrivo)].get(data);
+        if (viaggi == null) {
+            return Collections.emptyList();
+        }
+        return Collections.unmodifiableList(Arrays.asList(viaggi));
+    }
+
+    /**
+     * Tutti i viaggi indicizzati, in ordine qualsiasi
+     */
+    public List<Viaggio> getViaggi() {
+        return new ArrayList<>(struttura.perId.values());
+    }
+
+    public Optional<Viaggio> trova(String viaggioId) {
+        return Optional.ofNullable(struttura.perId.get(viaggioId));
+    }
+
+    /**
+     * Inserisce o sostituisce un viaggio (es. dopo una modifica dell'amministratore).
+     * Sincronizzato con carica, così la modifica non finisce nella struttura che sta per essere sostituita
+     */
+    public synchronized void aggiorna(Viaggio viaggio) {
+        Struttura corrente = struttura;
+        Viaggio precedente = corrente.perId.get(viaggio.getId());
+        if (precedente != null && !stessaCella(precedente, viaggio)) {
+            togli(corrente, precedente);
+        }
+        inserisci(corrente, viaggio);
+        versioneStruttura.incrementAndGet();
+        versione.incrementAndGet();
+    }
+
+    /**
+     * Rilegge un singolo viaggio dal database e aggiorna l'indice
+     */
+    public void ricarica(String viaggioId) {
+        Optional<Viaggio> viaggioOpt = viaggioDAO.findById(viaggioId);
+        if (viaggioOpt.isPresent()) {
+            aggiorna(viaggioOpt.get());
+        } else {
+            rimuovi(viaggioId);
+        }
+    }
+
+    public synchronized void rimuovi(String viaggioId) {
+        Struttura corrente = struttura;
+        Viaggio viaggio = corrente.perId.get(viaggioId);
+        if (viaggio != null) {
+            togli(corrente, viaggio);
+            versioneStruttura.incrementAndGet();
+            versione.incrementAndGet();
+        }
+    }
+
+    /**
+     * Aggiorna i posti disponibili di un viaggio indicizzato
+     */
+    public void aggiornaPosti(String viaggioId, int postiDisponibili) {
+        Struttura corrente = struttura;
+        Viaggio viaggio = corrente.perId.get(viaggioId);
+        if (viaggio != null) {
+            synchronized (viaggio) {
+                viaggio.impostaPostiDisponibili(postiDisponibili);
+            }
+            ricalcolaTariffa(corrente, viaggio);
+            versione.incrementAndGet();
+        }
+    }
+
+    /**
+     * Applica una variazione relativa ai posti (es. spostamento di un biglietto)
+     */
+    public void variaPosti(String viaggioId, int variazione) {
+        Struttura corrente = struttura;
+        Viaggio viaggio = corrente.perId.get(viaggioId);
+        if (viaggio != null) {
+            synchronized (viaggio) {
+                viaggio.impostaPostiDisponibili(viaggio.getPostiDisponibili() + variazione);
+            }
+            ricalcolaTariffa(corrente, viaggio);
+            versione.incrementAndGet();
+        }
+    }
+
+    public synchronized void svuota() {
+        struttura = new Struttura();
+        versioneStruttura.incrementAndGet();
+        versione.incrementAndGet();
+    }
+
+    public int getNumeroViaggi() {
+        return struttura.perId.size();
+    }
+
+    /**
+     * Tariffa minima e prima partenza per tratta e giorno, aggiornate insieme all'indice
+     */
+    public CalendarioTariffe getCalendario() {
+        return struttura.calendario;
+    }
+
+    /**
+     * Cresce a ogni modifica dell'indice, compresi i posti venduti
+     */
+    public long getVersione() {
+        return versione.get();
+    }
+
+    /**
+     * Cresce solo quando cambiano i viaggi indicizzati (inserimento, rimozione, ricaricamento),
+     * non quando cambiano i posti disponibili
+     */
+    public long getVersioneStruttura() {
+        return versioneStruttura.get();
+    }
+
+    private static void inserisci(Struttura struttura, Viaggio viaggio) {
+        struttura.perId.put(viaggio.getId(), viaggio);
+        struttura.celle[cella(viaggio)].compute(viaggio.getDataViaggio(), (data, viaggi) -> {
+            if (viaggi == null) {
+                return new Viaggio[]{viaggio};
+            }
+            Viaggio[] nuovi;
+            int posizione = indiceDi(viaggi, viaggio.getId());
+            if (posizione >= 0) {
+                nuovi = viaggi.clone();
+                nuovi[posizione] = viaggio;
+            } else {
+                nuovi = Arrays.copyOf(viaggi, viaggi.length + 1);
+                nuovi[viaggi.length] = viaggio;
+            }
+            Arrays.sort(nuovi, PER_ORARIO);
+            return nuovi;
+        });
+        ricalcolaTariffa(struttura, viaggio);
+    }
+
+    private static void togli(Struttura struttura, Viaggio viaggio) {
+        struttura.perId.remove(viaggio.getId(), viaggio);
+        struttura.celle[cella(viaggio)].computeIfPresent(viaggio.getDataViaggio(), (data, viaggi) -> {
+            int posizione = indiceDi(viaggi, viaggio.getId());
+            if (posizione < 0) {
+                return viaggi;
+            }
+            if (viaggi.length == 1) {
+                return null;
+            }
+            Viaggio[] nuovi = new Viaggio[viaggi.length - 1];
+            System.arraycopy(viaggi, 0, nuovi, 0, posizione);
+            System.arraycopy(viaggi, posizione + 1, nuovi, posizione, viaggi.length - posizione - 1);
+            return nuovi;
+        });
+        ricalcolaTariffa(struttura, viaggio);
+    }
+
+    private static void ricalcolaTariffa(Struttura struttura, Viaggio viaggio) {
+        Stazione partenza = viaggio.getTratta().getStazionePartenza();
+        Stazione arrivo = viaggio.getTratta().getStazioneArrivo();
+        struttura.calendario.ricalcola(partenza, arrivo, viaggio.getDataViaggio(),
+                struttura.celle[cella(partenza, arrivo)]);
+    }
+
+    private static int indiceDi(Viaggio[] viaggi, String viaggioId) {
+        for (int i = 0; i < viaggi.length; i++) {
+            if (viaggi[i].getId().equals(viaggioId)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean stessaCella(Viaggio a, Viaggio b) {
+        return cella(a) == cella(b) && a.getDataViaggio().equals(b.getDataViaggio());
+    }
+
+    private static int cella(Viaggio viaggio) {
+        return cella(viaggio.getTratta().getStazionePartenza(), viaggio.getTratta().getStazioneArrivo());
+    }
+
+    private static int cella(Stazione partenza, Stazione arrivo) {
+        return partenza.ordinal() * STAZIONI + arrivo.ordinal();
+    }
+}
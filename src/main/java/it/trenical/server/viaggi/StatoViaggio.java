@@ -1,6 +1,7 @@
 package it.trenical.server.viaggi;
 
 public enum StatoViaggio {
+    // l'ordinale è salvato nel database: nuove costanti solo in fondo
     PROGRAMMATO("Programmato"),
     CONFERMATO("Confermato"),
     IN_VIAGGIO("In Viaggio"),
@@ -0,0 +1,47 @@
+package it.trenical.server.viaggi;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Riepilogo dei viaggi acquistabili di una tratta in un giorno: prezzo più basso,
+ * prima partenza e numero di viaggi. Immutabile, viene sostituito a ogni ricalcolo
+ */
+public final class TariffaGiorno {
+
+    private final LocalDate data;
+    private final double prezzoMinimo;
+    private final LocalTime primaPartenza;
+    private final int viaggiDisponibili;
+
+    TariffaGiorno(LocalDate data, double prezzoMinimo, LocalTime primaPartenza, int viaggiDisponibili) {
+        this.data = data;
+        this.prezzoMinimo = prezzoMinimo;
+        this.primaPartenza = primaPartenza;
+        this.viaggiDisponibili = viaggiDisponibili;
+    }
+
+    /**
+     * Giorno senza viaggi acquistabili
+     */
+    static TariffaGiorno vuota(LocalDate data) {
+        return new TariffaGiorno(data, 0.0, null, 0);
+    }
+
+    public LocalDate getData() { return data; }
+    public double getPrezzoMinimo() { return prezzoMinimo; }
+    public LocalTime getPrimaPartenza() { return primaPartenza; }
+    public int getViaggiDisponibili() { return viaggiDisponibili; }
+
+    public boolean isDisponibile() {
+        return viaggiDisponibili > 0;
+    }
+
+    @Override
+    public String toString() {
+        return isDisponibile()
+                ? String.format("TariffaGiorno[%s, da €%.2f, prima %s, %d viaggi]",
+                        data, prezzoMinimo, primaPartenza, viaggiDisponibili)
+                : "TariffaGiorno[" + data + ", nessun viaggio]";
+    }
+}
@@ -1,5 +1,6 @@
 package it.trenical.server.viaggi;
 
+import it.trenical.server.identificativi.GeneratoriId;
 import it.trenical.server.observer.Notifica;
 import it.trenical.server.observer.Observer;
 import it.trenical.server.promozioni.Promozione;
@@ -14,12 +15,13 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
+import java.util.logging.Logger;
 
 public class Viaggio implements Subject {
-    private static final List<LocalTime> ORARI_PARTENZA_DISPONIBILI = Arrays.asList(
+    private static final Logger logger = Logger.getLogger(Viaggio.class.getName());
+    private static final List<LocalTime> ORARI_PARTENZA_DISPONIBILI = List.of(
             LocalTime.of(4, 0),   // 04:00
             LocalTime.of(6, 0),   // 06:00
             LocalTime.of(8, 0),   // 08:00
@@ -49,16 +51,26 @@ public class Viaggio implements Subject {
     private LocalTime orarioPartenzaEffettivo;
     private LocalTime orarioArrivoEffettivo;
     private LocalDate dataArrivoEffettiva;
-    private int postiDisponibili;
+    private volatile int postiDisponibili;
     private StatoViaggio stato;
     private String motivoCancellazione;
 
     private final List<Observer> observers;
 
     public Viaggio(Treno treno, Tratta tratta, LocalDate dataViaggio) {
+        this(treno, tratta, dataViaggio, generaOrarioRandom(), generaBinarioRandom());
+    }
+
+    /**
+     * Viaggio con orario e binario già scelti (es. generazione massiva dei viaggi)
+     */
+    public Viaggio(Treno treno, Tratta tratta, LocalDate dataViaggio,
+                   LocalTime orarioPartenza, Binario binarioPartenza) {
         if (treno == null) throw new IllegalArgumentException("Treno obbligatorio");
         if (tratta == null) throw new IllegalArgumentException("Tratta obbligatoria");
         if (dataViaggio == null) throw new IllegalArgumentException("Data viaggio obbligatoria");
+        if (orarioPartenza == null) throw new IllegalArgumentException("Orario partenza obbligatorio");
+        if (binarioPartenza == null) throw new IllegalArgumentException("Binario obbligatorio");
         if(dataViaggio.isBefore(LocalDate.now()))
             throw new IllegalArgumentException("Data viaggio non può essere precedente a quella attuale");
 
@@ -66,10 +78,10 @@ public class Viaggio implements Subject {
         this.tratta = tratta;
         this.dataViaggio = dataViaggio;
 
-        this.orarioPartenzaProgrammato = generaOrarioRandom();
+        this.orarioPartenzaProgrammato = orarioPartenza;
         if(dataViaggio.equals(LocalDate.now()) && orarioPartenzaProgrammato.isBefore(LocalTime.now()))
             throw new IllegalArgumentException("L'orario è precedente al corrente");
-        this.binarioPartenza = generaBinarioRandom();
+        this.binarioPartenza = binarioPartenza;
 
         CalcoloViaggioStrategy strategy = StrategyFactory.getStrategy(treno.getTipoTreno());
         this.durataMinuti = strategy.calcolaDurata(tratta.getDistanzaKm(), treno.getTipoTreno());
@@ -126,27 +138,23 @@ public class Viaggio implements Subject {
         return dataOraPartenza.plusMinutes(durataMinuti);
     }
 
-    private LocalTime generaOrarioRandom() {
+    public static List<LocalTime> getOrariPartenzaDisponibili() {
+        return ORARI_PARTENZA_DISPONIBILI;
+    }
+
+    private static LocalTime generaOrarioRandom() {
         int index = (int) (Math.random() * ORARI_PARTENZA_DISPONIBILI.size());
         return ORARI_PARTENZA_DISPONIBILI.get(index);
     }
 
-    private Binario generaBinarioRandom() {
+    private static Binario generaBinarioRandom() {
         Binario[] binari = Binario.values();
         int index = (int) (Math.random() * binari.length);
         return binari[index];
     }
 
     private String generaIdUnico() {
-        String hashInput = String.format("%s_%s_%s_%s_%s_%s",
-                treno.getCodice(),
-                tratta.getStazionePartenza().name(),
-                tratta.getStazioneArrivo().name(),
-                dataViaggio.toString(),
-                orarioPartenzaProgrammato.toString().replace(":", ""),
-                binarioPartenza.name());
-        int hash = Math.abs(hashInput.hashCode());
-        return String.format("V%08d", hash % 100000000);
+        return GeneratoriId.prossimoId("V");
     }
 
     public static List<LocalTime> getOrariDisponibili() {
@@ -169,6 +177,13 @@ public class Viaggio implements Subject {
         return false;
     }
 
+    /**
+     * Allinea i posti a un valore letto dal database (usato dall'indice orari)
+     */
+    public void impostaPostiDisponibili(int postiDisponibili) {
+        this.postiDisponibili = Math.max(0, Math.min(postiDisponibili, treno.getPostiTotali()));
+    }
+
     public boolean hasPostiDisponibili() {
         return postiDisponibili > 0 && stato.isAttivo();
     }
@@ -346,30 +361,25 @@ public class Viaggio implements Subject {
     public void attach(Observer observer) {
         if (observer != null && !observers.contains(observer)) {
             observers.add(observer);
-            System.out.println("Observer " + observer.getObserverId() +
-                    " registrato per viaggio " + getId());
+            logger.fine("Observer " + observer.getObserverId() + " registrato per viaggio " + getId());
         }
     }
 
     @Override
     public void detach(Observer observer) {
         if (observers.remove(observer)) {
-            System.out.println("Observer " + observer.getObserverId() +
-                    " rimosso da viaggio " + getId());
+            logger.fine("Observer " + observer.getObserverId() + " rimosso da viaggio " + getId());
         }
     }
 
     @Override
     public void notifyObservers(Notifica notifica) {
-        System.out.println("Viaggio " + getId() + " notifica " +
-                observers.size() + " observers: " + notifica.getTipo());
+        logger.info("Viaggio " + getId() + " notifica " + observers.size() + " observers: " + notifica.getTipo());
 
         for (Observer observer : observers) {
             observer.update(notifica);
         }
         observers.clear();
-        System.out.println("✅ Observer list pulita per viaggio " + getId() +
-                " dopo invio notifica " + notifica.getTipo());
     }
 
     @Override
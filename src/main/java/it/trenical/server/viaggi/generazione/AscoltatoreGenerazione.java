@@ -0,0 +1,10 @@
+package it.trenical.server.viaggi.generazione;
+
+/**
+ * Riceve l'avanzamento della generazione viaggi, una chiamata per ogni giorno completato.
+ * Può essere invocato da thread diversi.
+ */
+@FunctionalInterface
+public interface AscoltatoreGenerazione {
+    void avanzamento(int giorniCompletati, int giorniTotali, long viaggiCreati);
+}
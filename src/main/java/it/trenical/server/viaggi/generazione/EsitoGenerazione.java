@@ -0,0 +1,34 @@
+package it.trenical.server.viaggi.generazione;
+
+/**
+ * Riepilogo di una generazione viaggi
+ */
+public class EsitoGenerazione {
+    private final long viaggiAttesi;
+    private final long viaggiCreati;
+    private final long slotEsauriti;
+    private final boolean annullata;
+    private final long durataMs;
+
+    public EsitoGenerazione(long viaggiAttesi, long viaggiCreati, long slotEsauriti,
+                            boolean annullata, long durataMs) {
+        this.viaggiAttesi = viaggiAttesi;
+        this.viaggiCreati = viaggiCreati;
+        this.slotEsauriti = slotEsauriti;
+        this.annullata = annullata;
+        this.durataMs = durataMs;
+    }
+
+    public long getViaggiAttesi() { return viaggiAttesi; }
+    public long getViaggiCreati() { return viaggiCreati; }
+    public long getSlotEsauriti() { return slotEsauriti; }
+    public boolean isAnnullata() { return annullata; }
+    public long getDurataMs() { return durataMs; }
+    public boolean isCompleta() { return !annullata && viaggiCreati == viaggiAttesi; }
+
+    @Override
+    public String toString() {
+        return String.format("EsitoGenerazione{creati=%d/%d, slotEsauriti=%d, annullata=%s, %d ms}",
+                viaggiCreati, viaggiAttesi, slotEsauriti, annullata, durataMs);
+    }
+}
@@ -0,0 +1,251 @@
+package it.trenical.server.viaggi.generazione;
+
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Binario;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Generazione massiva dei viaggi su un intervallo di date.
+ * I conflitti vengono risolti in memoria prima di scrivere: per ogni giorno un insieme
+ * di occupazione (stazione, orario, binario, treno), la stessa chiave del vincolo UNIQUE
+ * sulla tabella viaggi, caricato con i viaggi già presenti. Ogni viaggio sceglie a caso
+ * tra gli slot liberi della stazione, quindi non servono tentativi ripetuti.
+ * I giorni sono indipendenti e vengono elaborati in parallelo con un ForkJoinPool;
+ * ogni giorno viene scritto con un'unica transazione batch.
+ */
+public class GeneratoreViaggi {
+    private static final Logger logger = Logger.getLogger(GeneratoreViaggi.class.getName());
+
+    private static final List<LocalTime> ORARI = Viaggio.getOrariPartenzaDisponibili();
+    private static final Binario[] BINARI = Binario.values();
+    private static final int DIMENSIONE_BATCH = 2_000;
+
+    private final ViaggioDAO viaggioDAO;
+    private final List<Treno> treni;
+    private final Map<String, Integer> indiceTreni;
+    private final AtomicBoolean annullata;
+
+    public GeneratoreViaggi(ViaggioDAO viaggioDAO, List<Treno> treni) {
+        if (treni == null || treni.isEmpty()) throw new IllegalArgumentException("Serve almeno un treno");
+        this.viaggioDAO = viaggioDAO;
+        this.treni = List.copyOf(treni);
+        this.indiceTreni = new HashMap<>();
+        for (int i = 0; i < this.treni.size(); i++) {
+            indiceTreni.put(this.treni.get(i).getCodice(), i);
+        }
+        this.annullata = new AtomicBoolean();
+    }
+
+    /**
+     * Genera viaggiPerTratta viaggi al giorno per ogni tratta, dal giorno inizio al giorno fine compresi.
+     * Blocca il chiamante fino al termine o all'annullamento: va eseguito fuori dal thread della GUI.
+     */
+    public EsitoGenerazione genera(LocalDate inizio, LocalDate fine, List<Tratta> tratte,
+                                   int viaggiPerTratta, AscoltatoreGenerazione ascoltatore) {
+        if (inizio == null || fine == null || inizio.isAfter(fine))
+            throw new IllegalArgumentException("Intervallo date non valido");
+        if (viaggiPerTratta <= 0) throw new IllegalArgumentException("Viaggi per tratta deve essere positivo");
+
+        annullata.set(false);
+        long avvio = System.nanoTime();
+        int giorni = (int) ChronoUnit.DAYS.between(inizio, fine) + 1;
+        long attesi = (long) tratte.size() * viaggiPerTratta * giorni;
+
+        Avanzamento avanzamento = new Avanzamento(giorni, ascoltatore);
+        ForkJoinPool pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            pool.invoke(new GenerazioneGiorni(inizio, giorni, tratte, viaggiPerTratta, avanzamento));
+        } finally {
+            pool.shutdown();
+        }
+
+        EsitoGenerazione esito = new EsitoGenerazione(attesi, avanzamento.creati.get(),
+                avanzamento.esauriti.get(), annullata.get(),
+                (System.nanoTime() - avvio) / 1_000_000);
+        logger.info("Generazione viaggi terminata: " + esito);
+        return esito;
+    }
+
+    /**
+     * Chiede l'interruzione: i giorni già scritti restano, quelli non ancora iniziati vengono saltati
+     */
+    public void annulla() {
+        annullata.set(true);
+    }
+
+    public boolean isAnnullata() {
+        return annullata.get();
+    }
+
+    /**
+     * Divide l'intervallo di date a metà finché resta un solo giorno
+     */
+    private class GenerazioneGiorni extends RecursiveAction {
+        private final LocalDate primo;
+        private final int giorni;
+        private final List<Tratta> tratte;
+        private final int viaggiPerTratta;
+        private final Avanzamento avanzamento;
+
+        GenerazioneGiorni(LocalDate primo, int giorni, List<Tratta> tratte, int viaggiPerTratta,
+                          Avanzamento avanzamento) {
+            this.primo = primo;
+            this.giorni = giorni;
+            this.tratte = tratte;
+            this.viaggiPerTratta = viaggiPerTratta;
+            this.avanzamento = avanzamento;
+        }
+
+        @Override
+        protected void compute() {
+            if (annullata.get()) {
+                return;
+            }
+            if (giorni == 1) {
+                generaGiorno(primo, tratte, viaggiPerTratta, avanzamento);
+                return;
+            }
+            int meta = giorni / 2;
+            invokeAll(
+                    new GenerazioneGiorni(primo, meta, tratte, viaggiPerTratta, avanzamento),
+                    new GenerazioneGiorni(primo.plusDays(meta), giorni - meta, tratte, viaggiPerTratta, avanzamento));
+        }
+    }
+
+    private void generaGiorno(LocalDate data, List<Tratta> tratte, int viaggiPerTratta, Avanzamento avanzamento) {
+        BitSet occupati = caricaOccupazione(data);
+        int primoOrario = primoOrarioValido(data);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        List<Viaggio> nuovi = new ArrayList<>(tratte.size() * viaggiPerTratta);
+        int esauriti = 0;
+        for (Tratta tratta : tratte) {
+            int stazione = tratta.getStazionePartenza().ordinal();
+            for (int i = 0; i < viaggiPerTratta; i++) {
+                int slot = scegliSlotLibero(occupati, stazione, primoOrario, random);
+                if (slot < 0) {
+                    esauriti++;
+                    continue;
+                }
+                occupati.set(slot);
+                int treno = slot % treni.size();
+                int binario = (slot / treni.size()) % BINARI.length;
+                int orario = (slot / (treni.size() * BINARI.length)) % ORARI.size();
+                nuovi.add(new Viaggio(treni.get(treno), tratta, data, ORARI.get(orario), BINARI[binario]));
+            }
+        }
+
+        long creati = 0;
+        for (int da = 0; da < nuovi.size() && !annullata.get(); da += DIMENSIONE_BATCH) {
+            List<Viaggio> salvati = viaggioDAO.saveAll(nuovi.subList(da, Math.min(da + DIMENSIONE_BATCH, nuovi.size())));
+            IndiceOrari indice = IndiceOrari.getInstance();
+            for (Viaggio viaggio : salvati) {
+                indice.aggiorna(viaggio);
+            }
+            creati += salvati.size();
+        }
+
+        if (esauriti > 0) {
+            logger.warning("Slot esauriti per " + esauriti + " viaggi il " + data);
+        }
+        avanzamento.giornoCompletato(creati, esauriti);
+    }
+
+    /**
+     * Slot occupati dai viaggi già presenti nel giorno
+     */
+    private BitSet caricaOccupazione(LocalDate data) {
+        BitSet occupati = new BitSet(Stazione.values().length * ORARI.size() * BINARI.length * treni.size());
+        for (Viaggio viaggio : viaggioDAO.findByData(data)) {
+            int orario = ORARI.indexOf(viaggio.getOrarioPartenza());
+            Integer treno = indiceTreni.get(viaggio.getTreno().getCodice());
+            if (orario >= 0 && treno != null && viaggio.getBinarioPartenza() != null) {
+                occupati.set(slot(viaggio.getTratta().getStazionePartenza().ordinal(), orario,
+                        viaggio.getBinarioPartenza().ordinal(), treno));
+            }
+        }
+        return occupati;
+    }
+
+    /**
+     * Sceglie uniformemente uno degli slot liberi della stazione
+     * @return lo slot oppure -1 se la stazione è piena
+     */
+    private int scegliSlotLibero(BitSet occupati, int stazione, int primoOrario, ThreadLocalRandom random) {
+        int perOrario = BINARI.length * treni.size();
+        int da = slot(stazione, primoOrario, 0, 0);
+        int a = slot(stazione, 0, 0, 0) + ORARI.size() * perOrario;
+
+        int liberi = (a - da) - occupati.get(da, a).cardinality();
+        if (liberi <= 0) {
+            return -1;
+        }
+        int scelto = random.nextInt(liberi);
+        int slot = occupati.nextClearBit(da);
+        for (int i = 0; i < scelto; i++) {
+            slot = occupati.nextClearBit(slot + 1);
+        }
+        return slot;
+    }
+
+    /**
+     * Per il giorno corrente salta gli orari già passati
+     */
+    private static int primoOrarioValido(LocalDate data) {
+        if (!data.equals(LocalDate.now())) {
+            return 0;
+        }
+        LocalTime adesso = LocalTime.now();
+        int primo = 0;
+        while (primo < ORARI.size() && ORARI.get(primo).isBefore(adesso)) {
+            primo++;
+        }
+        return primo;
+    }
+
+    private int slot(int stazione, int orario, int binario, int treno) {
+        return ((stazione * ORARI.size() + orario) * BINARI.length + binario) * treni.size() + treno;
+    }
+
+    private static class Avanzamento {
+        private final int giorniTotali;
+        private final AscoltatoreGenerazione ascoltatore;
+        private final AtomicInteger giorniCompletati = new AtomicInteger();
+        private final AtomicLong creati = new AtomicLong();
+        private final AtomicLong esauriti = new AtomicLong();
+
+        Avanzamento(int giorniTotali, AscoltatoreGenerazione ascoltatore) {
+            this.giorniTotali = giorniTotali;
+            this.ascoltatore = ascoltatore;
+        }
+
+        void giornoCompletato(long viaggiCreati, int slotEsauriti) {
+            long totale = creati.addAndGet(viaggiCreati);
+            esauriti.addAndGet(slotEsauriti);
+            int completati = giorniCompletati.incrementAndGet();
+            if (ascoltatore != null) {
+                ascoltatore.avanzamento(completati, giorniTotali, totale);
+            }
+        }
+    }
+}
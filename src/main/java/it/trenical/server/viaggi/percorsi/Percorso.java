@@ -0,0 +1,64 @@
+package it.trenical.server.viaggi.percorsi;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Soluzione di viaggio composta da uno o più viaggi consecutivi con cambio in stazione
+ */
+public class Percorso {
+
+    private final List<Viaggio> tratte;
+    private final double prezzoTotale;
+
+    public Percorso(List<Viaggio> tratte) {
+        if (tratte == null || tratte.isEmpty()) {
+            throw new IllegalArgumentException("Il percorso deve avere almeno una tratta");
+        }
+        this.tratte = Collections.unmodifiableList(new ArrayList<>(tratte));
+        double totale = 0;
+        for (Viaggio viaggio : tratte) {
+            totale += viaggio.getPrezzo();
+        }
+        this.prezzoTotale = totale;
+    }
+
+    public List<Viaggio> getTratte() { return tratte; }
+    public double getPrezzoTotale() { return prezzoTotale; }
+
+    public int getCambi() {
+        return tratte.size() - 1;
+    }
+
+    public LocalDateTime getPartenza() {
+        return tratte.get(0).getDataOraPartenzaEffettiva();
+    }
+
+    public LocalDateTime getArrivo() {
+        return tratte.get(tratte.size() - 1).getDataOraArrivoEffettiva();
+    }
+
+    public long getDurataMinuti() {
+        return Duration.between(getPartenza(), getArrivo()).toMinutes();
+    }
+
+    public List<Stazione> getStazioniCambio() {
+        List<Stazione> stazioni = new ArrayList<>(getCambi());
+        for (int i = 1; i < tratte.size(); i++) {
+            stazioni.add(tratte.get(i).getTratta().getStazionePartenza());
+        }
+        return stazioni;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Percorso[%s -> %s, cambi=%d, €%.2f]",
+                getPartenza(), getArrivo(), getCambi(), prezzoTotale);
+    }
+}
@@ -0,0 +1,90 @@
+package it.trenical.server.viaggi.percorsi;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.viaggi.IndiceOrari;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Pianificazione di percorsi con cambi sull'orario dell'indice in memoria.
+ * Pattern Singleton: tiene la tabella delle connessioni costruita dall'{@link IndiceOrari}
+ * e la ricostruisce quando cambiano i viaggi indicizzati (non i soli posti), al più una volta per intervallo.
+ * La disponibilità dei posti si controlla durante la ricerca sui viaggi dell'indice,
+ * quindi una tabella non ancora ricostruita non propone viaggi esauriti o cancellati.
+ */
+public class PianificatoreViaggi {
+    private static final Logger logger = Logger.getLogger(PianificatoreViaggi.class.getName());
+
+    public static final int CAMBIO_MINIMO_MINUTI = Integer.getInteger("trenical.percorsi.cambio.minuti", 10);
+    public static final int MASSIMO_CAMBI = Integer.getInteger("trenical.percorsi.cambi.massimi", 2);
+    public static final long ORIZZONTE_MINUTI = TimeUnit.HOURS.toMinutes(
+            Integer.getInteger("trenical.percorsi.orizzonte.ore", 24));
+    private static final long INTERVALLO_RICOSTRUZIONE = TimeUnit.SECONDS.toNanos(
+            Integer.getInteger("trenical.percorsi.ricostruzione.secondi", 5));
+
+    private static PianificatoreViaggi instance;
+
+    private final IndiceOrari indiceOrari;
+    private volatile RicercaPercorsi ricerca;
+    private volatile long versioneTabella;
+    private volatile long costruitaIl;
+
+    private PianificatoreViaggi() {
+        this.indiceOrari = IndiceOrari.getInstance();
+        this.versioneTabella = -1;
+    }
+
+    public static synchronized PianificatoreViaggi getInstance() {
+        if (instance == null) {
+            instance = new PianificatoreViaggi();
+        }
+        return instance;
+    }
+
+    /**
+     * Percorsi non dominati per arrivo, cambi e prezzo con partenza da {@code dopo}
+     * entro l'orizzonte configurato
+     */
+    public List<Percorso> pianifica(Stazione partenza, Stazione arrivo, LocalDateTime dopo, int massimoCambi) {
+        int cambi = Math.min(Math.max(0, massimoCambi), MASSIMO_CAMBI);
+        return ricerca().cerca(partenza, arrivo, dopo, cambi, ORIZZONTE_MINUTI);
+    }
+
+    /**
+     * Forza la ricostruzione della tabella alla prossima ricerca
+     */
+    public void invalida() {
+        versioneTabella = -1;
+        costruitaIl = System.nanoTime() - INTERVALLO_RICOSTRUZIONE;
+    }
+
+    private RicercaPercorsi ricerca() {
+        RicercaPercorsi attuale = ricerca;
+        if (attuale != null && !daRicostruire()) {
+            return attuale;
+        }
+        synchronized (this) {
+            if (ricerca == null || daRicostruire()) {
+                long inizio = System.nanoTime();
+                long versione = indiceOrari.getVersioneStruttura();
+                TabellaConnessioni tabella = TabellaConnessioni.costruisci(indiceOrari.getViaggi());
+
+                ricerca = new RicercaPercorsi(tabella, CAMBIO_MINIMO_MINUTI);
+                versioneTabella = versione;
+                costruitaIl = System.nanoTime();
+
+                logger.info(String.format("Tabella connessioni costruita: %d connessioni in %.1f ms",
+                        tabella.getNumeroConnessioni(), (costruitaIl - inizio) / 1_000_000.0));
+            }
+            return ricerca;
+        }
+    }
+
+    private boolean daRicostruire() {
+        return indiceOrari.getVersioneStruttura() != versioneTabella
+                && System.nanoTime() - costruitaIl >= INTERVALLO_RICOSTRUZIONE;
+    }
+}
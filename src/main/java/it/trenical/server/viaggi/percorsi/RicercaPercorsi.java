@@ -0,0 +1,170 @@
+package it.trenical.server.viaggi.percorsi;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ricerca dei percorsi con l'algoritmo Connection Scan su una {@link TabellaConnessioni}.
+ * Le connessioni si scorrono una volta sola in ordine di partenza dal momento richiesto;
+ * ogni stazione tiene l'insieme delle etichette non dominate per (arrivo, tratte, prezzo)
+ * e una connessione estende le etichette della sua stazione di partenza se c'è tempo
+ * per il cambio. Il risultato è l'insieme Pareto-ottimo della stazione di arrivo.
+ * Le connessioni dominate da un'etichetta già arrivata a destinazione si scartano subito.
+ */
+public class RicercaPercorsi {
+
+    private static final int STAZIONI = Stazione.values().length;
+    private static final Comparator<Etichetta> PER_ARRIVO = Comparator
+            .comparingLong((Etichetta e) -> e.arrivo)
+            .thenComparingInt(e -> e.tratte)
+            .thenComparingDouble(e -> e.prezzo);
+
+    private final TabellaConnessioni tabella;
+    private final int cambioMinimoMinuti;
+
+    public RicercaPercorsi(TabellaConnessioni tabella, int cambioMinimoMinuti) {
+        if (cambioMinimoMinuti < 0) {
+            throw new IllegalArgumentException("Il tempo di cambio non può essere negativo");
+        }
+        this.tabella = tabella;
+        this.cambioMinimoMinuti = cambioMinimoMinuti;
+    }
+
+    /**
+     * @param dopo            primo momento utile per partire
+     * @param massimoCambi    cambi ammessi, 0 per i soli viaggi diretti
+     * @param orizzonteMinuti finestra di partenze considerate a partire da {@code dopo}
+     * @return percorsi non dominati ordinati per arrivo, cambi e prezzo
+     */
+    @SuppressWarnings("unchecked")
+    public List<Percorso> cerca(Stazione partenza, Stazione arrivo, LocalDateTime dopo,
+                                int massimoCambi, long orizzonteMinuti) {
+        if (partenza == null || arrivo == null || dopo == null) {
+            throw new IllegalArgumentException("Stazioni e orario obbligatori");
+        }
+        if (partenza == arrivo) {
+            throw new IllegalArgumentException("Stazione di partenza e arrivo devono essere diverse");
+        }
+
+        int origine = partenza.ordinal();
+        int destinazione = arrivo.ordinal();
+        int massimoTratte = Math.max(0, massimoCambi) + 1;
+        long inizio = TabellaConnessioni.minuti(dopo);
+        long fine = inizio + orizzonteMinuti;
+
+        List<Etichetta>[] insiemi = new List[STAZIONI];
+        for (int s = 0; s < STAZIONI; s++) {
+            insiemi[s] = new ArrayList<>(2);
+        }
+        insiemi[origine].add(new Etichetta(inizio, 0, 0, -1, null));
+        List<Etichetta> aDestinazione = insiemi[destinazione];
+
+        int[] partenze = tabella.partenze;
+        int[] arrivi = tabella.arrivi;
+        long[] orariPartenza = tabella.orariPartenza;
+        long[] orariArrivo = tabella.orariArrivo;
+        double[] prezzi = tabella.prezzi;
+        Viaggio[] viaggi = tabella.viaggi;
+
+        for (int c = tabella.primaDa(inizio); c < viaggi.length && orariPartenza[c] <= fine; c++) {
+            int da = partenze[c];
+            int a = arrivi[c];
+            List<Etichetta> etichette = insiemi[da];
+            if (etichette.isEmpty() || da == destinazione || a == origine) {
+                continue;
+            }
+            if (!acquistabile(viaggi[c])) {
+                continue;
+            }
+
+            for (int i = 0; i < etichette.size(); i++) {
+                Etichetta etichetta = etichette.get(i);
+                if (etichetta.tratte >= massimoTratte) {
+                    continue;
+                }
+                long pronto = etichetta.precedente == null
+                        ? etichetta.arrivo
+                        : etichetta.arrivo + cambioMinimoMinuti;
+                if (orariPartenza[c] < pronto) {
+                    continue;
+                }
+
+                Etichetta nuova = new Etichetta(orariArrivo[c], etichetta.tratte + 1,
+                        etichetta.prezzo + prezzi[c], c, etichetta);
+                if (a != destinazione && dominata(aDestinazione, nuova)) {
+                    continue;
+                }
+                inserisci(insiemi[a], nuova);
+            }
+        }
+
+        List<Etichetta> risultati = new ArrayList<>(aDestinazione);
+        risultati.sort(PER_ARRIVO);
+        List<Percorso> percorsi = new ArrayList<>(risultati.size());
+        for (Etichetta etichetta : risultati) {
+            percorsi.add(ricostruisci(etichetta));
+        }
+        return percorsi;
+    }
+
+    public TabellaConnessioni getTabella() {
+        return tabella;
+    }
+
+    private Percorso ricostruisci(Etichetta etichetta) {
+        Viaggio[] tratte = new Viaggio[etichetta.tratte];
+        for (Etichetta e = etichetta; e.precedente != null; e = e.precedente) {
+            tratte[e.tratte - 1] = tabella.viaggi[e.connessione];
+        }
+        return new Percorso(List.of(tratte));
+    }
+
+    private static boolean acquistabile(Viaggio viaggio) {
+        return viaggio.isDisponibile() && viaggio.getPostiDisponibili() > 0;
+    }
+
+    private static boolean dominata(List<Etichetta> etichette, Etichetta candidata) {
+        for (int i = 0; i < etichette.size(); i++) {
+            if (etichette.get(i).domina(candidata)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Aggiunge l'etichetta se nessuna la domina e toglie quelle che domina
+     */
+    private static void inserisci(List<Etichetta> etichette, Etichetta nuova) {
+        if (dominata(etichette, nuova)) {
+            return;
+        }
+        etichette.removeIf(nuova::domina);
+        etichette.add(nuova);
+    }
+
+    private static final class Etichetta {
+        final long arrivo;
+        final int tratte;
+        final double prezzo;
+        final int connessione;
+        final Etichetta precedente;
+
+        Etichetta(long arrivo, int tratte, double prezzo, int connessione, Etichetta precedente) {
+            this.arrivo = arrivo;
+            this.tratte = tratte;
+            this.prezzo = prezzo;
+            this.connessione = connessione;
+            this.precedente = precedente;
+        }
+
+        boolean domina(Etichetta altra) {
+            return arrivo <= altra.arrivo && tratte <= altra.tratte && prezzo <= altra.prezzo;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package it.trenical.server.viaggi.percorsi;
+
+import it.trenical.server.viaggi.Viaggio;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+
+/**
+ * Orario come elenco di connessioni ordinate per partenza, una per viaggio.
+ * I campi stanno in array paralleli (stazioni per ordinale, orari in minuti dall'epoca)
+ * così la scansione legge memoria contigua senza passare dagli oggetti Viaggio;
+ * il viaggio serve solo per la disponibilità e per ricostruire il percorso.
+ * La tabella non viene mai modificata: a ogni cambio dell'orario se ne costruisce una nuova.
+ */
+public final class TabellaConnessioni {
+
+    private static final Comparator<Viaggio> PER_PARTENZA =
+            Comparator.comparing(Viaggio::getDataOraPartenzaEffettiva).thenComparing(Viaggio::getId);
+
+    final int[] partenze;
+    final int[] arrivi;
+    final long[] orariPartenza;
+    final long[] orariArrivo;
+    final double[] prezzi;
+    final Viaggio[] viaggi;
+
+    private TabellaConnessioni(Viaggio[] viaggi) {
+        int n = viaggi.length;
+        this.viaggi = viaggi;
+        this.partenze = new int[n];
+        this.arrivi = new int[n];
+        this.orariPartenza = new long[n];
+        this.orariArrivo = new long[n];
+        this.prezzi = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            Viaggio viaggio = viaggi[i];
+            partenze[i] = viaggio.getTratta().getStazionePartenza().ordinal();
+            arrivi[i] = viaggio.getTratta().getStazioneArrivo().ordinal();
+            orariPartenza[i] = minuti(viaggio.getDataOraPartenzaEffettiva());
+            orariArrivo[i] = minuti(viaggio.getDataOraArrivoEffettiva());
+            prezzi[i] = viaggio.getPrezzo();
+        }
+    }
+
+    public static TabellaConnessioni costruisci(Collection<Viaggio> viaggi) {
+        Viaggio[] ordinati = viaggi.toArray(new Viaggio[0]);
+        Arrays.sort(ordinati, PER_PARTENZA);
+        return new TabellaConnessioni(ordinati);
+    }
+
+    public int getNumeroConnessioni() {
+        return viaggi.length;
+    }
+
+    /**
+     * Ricerca binaria della prima connessione che parte non prima del minuto indicato
+     */
+    int primaDa(long minuto) {
+        int basso = 0;
+        int alto = orariPartenza.length;
+        while (basso < alto) {
+            int medio = (basso + alto) >>> 1;
+            if (orariPartenza[medio] < minuto) {
+                basso = medio + 1;
+            } else {
+                alto = medio;
+            }
+        }
+        return basso;
+    }
+
+    static long minuti(LocalDateTime dataOra) {
+        return dataOra.toLocalDate().toEpochDay() * 1440
+                + dataOra.getHour() * 60 + dataOra.getMinute();
+    }
+}
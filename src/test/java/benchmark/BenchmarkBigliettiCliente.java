@@ -0,0 +1,178 @@
+package benchmark;
+
+import it.trenical.server.cliente.Biglietto;
+import it.trenical.server.cliente.Cliente;
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.dao.BigliettoDAO;
+import it.trenical.server.db.dao.ClienteDAO;
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.Viaggio;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Confronta il caricamento dei biglietti di un cliente con JOIN (BigliettoDAO.findByClienteEmail)
+ * e il vecchio schema N+1 (una query per i biglietti + una findById per ogni biglietto).
+ * Riporta numero di query e latenza mediana al crescere dei biglietti.
+ *
+ * Uso: java -Dtrenical.db.percorso=bench.db benchmark.BenchmarkBigliettiCliente [10,100,300]
+ * Si consiglia un database di prova: il benchmark crea e poi elimina i propri dati.
+ */
+public class BenchmarkBigliettiCliente {
+
+    private static final String EMAIL = "benchmark.biglietti@trenical.it";
+    private static final int VIAGGI = 10;
+    private static final int RIPETIZIONI = 20;
+
+    private final DatabaseManager dbManager = DatabaseManager.getInstance();
+    private final ViaggioDAO viaggioDAO = new ViaggioDAO();
+    private final BigliettoDAO bigliettoDAO = new BigliettoDAO(viaggioDAO);
+    private final ClienteDAO clienteDAO = new ClienteDAO();
+    private final List<Viaggio> viaggi = new ArrayList<>();
+
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        int[] dimensioni = args.length > 0
+                ? Arrays.stream(args[0].split(",")).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10, 100, 300, 1000};
+
+        BenchmarkBigliettiCliente benchmark = new BenchmarkBigliettiCliente();
+        try {
+            benchmark.preparaViaggi();
+            System.out.printf("%10s | %12s %12s | %12s %12s%n",
+                    "biglietti", "query JOIN", "ms JOIN", "query N+1", "ms N+1");
+            for (int n : dimensioni) {
+                benchmark.eseguiMisura(n);
+            }
+        } finally {
+            benchmark.pulisci();
+            DatabaseManager.getInstance().chiudi();
+        }
+    }
+
+    private void preparaViaggi() {
+        pulisci();
+        clienteDAO.save(new Cliente(EMAIL, "benchmark", "Benchmark"));
+
+        TrenoDirector director = new TrenoDirector();
+        for (int i = 0; i < VIAGGI; i++) {
+            Viaggio viaggio = new Viaggio(
+                    director.costruisciTrenoEconomy(String.format("BENCH%03d", i)),
+                    new Tratta(Stazione.MILANO, Stazione.ROMA),
+                    LocalDate.now().plusDays(90 + i));
+            if (!viaggioDAO.save(viaggio)) {
+                throw new IllegalStateException("Impossibile salvare il viaggio di benchmark " + viaggio.getId());
+            }
+            viaggi.add(viaggio);
+        }
+    }
+
+    private void eseguiMisura(int numeroBiglietti) {
+        rimuoviBiglietti();
+        List<Biglietto> biglietti = new ArrayList<>();
+        for (int i = 0; i < numeroBiglietti; i++) {
+            Biglietto biglietto = new Biglietto(viaggi.get(i % VIAGGI));
+            biglietto.setNominativo("Passeggero " + i);
+            biglietti.add(biglietto);
+        }
+        bigliettoDAO.saveAll(biglietti, EMAIL);
+
+        // riscaldamento
+        for (int i = 0; i < 3; i++) {
+            bigliettoDAO.findByClienteEmail(EMAIL);
+            caricaConNPiuUno();
+        }
+
+        long[] tempiJoin = new long[RIPETIZIONI];
+        long[] tempiN1 = new long[RIPETIZIONI];
+        long queryJoin = 0;
+        long queryN1 = 0;
+
+        for (int r = 0; r < RIPETIZIONI; r++) {
+            long statementPrima = dbManager.getStatementPreparati();
+            long inizio = System.nanoTime();
+            int trovati = bigliettoDAO.findByClienteEmail(EMAIL).size();
+            tempiJoin[r] = System.nanoTime() - inizio;
+            queryJoin = dbManager.getStatementPreparati() - statementPrima;
+            verifica(trovati, numeroBiglietti);
+
+            statementPrima = dbManager.getStatementPreparati();
+            inizio = System.nanoTime();
+            trovati = caricaConNPiuUno();
+            tempiN1[r] = System.nanoTime() - inizio;
+            queryN1 = dbManager.getStatementPreparati() - statementPrima;
+            verifica(trovati, numeroBiglietti);
+        }
+
+        System.out.printf("%10d | %12d %12.2f | %12d %12.2f%n",
+                numeroBiglietti, queryJoin, mediana(tempiJoin), queryN1, mediana(tempiN1));
+    }
+
+    /**
+     * Riproduce il caricamento precedente: prima le righe dei biglietti, poi un viaggio per volta
+     */
+    private int caricaConNPiuUno() {
+        List<String> viaggiId = new ArrayList<>();
+        try (ConnessioneDB conn = dbManager.lettura();
+             PreparedStatement stmt = conn.prepara("SELECT viaggio_id FROM biglietti WHERE cliente_email = ?")) {
+            stmt.setString(1, EMAIL);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    viaggiId.add(rs.getString(1));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+
+        int caricati = 0;
+        for (String viaggioId : viaggiId) {
+            if (viaggioDAO.findById(viaggioId).isPresent()) {
+                caricati++;
+            }
+        }
+        return caricati;
+    }
+
+    private void rimuoviBiglietti() {
+        try (ConnessioneDB conn = dbManager.scrittura();
+             PreparedStatement stmt = conn.prepara("DELETE FROM biglietti WHERE cliente_email = ?")) {
+            stmt.setString(1, EMAIL);
+            stmt.executeUpdate();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void pulisci() {
+        rimuoviBiglietti();
+        for (Viaggio viaggio : viaggi) {
+            viaggioDAO.delete(viaggio.getId());
+        }
+        clienteDAO.delete(EMAIL);
+    }
+
+    private static void verifica(int trovati, int attesi) {
+        if (trovati != attesi) {
+            throw new IllegalStateException("Attesi " + attesi + " biglietti, trovati " + trovati);
+        }
+    }
+
+    private static double mediana(long[] tempiNs) {
+        long[] ordinati = tempiNs.clone();
+        Arrays.sort(ordinati);
+        return ordinati[ordinati.length / 2] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,439 @@
+package benchmark;
+
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import it.trenical.grpc.*;
+import it.trenical.server.cliente.Cliente;
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.DatabaseManager;
+import it.trenical.server.db.dao.ClienteDAO;
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.grpc.EsecutoreRichieste;
+import it.trenical.server.grpc.LimitatoreConcorrenza;
+import it.trenical.server.grpc.TrenicalServiceImpl;
+import it.trenical.server.metriche.IstogrammaLatenze;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.GestorePosti;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.generazione.GeneratoreViaggi;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Generatore di carico end-to-end sul servizio gRPC.
+ * Avvia TrenicalServiceImpl su una porta locale, con lo stesso esecutore e limitatore di ServerMain,
+ * e invia richieste a ritmo costante (ciclo aperto): gli arrivi non aspettano le risposte,
+ * e la latenza è misurata dall'istante in cui la richiesta era prevista, così i rallentamenti
+ * del server non vengono nascosti (coordinated omission).
+ *
+ * Uso: java -Dtrenical.db.percorso=carico.db benchmark.GeneratoreCarico
+ *   -Dcarico.rps=200 -Dcarico.durata=30 -Dcarico.clienti=2000 -Dcarico.viaggi=5
+ *   -Dcarico.mix=cerca:60,carrello:20,acquisto:10,biglietti:5,notifiche:5
+ * Senza trenical.db.percorso usa un database temporaneo con lo schema di trenical.sql,
+ * eliminato alla fine: non scrive mai su trenical.db. Con un percorso esplicito crea e poi elimina i propri dati.
+ */
+public class GeneratoreCarico {
+
+    private static final String PROPRIETA_DATABASE = "trenical.db.percorso";
+    private static final String PREFISSO_TRENO = "CARICO";
+    private static final String DOMINIO_CLIENTI = "@carico.trenical.it";
+    private static final int MASSIMO_IN_VOLO = 20_000;
+    private static final List<Tratta> TRATTE = List.of(
+            new Tratta(Stazione.ROMA, Stazione.MILANO),
+            new Tratta(Stazione.MILANO, Stazione.ROMA),
+            new Tratta(Stazione.NAPOLI, Stazione.ROMA),
+            new Tratta(Stazione.BOLOGNA, Stazione.FIRENZE),
+            new Tratta(Stazione.TORINO, Stazione.VENEZIA));
+
+    private enum Operazione { CERCA, CARRELLO, ACQUISTO, BIGLIETTI, NOTIFICHE }
+
+    private final int richiestePerSecondo = Integer.getInteger("carico.rps", 200);
+    private final int durataSecondi = Integer.getInteger("carico.durata", 30);
+    private final int numeroClienti = Integer.getInteger("carico.clienti", 2000);
+    private final int viaggiPerTratta = Integer.getInteger("carico.viaggi", 5);
+    private final Map<Operazione, Integer> mix = leggiMix(System.getProperty("carico.mix",
+            "cerca:60,carrello:20,acquisto:10,biglietti:5,notifiche:5"));
+
+    private final LocalDate giorno = LocalDate.now().plusDays(200);
+    private final ViaggioDAO viaggioDAO = new ViaggioDAO();
+    private final ClienteDAO clienteDAO = new ClienteDAO();
+    private final List<Viaggio> viaggi = new ArrayList<>();
+    private final List<String> clienti = new ArrayList<>();
+
+    private final Map<Operazione, IstogrammaLatenze> latenze = new EnumMap<>(Operazione.class);
+    private final Map<Operazione, AtomicLong> rifiutate = new EnumMap<>(Operazione.class);
+    private final Map<Operazione, AtomicLong> errori = new EnumMap<>(Operazione.class);
+    private final Map<String, AtomicInteger> postiPrenotati = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<String[]> carrelli = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inVolo = new AtomicInteger();
+    private final AtomicLong scartate = new AtomicLong();
+
+    private TrenicalServiceGrpc.TrenicalServiceStub stub;
+
+    public static void main(String[] args) throws Exception {
+        Logger.getLogger("").setLevel(Level.WARNING);
+        Path databaseTemporaneo = null;
+        if (System.getProperty(PROPRIETA_DATABASE) == null) {
+            // va impostato prima del primo uso di DatabaseManager, che legge il percorso una volta sola
+            databaseTemporaneo = Files.createTempFile("trenical-carico-", ".db");
+            creaSchema(databaseTemporaneo);
+            System.setProperty(PROPRIETA_DATABASE, databaseTemporaneo.toString());
+            System.out.println("Database di prova: " + databaseTemporaneo);
+        }
+
+        GeneratoreCarico generatore = new GeneratoreCarico();
+        try {
+            generatore.preparaDati();
+            generatore.esegui();
+        } finally {
+            generatore.pulisci();
+            DatabaseManager.getInstance().chiudi();
+            if (databaseTemporaneo != null) {
+                eliminaDatabase(databaseTemporaneo);
+            }
+        }
+    }
+
+    private static void creaSchema(Path database) throws IOException, SQLException {
+        StringBuilder script = new StringBuilder();
+        for (String riga : Files.readAllLines(Path.of("trenical.sql"), StandardCharsets.UTF_8)) {
+            if (!riga.trim().startsWith("--")) {
+                script.append(riga).append('\n');
+            }
+        }
+
+        try (Connection conn = DriverManager.getConnection("jdbc:sqlite:" + database);
+             Statement stmt = conn.createStatement()) {
+            for (String istruzione : script.toString().split(";")) {
+                if (!istruzione.isBlank()) {
+                    stmt.execute(istruzione);
+                }
+            }
+        }
+    }
+
+    private static void eliminaDatabase(Path database) throws IOException {
+        for (String suffisso : List.of("", "-wal", "-shm")) {
+            Files.deleteIfExists(Path.of(database + suffisso));
+        }
+    }
+
+    private GeneratoreCarico() {
+        for (Operazione operazione : Operazione.values()) {
+            latenze.put(operazione, new IstogrammaLatenze(operazione.name()));
+            rifiutate.put(operazione, new AtomicLong());
+            errori.put(operazione, new AtomicLong());
+        }
+    }
+
+    private void preparaDati() {
+        pulisci();
+        TrenoDirector director = new TrenoDirector();
+        List<Treno> treni = List.of(
+                director.costruisciTrenoEconomy(PREFISSO_TRENO + "1"),
+                director.costruisciTrenoStandard(PREFISSO_TRENO + "2"),
+                director.costruisciTrenoBusiness(PREFISSO_TRENO + "3"));
+        new GeneratoreViaggi(viaggioDAO, treni).genera(giorno, giorno, TRATTE, viaggiPerTratta, null);
+        viaggi.addAll(viaggiDiCarico());
+        if (viaggi.isEmpty()) {
+            throw new IllegalStateException("Nessun viaggio generato per il " + giorno);
+        }
+
+        for (int i = 0; i < numeroClienti; i++) {
+            String email = "cliente" + i + DOMINIO_CLIENTI;
+            clienteDAO.save(new Cliente(email, "carico", "Cliente " + i));
+            clienti.add(email);
+        }
+        System.out.println("Dati pronti: " + viaggi.size() + " viaggi, " + clienti.size() + " clienti");
+    }
+
+    private void esegui() throws Exception {
+        EsecutoreRichieste esecutore = EsecutoreRichieste.daConfigurazione();
+        LimitatoreConcorrenza limitatore = new LimitatoreConcorrenza();
+        Server server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+                .executor(esecutore)
+                .addService(ServerInterceptors.intercept(new TrenicalServiceImpl(), limitatore))
+                .build()
+                .start();
+        ManagedChannel canale = Grpc.newChannelBuilderForAddress("localhost", server.getPort(),
+                        InsecureChannelCredentials.create())
+                .directExecutor()
+                .build();
+        stub = TrenicalServiceGrpc.newStub(canale);
+
+        try {
+            long totali = (long) richiestePerSecondo * durataSecondi;
+            long intervallo = TimeUnit.SECONDS.toNanos(1) / richiestePerSecondo;
+            System.out.println("Carico: " + richiestePerSecondo + " richieste/s per " + durataSecondi
+                    + " s, esecutore " + esecutore.getModalita() + ", mix " + mix);
+
+            long inizio = System.nanoTime();
+            for (long i = 0; i < totali; i++) {
+                long previsto = inizio + i * intervallo;
+                long attesa = previsto - System.nanoTime();
+                if (attesa > 0) {
+                    LockSupport.parkNanos(attesa);
+                }
+                invia(scegliOperazione(), previsto);
+            }
+
+            long fineInvio = System.nanoTime();
+            while (inVolo.get() > 0 && System.nanoTime() - fineInvio < TimeUnit.SECONDS.toNanos(30)) {
+                Thread.sleep(10);
+            }
+            double secondi = (System.nanoTime() - inizio) / 1e9;
+
+            stampaRisultati(secondi);
+            System.out.println("Attesa in coda esecutore: " + esecutore.getAttesaCoda());
+            limitatore.getTempiServizio().values().forEach(istogramma -> System.out.println("Servizio " + istogramma));
+            verificaOverbooking();
+        } finally {
+            canale.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+            esecutore.chiudi();
+        }
+    }
+
+    private void invia(Operazione operazione, long previsto) {
+        if (inVolo.incrementAndGet() > MASSIMO_IN_VOLO) {
+            inVolo.decrementAndGet();
+            scartate.incrementAndGet();
+            return;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String email = clienti.get(random.nextInt(clienti.size()));
+
+        switch (operazione) {
+            case CERCA -> {
+                Tratta tratta = TRATTE.get(random.nextInt(TRATTE.size()));
+                stub.cercaViaggi(RicercaViaggioRequest.newBuilder()
+                                .setStazionePartenza(tratta.getStazionePartenza().getNome())
+                                .setStazioneArrivo(tratta.getStazioneArrivo().getNome())
+                                .setDataViaggio(giorno.toString())
+                                .build(),
+                        new Misura<>(operazione, previsto, RicercaViaggioResponse::getSuccesso));
+            }
+            case CARRELLO -> {
+                String viaggioId = viaggi.get(random.nextInt(viaggi.size())).getId();
+                stub.aggiungiAlCarrello(AggiungiCarrelloRequest.newBuilder()
+                                .setViaggioId(viaggioId)
+                                .setQuantita(1)
+                                .setEmailUtente(email)
+                                .build(),
+                        new Misura<>(operazione, previsto, risposta -> {
+                            if (risposta.getSuccesso()) {
+                                postiPrenotati.computeIfAbsent(viaggioId, id -> new AtomicInteger()).incrementAndGet();
+                                carrelli.add(new String[]{email, viaggioId});
+                            }
+                            return risposta.getSuccesso();
+                        }));
+            }
+            case ACQUISTO -> {
+                String[] carrello = carrelli.poll();
+                if (carrello == null) {
+                    // nessun carrello pronto: il cliente aggiunge prima un biglietto
+                    inVolo.decrementAndGet();
+                    invia(Operazione.CARRELLO, previsto);
+                    return;
+                }
+                stub.confermaAcquisto(ConfermaAcquistoRequest.newBuilder()
+                                .setEmailUtente(carrello[0])
+                                .addCarrelloItems(CarrelloItemDTO.newBuilder()
+                                        .setViaggioId(carrello[1])
+                                        .setQuantita(1)
+                                        .build())
+                                .addNominativi("Passeggero " + carrello[0])
+                                .setModalitaPagamento("CARTA")
+                                .build(),
+                        new Misura<>(operazione, previsto, ConfermaAcquistoResponse::getSuccesso));
+            }
+            case BIGLIETTI -> stub.visualizzaBiglietti(
+                    VisualizzaBigliettiRequest.newBuilder().setEmailUtente(email).build(),
+                    new Misura<>(operazione, previsto, VisualizzaBigliettiResponse::getSuccesso));
+            case NOTIFICHE -> stub.controllaNotifichePendenti(
+                    ControllaNotificheRequest.newBuilder().setEmailUtente(email).build(),
+                    new Misura<>(operazione, previsto, risposta -> true));
+        }
+    }
+
+    /**
+     * Registra la latenza dall'istante previsto e classifica l'esito
+     */
+    private class Misura<T> implements StreamObserver<T> {
+        private final Operazione operazione;
+        private final long previsto;
+        private final Predicate<T> successo;
+
+        Misura(Operazione operazione, long previsto, Predicate<T> successo) {
+            this.operazione = operazione;
+            this.previsto = previsto;
+            this.successo = successo;
+        }
+
+        @Override
+        public void onNext(T risposta) {
+            if (!successo.test(risposta)) {
+                rifiutate.get(operazione).incrementAndGet();
+            }
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            errori.get(operazione).incrementAndGet();
+            if (Status.fromThrowable(t).getCode() != Status.Code.RESOURCE_EXHAUSTED) {
+                System.err.println(operazione + ": " + Status.fromThrowable(t));
+            }
+            termina();
+        }
+
+        @Override
+        public void onCompleted() {
+            termina();
+        }
+
+        private void termina() {
+            latenze.get(operazione).registraNanos(System.nanoTime() - previsto);
+            inVolo.decrementAndGet();
+        }
+    }
+
+    private void stampaRisultati(double secondi) {
+        System.out.printf("%n%-10s %8s %9s %9s %9s %9s %9s %9s %8s %8s%n", "operazione", "n", "op/s",
+                "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms", "rifiuti", "errori");
+        long completate = 0;
+        for (Operazione operazione : Operazione.values()) {
+            IstogrammaLatenze istogramma = latenze.get(operazione);
+            long n = istogramma.getConteggio();
+            completate += n;
+            System.out.printf("%-10s %8d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f %8d %8d%n",
+                    operazione, n, n / secondi,
+                    istogramma.getPercentileMicros(50) / 1000.0,
+                    istogramma.getPercentileMicros(90) / 1000.0,
+                    istogramma.getPercentileMicros(99) / 1000.0,
+                    istogramma.getPercentileMicros(99.9) / 1000.0,
+                    istogramma.getMassimoMicros() / 1000.0,
+                    rifiutate.get(operazione).get(), errori.get(operazione).get());
+        }
+        System.out.printf("Totale: %d risposte in %.1f s (%.1f op/s), %d non inviate, %d ancora in volo%n",
+                completate, secondi, completate / secondi, scartate.get(), inVolo.get());
+    }
+
+    /**
+     * Nessun viaggio deve avere più posti assegnati di quelli del treno,
+     * né secondo le prenotazioni riuscite né secondo i biglietti salvati
+     */
+    private void verificaOverbooking() {
+        Map<String, Integer> bigliettiSalvati = contaBigliettiPerViaggio();
+        int violazioni = 0;
+        for (Viaggio viaggio : viaggi) {
+            int postiTotali = viaggio.getTreno().getPostiTotali();
+            int prenotati = postiPrenotati.getOrDefault(viaggio.getId(), new AtomicInteger()).get();
+            int salvati = bigliettiSalvati.getOrDefault(viaggio.getId(), 0);
+            if (prenotati > postiTotali || salvati > postiTotali) {
+                violazioni++;
+                System.out.println("OVERBOOKING " + viaggio.getId() + ": posti " + postiTotali
+                        + ", prenotati " + prenotati + ", biglietti " + salvati);
+            }
+        }
+        System.out.println(violazioni == 0
+                ? "Nessun overbooking su " + viaggi.size() + " viaggi"
+                : violazioni + " viaggi in overbooking");
+    }
+
+    private Map<String, Integer> contaBigliettiPerViaggio() {
+        Map<String, Integer> conteggi = new LinkedHashMap<>();
+        String sql = "SELECT viaggio_id, COUNT(*) FROM biglietti WHERE cliente_email LIKE ? GROUP BY viaggio_id";
+        try (ConnessioneDB conn = DatabaseManager.getInstance().lettura();
+             PreparedStatement stmt = conn.prepara(sql)) {
+            stmt.setString(1, "%" + DOMINIO_CLIENTI);
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    conteggi.put(rs.getString(1), rs.getInt(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+        return conteggi;
+    }
+
+    private List<Viaggio> viaggiDiCarico() {
+        List<Viaggio> trovati = new ArrayList<>();
+        for (Viaggio viaggio : viaggioDAO.findByData(giorno)) {
+            if (viaggio.getTreno().getCodice().startsWith(PREFISSO_TRENO)) {
+                trovati.add(viaggio);
+            }
+        }
+        return trovati;
+    }
+
+    private void pulisci() {
+        for (Viaggio viaggio : viaggiDiCarico()) {
+            viaggioDAO.delete(viaggio.getId());
+            IndiceOrari.getInstance().rimuovi(viaggio.getId());
+            GestorePosti.getInstance().invalida(viaggio.getId());
+        }
+        for (int i = 0; i < numeroClienti; i++) {
+            clienteDAO.delete("cliente" + i + DOMINIO_CLIENTI);
+        }
+    }
+
+    private Operazione scegliOperazione() {
+        int totale = mix.values().stream().mapToInt(Integer::intValue).sum();
+        int scelta = ThreadLocalRandom.current().nextInt(totale);
+        for (Map.Entry<Operazione, Integer> voce : mix.entrySet()) {
+            scelta -= voce.getValue();
+            if (scelta < 0) {
+                return voce.getKey();
+            }
+        }
+        return Operazione.CERCA;
+    }
+
+    private static Map<Operazione, Integer> leggiMix(String testo) {
+        Map<Operazione, Integer> mix = new EnumMap<>(Operazione.class);
+        for (String voce : testo.split(",")) {
+            String[] parti = voce.trim().split(":");
+            mix.put(Operazione.valueOf(parti[0].trim().toUpperCase()), Integer.parseInt(parti[1].trim()));
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("Mix di operazioni vuoto: " + testo);
+        }
+        return mix;
+    }
+}
@@ -0,0 +1,76 @@
+package client;
+
+import it.trenical.client.proxy.CacheRisposte;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test per la cache delle risposte del client con scadenza e versione del server
+ */
+@DisplayName("Test CacheRisposte - Scadenza, Versione e Capienza")
+class CacheRisposteTest {
+
+    private static final long DURATA = 1_000;
+
+    private AtomicLong orologio;
+    private CacheRisposte<String> cache;
+
+    @BeforeEach
+    void setUp() {
+        orologio = new AtomicLong();
+        cache = new CacheRisposte<>(2, orologio::get);
+    }
+
+    @Test
+    @DisplayName("Test voce fresca fino alla scadenza")
+    void testScadenza() {
+        cache.metti("Roma|Milano", "risultato", 42, DURATA);
+
+        assertEquals("risultato", cache.fresca("Roma|Milano"));
+        orologio.set(DURATA);
+        assertNull(cache.fresca("Roma|Milano"), "Dopo la scadenza va rivalidata");
+        assertEquals(42, cache.versione("Roma|Milano"), "La versione resta per la rivalidazione");
+        assertEquals(0, cache.versione("Napoli|Bari"));
+        assertEquals(1, cache.getRiusi());
+
+        System.out.println("✅ Voce scaduta dopo " + DURATA + " ns");
+    }
+
+    @Test
+    @DisplayName("Test rinnovo solo con la stessa versione")
+    void testRinnovo() {
+        cache.metti("biglietti", "elenco", 7, DURATA);
+        orologio.set(DURATA * 2);
+
+        assertNull(cache.rinnova("biglietti", 8, DURATA), "Versione diversa: nessun rinnovo");
+        assertEquals("elenco", cache.rinnova("biglietti", 7, DURATA));
+        assertEquals("elenco", cache.fresca("biglietti"));
+
+        cache.invalida("biglietti");
+        assertNull(cache.rinnova("biglietti", 7, DURATA), "Voce invalidata durante la rivalidazione");
+        assertEquals(1, cache.getRivalidazioni());
+
+        System.out.println("✅ Rinnovo con versione confermata dal server");
+    }
+
+    @Test
+    @DisplayName("Test capienza e invalidazione per predicato")
+    void testCapienzaEInvalidazione() {
+        cache.metti("ricerca|1", "a", 1, DURATA);
+        cache.metti("ricerca|2", "b", 2, DURATA);
+        cache.fresca("ricerca|1");
+        cache.metti("ricerca|3", "c", 3, DURATA);
+
+        assertEquals(2, cache.getDimensione());
+        assertNull(cache.fresca("ricerca|2"), "La voce meno usata esce per prima");
+        assertEquals("a", cache.fresca("ricerca|1"));
+
+        cache.invalidaSe(chiave -> chiave.startsWith("ricerca|"));
+        assertEquals(0, cache.getDimensione());
+
+        System.out.println("✅ Capienza rispettata e voci invalidate");
+    }
+}
@@ -92,7 +92,7 @@ public class BigliettoTest {
         assertEquals("Mario Rossi", biglietto.getNominativo());
         assertNotNull(biglietto.getId());
         assertTrue(biglietto.getId().startsWith("BGT_"));
-        assertEquals(12, biglietto.getId().length()); // "BGT_" + 8 cifre
+        assertTrue(biglietto.getId().length() > 4); // "BGT_" + id in base 36
 
         System.out.println("✅ SetNominativo e generazione ID funzionano correttamente");
         System.out.println();
@@ -0,0 +1,96 @@
+package common;
+
+import it.trenical.server.identificativi.GeneratoreId;
+import it.trenical.server.identificativi.GeneratoreIdSnowflake;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test per il generatore di identificativi Snowflake
+ */
+@DisplayName("Test GeneratoreId - Identificativi Univoci")
+class GeneratoreIdTest {
+
+    @Test
+    @DisplayName("Test id strettamente crescenti su un singolo thread")
+    void testIdCrescenti() {
+        GeneratoreId generatore = new GeneratoreIdSnowflake(1);
+
+        long precedente = generatore.prossimo();
+        for (int i = 0; i < 100_000; i++) {
+            long corrente = generatore.prossimo();
+            assertTrue(corrente > precedente, "Gli id devono essere strettamente crescenti");
+            precedente = corrente;
+        }
+
+        System.out.println("✅ 100.000 id crescenti generati");
+    }
+
+    @Test
+    @DisplayName("Test nessuna collisione tra thread concorrenti")
+    void testNessunaCollisioneConcorrente() throws Exception {
+        GeneratoreId generatore = new GeneratoreIdSnowflake(1);
+        Set<Long> generati = ConcurrentHashMap.newKeySet();
+        int thread = 8;
+        int perThread = 50_000;
+
+        ExecutorService executor = Executors.newFixedThreadPool(thread);
+        List<Future<?>> risultati = new ArrayList<>();
+        for (int t = 0; t < thread; t++) {
+            risultati.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    assertTrue(generati.add(generatore.prossimo()), "Id duplicato generato");
+                }
+                return null;
+            }));
+        }
+        for (Future<?> risultato : risultati) {
+            risultato.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(thread * perThread, generati.size());
+        System.out.printf("✅ %d id univoci da %d thread%n", generati.size(), thread);
+    }
+
+    @Test
+    @DisplayName("Test nodi diversi non collidono")
+    void testNodiDiversi() {
+        GeneratoreId nodoUno = new GeneratoreIdSnowflake(1);
+        GeneratoreId nodoDue = new GeneratoreIdSnowflake(2);
+
+        Set<Long> generati = ConcurrentHashMap.newKeySet();
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(generati.add(nodoUno.prossimo()));
+            assertTrue(generati.add(nodoDue.prossimo()));
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> new GeneratoreIdSnowflake(-1));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeneratoreIdSnowflake(GeneratoreIdSnowflake.NODO_MASSIMO + 1));
+
+        System.out.println("✅ Nodi diversi generano id distinti");
+    }
+
+    @Test
+    @DisplayName("Test formato id testuale")
+    void testFormatoIdTestuale() {
+        GeneratoreId generatore = new GeneratoreIdSnowflake(0);
+
+        String id = generatore.prossimoId("BGT_");
+        assertTrue(id.startsWith("BGT_"));
+        assertTrue(id.substring(4).matches("[0-9A-Z]+"), "Il suffisso deve essere in base 36 maiuscola");
+
+        System.out.println("✅ Id testuale: " + id);
+    }
+}
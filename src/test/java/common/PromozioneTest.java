@@ -226,9 +226,10 @@ public class PromozioneTest {
     void testEqualsEHashCode() {
         System.out.println("=== Test Equals e HashCode ===");
 
-        PromozioneStandard promo1 = new PromozioneStandard("Nome1", 10.0);
-        PromozioneStandard promo2 = new PromozioneStandard("Nome2", 20.0);
-        PromozioneStandard promo3 = new PromozioneStandard("Nome1", 10.0);
+        PromozioneStandard promo1 = new PromozioneStandard("PROMO_UNO", "Nome1", 10.0);
+        PromozioneStandard promo2 = new PromozioneStandard("PROMO_DUE", "Nome2", 20.0);
+        PromozioneStandard promo3 = new PromozioneStandard("PROMO_UNO", "Nome1", 10.0);
+        PromozioneStandard promo4 = new PromozioneStandard("Nome1", 10.0);
 
         System.out.println("Promo1: " + promo1.toString());
         System.out.println("Promo2: " + promo2.toString() );
@@ -237,11 +238,15 @@ public class PromozioneTest {
         // Test equals con stesso ID
         assertEquals(promo1, promo3);
         assertEquals(promo1.hashCode(), promo3.hashCode());
-        System.out.println("✅ Promo1 e Promo3 sono equals (stesso ID perche uguali in nome e sconto)");
+        System.out.println("✅ Promo1 e Promo3 sono equals (stesso ID)");
 
         // Test equals con ID diverso
         assertNotEquals(promo1, promo2);
-        System.out.println("✅ Promo1 e Promo2 sono diversi (ID diverso perche diversi in nome e sconto)");
+        System.out.println("✅ Promo1 e Promo2 sono diversi (ID diverso)");
+
+        // L'ID generato è unico anche a parità di nome e sconto
+        assertNotEquals(promo4, new PromozioneStandard("Nome1", 10.0));
+        System.out.println("✅ Promozioni create senza ID hanno ID distinti");
 
         // Test con null
         assertNotEquals(promo1, null);
@@ -291,15 +291,15 @@ class BigliettoDAOTest {
         bigliettiMisti.forEach(b -> System.out.println("- " + b.toString() +
                 " (Completo: " + b.isCompleto() + ")"));
 
-        // Salvataggio: dovrebbero essere salvati solo quelli completi
+        // Salvataggio tutto-o-niente: un biglietto incompleto annulla l'intero acquisto
         int salvati = bigliettoDAO.saveAll(bigliettiMisti, emailClienteTest);
-        assertEquals(2, salvati, "Dovrebbero essere salvati solo 2 biglietti completi");
+        assertEquals(0, salvati, "Nessun biglietto dovrebbe essere salvato");
 
         // Verifica
-        assertEquals(2, bigliettoDAO.countByClienteEmail(emailClienteTest),
-                "Cliente dovrebbe avere solo 2 biglietti");
+        assertEquals(0, bigliettoDAO.countByClienteEmail(emailClienteTest),
+                "Cliente non dovrebbe avere biglietti dopo il rollback");
 
-        System.out.printf("✅ Salvati %d/3 biglietti (solo quelli completi)%n", salvati);
+        System.out.printf("✅ Salvati %d/3 biglietti (acquisto annullato)%n", salvati);
     }
 
     @Test
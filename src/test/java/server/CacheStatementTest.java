@@ -0,0 +1,110 @@
+package server;
+
+import it.trenical.server.db.ConnessioneDB;
+import it.trenical.server.db.PoolConnessioni;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Test per la cache degli statement preparati delle connessioni del pool
+ */
+@DisplayName("Test CacheStatement - Statement Riusati tra i Prestiti")
+class CacheStatementTest {
+
+    private static final String SQL_NOME = "SELECT nome FROM prove WHERE id = ?";
+
+    private Path file;
+    private PoolConnessioni pool;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.createTempFile("trenical-cache-", ".db");
+        pool = new PoolConnessioni("prova", "jdbc:sqlite:" + file, 1, List.of(), 1000, 2);
+
+        try (ConnessioneDB conn = pool.prendi();
+             Statement stmt = conn.getConnection().createStatement()) {
+            stmt.execute("CREATE TABLE prove (id INTEGER PRIMARY KEY, nome TEXT)");
+            stmt.execute("INSERT INTO prove VALUES (1, 'uno'), (2, 'due')");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        pool.chiudi();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Test stesso SQL compilato una sola volta")
+    void testRiusoTraPrestiti() throws Exception {
+        assertEquals("uno", leggiNome(1));
+        assertEquals("due", leggiNome(2));
+        assertEquals("uno", leggiNome(1));
+
+        assertEquals(1, pool.getStatementCompilati());
+        assertEquals(2, pool.getStatementRiusati());
+        assertEquals(3, pool.getStatementPreparati());
+
+        System.out.println("✅ Statement compilato 1 volta e riusato " + pool.getStatementRiusati() + " volte");
+    }
+
+    @Test
+    @DisplayName("Test stesso SQL aperto due volte nello stesso prestito")
+    void testStatementAnnidati() throws Exception {
+        try (ConnessioneDB conn = pool.prendi();
+             PreparedStatement esterno = conn.prepara(SQL_NOME);
+             PreparedStatement interno = conn.prepara(SQL_NOME)) {
+
+            assertNotSame(esterno, interno);
+            esterno.setInt(1, 1);
+            interno.setInt(1, 2);
+            try (ResultSet rsEsterno = esterno.executeQuery();
+                 ResultSet rsInterno = interno.executeQuery()) {
+                assertTrue(rsEsterno.next());
+                assertTrue(rsInterno.next());
+                assertEquals("uno", rsEsterno.getString(1));
+                assertEquals("due", rsInterno.getString(1));
+            }
+        }
+
+        assertEquals(1, pool.getStatementInCache());
+        System.out.println("✅ Statement annidati indipendenti");
+    }
+
+    @Test
+    @DisplayName("Test capienza rispettata con eliminazione LRU")
+    void testEliminazioneLru() throws Exception {
+        for (String sql : List.of("SELECT 1", "SELECT 2", "SELECT 1", "SELECT 3", "SELECT 1", "SELECT 2")) {
+            try (ConnessioneDB conn = pool.prendi();
+                 PreparedStatement stmt = conn.prepara(sql);
+                 ResultSet rs = stmt.executeQuery()) {
+                assertTrue(rs.next());
+            }
+        }
+
+        assertEquals(2, pool.getStatementInCache());
+        // SELECT 2 esce quando entra SELECT 3, SELECT 3 quando rientra SELECT 2
+        assertEquals(4, pool.getStatementCompilati());
+        assertEquals(2, pool.getStatementRiusati());
+
+        System.out.println("✅ Cache limitata a " + pool.getCapienzaCache() + " statement");
+    }
+
+    private String leggiNome(int id) throws Exception {
+        try (ConnessioneDB conn = pool.prendi();
+             PreparedStatement stmt = conn.prepara(SQL_NOME)) {
+            stmt.setInt(1, id);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? rs.getString(1) : null;
+            }
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package server;
+
+import it.trenical.server.promozioni.CatalogoPromozioni;
+import it.trenical.server.promozioni.Promozione;
+import it.trenical.server.promozioni.factoryMethod.PromozioneFactory;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test per il catalogo in memoria delle promozioni
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Test CatalogoPromozioni - Istantanee Versionate")
+class CatalogoPromozioniTest {
+
+    private static CatalogoPromozioni catalogo;
+    private static Promozione standard;
+    private static Promozione fedelta;
+
+    @BeforeAll
+    static void setUpAll() {
+        catalogo = CatalogoPromozioni.getInstance();
+        standard = PromozioneFactory.getFactory("standard").creaPromozione("Catalogo JUnit Standard", 15.0);
+        fedelta = PromozioneFactory.getFactory("fedelta").creaPromozione("Catalogo JUnit Fedeltà", 30.0);
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        catalogo.rimuovi(standard.getId());
+        catalogo.rimuovi(fedelta.getId());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test aggiunta con nuova versione e viste aggiornate")
+    void testAggiunta() {
+        long versionePrima = catalogo.getVersione();
+
+        assertTrue(catalogo.aggiungi(standard));
+        assertTrue(catalogo.aggiungi(fedelta));
+
+        CatalogoPromozioni.Istantanea istantanea = catalogo.getIstantanea();
+        assertTrue(istantanea.getVersione() > versionePrima, "La versione dovrebbe avanzare");
+        assertTrue(istantanea.getStandard().contains(standard));
+        assertFalse(istantanea.getStandard().contains(fedelta));
+        assertTrue(istantanea.getFedelta().contains(fedelta));
+        assertTrue(istantanea.perCliente(true).contains(fedelta));
+        assertFalse(istantanea.perCliente(false).contains(fedelta));
+        assertEquals(standard, istantanea.trova(standard.getId()).orElseThrow());
+
+        for (int i = 1; i < istantanea.getStandard().size(); i++) {
+            assertTrue(istantanea.getStandard().get(i - 1).getSconto() >= istantanea.getStandard().get(i).getSconto(),
+                    "Le promozioni Standard devono essere ordinate per sconto decrescente");
+        }
+
+        System.out.println("✅ Catalogo alla versione " + istantanea.getVersione()
+                + " con " + istantanea.size() + " promozioni");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test nome duplicato rifiutato senza distinzione di maiuscole")
+    void testNomeDuplicato() {
+        long versione = catalogo.getVersione();
+        Promozione doppione = PromozioneFactory.getFactory("standard")
+                .creaPromozione("  catalogo junit STANDARD ", 5.0);
+
+        assertTrue(catalogo.getIstantanea().esisteNome(doppione.getNome()));
+        assertFalse(catalogo.aggiungi(doppione));
+        assertEquals(versione, catalogo.getVersione(), "Un'aggiunta rifiutata non cambia versione");
+        assertTrue(catalogo.trova(doppione.getId()).isEmpty());
+
+        System.out.println("✅ Nome duplicato rifiutato");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test rimozione e invalidazione")
+    void testRimozione() {
+        CatalogoPromozioni.Istantanea prima = catalogo.getIstantanea();
+
+        assertTrue(catalogo.rimuovi(standard.getId()));
+        assertTrue(catalogo.trova(standard.getId()).isEmpty());
+        assertFalse(catalogo.getIstantanea().esisteNome(standard.getNome()));
+        assertTrue(prima.trova(standard.getId()).isPresent(), "L'istantanea precedente resta invariata");
+
+        long versione = catalogo.getVersione();
+        catalogo.invalida();
+        assertTrue(catalogo.getVersione() > versione, "Dopo l'invalidazione la versione avanza");
+        assertTrue(catalogo.trova(fedelta.getId()).isPresent(), "La promozione salvata viene ricaricata");
+
+        System.out.println("✅ Rimozione e ricarica del catalogo");
+    }
+}
@@ -0,0 +1,141 @@
+package server;
+
+import it.trenical.server.cliente.Cliente;
+import it.trenical.server.notifiche.DistributoreNotifiche;
+import it.trenical.server.notifiche.EsitoDistribuzione;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.observer.Observer;
+import it.trenical.server.observer.TipoNotifica;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test per l'invio a blocchi paralleli delle notifiche ai passeggeri
+ */
+@DisplayName("Test DistributoreNotifiche - Blocchi Paralleli e Conteggi")
+class DistributoreNotificheTest {
+
+    private DistributoreNotifiche distributore;
+
+    @BeforeEach
+    void setUp() {
+        distributore = new DistributoreNotifiche(3, 7);
+    }
+
+    @AfterEach
+    void tearDown() {
+        distributore.chiudi();
+    }
+
+    @Test
+    @DisplayName("Test consegna a tutti con destinatari che falliscono")
+    void testConsegnaEFallimenti() throws Exception {
+        AtomicInteger ricevute = new AtomicInteger();
+        List<Observer> passeggeri = new ArrayList<>();
+        for (int i = 0; i < 250; i++) {
+            passeggeri.add(new Passeggero("p" + i + "@test.it", i % 50 == 0, ricevute));
+        }
+        Notifica notifica = new Notifica(TipoNotifica.CANCELLAZIONE_VIAGGIO, "Viaggio cancellato");
+
+        EsitoDistribuzione esito = distributore.distribuisciAsync(passeggeri, notifica).get();
+
+        assertEquals(250, esito.getDestinatari());
+        assertEquals(245, esito.getConsegnate());
+        assertEquals(5, esito.getFallite());
+        assertEquals(245, ricevute.get(), "Ogni passeggero riceve la notifica una sola volta");
+        assertFalse(esito.isCompleta());
+
+        System.out.println("✅ " + esito);
+    }
+
+    @Test
+    @DisplayName("Test clienti accodati a blocchi")
+    void testClientiABlocchi() {
+        GestoreNotifiche gestore = GestoreNotifiche.getInstance();
+        List<Cliente> clienti = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            clienti.add(new Cliente("blocco" + i + "@test.it", "password", "Passeggero " + i));
+        }
+        Notifica notifica = new Notifica(TipoNotifica.RITARDO_TRENO, "Ritardo di 20 minuti");
+
+        EsitoDistribuzione esito = distributore.distribuisci(clienti, notifica);
+
+        assertEquals(20, esito.getConsegnate());
+        assertTrue(esito.isCompleta());
+        long primo = gestore.preleva("blocco0@test.it").orElseThrow().getId();
+        long secondo = gestore.preleva("blocco1@test.it").orElseThrow().getId();
+        assertNotEquals(primo, secondo, "Ogni cliente riceve una copia con identificativo proprio");
+        for (int i = 2; i < 20; i++) {
+            assertEquals(1, gestore.getProfondita("blocco" + i + "@test.it"));
+        }
+
+        EsitoDistribuzione ripetuta = distributore.distribuisci(clienti.subList(2, 20), notifica);
+        assertEquals(18, ripetuta.getConsegnate());
+        assertEquals(1, gestore.getProfondita("blocco2@test.it"), "La stessa notifica in attesa non viene duplicata");
+
+        gestore.prelevaTutte("blocco2@test.it");
+        System.out.println("✅ " + esito);
+    }
+
+    @Test
+    @DisplayName("Test ricerca dei destinatari fuori dal thread chiamante")
+    void testRicercaDestinatariAsincrona() throws Exception {
+        AtomicInteger ricevute = new AtomicInteger();
+        Thread chiamante = Thread.currentThread();
+        List<Thread> ricerca = new ArrayList<>();
+
+        EsitoDistribuzione esito = distributore.distribuisciAsync(() -> {
+            ricerca.add(Thread.currentThread());
+            return List.of(new Passeggero("a@test.it", false, ricevute), new Passeggero("b@test.it", false, ricevute));
+        }, new Notifica(TipoNotifica.RITARDO_TRENO, "Ritardo di 5 minuti")).get();
+
+        assertEquals(2, esito.getConsegnate());
+        assertEquals(2, ricevute.get());
+        assertNotSame(chiamante, ricerca.get(0), "I destinatari non vanno cercati sul thread chiamante");
+
+        System.out.println("✅ Destinatari cercati su " + ricerca.get(0).getName());
+    }
+
+    @Test
+    @DisplayName("Test nessun destinatario")
+    void testNessunDestinatario() {
+        EsitoDistribuzione esito = distributore.distribuisci(List.of(),
+                new Notifica(TipoNotifica.CAMBIO_BINARIO, "Binario cambiato"));
+
+        assertEquals(0, esito.getDestinatari());
+        assertTrue(esito.isCompleta());
+
+        System.out.println("✅ Nessun passeggero da avvisare");
+    }
+
+    private static final class Passeggero implements Observer {
+        private final String email;
+        private final boolean guasto;
+        private final AtomicInteger ricevute;
+
+        private Passeggero(String email, boolean guasto, AtomicInteger ricevute) {
+            this.email = email;
+            this.guasto = guasto;
+            this.ricevute = ricevute;
+        }
+
+        @Override
+        public void update(Notifica notifica) {
+            if (guasto) {
+                throw new IllegalStateException("Casella non disponibile");
+            }
+            ricevute.incrementAndGet();
+        }
+
+        @Override
+        public String getObserverId() {
+            return email;
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package server;
+
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.generazione.EsitoGenerazione;
+import it.trenical.server.viaggi.generazione.GeneratoreViaggi;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test per la generazione massiva dei viaggi
+ */
+@DisplayName("Test GeneratoreViaggi - Generazione Massiva")
+class GeneratoreViaggiTest {
+
+    private static final Stazione STAZIONE = Stazione.GENOVA;
+
+    private static ViaggioDAO viaggioDAO;
+    private static List<Treno> treni;
+    private static LocalDate dataTest;
+
+    @BeforeAll
+    static void setUpAll() {
+        viaggioDAO = new ViaggioDAO();
+        TrenoDirector director = new TrenoDirector();
+        treni = List.of(
+                director.costruisciTrenoEconomy("GENTEST1"),
+                director.costruisciTrenoBusiness("GENTEST2"));
+        dataTest = LocalDate.now().plusDays(300);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (int giorno = 0; giorno < 4; giorno++) {
+            for (Viaggio viaggio : viaggioDAO.findByData(dataTest.plusDays(giorno))) {
+                if (viaggio.getTreno().getCodice().startsWith("GENTEST")) {
+                    viaggioDAO.delete(viaggio.getId());
+                    IndiceOrari.getInstance().rimuovi(viaggio.getId());
+                }
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Test slot senza conflitti e stazione esaurita")
+    void testSlotSenzaConflitti() {
+        // 12 orari x 3 binari x 2 treni = 72 slot per stazione al giorno
+        List<Tratta> tratte = List.of(new Tratta(STAZIONE, Stazione.ROMA), new Tratta(STAZIONE, Stazione.BARI));
+        AtomicInteger chiamate = new AtomicInteger();
+
+        EsitoGenerazione esito = new GeneratoreViaggi(viaggioDAO, treni)
+                .genera(dataTest, dataTest, tratte, 40, (completati, totali, creati) -> chiamate.incrementAndGet());
+
+        assertEquals(80, esito.getViaggiAttesi());
+        assertEquals(72, esito.getViaggiCreati(), "Si possono creare solo gli slot liberi");
+        assertEquals(8, esito.getSlotEsauriti());
+        assertEquals(1, chiamate.get(), "Un avanzamento per ogni giorno");
+
+        Set<String> slot = new HashSet<>();
+        for (Viaggio viaggio : viaggioDAO.findByData(dataTest)) {
+            if (viaggio.getTreno().getCodice().startsWith("GENTEST")) {
+                assertTrue(slot.add(viaggio.getOrarioPartenza() + "|" + viaggio.getBinarioPartenza()
+                        + "|" + viaggio.getTreno().getCodice()), "Slot duplicato");
+            }
+        }
+        assertEquals(72, slot.size());
+
+        System.out.println("✅ Generati " + esito.getViaggiCreati() + " viaggi in " + esito.getDurataMs() + " ms");
+    }
+
+    @Test
+    @DisplayName("Test generazione annullata")
+    void testAnnullamento() {
+        GeneratoreViaggi generatore = new GeneratoreViaggi(viaggioDAO, treni);
+
+        EsitoGenerazione esito = generatore.genera(dataTest, dataTest.plusDays(3),
+                List.of(new Tratta(STAZIONE, Stazione.ROMA)), 1, (completati, totali, creati) -> generatore.annulla());
+
+        assertTrue(esito.isAnnullata());
+        assertFalse(esito.isCompleta());
+        assertTrue(esito.getViaggiCreati() >= 1, "Il primo giorno è già stato scritto");
+
+        System.out.println("✅ Generazione interrotta dopo " + esito.getViaggiCreati() + " viaggi");
+    }
+}
@@ -0,0 +1,164 @@
+package server;
+
+import it.trenical.server.notifiche.CodaNotifiche;
+import it.trenical.server.notifiche.GestoreNotifiche;
+import it.trenical.server.observer.Notifica;
+import it.trenical.server.observer.TipoNotifica;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test per le caselle delle notifiche
+ */
+@DisplayName("Test GestoreNotifiche - Caselle per Cliente")
+class GestoreNotificheTest {
+
+    private GestoreNotifiche gestore;
+
+    @BeforeEach
+    void setUp() {
+        gestore = GestoreNotifiche.getInstance();
+    }
+
+    @Test
+    @DisplayName("Test consegna solo al destinatario esatto")
+    void testDestinatarioEsatto() {
+        gestore.invia("a@notifiche.it", new Notifica(TipoNotifica.RITARDO_TRENO, "Ritardo per a"));
+
+        assertTrue(gestore.preleva("ba@notifiche.it").isEmpty(), "Un'email che contiene l'altra non deve ricevere");
+        Optional<Notifica> notifica = gestore.preleva("A@Notifiche.it");
+        assertTrue(notifica.isPresent());
+        assertEquals("Ritardo per a", notifica.get().getMessaggio());
+        assertTrue(notifica.get().getId() > 0, "La notifica accodata deve avere un id");
+
+        System.out.println("✅ Notifica consegnata al solo destinatario");
+    }
+
+    @Test
+    @DisplayName("Test notifiche identiche unite")
+    void testNotificheUnite() {
+        String email = "unite@notifiche.it";
+        assertTrue(gestore.invia(email, new Notifica(TipoNotifica.CAMBIO_BINARIO, "Binario cambiato")));
+        assertFalse(gestore.invia(email, new Notifica(TipoNotifica.CAMBIO_BINARIO, "Binario cambiato")));
+        assertTrue(gestore.invia(email, new Notifica(TipoNotifica.RITARDO_TRENO, "Binario cambiato")));
+
+        assertEquals(2, gestore.getProfondita(email));
+        assertEquals(2, gestore.prelevaTutte(email).size());
+        assertEquals(0, gestore.getProfondita(email));
+
+        System.out.println("✅ Notifiche duplicate unite");
+    }
+
+    @Test
+    @DisplayName("Test casella piena scarta la più vecchia")
+    void testCapacita() {
+        CodaNotifiche coda = new CodaNotifiche(3);
+        for (int i = 1; i <= 3; i++) {
+            assertNull(coda.accoda(new Notifica(TipoNotifica.RITARDO_TRENO, "Messaggio " + i)));
+        }
+
+        Notifica scartata = coda.accoda(new Notifica(TipoNotifica.RITARDO_TRENO, "Messaggio 4"));
+        assertNotNull(scartata);
+        assertEquals("Messaggio 1", scartata.getMessaggio());
+        assertEquals(3, coda.getDimensione());
+        assertEquals("Messaggio 2", coda.preleva().getMessaggio());
+
+        System.out.println("✅ Capacità rispettata");
+    }
+
+    @Test
+    @DisplayName("Test ripresa dello stream dall'ultima sequenza")
+    void testRipresaDaSequenza() {
+        String email = "stream@notifiche.it";
+        gestore.invia(email, new Notifica(TipoNotifica.RITARDO_TRENO, "Prima"));
+        gestore.invia(email, new Notifica(TipoNotifica.RITARDO_TRENO, "Seconda"));
+
+        Notifica prima = gestore.consegna(email).orElseThrow();
+        Notifica seconda = gestore.consegna(email).orElseThrow();
+        assertTrue(gestore.consegna(email).isEmpty());
+
+        assertEquals(prima.getSequenza() + 1, seconda.getSequenza(), "Sequenze consecutive nella casella");
+
+        List<Notifica> daRispedire = gestore.riprendi(email, prima.getSequenza());
+        assertEquals(1, daRispedire.size(), "Solo la notifica non confermata va rispedita");
+        assertEquals(seconda.getId(), daRispedire.get(0).getId());
+
+        assertTrue(gestore.riprendi(email, seconda.getSequenza()).isEmpty());
+
+        System.out.println("✅ Stream ripreso dalla sequenza " + prima.getSequenza());
+    }
+
+    @Test
+    @DisplayName("Test nuova sessione senza notifiche rispedite")
+    void testNuovaSessioneNonRispedisce() {
+        String email = "sessione@notifiche.it";
+        gestore.invia(email, new Notifica(TipoNotifica.RITARDO_TRENO, "Già inviata"));
+        gestore.invia(email, new Notifica(TipoNotifica.CAMBIO_BINARIO, "Non ancora inviata"));
+
+        Notifica inviata = gestore.consegna(email).orElseThrow();
+        gestore.inviata(inviata);
+
+        assertTrue(gestore.riprendi(email, 0).isEmpty(), "Una sottoscrizione da 0 non rispedisce le non confermate");
+        assertTrue(gestore.riprendi(email, 0).isEmpty());
+        assertEquals("Non ancora inviata", gestore.consegna(email).orElseThrow().getMessaggio());
+
+        System.out.println("✅ Nuova sessione senza duplicati");
+    }
+
+    @Test
+    @DisplayName("Test invio fallito rimette la notifica in coda")
+    void testInvioFallito() {
+        String email = "fallito@notifiche.it";
+        gestore.invia(email, new Notifica(TipoNotifica.RITARDO_TRENO, "Da ritentare"));
+
+        Notifica notifica = gestore.consegna(email).orElseThrow();
+        gestore.nonInviata(email, notifica);
+
+        assertEquals(1, gestore.getProfondita(email));
+        assertTrue(gestore.riprendi(email, notifica.getSequenza()).isEmpty(), "Non è più tra le non confermate");
+        assertEquals(notifica.getId(), gestore.consegna(email).orElseThrow().getId());
+
+        System.out.println("✅ Notifica rimessa in coda");
+    }
+
+    @Test
+    @DisplayName("Test invii concorrenti senza perdite")
+    void testInviiConcorrenti() throws InterruptedException {
+        String email = "concorrenza@notifiche.it";
+        int thread = 4;
+        int perThread = 10;
+        ExecutorService executor = Executors.newFixedThreadPool(thread);
+        CountDownLatch partenza = new CountDownLatch(1);
+
+        for (int t = 0; t < thread; t++) {
+            int numero = t;
+            executor.submit(() -> {
+                partenza.await();
+                for (int i = 0; i < perThread; i++) {
+                    gestore.invia(email, new Notifica(TipoNotifica.PROMOZIONE_FEDELTA, numero + "-" + i));
+                }
+                return null;
+            });
+        }
+        partenza.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+
+        List<Notifica> ricevute = gestore.prelevaTutte(email);
+        assertEquals(thread * perThread, ricevute.size());
+        for (int i = 1; i < ricevute.size(); i++) {
+            assertEquals(ricevute.get(i - 1).getSequenza() + 1, ricevute.get(i).getSequenza(),
+                    "Le sequenze seguono l'ordine della coda");
+        }
+
+        System.out.println("✅ " + ricevute.size() + " notifiche accodate in concorrenza");
+    }
+}
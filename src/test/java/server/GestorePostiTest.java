@@ -0,0 +1,229 @@
+package server;
+
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.GestorePosti;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.Viaggio;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test di stress per GestorePosti
+ * Verifica che prenotazioni concorrenti non vendano mai più posti di quelli disponibili
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Test GestorePosti - Prenotazioni Concorrenti")
+class GestorePostiTest {
+
+    private static final int THREAD = 16;
+
+    private static ViaggioDAO viaggioDAO;
+    private static GestorePosti gestorePosti;
+    private static String viaggioTestId;
+    private static int postiTotali;
+
+    @BeforeAll
+    static void setUpAll() {
+        System.out.println("=== SETUP TEST GESTORE POSTI ===");
+        viaggioDAO = new ViaggioDAO();
+        gestorePosti = GestorePosti.getInstance();
+
+        TrenoDirector trenoDirector = new TrenoDirector();
+        Treno treno = trenoDirector.costruisciTrenoEconomy("STRESS01");
+        Tratta tratta = new Tratta(Stazione.NAPOLI, Stazione.TORINO);
+        Viaggio viaggio = new Viaggio(treno, tratta, LocalDate.now().plusDays(60));
+
+        viaggioTestId = viaggio.getId();
+        postiTotali = treno.getPostiTotali();
+        viaggioDAO.delete(viaggioTestId);
+        assertTrue(viaggioDAO.save(viaggio), "Il viaggio di test dovrebbe essere salvato");
+
+        System.out.println("Viaggio test creato: " + viaggioTestId + " con " + postiTotali + " posti");
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        viaggioDAO.delete(viaggioTestId);
+        gestorePosti.invalida(viaggioTestId);
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test nessun overselling con acquirenti concorrenti")
+    void testNessunOverselling() throws Exception {
+        System.out.println("Test: " + THREAD + " thread che prenotano lo stesso viaggio");
+
+        AtomicInteger postiVenduti = new AtomicInteger();
+        AtomicInteger rifiuti = new AtomicInteger();
+        AtomicInteger rimanentiNegativi = new AtomicInteger();
+        CountDownLatch partenza = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        List<Future<?>> risultati = new ArrayList<>();
+        for (int t = 0; t < THREAD; t++) {
+            risultati.add(executor.submit(() -> {
+                partenza.await();
+                while (true) {
+                    int rimanenti = gestorePosti.prenota(viaggioTestId, 2);
+                    if (rimanenti == GestorePosti.POSTI_INSUFFICIENTI) {
+                        rifiuti.incrementAndGet();
+                        break;
+                    }
+                    if (rimanenti < 0) {
+                        rimanentiNegativi.incrementAndGet();
+                    }
+                    postiVenduti.addAndGet(2);
+                }
+                return null;
+            }));
+        }
+
+        partenza.countDown();
+        for (Future<?> risultato : risultati) {
+            risultato.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int postiDb = viaggioDAO.findPostiDisponibili(viaggioTestId);
+
+        assertEquals(0, rimanentiNegativi.get(), "I posti rimanenti non devono mai essere negativi");
+        assertTrue(postiVenduti.get() <= postiTotali, "Venduti più posti di quelli disponibili");
+        assertEquals(postiTotali - postiVenduti.get(), postiDb,
+                "Il database deve riflettere esattamente i posti venduti");
+        assertTrue(postiDb < 2, "Dovrebbero restare meno posti della quantità richiesta");
+        assertEquals(THREAD, rifiuti.get(), "Ogni thread dovrebbe terminare con un rifiuto");
+
+        System.out.printf("✅ Venduti %d/%d posti, rimasti %d, tentativi CAS contesi: %d%n",
+                postiVenduti.get(), postiTotali, postiDb, gestorePosti.getTentativiContesi());
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test prenotazioni e rilasci concorrenti mantengono il conteggio")
+    void testPrenotazioniERilasciConcorrenti() throws Exception {
+        System.out.println("Test: prenotazioni e rilasci intercalati");
+
+        int postiIniziali = viaggioDAO.findPostiDisponibili(viaggioTestId);
+        int daLiberare = Math.min(50, postiTotali - postiIniziali);
+        assertTrue(gestorePosti.rilascia(viaggioTestId, daLiberare) >= 0, "Il rilascio dovrebbe riuscire");
+        int base = postiIniziali + daLiberare;
+        IndiceOrari.getInstance().ricarica(viaggioTestId);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREAD);
+        List<Future<?>> risultati = new ArrayList<>();
+        for (int t = 0; t < THREAD; t++) {
+            risultati.add(executor.submit(() -> {
+                for (int i = 0; i < 25; i++) {
+                    if (gestorePosti.prenota(viaggioTestId, 1) != GestorePosti.POSTI_INSUFFICIENTI) {
+                        assertTrue(gestorePosti.rilascia(viaggioTestId, 1) >= 0);
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> risultato : risultati) {
+            risultato.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertEquals(base, viaggioDAO.findPostiDisponibili(viaggioTestId),
+                "Ogni posto prenotato e rilasciato deve tornare disponibile");
+        assertEquals(base, gestorePosti.getPostiDisponibili(viaggioTestId),
+                "Il contatore in memoria deve coincidere con il database");
+        assertEquals(base, IndiceOrari.getInstance().trova(viaggioTestId).orElseThrow().getPostiDisponibili(),
+                "L'indice non deve restare con un valore superato da una prenotazione concorrente");
+
+        System.out.printf("✅ Posti disponibili stabili a %d dopo %d operazioni%n", base, THREAD * 25 * 2);
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test rilascio oltre i posti totali rifiutato")
+    void testRilascioOltreTotale() {
+        System.out.println("Test: rilascio oltre la capienza del treno");
+
+        int disponibili = viaggioDAO.findPostiDisponibili(viaggioTestId);
+        int eccesso = postiTotali - disponibili + 1;
+
+        assertEquals(-1, gestorePosti.rilascia(viaggioTestId, eccesso),
+                "Non si possono rilasciare più posti della capienza");
+        assertEquals(disponibili, viaggioDAO.findPostiDisponibili(viaggioTestId));
+
+        System.out.println("✅ Rilascio oltre capienza rifiutato");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test operazione fallita nella transazione non toglie posti")
+    void testTransazioneAnnullata() {
+        System.out.println("Test: prenotazione con operazione che fallisce");
+
+        int postiIniziali = viaggioDAO.findPostiDisponibili(viaggioTestId);
+        int daLiberare = Math.min(10, postiTotali - postiIniziali);
+        if (daLiberare > 0) {
+            assertTrue(gestorePosti.rilascia(viaggioTestId, daLiberare) >= 0);
+        }
+        int base = postiIniziali + daLiberare;
+
+        assertThrows(SQLException.class, () -> gestorePosti.prenota(viaggioTestId, 2, conn -> {
+            throw new SQLException("Salvataggio prenotazione fallito");
+        }));
+
+        assertEquals(base, viaggioDAO.findPostiDisponibili(viaggioTestId),
+                "Il decremento deve essere annullato insieme all'operazione");
+        assertEquals(base, gestorePosti.getPostiDisponibili(viaggioTestId),
+                "Il contatore in memoria deve tornare al valore iniziale");
+
+        System.out.println("✅ Nessun posto perso con transazione annullata");
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test variazione di posti in transazione")
+    void testVariazioneInTransazione() throws SQLException {
+        System.out.println("Test: posti tolti e restituiti insieme a un'altra scrittura");
+
+        int base = viaggioDAO.findPostiDisponibili(viaggioTestId);
+        assertTrue(base >= 3, "Servono almeno 3 posti liberi");
+
+        assertThrows(SQLException.class, () -> gestorePosti.variaInTransazione(
+                Map.of(viaggioTestId, 3), Map.of(), conn -> {
+                    throw new SQLException("Salvataggio biglietti fallito");
+                }));
+        assertEquals(base, viaggioDAO.findPostiDisponibili(viaggioTestId));
+        assertEquals(base, gestorePosti.getPostiDisponibili(viaggioTestId));
+
+        Optional<String> esito = gestorePosti.variaInTransazione(Map.of(viaggioTestId, 3), Map.of(), conn -> "ok");
+        assertEquals("ok", esito.orElseThrow());
+        assertEquals(base - 3, viaggioDAO.findPostiDisponibili(viaggioTestId));
+        assertEquals(base - 3, gestorePosti.getPostiDisponibili(viaggioTestId));
+
+        gestorePosti.variaInTransazione(Map.of(), Map.of(viaggioTestId, 3), conn -> "ok");
+        assertEquals(base, viaggioDAO.findPostiDisponibili(viaggioTestId));
+        assertEquals(base, gestorePosti.getPostiDisponibili(viaggioTestId));
+
+        assertTrue(gestorePosti.variaInTransazione(Map.of(viaggioTestId, base + 1), Map.of(), conn -> "ok").isEmpty(),
+                "Con posti insufficienti non viene scritto nulla");
+        assertEquals(base, viaggioDAO.findPostiDisponibili(viaggioTestId));
+
+        System.out.println("✅ Posti e scritture applicati insieme");
+    }
+}
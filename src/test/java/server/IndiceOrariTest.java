@@ -0,0 +1,179 @@
+package server;
+
+import it.trenical.server.db.dao.ViaggioDAO;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.builder.TrenoDirector;
+import it.trenical.server.viaggi.IndiceOrari;
+import it.trenical.server.viaggi.TariffaGiorno;
+import it.trenical.server.viaggi.Viaggio;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Test per l'indice in memoria degli orari
+ */
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+@DisplayName("Test IndiceOrari - Ricerca Viaggi in Memoria")
+class IndiceOrariTest {
+
+    private static ViaggioDAO viaggioDAO;
+    private static IndiceOrari indice;
+    private static Viaggio viaggioTest;
+    private static LocalDate dataTest;
+
+    @BeforeAll
+    static void setUpAll() {
+        System.out.println("=== SETUP TEST INDICE ORARI ===");
+        viaggioDAO = new ViaggioDAO();
+        indice = IndiceOrari.getInstance();
+
+        dataTest = LocalDate.now().plusDays(45);
+        viaggioTest = new Viaggio(new TrenoDirector().costruisciTrenoBusiness("INDICE01"),
+                new Tratta(Stazione.BARI, Stazione.VENEZIA), dataTest);
+        assertTrue(viaggioDAO.save(viaggioTest), "Il viaggio di test dovrebbe essere salvato");
+    }
+
+    @AfterAll
+    static void tearDownAll() {
+        viaggioDAO.delete(viaggioTest.getId());
+        indice.rimuovi(viaggioTest.getId());
+    }
+
+    @Test
+    @Order(1)
+    @DisplayName("Test viaggio indicizzato dopo ricarica")
+    void testRicaricaViaggio() {
+        long versionePrima = indice.getVersione();
+        indice.ricarica(viaggioTest.getId());
+
+        List<Viaggio> trovati = indice.cerca(Stazione.BARI, Stazione.VENEZIA, dataTest);
+        assertTrue(trovati.stream().anyMatch(v -> v.getId().equals(viaggioTest.getId())),
+                "Il viaggio dovrebbe essere presente nella sua cella");
+        assertTrue(indice.cerca(Stazione.VENEZIA, Stazione.BARI, dataTest).stream()
+                .noneMatch(v -> v.getId().equals(viaggioTest.getId())), "La tratta inversa è una cella diversa");
+        assertTrue(indice.getVersione() > versionePrima, "La versione dovrebbe avanzare");
+
+        for (int i = 1; i < trovati.size(); i++) {
+            assertFalse(trovati.get(i).getOrarioPartenza().isBefore(trovati.get(i - 1).getOrarioPartenza()),
+                    "I viaggi devono essere ordinati per orario");
+        }
+
+        System.out.println("✅ Viaggio trovato in memoria tra " + trovati.size() + " viaggi");
+    }
+
+    @Test
+    @Order(2)
+    @DisplayName("Test aggiornamento posti senza database")
+    void testAggiornamentoPosti() {
+        long strutturaPrima = indice.getVersioneStruttura();
+        long versionePrima = indice.getVersione();
+        indice.aggiornaPosti(viaggioTest.getId(), 10);
+        assertEquals(10, indice.trova(viaggioTest.getId()).orElseThrow().getPostiDisponibili());
+
+        indice.variaPosti(viaggioTest.getId(), -3);
+        assertEquals(7, indice.trova(viaggioTest.getId()).orElseThrow().getPostiDisponibili());
+        assertTrue(indice.getVersione() > versionePrima);
+        assertEquals(strutturaPrima, indice.getVersioneStruttura(),
+                "I posti venduti non devono far ricostruire la tabella dei percorsi");
+
+        System.out.println("✅ Posti aggiornati in memoria");
+    }
+
+    @Test
+    @Order(3)
+    @DisplayName("Test rimozione viaggio dall'indice")
+    void testRimozione() {
+        indice.rimuovi(viaggioTest.getId());
+
+        assertTrue(indice.trova(viaggioTest.getId()).isEmpty());
+        assertTrue(indice.cerca(Stazione.BARI, Stazione.VENEZIA, dataTest).stream()
+                .noneMatch(v -> v.getId().equals(viaggioTest.getId())));
+
+        System.out.println("✅ Viaggio rimosso dall'indice");
+    }
+
+    @Test
+    @Order(4)
+    @DisplayName("Test calendario tariffe aggiornato con i posti")
+    void testCalendarioTariffe() {
+        LocalDate giorno = dataTest.plusDays(1);
+        Viaggio viaggio = new Viaggio(new TrenoDirector().costruisciTrenoEconomy("INDICE02"),
+                new Tratta(Stazione.BARI, Stazione.VENEZIA), giorno);
+        indice.aggiorna(viaggio);
+
+        try {
+            List<TariffaGiorno> calendario = indice.getCalendario()
+                    .calendario(Stazione.BARI, Stazione.VENEZIA, dataTest, giorno.plusDays(1));
+            assertEquals(3, calendario.size());
+            assertEquals(giorno, calendario.get(1).getData());
+            assertEquals(riepilogoAtteso(giorno), riepilogo(calendario.get(1)));
+            assertTrue(calendario.get(1).isDisponibile());
+            assertTrue(calendario.get(1).getPrezzoMinimo() <= viaggio.getPrezzo());
+
+            indice.aggiornaPosti(viaggio.getId(), 0);
+            TariffaGiorno esaurito = indice.getCalendario()
+                    .calendario(Stazione.BARI, Stazione.VENEZIA, giorno, giorno).get(0);
+            assertEquals(riepilogoAtteso(giorno), riepilogo(esaurito));
+
+            System.out.println("✅ Calendario aggiornato: " + esaurito);
+        } finally {
+            indice.rimuovi(viaggio.getId());
+        }
+    }
+
+    @Test
+    @Order(5)
+    @DisplayName("Test ricerche durante il ricaricamento completo")
+    void testRicercheDuranteCarica() throws InterruptedException {
+        indice.ricarica(viaggioTest.getId());
+        int numeroViaggi = indice.getNumeroViaggi();
+        AtomicBoolean finito = new AtomicBoolean();
+        AtomicInteger vuote = new AtomicInteger();
+        AtomicInteger ricerche = new AtomicInteger();
+
+        Thread ricercatore = new Thread(() -> {
+            while (!finito.get()) {
+                if (indice.cerca(Stazione.BARI, Stazione.VENEZIA, dataTest).isEmpty()
+                        || indice.trova(viaggioTest.getId()).isEmpty()
+                        || indice.getNumeroViaggi() < numeroViaggi) {
+                    vuote.incrementAndGet();
+                }
+                ricerche.incrementAndGet();
+            }
+        });
+        ricercatore.start();
+        for (int i = 0; i < 20; i++) {
+            indice.carica();
+        }
+        finito.set(true);
+        ricercatore.join();
+
+        assertEquals(0, vuote.get(), "Una ricerca concorrente non deve mai vedere l'indice vuoto o parziale");
+        System.out.println("✅ " + ricerche.get() + " ricerche durante 20 ricaricamenti, nessuna vuota o parziale");
+    }
+
+    private static String riepilogo(TariffaGiorno tariffa) {
+        return tariffa.getViaggiDisponibili() + "/" + tariffa.getPrezzoMinimo() + "/" + tariffa.getPrimaPartenza();
+    }
+
+    /**
+     * Riepilogo calcolato scorrendo i viaggi dell'indice, da confrontare con il calendario
+     */
+    private static String riepilogoAtteso(LocalDate giorno) {
+        List<Viaggio> disponibili = indice.cerca(Stazione.BARI, Stazione.VENEZIA, giorno).stream()
+                .filter(v -> v.isDisponibile() && v.getPostiDisponibili() > 0)
+                .toList();
+        if (disponibili.isEmpty()) {
+            return "0/0.0/null";
+        }
+        double minimo = disponibili.stream().mapToDouble(Viaggio::getPrezzo).min().orElseThrow();
+        return disponibili.size() + "/" + minimo + "/" + disponibili.get(0).getOrarioPartenza();
+    }
+}
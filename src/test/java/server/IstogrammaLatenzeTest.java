@@ -0,0 +1,48 @@
+package server;
+
+import it.trenical.server.metriche.IstogrammaLatenze;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Test per l'istogramma delle latenze
+ */
+@DisplayName("Test IstogrammaLatenze - Percentili")
+class IstogrammaLatenzeTest {
+
+    @Test
+    @DisplayName("Test istogramma vuoto")
+    void testVuoto() {
+        IstogrammaLatenze istogramma = new IstogrammaLatenze("vuoto");
+
+        assertEquals(0, istogramma.getConteggio());
+        assertEquals(0, istogramma.getPercentileMicros(99));
+        assertEquals(0, istogramma.getMediaMicros());
+
+        System.out.println("✅ Istogramma vuoto corretto");
+    }
+
+    @Test
+    @DisplayName("Test percentili entro l'errore dei bucket")
+    void testPercentili() {
+        IstogrammaLatenze istogramma = new IstogrammaLatenze("servizio");
+        for (int i = 1; i <= 1000; i++) {
+            istogramma.registraNanos(TimeUnit.MICROSECONDS.toNanos(i));
+        }
+
+        assertEquals(1000, istogramma.getConteggio());
+        assertEquals(1000, istogramma.getMassimoMicros());
+        assertEquals(500.5, istogramma.getMediaMicros(), 0.001);
+
+        long p50 = istogramma.getPercentileMicros(50);
+        long p99 = istogramma.getPercentileMicros(99);
+        assertTrue(p50 >= 500 && p50 <= 625, "p50 fuori tolleranza: " + p50);
+        assertTrue(p99 >= 990 && p99 <= 1000, "p99 fuori tolleranza: " + p99);
+        assertThrows(IllegalArgumentException.class, () -> istogramma.getPercentileMicros(101));
+
+        System.out.println("✅ " + istogramma);
+    }
+}
@@ -0,0 +1,161 @@
+package server;
+
+import it.trenical.server.db.migrazioni.GestoreMigrazioni;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.viaggi.StatoViaggio;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+
+/**
+ * Test per le migrazioni dello schema su un database temporaneo con le vecchie colonne testuali
+ */
+@DisplayName("Test GestoreMigrazioni - Schema Viaggi Compatto")
+class MigrazioniTest {
+
+    private Path file;
+    private Connection conn;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.createTempFile("trenical-migrazioni-", ".db");
+        conn = DriverManager.getConnection("jdbc:sqlite:" + file);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        conn.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Test
+    @DisplayName("Test conversione dei viaggi esistenti")
+    void testConversioneViaggi() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE clienti (email VARCHAR(255) PRIMARY KEY, password VARCHAR(255) NOT NULL,
+                        nome VARCHAR(255) NOT NULL, abbonamento_fedelta BOOLEAN DEFAULT 0,
+                        notifiche_promozioni BOOLEAN DEFAULT 0)
+                    """);
+            stmt.execute("""
+                    CREATE TABLE viaggi (id VARCHAR(255) PRIMARY KEY, codice_treno VARCHAR(50) NOT NULL,
+                        tipo_treno VARCHAR(20) NOT NULL, stazione_partenza VARCHAR(100) NOT NULL,
+                        stazione_arrivo VARCHAR(100) NOT NULL, data_viaggio TEXT NOT NULL,
+                        orario_partenza TEXT NOT NULL, orario_arrivo TEXT NOT NULL, data_arrivo TEXT NOT NULL,
+                        prezzo DECIMAL(10,2) NOT NULL, durata_minuti INTEGER NOT NULL, posti_totali INTEGER NOT NULL,
+                        posti_disponibili INTEGER NOT NULL, stato VARCHAR(20) DEFAULT 'PROGRAMMATO',
+                        binario_partenza VARCHAR(20), ritardo_minuti INTEGER DEFAULT 0,
+                        motivo_cancellazione TEXT, distanza_km INTEGER NOT NULL,
+                        UNIQUE(stazione_partenza, data_viaggio, orario_partenza, binario_partenza, codice_treno))
+                    """);
+            stmt.execute("""
+                    CREATE TABLE biglietti (id VARCHAR(255) PRIMARY KEY, cliente_email VARCHAR(255) NOT NULL,
+                        viaggio_id VARCHAR(255) NOT NULL, nominativo VARCHAR(255) NOT NULL,
+                        data_acquisto DATETIME DEFAULT CURRENT_TIMESTAMP, prezzo DECIMAL(10,2) NOT NULL,
+                        FOREIGN KEY (cliente_email) REFERENCES clienti(email) ON DELETE CASCADE,
+                        FOREIGN KEY (viaggio_id) REFERENCES viaggi(id) ON DELETE CASCADE)
+                    """);
+            stmt.execute("INSERT INTO clienti (email, password, nome) VALUES ('mig@test.it', 'x', 'Mig')");
+            stmt.execute("""
+                    INSERT INTO viaggi VALUES ('VGG_1', 'TR1', 'BUSINESS', 'Reggio Calabria', 'Milano',
+                        '2025-03-10', '22:30', '06:45', '2025-03-11', 120.5, 495, 250, 249,
+                        'RITARDO', 'Binario 3', 10, NULL, 1100)
+                    """);
+            stmt.execute("INSERT INTO biglietti (id, cliente_email, viaggio_id, nominativo, prezzo) "
+                    + "VALUES ('BGT_1', 'mig@test.it', 'VGG_1', 'Mario Rossi', 120.5)");
+        }
+
+        int versione = GestoreMigrazioni.predefinito().aggiorna(conn);
+
+        assertEquals(3, versione);
+        assertEquals(3, GestoreMigrazioni.leggiVersione(conn));
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT * FROM viaggi WHERE id = 'VGG_1'")) {
+            assertTrue(rs.next());
+            assertEquals(TipoTreno.BUSINESS.ordinal(), rs.getInt("tipo_treno"));
+            assertEquals(Stazione.REGGIO_CALABRIA.ordinal(), rs.getInt("stazione_partenza"));
+            assertEquals(Stazione.MILANO.ordinal(), rs.getInt("stazione_arrivo"));
+            assertEquals(LocalDate.of(2025, 3, 10).toEpochDay(), rs.getLong("data_viaggio"));
+            assertEquals(22 * 60 + 30, rs.getInt("orario_partenza"));
+            assertEquals(6 * 60 + 45, rs.getInt("orario_arrivo"));
+            assertEquals(LocalDate.of(2025, 3, 11).toEpochDay(), rs.getLong("data_arrivo"));
+            assertEquals(StatoViaggio.RITARDO.ordinal(), rs.getInt("stato"));
+            assertEquals(3, rs.getInt("binario_partenza"));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM biglietti WHERE viaggio_id = 'VGG_1'")) {
+            assertTrue(rs.next());
+            assertEquals(1, rs.getInt(1), "Il biglietto deve restare collegato al viaggio");
+        }
+
+        System.out.println("✅ Viaggi convertiti alla versione " + versione);
+    }
+
+    @Test
+    @DisplayName("Test database vuoto e migrazione idempotente")
+    void testDatabaseVuoto() throws Exception {
+        GestoreMigrazioni gestore = GestoreMigrazioni.predefinito();
+
+        assertEquals(gestore.getUltimaVersione(), gestore.aggiorna(conn));
+        assertEquals(gestore.getUltimaVersione(), gestore.aggiorna(conn), "La seconda esecuzione non fa nulla");
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM viaggi")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM prenotazioni")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COUNT(*) FROM notifiche_pendenti")) {
+            assertTrue(rs.next());
+            assertEquals(0, rs.getInt(1));
+        }
+
+        System.out.println("✅ Schema creato da zero");
+    }
+
+    @Test
+    @DisplayName("Test stazione sconosciuta annulla la migrazione")
+    void testValoreSconosciuto() throws Exception {
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("""
+                    CREATE TABLE viaggi (id VARCHAR(255) PRIMARY KEY, codice_treno VARCHAR(50) NOT NULL,
+                        tipo_treno VARCHAR(20) NOT NULL, stazione_partenza VARCHAR(100) NOT NULL,
+                        stazione_arrivo VARCHAR(100) NOT NULL, data_viaggio TEXT NOT NULL,
+                        orario_partenza TEXT NOT NULL, orario_arrivo TEXT NOT NULL, data_arrivo TEXT NOT NULL,
+                        prezzo DECIMAL(10,2) NOT NULL, durata_minuti INTEGER NOT NULL, posti_totali INTEGER NOT NULL,
+                        posti_disponibili INTEGER NOT NULL, stato VARCHAR(20) DEFAULT 'PROGRAMMATO',
+                        binario_partenza VARCHAR(20), ritardo_minuti INTEGER DEFAULT 0,
+                        motivo_cancellazione TEXT, distanza_km INTEGER NOT NULL)
+                    """);
+            stmt.execute("""
+                    INSERT INTO viaggi VALUES ('VGG_2', 'TR2', 'ECONOMY', 'Atlantide', 'Roma',
+                        '2025-03-10', '08:00', '10:00', '2025-03-10', 30, 120, 450, 450,
+                        'PROGRAMMATO', 'Binario 1', 0, NULL, 200)
+                    """);
+        }
+
+        assertThrows(SQLException.class, () -> GestoreMigrazioni.predefinito().aggiorna(conn));
+        assertEquals(0, GestoreMigrazioni.leggiVersione(conn), "La versione non deve cambiare");
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT stazione_partenza FROM viaggi WHERE id = 'VGG_2'")) {
+            assertTrue(rs.next());
+            assertEquals("Atlantide", rs.getString(1), "I dati originali devono restare intatti");
+        }
+
+        System.out.println("✅ Migrazione annullata senza perdita di dati");
+    }
+}
@@ -0,0 +1,77 @@
+package server;
+
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.RegistroTreni;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.treni.Treno;
+import it.trenical.server.treni.builder.TrenoDirector;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+
+/**
+ * Test per le istanze condivise di tratte e treni e per la ricerca delle stazioni per nome
+ */
+@DisplayName("Test Registro Dominio - Tratte, Treni e Stazioni Condivisi")
+class RegistroDominioTest {
+
+    @Test
+    @DisplayName("Test tratta canonica uguale a quella costruita")
+    void testTrattaCanonica() {
+        for (Stazione partenza : Stazione.values()) {
+            for (Stazione arrivo : Stazione.values()) {
+                if (partenza == arrivo) {
+                    assertThrows(IllegalArgumentException.class, () -> Tratta.di(partenza, arrivo));
+                    continue;
+                }
+                Tratta canonica = Tratta.di(partenza, arrivo);
+                Tratta costruita = new Tratta(partenza, arrivo);
+
+                assertSame(canonica, Tratta.di(partenza, arrivo));
+                assertEquals(costruita, canonica);
+                assertEquals(costruita.getDistanzaKm(), canonica.getDistanzaKm());
+            }
+        }
+        assertThrows(IllegalArgumentException.class, () -> Tratta.di(null, Stazione.ROMA));
+
+        System.out.println("✅ Tratte canoniche coerenti con il costruttore");
+    }
+
+    @Test
+    @DisplayName("Test ricerca stazione per nome normalizzato")
+    void testRicercaStazione() {
+        assertEquals(Optional.of(Stazione.REGGIO_CALABRIA), Stazione.cerca("Reggio Calabria"));
+        assertEquals(Optional.of(Stazione.REGGIO_CALABRIA), Stazione.cerca("  reggio calabria "));
+        assertEquals(Optional.of(Stazione.REGGIO_CALABRIA), Stazione.cerca("REGGIO_CALABRIA"));
+        assertEquals(Stazione.MILANO, Stazione.fromNome("MILANO"));
+        assertTrue(Stazione.cerca("Atlantide").isEmpty());
+        assertTrue(Stazione.cerca(null).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Stazione.fromNome("Atlantide"));
+
+        System.out.println("✅ Stazioni trovate per nome e per costante");
+    }
+
+    @Test
+    @DisplayName("Test treno condiviso per tipo e codice")
+    void testTrenoCondiviso() {
+        RegistroTreni registro = RegistroTreni.getInstance();
+
+        Treno primo = registro.getTreno(TipoTreno.BUSINESS, "REGTEST1");
+        Treno secondo = registro.getTreno(TipoTreno.BUSINESS, "REGTEST1");
+        Treno altroTipo = registro.getTreno(TipoTreno.ECONOMY, "REGTEST1");
+        Treno costruito = new TrenoDirector().costruisciTrenoBusiness("REGTEST1");
+
+        assertSame(primo, secondo);
+        assertNotSame(primo, altroTipo);
+        assertEquals(TipoTreno.ECONOMY, altroTipo.getTipoTreno());
+        assertEquals(costruito.getServizi(), primo.getServizi());
+        assertEquals(costruito.getPostiTotali(), primo.getPostiTotali());
+        assertEquals(costruito.getElencoServizi(), primo.getElencoServizi());
+        assertTrue(primo.getElencoServizi().startsWith("alta velocità"));
+
+        System.out.println("✅ Treno condiviso: " + primo.getElencoServizi());
+    }
+}
@@ -0,0 +1,67 @@
+package server;
+
+import it.trenical.server.metriche.IstantaneaMetriche;
+import it.trenical.server.metriche.IstogrammaLatenze;
+import it.trenical.server.metriche.RegistroMetriche;
+import it.trenical.server.metriche.RiepilogoLatenze;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test per il registro delle metriche del server
+ */
+@DisplayName("Test RegistroMetriche - Contatori, Indicatori e Istantanee")
+class RegistroMetricheTest {
+
+    private final RegistroMetriche registro = RegistroMetriche.getInstance();
+
+    @Test
+    @DisplayName("Test contatori e indicatori nell'istantanea")
+    void testContatoriEIndicatori() {
+        registro.incrementa("test.contatori.ok");
+        registro.incrementa("test.contatori.ok");
+        registro.incrementa("test.contatori.errori", 5);
+        AtomicLong coda = new AtomicLong(3);
+        registro.registraIndicatore("test.contatori.coda", coda::get);
+
+        IstantaneaMetriche prima = registro.istantanea("test.contatori.");
+        coda.set(7);
+        IstantaneaMetriche dopo = registro.istantanea("test.contatori.");
+
+        assertEquals(2, (long) prima.getValori().get("test.contatori.ok"));
+        assertEquals(5, (long) prima.getValori().get("test.contatori.errori"));
+        assertEquals(3, (long) prima.getValori().get("test.contatori.coda"));
+        assertEquals(7, (long) dopo.getValori().get("test.contatori.coda"), "L'indicatore viene letto a ogni istantanea");
+        assertEquals(3, dopo.getValori().size(), "Il prefisso esclude le altre metriche");
+
+        System.out.println("✅ " + dopo.getValori());
+    }
+
+    @Test
+    @DisplayName("Test riepilogo delle latenze")
+    void testLatenze() {
+        IstogrammaLatenze istogramma = registro.istogramma("test.latenze.query");
+        assertSame(istogramma, registro.istogramma("test.latenze.query"));
+        registro.istogramma("test.latenze.vuoto");
+        for (int i = 1; i <= 100; i++) {
+            istogramma.registraNanos(TimeUnit.MILLISECONDS.toNanos(i));
+        }
+
+        IstantaneaMetriche istantanea = registro.istantanea("test.latenze.");
+        RiepilogoLatenze riepilogo = istantanea.getLatenze().get("test.latenze.query");
+
+        assertEquals(1, istantanea.getLatenze().size(), "Gli istogrammi vuoti non compaiono");
+        assertEquals(100, riepilogo.getConteggio());
+        assertEquals(100_000, riepilogo.getMassimoMicros());
+        assertTrue(riepilogo.getP50Micros() <= riepilogo.getP90Micros());
+        assertTrue(riepilogo.getP90Micros() <= riepilogo.getP99Micros());
+        assertTrue(riepilogo.getP99Micros() <= riepilogo.getMassimoMicros());
+        assertTrue(istantanea.formatta().contains("test.latenze.query{n=100"));
+
+        System.out.println("✅ " + riepilogo);
+    }
+}
@@ -0,0 +1,124 @@
+package server;
+
+import it.trenical.server.stazioni.Binario;
+import it.trenical.server.stazioni.Stazione;
+import it.trenical.server.tratte.Tratta;
+import it.trenical.server.treni.RegistroTreni;
+import it.trenical.server.treni.TipoTreno;
+import it.trenical.server.viaggi.StatoViaggio;
+import it.trenical.server.viaggi.Viaggio;
+import it.trenical.server.viaggi.percorsi.Percorso;
+import it.trenical.server.viaggi.percorsi.RicercaPercorsi;
+import it.trenical.server.viaggi.percorsi.TabellaConnessioni;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * Test per la ricerca dei percorsi con cambio sulla tabella delle connessioni
+ */
+@DisplayName("Test RicercaPercorsi - Connection Scan con Cambi")
+class RicercaPercorsiTest {
+
+    private static final int CAMBIO_MINIMO = 10;
+    private static final long ORIZZONTE = 48 * 60;
+
+    private LocalDate domani;
+    private Viaggio reggioNapoli;
+    private Viaggio napoliMilanoStretto;
+    private Viaggio napoliMilano;
+    private Viaggio napoliMilanoTardi;
+    private Viaggio reggioMilanoDiretto;
+
+    @BeforeEach
+    void setUp() {
+        domani = LocalDate.now().plusDays(1);
+        reggioNapoli = viaggio("RN", Stazione.REGGIO_CALABRIA, Stazione.NAPOLI, LocalTime.of(6, 0), 120, 40.0);
+
+        // arrivo a Napoli alle 8:00
+        napoliMilanoStretto = viaggio("NM1", Stazione.NAPOLI, Stazione.MILANO, LocalTime.of(8, 5), 240, 60.0);
+        napoliMilano = viaggio("NM2", Stazione.NAPOLI, Stazione.MILANO, LocalTime.of(8, 15), 240, 60.0);
+        napoliMilanoTardi = viaggio("NM3", Stazione.NAPOLI, Stazione.MILANO, LocalTime.of(9, 15), 240, 60.0);
+        reggioMilanoDiretto = viaggio("RM", Stazione.REGGIO_CALABRIA, Stazione.MILANO, LocalTime.of(20, 0), 420, 90.0);
+    }
+
+    @Test
+    @DisplayName("Test percorso con cambio e diretto non dominati")
+    void testPercorsiNonDominati() {
+        List<Percorso> percorsi = ricerca().cerca(Stazione.REGGIO_CALABRIA, Stazione.MILANO,
+                LocalDateTime.of(domani, LocalTime.MIDNIGHT), 2, ORIZZONTE);
+
+        assertEquals(2, percorsi.size());
+
+        Percorso conCambio = percorsi.get(0);
+        assertEquals(List.of(reggioNapoli, napoliMilano), conCambio.getTratte());
+        assertEquals(1, conCambio.getCambi());
+        assertEquals(List.of(Stazione.NAPOLI), conCambio.getStazioniCambio());
+        assertEquals(100.0, conCambio.getPrezzoTotale(), 0.001);
+        assertEquals(375, conCambio.getDurataMinuti());
+
+        Percorso diretto = percorsi.get(1);
+        assertEquals(List.of(reggioMilanoDiretto), diretto.getTratte());
+        assertEquals(0, diretto.getCambi());
+        assertTrue(conCambio.getArrivo().isBefore(diretto.getArrivo()));
+        assertTrue(diretto.getPrezzoTotale() < conCambio.getPrezzoTotale());
+
+        System.out.println("✅ Percorsi trovati: " + percorsi);
+    }
+
+    @Test
+    @DisplayName("Test tempo minimo di cambio rispettato")
+    void testCambioMinimo() {
+        for (Percorso percorso : ricerca().cerca(Stazione.REGGIO_CALABRIA, Stazione.MILANO,
+                LocalDateTime.of(domani, LocalTime.MIDNIGHT), 2, ORIZZONTE)) {
+            assertFalse(percorso.getTratte().contains(napoliMilanoStretto));
+            List<Viaggio> tratte = percorso.getTratte();
+            for (int i = 1; i < tratte.size(); i++) {
+                assertFalse(tratte.get(i).getDataOraPartenzaEffettiva()
+                        .isBefore(tratte.get(i - 1).getDataOraArrivoEffettiva().plusMinutes(CAMBIO_MINIMO)));
+            }
+        }
+
+        System.out.println("✅ Coincidenza troppo stretta scartata");
+    }
+
+    @Test
+    @DisplayName("Test limite di cambi e viaggi esauriti")
+    void testLimitiEDisponibilita() {
+        LocalDateTime mezzanotte = LocalDateTime.of(domani, LocalTime.MIDNIGHT);
+
+        List<Percorso> soloDiretti = ricerca().cerca(Stazione.REGGIO_CALABRIA, Stazione.MILANO, mezzanotte, 0, ORIZZONTE);
+        assertEquals(1, soloDiretti.size());
+        assertEquals(0, soloDiretti.get(0).getCambi());
+
+        napoliMilano.impostaPostiDisponibili(0);
+        List<Percorso> percorsi = ricerca().cerca(Stazione.REGGIO_CALABRIA, Stazione.MILANO, mezzanotte, 2, ORIZZONTE);
+        assertEquals(List.of(reggioNapoli, napoliMilanoTardi), percorsi.get(0).getTratte());
+
+        List<Percorso> dopoLaPartenza = ricerca().cerca(Stazione.REGGIO_CALABRIA, Stazione.MILANO,
+                LocalDateTime.of(domani, LocalTime.of(6, 1)), 2, ORIZZONTE);
+        assertEquals(1, dopoLaPartenza.size());
+        assertSame(reggioMilanoDiretto, dopoLaPartenza.get(0).getTratte().get(0));
+
+        System.out.println("✅ Limite di cambi, posti esauriti e orario minimo rispettati");
+    }
+
+    private RicercaPercorsi ricerca() {
+        return new RicercaPercorsi(TabellaConnessioni.costruisci(List.of(reggioMilanoDiretto, napoliMilanoTardi,
+                napoliMilano, reggioNapoli, napoliMilanoStretto)), CAMBIO_MINIMO);
+    }
+
+    private Viaggio viaggio(String id, Stazione partenza, Stazione arrivo, LocalTime orario,
+                            int durataMinuti, double prezzo) {
+        LocalDateTime arrivoPrevisto = LocalDateTime.of(domani, orario).plusMinutes(durataMinuti);
+        return new Viaggio("V_PERC_" + id, RegistroTreni.getInstance().getTreno(TipoTreno.STANDARD, "PERC-1"),
+                Tratta.di(partenza, arrivo), domani, orario, arrivoPrevisto.toLocalTime(),
+                arrivoPrevisto.toLocalDate(), prezzo, durataMinuti, 100, StatoViaggio.PROGRAMMATO,
+                Binario.BINARIO_1, null);
+    }
+}
@@ -0,0 +1,72 @@
+package server;
+
+import it.trenical.server.prenotazioni.RuotaTemporale;
+
+import org.junit.jupiter.api.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+/**
+ * Test per la ruota temporale delle scadenze delle prenotazioni
+ */
+@DisplayName("Test RuotaTemporale - Pianificazione, Annullamento e Scadenza")
+class RuotaTemporaleTest {
+
+    private static final long TICK = 1_000;
+
+    private RuotaTemporale<String> ruota;
+
+    @BeforeEach
+    void setUp() {
+        ruota = new RuotaTemporale<>(8, TICK, 0);
+    }
+
+    @Test
+    @DisplayName("Test scadenza mai anticipata")
+    void testScadenza() {
+        ruota.pianifica("A", 2_500);
+        ruota.pianifica("B", 3_000);
+
+        assertTrue(ruota.avanza(2_999).isEmpty(), "Nessuna voce prima della scadenza");
+        assertEquals(List.of("A", "B"), ruota.avanza(3_000).stream().sorted().toList());
+        assertTrue(ruota.isEmpty());
+
+        System.out.println("✅ Voci scadute al tick successivo alla scadenza");
+    }
+
+    @Test
+    @DisplayName("Test voci di giri diversi nello stesso slot")
+    void testGiriSuccessivi() {
+        assertEquals(8, ruota.getNumeroSlot());
+        ruota.pianifica("vicina", 2_000);
+        ruota.pianifica("lontana", 2_000 + 8 * TICK);
+
+        assertEquals(List.of("vicina"), ruota.avanza(2_000));
+        assertEquals(1, ruota.size(), "La voce del giro successivo resta nello slot");
+        assertTrue(ruota.avanza(9_999).isEmpty());
+        assertEquals(List.of("lontana"), ruota.avanza(10_000));
+
+        System.out.println("✅ Voce del secondo giro scaduta dopo un giro completo");
+    }
+
+    @Test
+    @DisplayName("Test annullamento e lunga pausa")
+    void testAnnullamentoEPausa() {
+        RuotaTemporale.Voce<String> annullata = ruota.pianifica("annullata", 5_000);
+        ruota.pianifica("tenuta", 5_000);
+        ruota.pianifica("lontanissima", 50_000);
+        ruota.pianifica("passata", -1_000);
+
+        assertTrue(ruota.annulla(annullata));
+        assertFalse(ruota.annulla(annullata), "Una voce si annulla una sola volta");
+        assertEquals(List.of("passata"), ruota.avanza(1_000), "Le scadenze passate escono al primo tick");
+
+        // pausa più lunga di un giro: tutte le voci scadute escono in un solo avanzamento
+        List<String> scadute = ruota.avanza(60_000);
+        assertEquals(List.of("lontanissima", "tenuta"), scadute.stream().sorted().toList());
+        assertTrue(ruota.isEmpty());
+
+        System.out.println("✅ Annullamento O(1) e recupero dopo una pausa di 60 tick");
+    }
+}
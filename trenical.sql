@@ -11,22 +11,24 @@ CREATE TABLE IF NOT EXISTS clienti (
 );
 
 -- TABELLA VIAGGI
+-- date in giorni dall'epoca, orari in minuti dalla mezzanotte,
+-- tipo_treno, stazioni e stato come ordinale dell'enum Java, binario come numero
 CREATE TABLE IF NOT EXISTS viaggi (
     id VARCHAR(255) PRIMARY KEY,
     codice_treno VARCHAR(50) NOT NULL,
-    tipo_treno VARCHAR(20) NOT NULL CHECK (tipo_treno IN ('ECONOMY', 'STANDARD', 'BUSINESS')),
-    stazione_partenza VARCHAR(100) NOT NULL,
-    stazione_arrivo VARCHAR(100) NOT NULL,
-    data_viaggio TEXT NOT NULL,
-    orario_partenza TEXT NOT NULL,
-    orario_arrivo TEXT NOT NULL,
-    data_arrivo TEXT NOT NULL,
+    tipo_treno INTEGER NOT NULL,
+    stazione_partenza INTEGER NOT NULL,
+    stazione_arrivo INTEGER NOT NULL,
+    data_viaggio INTEGER NOT NULL,
+    orario_partenza INTEGER NOT NULL,
+    orario_arrivo INTEGER NOT NULL,
+    data_arrivo INTEGER NOT NULL,
     prezzo DECIMAL(10,2) NOT NULL,
     durata_minuti INTEGER NOT NULL,
     posti_totali INTEGER NOT NULL,
     posti_disponibili INTEGER NOT NULL,
-    stato VARCHAR(20) DEFAULT 'PROGRAMMATO' CHECK (stato IN ('PROGRAMMATO', 'CONFERMATO', 'IN_VIAGGIO', 'RITARDO', 'ARRIVATO', 'CANCELLATO')),
-    binario_partenza VARCHAR(20),
+    stato INTEGER NOT NULL DEFAULT 0,
+    binario_partenza INTEGER,
     ritardo_minuti INTEGER DEFAULT 0,
     motivo_cancellazione TEXT,
     distanza_km INTEGER NOT NULL,
@@ -53,8 +55,34 @@ CREATE TABLE IF NOT EXISTS biglietti (
     FOREIGN KEY (viaggio_id) REFERENCES viaggi(id) ON DELETE CASCADE
 );
 
+-- TABELLA NOTIFICHE PENDENTI
+CREATE TABLE IF NOT EXISTS notifiche_pendenti (
+    id INTEGER PRIMARY KEY,
+    cliente_email VARCHAR(255) NOT NULL,
+    tipo VARCHAR(50) NOT NULL,
+    messaggio TEXT NOT NULL,
+    data_creazione DATETIME NOT NULL,
+    FOREIGN KEY (cliente_email) REFERENCES clienti(email) ON DELETE CASCADE
+);
+
+-- TABELLA PRENOTAZIONI
+-- posti trattenuti per il carrello, scadenza in millisecondi dall'epoca
+CREATE TABLE IF NOT EXISTS prenotazioni (
+    id VARCHAR(255) PRIMARY KEY,
+    viaggio_id VARCHAR(255) NOT NULL,
+    cliente_email VARCHAR(255) NOT NULL,
+    quantita INTEGER NOT NULL CHECK (quantita > 0),
+    scadenza INTEGER NOT NULL,
+    FOREIGN KEY (viaggio_id) REFERENCES viaggi(id) ON DELETE CASCADE
+);
+
 CREATE INDEX IF NOT EXISTS idx_viaggi_data ON viaggi(data_viaggio);
 CREATE INDEX IF NOT EXISTS idx_viaggi_stazioni ON viaggi(stazione_partenza, stazione_arrivo);
 CREATE INDEX IF NOT EXISTS idx_biglietti_cliente ON biglietti(cliente_email);
 CREATE INDEX IF NOT EXISTS idx_biglietti_viaggio ON biglietti(viaggio_id);
-CREATE INDEX IF NOT EXISTS idx_clienti_notifiche_fedelta ON clienti(abbonamento_fedelta, notifiche_promozioni);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_clienti_notifiche_fedelta ON clienti(abbonamento_fedelta, notifiche_promozioni);
+CREATE INDEX IF NOT EXISTS idx_notifiche_cliente ON notifiche_pendenti(cliente_email);
+CREATE INDEX IF NOT EXISTS idx_prenotazioni_scadenza ON prenotazioni(scadenza);
+
+-- versione dello schema per GestoreMigrazioni
+PRAGMA user_version = 3;